@@ -1,6 +1,8 @@
 package com.cookie.app;
 
 import com.cookie.app.config.ConfigProperties;
+import com.cookie.app.config.ImageStoreProperties;
+import com.cookie.app.config.ProductMatchingProperties;
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
 import org.springframework.boot.context.properties.ConfigurationPropertiesScan;
@@ -9,7 +11,7 @@ import org.springframework.security.config.annotation.web.configuration.EnableWe
 
 @SpringBootApplication
 @EnableWebSecurity
-@EnableConfigurationProperties(ConfigProperties.class)
+@EnableConfigurationProperties({ConfigProperties.class, ImageStoreProperties.class, ProductMatchingProperties.class})
 public class AppApplication {
 
 	public static void main(String[] args) {
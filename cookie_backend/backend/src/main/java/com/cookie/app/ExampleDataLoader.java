@@ -5,13 +5,16 @@ import com.cookie.app.model.entity.Recipe;
 import com.cookie.app.model.entity.RecipeProduct;
 import com.cookie.app.model.entity.User;
 import com.cookie.app.model.enums.Category;
+import com.cookie.app.model.enums.ImageRendition;
+import com.cookie.app.model.enums.ImageStatus;
 import com.cookie.app.model.enums.MealType;
 import com.cookie.app.model.enums.Unit;
 import com.cookie.app.model.request.RegistrationRequest;
 import com.cookie.app.repository.RecipeRepository;
 import com.cookie.app.repository.UserRepository;
 import com.cookie.app.service.LoginService;
-import com.cookie.app.util.ImageUtil;
+import com.cookie.app.storage.ImageStore;
+import com.cookie.app.util.ImageRenditionUtil;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.boot.CommandLineRunner;
@@ -30,6 +33,7 @@ public class ExampleDataLoader implements CommandLineRunner {
     private final UserRepository userRepository;
     private final LoginService loginService;
     private final RecipeRepository recipeRepository;
+    private final ImageStore imageStore;
 
     @Override
     public void run(String... args) throws Exception {
@@ -55,27 +59,30 @@ public class ExampleDataLoader implements CommandLineRunner {
 
         Recipe recipe;
         try (InputStream input = classLoader.getResourceAsStream("example_images/pizza_salami.jpg")) {
-            recipe = new Recipe(
-                    0L,
-                    "Pizza salami",
-                    """
-                    Preheat the oven to 220°C. Roll out the pizza dough on a lightly floured surface into a circle about 0.5 cm thick, 
-                    then transfer it to a baking sheet lined with parchment paper or to a round pizza pan lightly greased with olive oil. 
-                    Spread the tomato sauce evenly over the dough, leaving the edges untouched, and sprinkle the shredded mozzarella 
-                    cheese over the sauce. Arrange the salami slices on top, optionally adding chopped olives for extra flavor. 
-                    Sprinkle the oregano over the entire pizza and drizzle lightly with olive oil. 
-                    Bake the pizza in the preheated oven for about 12-15 minutes, 
-                    until the edges of the crust are golden brown and the cheese is melted and lightly browned. Once baked, 
-                    remove the pizza from the oven and let it cool slightly for a few minutes before slicing and serving warm.
-                    """,
-                    120,
-                    MealType.SNACK,
-                    "Italian",
-                    2,
-                    ImageUtil.compressImage(input.readAllBytes()),
-                    user,
-                    List.of(recipeProduct, recipeProduct2, recipeProduct3, recipeProduct4)
-                    );
+            byte[] image = input.readAllBytes();
+            recipe = Recipe.builder()
+                    .recipeName("Pizza salami")
+                    .preparation("""
+                        Preheat the oven to 220°C. Roll out the pizza dough on a lightly floured surface into a circle about 0.5 cm thick, 
+                        then transfer it to a baking sheet lined with parchment paper or to a round pizza pan lightly greased with olive oil. 
+                        Spread the tomato sauce evenly over the dough, leaving the edges untouched, and sprinkle the shredded mozzarella 
+                        cheese over the sauce. Arrange the salami slices on top, optionally adding chopped olives for extra flavor. 
+                        Sprinkle the oregano over the entire pizza and drizzle lightly with olive oil. 
+                        Bake the pizza in the preheated oven for about 12-15 minutes, 
+                        until the edges of the crust are golden brown and the cheese is melted and lightly browned. Once baked, 
+                        remove the pizza from the oven and let it cool slightly for a few minutes before slicing and serving warm.
+                        """)
+                    .preparationTime(120)
+                    .mealType(MealType.SNACK)
+                    .cuisine("Italian")
+                    .portions(2)
+                    .recipeThumbnail(ImageRenditionUtil.createRendition(image, ImageRendition.THUMBNAIL))
+                    .recipeCardImage(ImageRenditionUtil.createRendition(image, ImageRendition.CARD))
+                    .imageHash(this.imageStore.save(image))
+                    .imageStatus(ImageStatus.READY)
+                    .creator(user)
+                    .recipeProducts(List.of(recipeProduct, recipeProduct2, recipeProduct3, recipeProduct4))
+                    .build();
             this.recipeRepository.save(recipe);
         } catch (Exception e) {
             log.warn(e.getMessage());
@@ -94,25 +101,28 @@ public class ExampleDataLoader implements CommandLineRunner {
 
         Recipe recipe2;
         try (InputStream input = classLoader.getResourceAsStream("example_images/spaghetti.jpg")) {
-            recipe2 = new Recipe(
-                    0L,
-                    "Spaghetti Bolognese",
-                    """
-                    Begin by cooking the spaghetti according to package instructions, then drain and set aside. 
-                    Next, in a large skillet over medium heat, brown the ground beef until cooked through. 
-                    Add the chopped onion and minced garlic to the skillet, cooking until softened. 
-                    Stir in the crushed tomatoes, seasoning with dried oregano, basil, 
-                    salt, and pepper to taste. Allow the sauce to simmer for about 15-20 minutes until it thickens. 
-                    Finally, serve the spaghetti topped with the bolognese sauce and grated Parmesan cheese.
-                    """,
-                    45,
-                    MealType.DINNER,
-                    "Italian",
-                    4,
-                    ImageUtil.compressImage(input.readAllBytes()),
-                    user,
-                    List.of(recipeProduct5, recipeProduct6, recipeProduct7, recipeProduct8, recipeProduct9)
-            );
+            byte[] image = input.readAllBytes();
+            recipe2 = Recipe.builder()
+                    .recipeName("Spaghetti Bolognese")
+                    .preparation("""
+                        Begin by cooking the spaghetti according to package instructions, then drain and set aside. 
+                        Next, in a large skillet over medium heat, brown the ground beef until cooked through. 
+                        Add the chopped onion and minced garlic to the skillet, cooking until softened. 
+                        Stir in the crushed tomatoes, seasoning with dried oregano, basil, 
+                        salt, and pepper to taste. Allow the sauce to simmer for about 15-20 minutes until it thickens. 
+                        Finally, serve the spaghetti topped with the bolognese sauce and grated Parmesan cheese.
+                        """)
+                    .preparationTime(45)
+                    .mealType(MealType.DINNER)
+                    .cuisine("Italian")
+                    .portions(4)
+                    .recipeThumbnail(ImageRenditionUtil.createRendition(image, ImageRendition.THUMBNAIL))
+                    .recipeCardImage(ImageRenditionUtil.createRendition(image, ImageRendition.CARD))
+                    .imageHash(this.imageStore.save(image))
+                    .imageStatus(ImageStatus.READY)
+                    .creator(user)
+                    .recipeProducts(List.of(recipeProduct5, recipeProduct6, recipeProduct7, recipeProduct8, recipeProduct9))
+                    .build();
             this.recipeRepository.save(recipe2);
         } catch (Exception e) {
             log.warn(e.getMessage());
@@ -133,25 +143,27 @@ public class ExampleDataLoader implements CommandLineRunner {
 
         Recipe recipe3;
         try (InputStream input = classLoader.getResourceAsStream("example_images/pancake.jpg")) {
-            recipe3 = new Recipe(
-                    0L,
-                    "Pancakes",
-                    """
-                    Begin by cooking the spaghetti according to package instructions, then drain and set aside. 
-                    Next, in a large skillet over medium heat, brown the ground beef until cooked through. 
-                    Add the chopped onion and minced garlic to the skillet, cooking until softened. 
-                    Stir in the crushed tomatoes, seasoning with dried oregano, basil, 
-                    salt, and pepper to taste. Allow the sauce to simmer for about 15-20 minutes until it thickens. 
-                    Finally, serve the spaghetti topped with the bolognese sauce and grated Parmesan cheese.
-                    """,
-                    30,
-                    MealType.BREAKFAST,
-                    null,
-                    2,
-                    ImageUtil.compressImage(input.readAllBytes()),
-                    user,
-                    List.of(recipeProduct10, recipeProduct11, recipeProduct12, recipeProduct13, recipeProduct14, recipeProduct15)
-            );
+            byte[] image = input.readAllBytes();
+            recipe3 = Recipe.builder()
+                    .recipeName("Pancakes")
+                    .preparation("""
+                        Begin by cooking the spaghetti according to package instructions, then drain and set aside. 
+                        Next, in a large skillet over medium heat, brown the ground beef until cooked through. 
+                        Add the chopped onion and minced garlic to the skillet, cooking until softened. 
+                        Stir in the crushed tomatoes, seasoning with dried oregano, basil, 
+                        salt, and pepper to taste. Allow the sauce to simmer for about 15-20 minutes until it thickens. 
+                        Finally, serve the spaghetti topped with the bolognese sauce and grated Parmesan cheese.
+                        """)
+                    .preparationTime(30)
+                    .mealType(MealType.BREAKFAST)
+                    .portions(2)
+                    .recipeThumbnail(ImageRenditionUtil.createRendition(image, ImageRendition.THUMBNAIL))
+                    .recipeCardImage(ImageRenditionUtil.createRendition(image, ImageRendition.CARD))
+                    .imageHash(this.imageStore.save(image))
+                    .imageStatus(ImageStatus.READY)
+                    .creator(user)
+                    .recipeProducts(List.of(recipeProduct10, recipeProduct11, recipeProduct12, recipeProduct13, recipeProduct14, recipeProduct15))
+                    .build();
             this.recipeRepository.save(recipe3);
         } catch (Exception e) {
             log.warn(e.getMessage());
@@ -2,9 +2,11 @@ package com.cookie.app.config;
 
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.annotation.EnableScheduling;
 
 import java.time.Clock;
 
+@EnableScheduling
 @Configuration
 public class AppConfig {
     @Bean
@@ -0,0 +1,64 @@
+package com.cookie.app.config;
+
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.annotation.EnableCaching;
+import org.springframework.cache.caffeine.CaffeineCacheManager;
+import org.springframework.cache.interceptor.KeyGenerator;
+import org.springframework.cache.transaction.TransactionAwareCacheManagerProxy;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Duration;
+
+@EnableCaching
+@Configuration
+public class CacheConfig {
+    public static final String RECIPE_DETAILS_CACHE = "recipeDetails";
+    public static final String RECIPE_PAGES_CACHE = "recipePages";
+    public static final String RECIPE_FACETS_CACHE = "recipeFacets";
+    public static final String RECIPE_PAGE_KEY_GENERATOR = "recipePageKeyGenerator";
+    public static final String RECIPE_FILTER_KEY_GENERATOR = "recipeFilterKeyGenerator";
+    private static final int RECIPE_DETAILS_MAX_SIZE = 10_000;
+    // entries are evicted when recipe changes, ttl only limits how long changed creator name can be stale
+    private static final Duration RECIPE_DETAILS_TTL = Duration.ofMinutes(30);
+    private static final int RECIPE_PAGES_MAX_SIZE = 1_000;
+    // pages are cleared on every recipe change, short ttl covers changes which do not go through recipe service
+    private static final Duration RECIPE_PAGES_TTL = Duration.ofSeconds(30);
+    private static final int RECIPE_FACETS_MAX_SIZE = 1_000;
+
+    // caches are registered up front, so actuator binds hit, miss and eviction metrics of each of them
+    @Bean
+    public CacheManager cacheManager() {
+        CaffeineCacheManager cacheManager = new CaffeineCacheManager();
+        cacheManager.setAllowNullValues(false);
+        cacheManager.registerCustomCache(RECIPE_DETAILS_CACHE, Caffeine.newBuilder()
+                .maximumSize(RECIPE_DETAILS_MAX_SIZE)
+                .expireAfterWrite(RECIPE_DETAILS_TTL)
+                .recordStats()
+                .build());
+        cacheManager.registerCustomCache(RECIPE_PAGES_CACHE, Caffeine.newBuilder()
+                .maximumSize(RECIPE_PAGES_MAX_SIZE)
+                .expireAfterWrite(RECIPE_PAGES_TTL)
+                .recordStats()
+                .build());
+        cacheManager.registerCustomCache(RECIPE_FACETS_CACHE, Caffeine.newBuilder()
+                .maximumSize(RECIPE_FACETS_MAX_SIZE)
+                .expireAfterWrite(RECIPE_PAGES_TTL)
+                .recordStats()
+                .build());
+
+        // evictions are deferred until commit, otherwise concurrent read could cache data of not committed change
+        return new TransactionAwareCacheManagerProxy(cacheManager);
+    }
+
+    @Bean(RECIPE_PAGE_KEY_GENERATOR)
+    public KeyGenerator recipePageKeyGenerator() {
+        return new RecipeFilterKeyGenerator(true);
+    }
+
+    @Bean(RECIPE_FILTER_KEY_GENERATOR)
+    public KeyGenerator recipeFilterKeyGenerator() {
+        return new RecipeFilterKeyGenerator(false);
+    }
+}
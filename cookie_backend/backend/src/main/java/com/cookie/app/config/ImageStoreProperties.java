@@ -0,0 +1,14 @@
+package com.cookie.app.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+@ConfigurationProperties(prefix = "config.image-store")
+public record ImageStoreProperties(
+        String directory,
+        int migrationBatchSize,
+        int processingThreads,
+        int processingQueueCapacity,
+        Duration unusedImageGracePeriod
+) {}
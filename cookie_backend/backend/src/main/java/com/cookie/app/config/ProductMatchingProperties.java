@@ -0,0 +1,26 @@
+package com.cookie.app.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+@ConfigurationProperties(prefix = "config.product-matching")
+public record ProductMatchingProperties(
+        double suggestionSimilarity,
+        double autoMergeSimilarity,
+        double mergeSimilarity,
+        int mergeBatchSize,
+        MergeMode mergeMode
+) {
+
+    public ProductMatchingProperties {
+        if (mergeMode == null) {
+            mergeMode = MergeMode.DISABLED;
+        }
+    }
+
+    public enum MergeMode {
+        DISABLED,
+        // products which would be merged are only logged, so they can be reviewed before merging is enabled
+        DRY_RUN,
+        ENABLED
+    }
+}
@@ -0,0 +1,65 @@
+package com.cookie.app.config;
+
+import com.cookie.app.model.enums.MealType;
+import com.cookie.app.model.request.RecipeFilterRequest;
+import com.cookie.app.util.SearchQueryUtil;
+import org.apache.commons.lang3.StringUtils;
+import org.springframework.cache.interceptor.KeyGenerator;
+import org.springframework.data.domain.Sort;
+
+import java.lang.reflect.Method;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Creates cache key from recipe filter normalized the same way as recipes query does it, so requests which differ
+ * only in whitespaces, meal types order or default values share cached result. When results are not paged,
+ * page and sorting are left out of the key.
+ */
+class RecipeFilterKeyGenerator implements KeyGenerator {
+    private final boolean paged;
+
+    RecipeFilterKeyGenerator(boolean paged) {
+        this.paged = paged;
+    }
+
+    // paged methods take page number as the first parameter, filter is always the last one
+    @Override
+    public Object generate(Object target, Method method, Object... params) {
+        RecipeFilterRequest filterRequest = (RecipeFilterRequest) params[params.length - 1];
+        int page = this.paged ? (int) params[0] : 0;
+        String sortColName = this.paged ? StringUtils.trimToNull(filterRequest.getSortColName()) : null;
+        Sort.Direction sortDirection = null;
+
+        if (sortColName != null) {
+            sortDirection = filterRequest.getSortDirection() == Sort.Direction.DESC ? Sort.Direction.DESC : Sort.Direction.ASC;
+        }
+
+        return new RecipeFilterKey(
+                page,
+                SearchQueryUtil.toPrefixTsQuery(filterRequest.getFilterValue()),
+                sortColName,
+                sortDirection,
+                filterRequest.getPrepTime() == null ? 0 : filterRequest.getPrepTime(),
+                filterRequest.getPortions() == null ? 0 : filterRequest.getPortions(),
+                normalizeMealTypes(filterRequest.getMealTypes())
+        );
+    }
+
+    private Set<MealType> normalizeMealTypes(List<MealType> mealTypes) {
+        if (mealTypes == null || mealTypes.isEmpty()) {
+            return EnumSet.copyOf(MealType.ALL_MEAL_TYPES);
+        }
+
+        return EnumSet.copyOf(mealTypes);
+    }
+
+    private record RecipeFilterKey(int page,
+                                   String tsQuery,
+                                   String sortColName,
+                                   Sort.Direction sortDirection,
+                                   int prepTime,
+                                   int portions,
+                                   Set<MealType> mealTypes) {}
+}
@@ -4,6 +4,7 @@ import com.cookie.app.config.security.CsrfCookieFilter;
 import com.cookie.app.config.security.JwtGeneratorFilter;
 import com.cookie.app.config.security.JwtValidatorFilter;
 import com.cookie.app.model.entity.User;
+import com.cookie.app.model.enums.Role;
 import com.cookie.app.repository.UserRepository;
 import lombok.RequiredArgsConstructor;
 import org.springframework.beans.factory.annotation.Value;
@@ -66,6 +67,9 @@ public class SecurityConfig {
                 .addFilterAfter(generatorFilter, BasicAuthenticationFilter.class)
                 .authorizeHttpRequests(requests -> requests
                         .requestMatchers(HttpMethod.POST, "/api/v1/user").permitAll()
+                        .requestMatchers(HttpMethod.GET, "/api/v1/recipes/export").hasRole(Role.ADMIN.name())
+                        .requestMatchers(HttpMethod.GET, "/api/v1/recipes/user-recipes/export").authenticated()
+                        .requestMatchers(HttpMethod.POST, "/api/v1/recipes/import").hasRole(Role.ADMIN.name())
                         .requestMatchers("/api/v1/recipes/**").permitAll()
                         .requestMatchers(
                                 "/v3/api-docs/**",
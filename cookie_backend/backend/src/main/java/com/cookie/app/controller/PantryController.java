@@ -1,5 +1,6 @@
 package com.cookie.app.controller;
 
+import com.cookie.app.model.dto.CookableRecipeDTO;
 import com.cookie.app.model.dto.MealDTO;
 import com.cookie.app.model.request.CreatePantryRequest;
 import com.cookie.app.model.request.UpdatePantryRequest;
@@ -13,6 +14,8 @@ import io.swagger.v3.oas.annotations.media.Schema;
 import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import io.swagger.v3.oas.annotations.security.SecurityRequirement;
 import jakarta.validation.Valid;
+import jakarta.validation.constraints.Max;
+import jakarta.validation.constraints.Min;
 import jakarta.validation.constraints.Positive;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
@@ -23,6 +26,8 @@ import org.springframework.security.core.Authentication;
 import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.*;
 
+import java.util.List;
+
 @RequiredArgsConstructor
 @Slf4j
 @RequestMapping(value = "/api/v1/pantries", produces = { MediaType.APPLICATION_JSON_VALUE })
@@ -30,6 +35,7 @@ import org.springframework.web.bind.annotation.*;
 @RestController
 public class PantryController {
     private static final String PANTRY_ID_URL = "/{pantryId}";
+    private static final String COOKABLE_RECIPES_URL = "/{pantryId}/cookable-recipes";
 
     private final PantryService pantryService;
 
@@ -99,4 +105,21 @@ public class PantryController {
         log.info("User with email={} is updating pantry", authentication.getName());
         return ResponseEntity.ok(this.pantryService.updatePantry(pantryId, request, authentication.getName()));
     }
+
+    @Operation(summary = "Get recipes which can be cooked from pantry products")
+    @ApiResponse(responseCode = "200", description = "Recipes ranked by number of missing products returned",
+            content = { @Content(mediaType = "application/json") })
+    @SecurityRequirement(name = "bearerAuth")
+    @GetMapping(COOKABLE_RECIPES_URL)
+    public ResponseEntity<List<CookableRecipeDTO>> getCookableRecipes(
+            @PathVariable @Positive(message = "Pantry id must be greater than 0") long pantryId,
+            @RequestParam(defaultValue = "0")
+            @Min(value = 0, message = "Max missing ingredients must be at least 0")
+            @Max(value = 5, message = "Max missing ingredients must be at most 5") int maxMissingIngredients,
+            Authentication authentication
+    ) {
+        return ResponseEntity.ok(
+                this.pantryService.getCookableRecipes(pantryId, maxMissingIngredients, authentication.getName())
+        );
+    }
 }
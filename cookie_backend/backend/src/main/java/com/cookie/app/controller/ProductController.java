@@ -4,6 +4,7 @@ import com.cookie.app.model.RegexConstants;
 import com.cookie.app.model.dto.MealDTO;
 import com.cookie.app.model.dto.PantryProductDTO;
 import com.cookie.app.model.dto.ProductDTO;
+import com.cookie.app.model.enums.Category;
 import com.cookie.app.service.ProductService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.media.ArraySchema;
@@ -14,6 +15,7 @@ import io.swagger.v3.oas.annotations.security.SecurityRequirement;
 import jakarta.validation.constraints.Pattern;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.CacheControl;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
@@ -21,6 +23,7 @@ import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.WebRequest;
 
 import java.util.List;
 
@@ -31,10 +34,11 @@ import java.util.List;
 public class ProductController {
     private final ProductService productService;
 
-    @Operation(summary = "Find products by filter")
+    @Operation(summary = "Find products by filter, the most used products first")
     @ApiResponse(responseCode = "200", description = "Found products returned",
             content = { @Content(mediaType = "application/json",
                     array = @ArraySchema(schema = @Schema(implementation = ProductDTO.class))) })
+    @ApiResponse(responseCode = "304", description = "Product catalog was not modified")
     @SecurityRequirement(name = "bearerAuth")
     @GetMapping
     public ResponseEntity<List<ProductDTO>> getProductsWithFilter(
@@ -42,10 +46,41 @@ public class ProductController {
             @Pattern(
                     regexp = RegexConstants.FILTER_VALUE_REGEX,
                     message = "Filter value can only contains letters, digits, whitespaces, dashes and its length must be greater than 0"
-            ) String filterValue
+            ) String filterValue,
+            @RequestParam(required = false) Category category,
+            WebRequest webRequest
     ) {
+        // products are found after version is read, so they are never older than the version in ETag
+        String eTag = "\"" + this.productService.getProductCatalogVersion() + "\"";
+
+        if (webRequest.checkNotModified(eTag)) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED)
+                    .eTag(eTag)
+                    .cacheControl(CacheControl.noCache().cachePrivate())
+                    .build();
+        }
+
         return ResponseEntity
                 .status(HttpStatus.OK)
-                .body(this.productService.getProductsWithFilter(filterValue));
+                .eTag(eTag)
+                .cacheControl(CacheControl.noCache().cachePrivate())
+                .body(this.productService.getProductsWithFilter(filterValue, category));
+    }
+
+    @Operation(summary = "Find products with names similar to given product name, the most similar products first")
+    @ApiResponse(responseCode = "200", description = "Similar products returned",
+            content = { @Content(mediaType = "application/json",
+                    array = @ArraySchema(schema = @Schema(implementation = ProductDTO.class))) })
+    @SecurityRequirement(name = "bearerAuth")
+    @GetMapping("/suggestions")
+    public ResponseEntity<List<ProductDTO>> getProductSuggestions(
+            @RequestParam
+            @Pattern(
+                    regexp = RegexConstants.FILTER_VALUE_REGEX,
+                    message = "Filter value can only contains letters, digits, whitespaces, dashes and its length must be greater than 0"
+            ) String filterValue,
+            @RequestParam(required = false) Category category
+    ) {
+        return ResponseEntity.ok(this.productService.getProductSuggestions(filterValue, category));
     }
 }
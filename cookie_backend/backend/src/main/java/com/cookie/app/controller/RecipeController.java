@@ -2,43 +2,69 @@ package com.cookie.app.controller;
 
 import com.cookie.app.exception.MappingJsonToObjectException;
 import com.cookie.app.model.RegexConstants;
+import com.cookie.app.model.dto.CursorPageResult;
 import com.cookie.app.model.dto.PageResult;
 import com.cookie.app.model.dto.PantryProductDTO;
 import com.cookie.app.model.dto.RecipeDTO;
 import com.cookie.app.model.dto.RecipeDetailsDTO;
+import com.cookie.app.model.dto.RecipeFacetsDTO;
+import com.cookie.app.model.dto.RecipeImageStatusDTO;
+import com.cookie.app.model.dto.RecipeSuggestionDTO;
+import com.cookie.app.model.enums.ImageRendition;
 import com.cookie.app.model.enums.MealType;
 import com.cookie.app.model.request.CreateRecipeRequest;
 import com.cookie.app.model.request.FilterRequest;
+import com.cookie.app.model.request.IngredientFilterRequest;
 import com.cookie.app.model.request.RecipeFilterRequest;
 import com.cookie.app.model.request.UpdateRecipeRequest;
 import com.cookie.app.model.response.CreateRecipeResponse;
+import com.cookie.app.model.response.ImportRecipesResponse;
+import com.cookie.app.service.RecipeImportService;
 import com.cookie.app.service.RecipeService;
+import com.cookie.app.storage.ImageContent;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.media.Content;
 import io.swagger.v3.oas.annotations.media.Schema;
 import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import io.swagger.v3.oas.annotations.security.SecurityRequirement;
-import jakarta.validation.*;
+import jakarta.servlet.http.Part;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.ConstraintViolationException;
+import jakarta.validation.Valid;
+import jakarta.validation.Validator;
 import jakarta.validation.constraints.Max;
 import jakarta.validation.constraints.Min;
 import jakarta.validation.constraints.Pattern;
 import jakarta.validation.constraints.Positive;
+import jakarta.validation.constraints.Size;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springdoc.core.annotations.ParameterObject;
 import org.springframework.data.domain.Sort;
+import org.springframework.http.CacheControl;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpRange;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.Authentication;
+import org.springframework.util.StreamUtils;
 import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 import org.springframework.web.multipart.MultipartFile;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
 import java.util.List;
+import java.util.Locale;
 import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.GZIPOutputStream;
 
 
 @RequiredArgsConstructor
@@ -49,20 +75,71 @@ import java.util.Set;
 public class RecipeController {
     private static final String RECIPES_ID_URL = "/{recipeId}";
     private static final String GET_RECIPES_URL = "/page/{page}";
+    private static final String SCROLL_RECIPES_URL = "/scroll";
+    private static final String RECIPE_FACETS_URL = "/facets";
+    private static final String SEARCH_BY_INGREDIENTS_URL = "/ingredients/{page}";
     private static final String GET_USER_RECIPES_URL = "/user-recipes/{page}";
+    private static final String RECIPE_IMAGE_URL = "/{recipeId}/image";
+    private static final String RECIPE_IMAGE_STATUS_URL = "/{recipeId}/image/status";
+    private static final String SIMILAR_RECIPES_URL = "/{recipeId}/similar";
+    private static final String AUTOCOMPLETE_URL = "/autocomplete";
+    private static final String IMPORT_RECIPES_URL = "/import";
+    private static final String EXPORT_RECIPES_URL = "/export";
+    private static final String EXPORT_USER_RECIPES_URL = "/user-recipes/export";
+    private static final MediaType GZIP_MEDIA_TYPE = new MediaType("application", "gzip");
+    private static final long VERSIONED_IMAGE_MAX_AGE_DAYS = 365;
+    private static final int GZIP_BUFFER_SIZE = 8 * 1024;
 
     private final RecipeService recipeService;
+    private final RecipeImportService recipeImportService;
     private final ObjectMapper objectMapper;
+    private final Validator validator;
 
     @Operation(summary = "Get recipes")
     @ApiResponse(responseCode = "200", description = "Recipes returned",
-            content = { @Content(mediaType = "application/json") })
+            content = { @Content(mediaType = "application/json",
+                    schema = @Schema(implementation = PageResult.class)) })
     @GetMapping(GET_RECIPES_URL)
-    public ResponseEntity<PageResult<RecipeDTO>> getRecipes(
+    public ResponseEntity<byte[]> getRecipes(
+            @PathVariable @Positive(message = "Page nr must be greater than 0") int page,
+            @ParameterObject @Valid RecipeFilterRequest filterRequest
+    ) {
+        // page is returned already serialized by the service
+        return ResponseEntity.status(HttpStatus.OK)
+                .contentType(MediaType.APPLICATION_JSON)
+                .body(this.recipeService.getRecipesJson(page, filterRequest));
+    }
+
+    @Operation(summary = "Get recipes using continuation token instead of page number")
+    @ApiResponse(responseCode = "200", description = "Recipes returned",
+            content = { @Content(mediaType = "application/json") })
+    @GetMapping(SCROLL_RECIPES_URL)
+    public ResponseEntity<CursorPageResult<RecipeDTO>> scrollRecipes(
+            @RequestParam(required = false) String cursor,
+            @ParameterObject @Valid RecipeFilterRequest filterRequest
+    ) {
+        return ResponseEntity.status(HttpStatus.OK).body(this.recipeService.scrollRecipes(cursor, filterRequest));
+    }
+
+    @Operation(summary = "Get numbers of recipes matching the filter per meal type, cuisine, preparation time and portions")
+    @ApiResponse(responseCode = "200", description = "Recipe facets returned",
+            content = { @Content(mediaType = "application/json",
+                    schema = @Schema(implementation = RecipeFacetsDTO.class)) })
+    @GetMapping(RECIPE_FACETS_URL)
+    public ResponseEntity<RecipeFacetsDTO> getRecipeFacets(@ParameterObject @Valid RecipeFilterRequest filterRequest) {
+        return ResponseEntity.status(HttpStatus.OK).body(this.recipeService.getRecipeFacets(filterRequest));
+    }
+
+    @Operation(summary = "Search recipes by products and product categories they contain or do not contain")
+    @ApiResponse(responseCode = "200", description = "Recipes returned",
+            content = { @Content(mediaType = "application/json") })
+    @GetMapping(SEARCH_BY_INGREDIENTS_URL)
+    public ResponseEntity<PageResult<RecipeDTO>> searchRecipesByIngredients(
             @PathVariable @Positive(message = "Page nr must be greater than 0") int page,
-            @ParameterObject RecipeFilterRequest filterRequest
+            @ParameterObject @Valid IngredientFilterRequest filterRequest
     ) {
-        return ResponseEntity.status(HttpStatus.OK).body(this.recipeService.getRecipes(page, filterRequest));
+        return ResponseEntity.status(HttpStatus.OK)
+                .body(this.recipeService.searchRecipesByIngredients(page, filterRequest));
     }
 
     @Operation(summary = "Get user's recipes")
@@ -72,7 +149,7 @@ public class RecipeController {
     @GetMapping(GET_USER_RECIPES_URL)
     public ResponseEntity<PageResult<RecipeDTO>> getUserRecipes(
             @PathVariable @Positive(message = "Page nr must be greater than 0") int page,
-            @ParameterObject RecipeFilterRequest filterRequest,
+            @ParameterObject @Valid RecipeFilterRequest filterRequest,
             Authentication authentication
     ) {
         return ResponseEntity.status(HttpStatus.OK).body(
@@ -87,9 +164,192 @@ public class RecipeController {
     @GetMapping(RECIPES_ID_URL)
     public ResponseEntity<RecipeDetailsDTO> getRecipeDetails(
             @PathVariable@Positive(message = "Recipe id must be greater than 0") long recipeId
+    ) {
+        RecipeDetailsDTO recipeDetails = this.recipeService.getRecipeDetails(recipeId);
+
+        // not existing recipe is returned with id 0
+        if (recipeDetails.id() > 0) {
+            this.recipeService.recordRecipeView(recipeId);
+        }
+
+        return ResponseEntity.status(HttpStatus.OK).body(recipeDetails);
+    }
+
+    @Operation(summary = "Get recipes with similar ingredients")
+    @ApiResponse(responseCode = "200", description = "Similar recipes returned, the most similar first",
+            content = { @Content(mediaType = "application/json") })
+    @GetMapping(SIMILAR_RECIPES_URL)
+    public ResponseEntity<List<RecipeDTO>> getSimilarRecipes(
+            @PathVariable @Positive(message = "Recipe id must be greater than 0") long recipeId,
+            @RequestParam(defaultValue = "6")
+            @Positive(message = "Limit must be greater than 0")
+            @Max(value = 20, message = "Limit must be lower or equals 20") int limit
     ) {
         return ResponseEntity.status(HttpStatus.OK)
-                .body(this.recipeService.getRecipeDetails(recipeId));
+                .body(this.recipeService.getSimilarRecipes(recipeId, limit));
+    }
+
+    @Operation(summary = "Get recipe names and cuisines starting with typed text")
+    @ApiResponse(responseCode = "200", description = "Suggestions returned, used by the most recipes first",
+            content = { @Content(mediaType = "application/json") })
+    @GetMapping(AUTOCOMPLETE_URL)
+    public ResponseEntity<List<RecipeSuggestionDTO>> getRecipeSuggestions(
+            @RequestParam @Size(max = 30, message = "Query length must be lower or equals 30") String query,
+            @RequestParam(defaultValue = "10")
+            @Positive(message = "Limit must be greater than 0")
+            @Max(value = 10, message = "Limit must be lower or equals 10") int limit
+    ) {
+        return ResponseEntity.status(HttpStatus.OK)
+                .body(this.recipeService.getRecipeSuggestions(query, limit));
+    }
+
+    @Operation(summary = "Export all recipes as newline delimited JSON, one recipe per line")
+    @ApiResponse(responseCode = "200", description = "Recipes exported",
+            content = { @Content(mediaType = MediaType.APPLICATION_NDJSON_VALUE), @Content(mediaType = "application/gzip") })
+    @SecurityRequirement(name = "bearerAuth")
+    @GetMapping(value = EXPORT_RECIPES_URL, produces = { MediaType.APPLICATION_NDJSON_VALUE, "application/gzip" })
+    public ResponseEntity<StreamingResponseBody> exportRecipes(@RequestParam(defaultValue = "false") boolean gzip) {
+        return createExportResponse("recipes", gzip, this.recipeService::exportRecipes);
+    }
+
+    @Operation(summary = "Export user's recipes as newline delimited JSON, one recipe per line")
+    @ApiResponse(responseCode = "200", description = "User's recipes exported",
+            content = { @Content(mediaType = MediaType.APPLICATION_NDJSON_VALUE), @Content(mediaType = "application/gzip") })
+    @SecurityRequirement(name = "bearerAuth")
+    @GetMapping(value = EXPORT_USER_RECIPES_URL, produces = { MediaType.APPLICATION_NDJSON_VALUE, "application/gzip" })
+    public ResponseEntity<StreamingResponseBody> exportUserRecipes(
+            @RequestParam(defaultValue = "false") boolean gzip,
+            Authentication authentication
+    ) {
+        String userEmail = authentication.getName();
+
+        return createExportResponse("user-recipes", gzip,
+                outputStream -> this.recipeService.exportUserRecipes(userEmail, outputStream));
+    }
+
+    @Operation(summary = "Get recipe image")
+    @ApiResponse(responseCode = "200", description = "Recipe image returned",
+            content = { @Content(mediaType = MediaType.IMAGE_JPEG_VALUE), @Content(mediaType = MediaType.IMAGE_PNG_VALUE) })
+    @ApiResponse(responseCode = "202", description = "Recipe image is not processed yet, ask again after Retry-After seconds")
+    @ApiResponse(responseCode = "206", description = "Requested range of recipe image returned")
+    @ApiResponse(responseCode = "304", description = "Recipe image was not modified")
+    @ApiResponse(responseCode = "416", description = "Requested range of recipe image is not satisfiable")
+    @GetMapping(value = RECIPE_IMAGE_URL, produces = MediaType.ALL_VALUE)
+    public ResponseEntity<StreamingResponseBody> getRecipeImage(
+            @PathVariable @Positive(message = "Recipe id must be greater than 0") long recipeId,
+            @RequestParam(defaultValue = "FULL") ImageRendition rendition,
+            @RequestParam(value = "v", required = false) String version,
+            WebRequest webRequest
+    ) {
+        String imageHash = this.recipeService.getRecipeImageHash(recipeId);
+        String eTag = "\"" + imageHash + "-" + rendition.name().toLowerCase(Locale.ROOT) + "\"";
+        // url with current version never points to different image, so browser does not have to revalidate it
+        CacheControl cacheControl = imageHash.equals(version) ?
+                CacheControl.maxAge(VERSIONED_IMAGE_MAX_AGE_DAYS, TimeUnit.DAYS).cachePublic().immutable() :
+                CacheControl.noCache().cachePublic();
+
+        if (webRequest.checkNotModified(eTag)) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED)
+                    .eTag(eTag)
+                    .cacheControl(cacheControl)
+                    .build();
+        }
+
+        ImageContent image = this.recipeService.getRecipeImage(recipeId, rendition);
+        long contentLength = image.contentLength();
+        HttpRange range = getRequestedRange(webRequest, eTag);
+        long start = 0;
+        long end = contentLength - 1;
+
+        if (range != null) {
+            try {
+                start = range.getRangeStart(contentLength);
+                end = range.getRangeEnd(contentLength);
+            } catch (IllegalArgumentException exception) {
+                return createRangeNotSatisfiableResponse(contentLength);
+            }
+
+            // range starting beyond the image end is not rejected by HttpRange itself
+            if (start >= contentLength || start > end) {
+                return createRangeNotSatisfiableResponse(contentLength);
+            }
+        }
+
+        long position = start;
+        long count = end - start + 1;
+        ResponseEntity.BodyBuilder response = ResponseEntity.status(range == null ? HttpStatus.OK : HttpStatus.PARTIAL_CONTENT)
+                .eTag(eTag)
+                .cacheControl(cacheControl)
+                .header(HttpHeaders.ACCEPT_RANGES, "bytes")
+                .contentType(image.mediaType())
+                .contentLength(count);
+
+        if (range != null) {
+            response.header(HttpHeaders.CONTENT_RANGE, "bytes " + start + "-" + end + "/" + contentLength);
+        }
+
+        return response.body(outputStream -> image.writeTo(outputStream, position, count));
+    }
+
+    @Operation(summary = "Get processing status of recipe image")
+    @ApiResponse(responseCode = "200", description = "Recipe image status returned",
+            content = { @Content(mediaType = "application/json",
+                    schema = @Schema(implementation = RecipeImageStatusDTO.class)) })
+    @GetMapping(RECIPE_IMAGE_STATUS_URL)
+    public ResponseEntity<RecipeImageStatusDTO> getRecipeImageStatus(
+            @PathVariable @Positive(message = "Recipe id must be greater than 0") long recipeId
+    ) {
+        // status is polled until image is processed, so it must not be cached
+        return ResponseEntity.status(HttpStatus.OK)
+                .cacheControl(CacheControl.noStore())
+                .body(this.recipeService.getRecipeImageStatus(recipeId));
+    }
+
+    // recipes are written to the response while they are read, so response is never held in memory as a whole
+    private ResponseEntity<StreamingResponseBody> createExportResponse(String fileName,
+                                                                      boolean gzip,
+                                                                      StreamingResponseBody export) {
+        ContentDisposition contentDisposition = ContentDisposition.attachment()
+                .filename(fileName + (gzip ? ".ndjson.gz" : ".ndjson"))
+                .build();
+
+        return ResponseEntity.status(HttpStatus.OK)
+                .contentType(gzip ? GZIP_MEDIA_TYPE : MediaType.APPLICATION_NDJSON)
+                .header(HttpHeaders.CONTENT_DISPOSITION, contentDisposition.toString())
+                .body(outputStream -> {
+                    if (!gzip) {
+                        export.writeTo(outputStream);
+                        return;
+                    }
+
+                    // servlet stream is closed by container, only gzip trailer and native deflater are released here
+                    try (ExportGzipOutputStream gzipOutputStream = new ExportGzipOutputStream(StreamUtils.nonClosing(outputStream))) {
+                        export.writeTo(gzipOutputStream);
+                    }
+                });
+    }
+
+    private ResponseEntity<StreamingResponseBody> createRangeNotSatisfiableResponse(long contentLength) {
+        return ResponseEntity.status(HttpStatus.REQUESTED_RANGE_NOT_SATISFIABLE)
+                .header(HttpHeaders.CONTENT_RANGE, "bytes */" + contentLength)
+                .build();
+    }
+
+    // only single range is served, for multiple ranges whole image is returned what is allowed by RFC 9110
+    private HttpRange getRequestedRange(WebRequest webRequest, String eTag) {
+        String rangeHeader = webRequest.getHeader(HttpHeaders.RANGE);
+        String ifRangeHeader = webRequest.getHeader(HttpHeaders.IF_RANGE);
+
+        if (rangeHeader == null || (ifRangeHeader != null && !ifRangeHeader.equals(eTag))) {
+            return null;
+        }
+
+        try {
+            List<HttpRange> ranges = HttpRange.parseRanges(rangeHeader);
+            return ranges.size() == 1 ? ranges.get(0) : null;
+        } catch (IllegalArgumentException exception) {
+            return null;
+        }
     }
 
     @Operation(summary = "Create recipe")
@@ -100,29 +360,30 @@ public class RecipeController {
     @PostMapping(consumes = MediaType.MULTIPART_FORM_DATA_VALUE)
     public ResponseEntity<CreateRecipeResponse> createRecipe(
             @RequestPart(value = "image", required = false) MultipartFile recipeImage,
-            @RequestPart("recipe") String recipeJson,
+            @RequestPart("recipe") Part recipePart,
             Authentication authentication
     ) {
-        Validator validator = Validation.buildDefaultValidatorFactory().getValidator();
         log.info("Performing recipe creation by user with email={}", authentication.getName());
-        CreateRecipeRequest recipe;
-
-        try {
-            recipe = this.objectMapper.readValue(recipeJson, CreateRecipeRequest.class);
-        } catch (IOException exception) {
-            throw new MappingJsonToObjectException("An error occured during request body reading. Its structure is probably incorrect");
-        }
-
-        Set<ConstraintViolation<CreateRecipeRequest>> violations = validator.validate(recipe);
-
-        if (!violations.isEmpty()) {
-            throw new ConstraintViolationException(violations);
-        }
+        CreateRecipeRequest recipe = readRecipePart(recipePart, CreateRecipeRequest.class);
 
         return ResponseEntity.status(HttpStatus.CREATED)
                 .body(this.recipeService.createRecipe(authentication.getName(), recipe, recipeImage));
     }
 
+    @Operation(summary = "Import recipes from newline delimited JSON, one recipe per line")
+    @ApiResponse(responseCode = "200", description = "Recipes imported, lines which could not be imported are reported",
+            content = { @Content(mediaType = "application/json",
+                    schema = @Schema(implementation = ImportRecipesResponse.class)) })
+    @SecurityRequirement(name = "bearerAuth")
+    @PostMapping(value = IMPORT_RECIPES_URL, consumes = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<ImportRecipesResponse> importRecipes(InputStream recipes, Authentication authentication) {
+        log.info("Performing recipes import by user with email={}", authentication.getName());
+
+        // request body is passed as stream, so recipes are parsed while they are uploaded
+        return ResponseEntity.status(HttpStatus.OK)
+                .body(this.recipeImportService.importRecipes(authentication.getName(), recipes));
+    }
+
     @Operation(summary = "Delete recipe")
     @ApiResponse(responseCode = "200", description = "Recipe deleted",
             content = { @Content(mediaType = "application/json") })
@@ -146,26 +407,49 @@ public class RecipeController {
     @PatchMapping(consumes = MediaType.MULTIPART_FORM_DATA_VALUE)
     public ResponseEntity<CreateRecipeResponse> updateRecipe(
             @RequestPart(value = "image", required = false) MultipartFile recipeImage,
-            @RequestPart("recipe") String recipeJson,
+            @RequestPart("recipe") Part recipePart,
             Authentication authentication
     ) {
-        Validator validator = Validation.buildDefaultValidatorFactory().getValidator();
         log.info("Performing recipe update by user with email={}", authentication.getName());
-        UpdateRecipeRequest recipe;
+        UpdateRecipeRequest recipe = readRecipePart(recipePart, UpdateRecipeRequest.class);
 
-        try {
-            recipe = this.objectMapper.readValue(recipeJson, UpdateRecipeRequest.class);
+        return ResponseEntity.status(HttpStatus.OK)
+                .body(this.recipeService.updateRecipe(authentication.getName(), recipe, recipeImage));
+    }
+
+    // recipe is parsed straight from the part stream, so its JSON is never copied to String first
+    private <T> T readRecipePart(Part recipePart, Class<T> requestClass) {
+        T recipe;
+
+        try (InputStream inputStream = recipePart.getInputStream()) {
+            recipe = this.objectMapper.readValue(inputStream, requestClass);
         } catch (IOException exception) {
             throw new MappingJsonToObjectException("An error occured during request body reading. Its structure is probably incorrect");
         }
 
-        Set<ConstraintViolation<UpdateRecipeRequest>> violations = validator.validate( recipe );
+        Set<ConstraintViolation<T>> violations = this.validator.validate(recipe);
 
         if (!violations.isEmpty()) {
             throw new ConstraintViolationException(violations);
         }
 
-        return ResponseEntity.status(HttpStatus.OK)
-                .body(this.recipeService.updateRecipe(authentication.getName(), recipe, recipeImage));
+        return recipe;
+    }
+
+    // GZIPOutputStream skips ending its deflater when finish() fails on close, so it is ended regardless
+    private static class ExportGzipOutputStream extends GZIPOutputStream {
+
+        ExportGzipOutputStream(OutputStream outputStream) throws IOException {
+            super(outputStream, GZIP_BUFFER_SIZE);
+        }
+
+        @Override
+        public void close() throws IOException {
+            try {
+                super.close();
+            } finally {
+                this.def.end();
+            }
+        }
     }
 }
@@ -0,0 +1,10 @@
+package com.cookie.app.event;
+
+import com.cookie.app.model.entity.Product;
+
+/**
+ * Published when new product is inserted. Products are never updated nor deleted, so listeners which keep
+ * products in memory only have to add the new one after commit.
+ */
+public record ProductCreatedEvent(Product product) {
+}
@@ -0,0 +1,10 @@
+package com.cookie.app.event;
+
+import java.util.Map;
+
+/**
+ * Published when products with similar names were merged, merged product ids are mapped to ids of products
+ * which replaced them. Merged products are deleted, so listeners which keep products in memory reload them.
+ */
+public record ProductsMergedEvent(Map<Long, Long> keptProductIds) {
+}
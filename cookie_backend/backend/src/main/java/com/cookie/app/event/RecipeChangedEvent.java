@@ -0,0 +1,16 @@
+package com.cookie.app.event;
+
+import com.cookie.app.model.entity.Recipe;
+
+/**
+ * Published by recipe service after recipe is created, updated or deleted. Listeners which keep in-memory views
+ * of recipes should handle it after commit, so they never see changes which were rolled back.
+ */
+public record RecipeChangedEvent(Recipe recipe, ChangeType changeType) {
+
+    public enum ChangeType {
+        CREATED,
+        UPDATED,
+        DELETED
+    }
+}
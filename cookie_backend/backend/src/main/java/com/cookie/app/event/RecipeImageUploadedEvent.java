@@ -0,0 +1,9 @@
+package com.cookie.app.event;
+
+import com.cookie.app.storage.PendingImage;
+
+/**
+ * Published by recipe service after recipe with new image is saved. Image is processed only after commit,
+ * so processing never updates recipe which was rolled back.
+ */
+public record RecipeImageUploadedEvent(long recipeId, PendingImage image) {}
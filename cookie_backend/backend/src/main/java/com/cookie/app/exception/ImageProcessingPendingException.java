@@ -0,0 +1,7 @@
+package com.cookie.app.exception;
+
+public class ImageProcessingPendingException extends RuntimeException {
+    public ImageProcessingPendingException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,7 @@
+package com.cookie.app.exception;
+
+public class ImageProcessingUnavailableException extends RuntimeException {
+    public ImageProcessingUnavailableException(String message) {
+        super(message);
+    }
+}
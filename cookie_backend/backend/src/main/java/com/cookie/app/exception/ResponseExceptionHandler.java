@@ -7,6 +7,7 @@ import io.swagger.v3.oas.annotations.responses.ApiResponses;
 import jakarta.validation.ConstraintViolation;
 import jakarta.validation.ConstraintViolationException;
 import lombok.RequiredArgsConstructor;
+import org.springframework.http.CacheControl;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.HttpStatusCode;
@@ -29,6 +30,8 @@ import java.util.stream.Collectors;
 @RequiredArgsConstructor
 @ControllerAdvice
 public class ResponseExceptionHandler extends ResponseEntityExceptionHandler {
+    private static final String IMAGE_PROCESSING_RETRY_AFTER_SECONDS = "2";
+    private static final String IMAGE_PROCESSING_UNAVAILABLE_RETRY_AFTER_SECONDS = "30";
     private final Clock clock;
 
     @ApiResponse(responseCode = "400", description = "Method argument not valid")
@@ -118,4 +121,27 @@ public class ResponseExceptionHandler extends ResponseEntityExceptionHandler {
         return ResponseEntity.status(HttpStatus.BAD_REQUEST)
                 .body(new ExceptionMessage(exception.getMessage(), LocalDateTime.now(clock)));
     }
+
+    @ApiResponse(responseCode = "202", description = "Image is accepted but it is not processed yet",
+            content = {@Content(mediaType = "application/json",
+                    schema = @Schema(implementation = ExceptionMessage.class))})
+    @ExceptionHandler(ImageProcessingPendingException.class)
+    @ResponseStatus(HttpStatus.ACCEPTED)
+    public ResponseEntity<ExceptionMessage> imageProcessingPendingException(ImageProcessingPendingException exception) {
+        return ResponseEntity.status(HttpStatus.ACCEPTED)
+                .header(HttpHeaders.RETRY_AFTER, IMAGE_PROCESSING_RETRY_AFTER_SECONDS)
+                .cacheControl(CacheControl.noStore())
+                .body(new ExceptionMessage(exception.getMessage(), LocalDateTime.now(clock)));
+    }
+
+    @ApiResponse(responseCode = "503", description = "Too many images are processed",
+            content = {@Content(mediaType = "application/json",
+                    schema = @Schema(implementation = ExceptionMessage.class))})
+    @ExceptionHandler(ImageProcessingUnavailableException.class)
+    @ResponseStatus(HttpStatus.SERVICE_UNAVAILABLE)
+    public ResponseEntity<ExceptionMessage> imageProcessingUnavailableException(ImageProcessingUnavailableException exception) {
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                .header(HttpHeaders.RETRY_AFTER, IMAGE_PROCESSING_UNAVAILABLE_RETRY_AFTER_SECONDS)
+                .body(new ExceptionMessage(exception.getMessage(), LocalDateTime.now(clock)));
+    }
 }
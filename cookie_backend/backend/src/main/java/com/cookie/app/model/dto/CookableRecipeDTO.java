@@ -0,0 +1,13 @@
+package com.cookie.app.model.dto;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+
+public record CookableRecipeDTO(
+        RecipeDTO recipe,
+
+        @Schema(description = "Number of distinct products used by the recipe", example = "6")
+        int ingredients,
+
+        @Schema(description = "Number of recipe products which are not in the pantry", example = "1")
+        int missingIngredients
+) {}
@@ -0,0 +1,11 @@
+package com.cookie.app.model.dto;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+
+import java.util.List;
+
+public record CursorPageResult<T>(
+        List<T> content,
+        @Schema(example = "cmVjaXBlX25hbWUKQVNDCjE1ClBpenph")
+        String nextCursor
+) {}
@@ -21,7 +21,9 @@ public record RecipeDTO(
 
         @Schema(example = "4")
         int portions,
-        byte[] recipeImage,
+
+        @Schema(example = "/api/v1/recipes/1/image?rendition=THUMBNAIL&v=9f86d081884c7d659a2feaa0c55ad015a3bf4f1b2b0b822cd15d6c15b0f00a08")
+        String imageUrl,
 
         @Schema(example = "Username")
         String creatorUserName,
@@ -0,0 +1,26 @@
+package com.cookie.app.model.dto;
+
+import com.cookie.app.model.enums.Category;
+import com.cookie.app.model.enums.MealType;
+import com.cookie.app.model.enums.Unit;
+
+import java.util.List;
+
+/**
+ * Single line of recipes export. Products are given by name and category like in recipes import,
+ * so exported recipes can be imported again.
+ */
+public record RecipeExportDTO(
+        long id,
+        String recipeName,
+        String preparation,
+        int preparationTime,
+        MealType mealType,
+        String cuisine,
+        int portions,
+        String creatorUserName,
+        List<ExportedProduct> products
+) {
+
+    public record ExportedProduct(String productName, Category category, int quantity, Unit unit) {}
+}
@@ -0,0 +1,23 @@
+package com.cookie.app.model.dto;
+
+import com.cookie.app.model.enums.MealType;
+import io.swagger.v3.oas.annotations.media.Schema;
+
+import java.util.Map;
+
+public record RecipeFacetsDTO(
+        @Schema(example = "42")
+        long totalElements,
+
+        @Schema(example = "{\"DINNER\": 12, \"SOUP\": 0}")
+        Map<MealType, Long> mealTypes,
+
+        @Schema(example = "{\"Italian\": 7}")
+        Map<String, Long> cuisines,
+
+        @Schema(description = "Number of recipes prepared in at most given number of minutes", example = "{\"30\": 18}")
+        Map<Integer, Long> preparationTimes,
+
+        @Schema(description = "Number of recipes for at most given number of portions", example = "{\"4\": 25}")
+        Map<Integer, Long> portions
+) {}
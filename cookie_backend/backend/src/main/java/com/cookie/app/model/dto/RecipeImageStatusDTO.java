@@ -0,0 +1,12 @@
+package com.cookie.app.model.dto;
+
+import com.cookie.app.model.enums.ImageStatus;
+import io.swagger.v3.oas.annotations.media.Schema;
+
+public record RecipeImageStatusDTO(
+        @Schema(example = "READY")
+        ImageStatus imageStatus,
+
+        @Schema(example = "/api/v1/recipes/1/image?rendition=CARD&v=9f86d081884c7d659a2feaa0c55ad015a3bf4f1b2b0b822cd15d6c15b0f00a08")
+        String imageUrl
+) {}
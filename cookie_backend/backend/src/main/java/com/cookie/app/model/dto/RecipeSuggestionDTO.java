@@ -0,0 +1,15 @@
+package com.cookie.app.model.dto;
+
+import com.cookie.app.model.enums.SuggestionType;
+import io.swagger.v3.oas.annotations.media.Schema;
+
+public record RecipeSuggestionDTO(
+        @Schema(example = "Spaghetti")
+        String text,
+
+        @Schema(example = "RECIPE_NAME")
+        SuggestionType type,
+
+        @Schema(example = "12")
+        int recipeCount
+) {}
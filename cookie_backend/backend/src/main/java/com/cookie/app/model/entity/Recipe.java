@@ -1,6 +1,7 @@
 package com.cookie.app.model.entity;
 
 import com.cookie.app.model.enums.AuthorityEnum;
+import com.cookie.app.model.enums.ImageStatus;
 import com.cookie.app.model.enums.MealType;
 import jakarta.persistence.*;
 import jakarta.validation.constraints.Size;
@@ -8,6 +9,7 @@ import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
 import lombok.NoArgsConstructor;
+import org.hibernate.annotations.DynamicUpdate;
 
 import java.util.List;
 
@@ -15,6 +17,8 @@ import java.util.List;
 @NoArgsConstructor
 @AllArgsConstructor
 @Builder
+// image columns are written also by image processing, so update of recipe sets only the columns it changed
+@DynamicUpdate
 @Table
 @Entity
 public class Recipe {
@@ -47,9 +51,21 @@ public class Recipe {
     @Column(nullable = false)
     private int portions;
 
-    @Lob
     @Column
-    private byte[] recipeImage;
+    private byte[] recipeThumbnail;
+
+    @Column
+    private byte[] recipeCardImage;
+
+    @Column(length = 64)
+    private String imageHash;
+
+    @Column(length = 20, nullable = false)
+    @Enumerated(EnumType.STRING)
+    private ImageStatus imageStatus;
+
+    @Column(length = 36)
+    private String imageUploadId;
 
     @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "creator_id", referencedColumnName = "id")
@@ -0,0 +1,14 @@
+package com.cookie.app.model.enums;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+@Getter
+@AllArgsConstructor
+public enum ImageCodec {
+    RAW(""),
+    DEFLATE(".deflate");
+
+    // suffix of the stored image file, it tells how image has to be decoded before it is served
+    private final String fileSuffix;
+}
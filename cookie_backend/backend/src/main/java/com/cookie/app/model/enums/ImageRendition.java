@@ -0,0 +1,15 @@
+package com.cookie.app.model.enums;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+@Getter
+@AllArgsConstructor
+public enum ImageRendition {
+    THUMBNAIL(320),
+    CARD(800),
+    FULL(0);
+
+    // longest side of the rendition in pixels, 0 means that original image is kept
+    private final int maxDimension;
+}
@@ -0,0 +1,8 @@
+package com.cookie.app.model.enums;
+
+public enum ImageStatus {
+    NONE,
+    PENDING,
+    READY,
+    FAILED
+}
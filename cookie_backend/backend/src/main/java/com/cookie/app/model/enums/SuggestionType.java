@@ -0,0 +1,6 @@
+package com.cookie.app.model.enums;
+
+public enum SuggestionType {
+    RECIPE_NAME,
+    CUISINE
+}
@@ -2,7 +2,8 @@ package com.cookie.app.model.mapper;
 
 import com.cookie.app.model.dto.RecipeDetailsDTO;
 import com.cookie.app.model.entity.Recipe;
-import com.cookie.app.util.ImageUtil;
+import com.cookie.app.model.enums.ImageRendition;
+import com.cookie.app.util.ImageRenditionUtil;
 import org.mapstruct.InjectionStrategy;
 import org.mapstruct.Mapper;
 import org.mapstruct.Mapping;
@@ -15,13 +16,13 @@ import org.mapstruct.Named;
 )
 public interface RecipeDetailsMapper {
 
-    @Mapping(source = "entity", target = "recipeImage", qualifiedByName = "decompressedImage")
+    @Mapping(source = "entity", target = "imageUrl", qualifiedByName = "cardImageUrl")
     @Mapping(source = "entity.creator.username", target = "creatorUserName")
     @Mapping(source = "entity.recipeProducts", target = "products")
     RecipeDetailsDTO mapToDto(Recipe entity);
 
-    @Named("decompressedImage")
-    default byte[] mapToDecompressedImage(Recipe recipe) {
-        return ImageUtil.decompressImage(recipe.getRecipeImage());
+    @Named("cardImageUrl")
+    default String mapToCardImageUrl(Recipe recipe) {
+        return ImageRenditionUtil.createImageUrl(recipe.getId(), recipe.getImageHash(), ImageRendition.CARD);
     }
 }
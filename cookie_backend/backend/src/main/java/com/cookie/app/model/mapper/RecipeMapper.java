@@ -2,7 +2,9 @@ package com.cookie.app.model.mapper;
 
 import com.cookie.app.model.dto.RecipeDTO;
 import com.cookie.app.model.entity.Recipe;
-import com.cookie.app.util.ImageUtil;
+import com.cookie.app.model.enums.ImageRendition;
+import com.cookie.app.model.projection.RecipeSummary;
+import com.cookie.app.util.ImageRenditionUtil;
 import org.mapstruct.InjectionStrategy;
 import org.mapstruct.Mapper;
 import org.mapstruct.Mapping;
@@ -11,14 +13,22 @@ import org.mapstruct.Named;
 @Mapper(componentModel = "spring", injectionStrategy = InjectionStrategy.CONSTRUCTOR)
 public interface RecipeMapper {
 
-    @Mapping(source = "entity", target = "recipeImage", qualifiedByName = "decompressedImage")
+    @Mapping(source = "entity", target = "imageUrl", qualifiedByName = "thumbnailUrl")
     @Mapping(source = "entity.creator.username", target = "creatorUserName")
     @Mapping(source = "entity", target = "nrOfProducts", qualifiedByName = "nrOfProducts")
     RecipeDTO mapToDto(Recipe entity);
 
-    @Named("decompressedImage")
-    default byte[] mapToDecompressedImage(Recipe recipe) {
-        return ImageUtil.decompressImage(recipe.getRecipeImage());
+    @Mapping(source = "summary", target = "imageUrl", qualifiedByName = "summaryThumbnailUrl")
+    RecipeDTO mapToDto(RecipeSummary summary);
+
+    @Named("thumbnailUrl")
+    default String mapToThumbnailUrl(Recipe recipe) {
+        return ImageRenditionUtil.createImageUrl(recipe.getId(), recipe.getImageHash(), ImageRendition.THUMBNAIL);
+    }
+
+    @Named("summaryThumbnailUrl")
+    default String mapToThumbnailUrl(RecipeSummary summary) {
+        return ImageRenditionUtil.createImageUrl(summary.getId(), summary.getImageHash(), ImageRendition.THUMBNAIL);
     }
 
     @Named("nrOfProducts")
@@ -0,0 +1,13 @@
+package com.cookie.app.model.projection;
+
+import com.cookie.app.model.enums.Category;
+
+/**
+ * Product with the number of pantry, shopping list and recipe products which use it.
+ */
+public interface ProductUsage {
+    long getId();
+    String getProductName();
+    Category getCategory();
+    long getUsages();
+}
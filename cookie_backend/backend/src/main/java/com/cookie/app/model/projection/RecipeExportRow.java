@@ -0,0 +1,24 @@
+package com.cookie.app.model.projection;
+
+import com.cookie.app.model.enums.Category;
+import com.cookie.app.model.enums.MealType;
+import com.cookie.app.model.enums.Unit;
+
+/**
+ * Recipe joined with one of its products, product columns are null for recipe without products.
+ * Rows of the same recipe are read one after another.
+ */
+public interface RecipeExportRow {
+    long getRecipeId();
+    String getRecipeName();
+    String getPreparation();
+    int getPreparationTime();
+    MealType getMealType();
+    String getCuisine();
+    int getPortions();
+    String getCreatorUserName();
+    String getProductName();
+    Category getCategory();
+    Integer getQuantity();
+    Unit getUnit();
+}
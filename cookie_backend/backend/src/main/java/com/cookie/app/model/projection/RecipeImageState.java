@@ -0,0 +1,11 @@
+package com.cookie.app.model.projection;
+
+import com.cookie.app.model.enums.ImageStatus;
+
+/**
+ * Processing status and key of recipe image, read without loading the recipe.
+ */
+public interface RecipeImageState {
+    ImageStatus getImageStatus();
+    String getImageHash();
+}
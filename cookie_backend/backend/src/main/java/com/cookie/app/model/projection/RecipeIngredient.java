@@ -0,0 +1,12 @@
+package com.cookie.app.model.projection;
+
+import com.cookie.app.model.enums.Category;
+
+/**
+ * Recipe and product used by it, read without loading recipe products.
+ */
+public interface RecipeIngredient {
+    long getRecipeId();
+    long getProductId();
+    Category getCategory();
+}
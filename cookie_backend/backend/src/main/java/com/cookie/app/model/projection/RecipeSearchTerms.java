@@ -0,0 +1,10 @@
+package com.cookie.app.model.projection;
+
+/**
+ * Recipe name and cuisine, read without loading the recipe.
+ */
+public interface RecipeSearchTerms {
+    long getId();
+    String getRecipeName();
+    String getCuisine();
+}
@@ -0,0 +1,19 @@
+package com.cookie.app.model.projection;
+
+import com.cookie.app.model.enums.MealType;
+
+/**
+ * Recipe data needed by recipe list pages. It is read with a single query,
+ * without loading recipe image or recipe products.
+ */
+public interface RecipeSummary {
+    long getId();
+    String getRecipeName();
+    int getPreparationTime();
+    MealType getMealType();
+    String getCuisine();
+    int getPortions();
+    String getCreatorUserName();
+    int getNrOfProducts();
+    String getImageHash();
+}
@@ -0,0 +1,61 @@
+package com.cookie.app.model.request;
+
+import com.cookie.app.model.RegexConstants;
+import com.cookie.app.model.enums.Category;
+import com.cookie.app.model.enums.MealType;
+import com.cookie.app.model.enums.Unit;
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.*;
+
+import java.util.List;
+
+/**
+ * Single line of recipes import. Products are given by name and category, they are created when they do not exist.
+ */
+public record ImportRecipeRequest(
+        @Pattern(
+                regexp = RegexConstants.RECIPE_NAME_REGEX,
+                message = "Recipe name can only contains letters, digits, whitespaces and its length has to be between 5 and 60"
+        )
+        @NotNull(message = "Recipe name must be present")
+        String recipeName,
+        @Pattern(
+                regexp = RegexConstants.PREPARATION_REGEX,
+                message = "Recipe name can only contains letters, digits, whitespaces and its length has to be between 5 and 512"
+        )
+        @NotNull(message = "Preparation must be present")
+        String preparation,
+        @NotNull(message = "Preparation time must be present")
+        @Min(value = 5, message = "Preparation time must be greater than 5")
+        @Max(value = 2880 ,message = "Preparation time must be less than 12")
+        Integer preparationTime,
+        @NotNull(message = "Meal type must be present")
+        MealType mealType,
+        @Pattern(
+                regexp = RegexConstants.CUISINE_REGEX,
+                message = "Cuisine name can only contains letters, digits, whitespaces and its length has to be between 4 and 30"
+        )
+        String cuisine,
+        @NotNull(message = "Nr of portions must be present")
+        @Positive(message = "Nr of portions must be greater than 5")
+        @Max(value = 12 ,message = "Nr of portions must be less than 12")
+        Integer portions,
+        @NotNull(message = "Products list must be present")
+        @NotEmpty(message = "Nr of products must be at least 1")
+        List<@Valid ImportedProduct> products
+) {
+
+    public record ImportedProduct(
+            @NotNull(message = "Product name must be present")
+            @Pattern(regexp = RegexConstants.PRODUCT_NAME_REGEX,
+                    message = "Product name can only contains letters, digits, whitespaces and its length has to be between 3 and 50")
+            String productName,
+            @NotNull(message = "Category must be present")
+            Category category,
+            @NotNull(message = "Quantity must be present")
+            @PositiveOrZero(message = "Quantity must be equal or greater than 1")
+            Integer quantity,
+            @NotNull(message = "Unit must be present")
+            Unit unit
+    ) {}
+}
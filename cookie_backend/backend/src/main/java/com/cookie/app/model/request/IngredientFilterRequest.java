@@ -0,0 +1,30 @@
+package com.cookie.app.model.request;
+
+import com.cookie.app.model.enums.Category;
+import io.swagger.v3.oas.annotations.media.Schema;
+import jakarta.validation.constraints.Size;
+
+import java.util.List;
+
+public record IngredientFilterRequest(
+        @Schema(description = "Recipe must contain all of these products", example = "[1, 2]")
+        @Size(max = 20, message = "Up to 20 required products can be used")
+        List<Long> allProducts,
+
+        @Schema(description = "Recipe must contain at least one of these products", example = "[3]")
+        @Size(max = 20, message = "Up to 20 optional products can be used")
+        List<Long> anyProducts,
+
+        @Schema(description = "Recipe cannot contain any of these products", example = "[4]")
+        @Size(max = 20, message = "Up to 20 excluded products can be used")
+        List<Long> excludedProducts,
+
+        @Schema(description = "Recipe must contain product of each of these categories", example = "[\"MEAT\"]")
+        List<Category> allCategories,
+
+        @Schema(description = "Recipe must contain product of at least one of these categories", example = "[\"RICE\"]")
+        List<Category> anyCategories,
+
+        @Schema(description = "Recipe cannot contain products of these categories", example = "[\"DAIRY\"]")
+        List<Category> excludedCategories
+) {}
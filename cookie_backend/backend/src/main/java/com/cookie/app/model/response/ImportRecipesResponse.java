@@ -0,0 +1,24 @@
+package com.cookie.app.model.response;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+
+import java.util.List;
+
+public record ImportRecipesResponse(
+        @Schema(example = "998")
+        int importedRecipes,
+
+        @Schema(example = "2")
+        int failedRecipes,
+
+        List<LineError> errors
+) {
+
+    public record LineError(
+            @Schema(example = "17")
+            long lineNumber,
+
+            @Schema(example = "Nr of products must be at least 1")
+            String message
+    ) {}
+}
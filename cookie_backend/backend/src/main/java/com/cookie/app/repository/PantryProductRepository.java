@@ -10,7 +10,7 @@ import org.springframework.stereotype.Repository;
 import java.util.List;
 
 @Repository
-public interface PantryProductRepository extends CrudRepository<PantryProduct, Long> {
+public interface PantryProductRepository extends CrudRepository<PantryProduct, Long>, PantryProductRepositoryCustom {
     void deleteByIdIn(List<Long> ids);
 
     Page<PantryProduct> findPantryProductByPantryId(long id, PageRequest pageable);
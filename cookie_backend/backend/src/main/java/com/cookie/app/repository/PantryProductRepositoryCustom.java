@@ -0,0 +1,18 @@
+package com.cookie.app.repository;
+
+import com.cookie.app.model.entity.PantryProduct;
+import com.cookie.app.model.entity.RecipeProduct;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+
+public interface PantryProductRepositoryCustom {
+    List<PantryStock> findPantryStock(long pantryId, Collection<RecipeProduct> recipeProducts);
+
+    List<PantryStock> lockPantryStock(long pantryId, Collection<RecipeProduct> recipeProducts);
+
+    int reservePantryProducts(Map<Long, Integer> reservedQuantities);
+
+    boolean reservePantryProduct(PantryProduct pantryProduct, int reserved);
+}
@@ -0,0 +1,149 @@
+package com.cookie.app.repository;
+
+import com.cookie.app.model.entity.PantryProduct;
+import com.cookie.app.model.entity.RecipeProduct;
+import com.cookie.app.model.enums.Unit;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.Query;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.*;
+
+/**
+ * Matches recipe products with pantry stock without loading pantry products of the pantry, so reserving
+ * products of a recipe costs the same for small and large pantries. Stock is read by single join on
+ * the (pantry id, product id) index and reservations are applied by single update.
+ * Quantities are checked by the updates themselves, so concurrent reservations of the same pantry product
+ * never overwrite each other and quantity never gets negative.
+ */
+@Transactional
+public class PantryProductRepositoryCustomImpl implements PantryProductRepositoryCustom {
+    private static final Unit[] UNITS = Unit.values();
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    /**
+     * Returns pantry products of the pantry with the same product and unit as any of given recipe products,
+     * ordered by id.
+     */
+    @Override
+    public List<PantryStock> findPantryStock(long pantryId, Collection<RecipeProduct> recipeProducts) {
+        return findPantryStock(pantryId, recipeProducts, false);
+    }
+
+    /**
+     * Returns the same pantry products as {@link #findPantryStock(long, Collection)} and locks them until
+     * the transaction ends. Rows are locked in order of their ids, so concurrent reservations of recipes
+     * sharing pantry products wait for each other instead of deadlocking.
+     */
+    @Override
+    public List<PantryStock> lockPantryStock(long pantryId, Collection<RecipeProduct> recipeProducts) {
+        return findPantryStock(pantryId, recipeProducts, true);
+    }
+
+    @SuppressWarnings("unchecked")
+    private List<PantryStock> findPantryStock(long pantryId, Collection<RecipeProduct> recipeProducts, boolean lock) {
+        Set<StockKey> stockKeys = new LinkedHashSet<>();
+        recipeProducts.forEach(recipeProduct -> stockKeys.add(
+                new StockKey(recipeProduct.getProduct().getId(), recipeProduct.getUnit())
+        ));
+
+        if (stockKeys.isEmpty()) {
+            return new ArrayList<>();
+        }
+
+        StringJoiner keys = new StringJoiner(", ");
+        for (int i = 0; i < stockKeys.size(); i++) {
+            keys.add(String.format("(?%d, ?%d)", 2 * i + 2, 2 * i + 3));
+        }
+
+        Query query = this.entityManager.createNativeQuery(
+                "SELECT pp.id, pp.product_id, pp.unit, pp.quantity " +
+                        "FROM (VALUES " + keys + ") AS k(product_id, unit) " +
+                        "JOIN pantry_product pp ON pp.product_id = k.product_id AND pp.unit = k.unit " +
+                        "WHERE pp.pantry_id = ?1 " +
+                        "ORDER BY pp.id" +
+                        (lock ? " FOR UPDATE OF pp" : "")
+        );
+        query.setParameter(1, pantryId);
+        int position = 2;
+        for (StockKey stockKey : stockKeys) {
+            query.setParameter(position++, stockKey.productId());
+            // units are stored as ordinals in pantry products
+            query.setParameter(position++, stockKey.unit().ordinal());
+        }
+
+        List<PantryStock> pantryStock = new ArrayList<>();
+        for (Object[] row : (List<Object[]>) query.getResultList()) {
+            pantryStock.add(new PantryStock(
+                    ((Number) row[0]).longValue(),
+                    ((Number) row[1]).longValue(),
+                    UNITS[((Number) row[2]).intValue()],
+                    ((Number) row[3]).intValue()
+            ));
+        }
+
+        return pantryStock;
+    }
+
+    /**
+     * Moves given quantities of pantry products from available to reserved quantity and returns number
+     * of updated pantry products. Pantry product without enough quantity is not updated, so its stock should
+     * be locked by {@link #lockPantryStock(long, Collection)} first. Managed pantry products are not refreshed.
+     */
+    @Override
+    public int reservePantryProducts(Map<Long, Integer> reservedQuantities) {
+        if (reservedQuantities.isEmpty()) {
+            return 0;
+        }
+
+        StringJoiner values = new StringJoiner(", ");
+        for (int i = 0; i < reservedQuantities.size(); i++) {
+            values.add(String.format("(?%d, ?%d)", 2 * i + 1, 2 * i + 2));
+        }
+
+        Query query = this.entityManager.createNativeQuery(
+                "UPDATE pantry_product pp " +
+                        "SET reserved = pp.reserved + r.quantity, quantity = pp.quantity - r.quantity " +
+                        "FROM (VALUES " + values + ") AS r(id, quantity) " +
+                        "WHERE pp.id = r.id AND pp.quantity >= r.quantity"
+        );
+        int position = 1;
+        for (Map.Entry<Long, Integer> reservedQuantity : reservedQuantities.entrySet()) {
+            query.setParameter(position++, reservedQuantity.getKey());
+            query.setParameter(position++, reservedQuantity.getValue());
+        }
+
+        return query.executeUpdate();
+    }
+
+    /**
+     * Moves given quantity of pantry product from available to reserved quantity, negative quantity is moved
+     * back. Returns false without updating it when there is not enough available or reserved quantity.
+     * Updated pantry product is refreshed, so it contains quantities written by the update.
+     */
+    @Override
+    public boolean reservePantryProduct(PantryProduct pantryProduct, int reserved) {
+        int updatedProducts = this.entityManager.createNativeQuery(
+                        "UPDATE pantry_product SET reserved = reserved + ?1, quantity = quantity - ?1 " +
+                                "WHERE id = ?2 AND quantity >= ?1 AND reserved >= -?1"
+                )
+                .setParameter(1, reserved)
+                .setParameter(2, pantryProduct.getId())
+                .executeUpdate();
+
+        if (updatedProducts == 0) {
+            return false;
+        }
+
+        if (this.entityManager.contains(pantryProduct)) {
+            this.entityManager.refresh(pantryProduct);
+        }
+
+        return true;
+    }
+
+    private record StockKey(long productId, Unit unit) {}
+}
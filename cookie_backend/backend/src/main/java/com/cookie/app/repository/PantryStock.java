@@ -0,0 +1,9 @@
+package com.cookie.app.repository;
+
+import com.cookie.app.model.enums.Unit;
+
+/**
+ * Available quantity of pantry product, read without loading pantry products of the pantry.
+ */
+public record PantryStock(long pantryProductId, long productId, Unit unit, int quantity) {
+}
@@ -0,0 +1,21 @@
+package com.cookie.app.repository;
+
+import com.cookie.app.model.entity.Product;
+import com.cookie.app.model.enums.Category;
+
+import java.util.Locale;
+
+/**
+ * Identifies product like the unique index of product table, products are matched by case insensitive name
+ * and category.
+ */
+public record ProductKey(String lowerCaseName, Category category) {
+
+    public static ProductKey of(String productName, Category category) {
+        return new ProductKey(productName.toLowerCase(Locale.ROOT), category);
+    }
+
+    public static ProductKey of(Product product) {
+        return of(product.getProductName(), product.getCategory());
+    }
+}
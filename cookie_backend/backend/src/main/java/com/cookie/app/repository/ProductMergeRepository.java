@@ -0,0 +1,80 @@
+package com.cookie.app.repository;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.PreparedStatementSetter;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+/**
+ * Finds and merges products with similar names. Merged product is replaced by kept product in pantries, shopping
+ * lists and recipes and then deleted, so statements must run in one transaction.
+ */
+@RequiredArgsConstructor
+@Repository
+public class ProductMergeRepository {
+    private final JdbcTemplate jdbcTemplate;
+
+    /**
+     * Finds pairs of similar products of the same category, every pair is returned once with the older product
+     * first. Candidates are found by trigram index, so similarity must not be lower than pg_trgm threshold.
+     */
+    public List<SimilarProducts> findSimilarProducts(double minSimilarity, int limit) {
+        return this.jdbcTemplate.query(
+                "WITH usages AS (" +
+                        "SELECT used.product_id, COUNT(*) AS usages FROM (" +
+                        "SELECT pp.product_id FROM pantry_product pp " +
+                        "UNION ALL SELECT slp.product_id FROM shopping_list_product slp " +
+                        "UNION ALL SELECT rp.product_id FROM recipe_product rp" +
+                        ") used GROUP BY used.product_id" +
+                        ") " +
+                        "SELECT p.id, p.product_name, COALESCE(pu.usages, 0) AS usages, " +
+                        "s.id AS similar_id, s.product_name AS similar_product_name, " +
+                        "COALESCE(su.usages, 0) AS similar_usages " +
+                        "FROM product p " +
+                        "JOIN product s ON s.category = p.category AND s.id > p.id AND s.product_name % p.product_name " +
+                        "LEFT JOIN usages pu ON pu.product_id = p.id " +
+                        "LEFT JOIN usages su ON su.product_id = s.id " +
+                        "WHERE similarity(s.product_name, p.product_name) >= ? " +
+                        "ORDER BY p.id, s.id LIMIT ?",
+                (resultSet, rowNum) -> new SimilarProducts(
+                        resultSet.getLong("id"),
+                        resultSet.getString("product_name"),
+                        resultSet.getLong("usages"),
+                        resultSet.getLong("similar_id"),
+                        resultSet.getString("similar_product_name"),
+                        resultSet.getLong("similar_usages")
+                ),
+                minSimilarity,
+                limit
+        );
+    }
+
+    /**
+     * Replaces every merged product by kept product paired with it and deletes merged products.
+     * Returns number of deleted products.
+     */
+    public int mergeProducts(Long[] mergedProductIds, Long[] keptProductIds) {
+        PreparedStatementSetter mergedProducts = preparedStatement -> {
+            preparedStatement.setArray(1, preparedStatement.getConnection().createArrayOf("bigint", mergedProductIds));
+            preparedStatement.setArray(2, preparedStatement.getConnection().createArrayOf("bigint", keptProductIds));
+        };
+
+        for (String table : List.of("pantry_product", "shopping_list_product", "recipe_product")) {
+            this.jdbcTemplate.update(
+                    "UPDATE " + table + " t SET product_id = m.kept_id " +
+                            "FROM unnest(?, ?) AS m(merged_id, kept_id) WHERE t.product_id = m.merged_id",
+                    mergedProducts
+            );
+        }
+
+        return this.jdbcTemplate.update(
+                "DELETE FROM product p USING unnest(?) AS m(merged_id) WHERE p.id = m.merged_id",
+                preparedStatement -> preparedStatement.setArray(
+                        1,
+                        preparedStatement.getConnection().createArrayOf("bigint", mergedProductIds)
+                )
+        );
+    }
+}
@@ -1,20 +1,37 @@
 package com.cookie.app.repository;
 
 import com.cookie.app.model.entity.Product;
-import org.springframework.data.domain.Page;
-import org.springframework.data.domain.PageRequest;
+import com.cookie.app.model.projection.ProductUsage;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.CrudRepository;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
-import java.util.Optional;
+import java.util.List;
 
 @Repository
-public interface ProductRepository extends CrudRepository<Product, Long> {
-    @Query(value = "SELECT p.* FROM PRODUCT p WHERE LOWER(p.product_name) LIKE LOWER(:productName) AND LOWER(p.category) LIKE LOWER(:category)", nativeQuery = true)
-    Optional<Product> findByProductNameAndCategory(@Param("productName") String productName, @Param("category") String category);
+public interface ProductRepository extends CrudRepository<Product, Long>, ProductRepositoryCustom {
+    @Query(value = "SELECT p.id AS \"id\", p.product_name AS \"productName\", p.category AS \"category\", " +
+            "COALESCE(u.usages, 0) AS \"usages\" FROM product p " +
+            "LEFT JOIN (SELECT used.product_id, COUNT(*) AS usages FROM (" +
+            "SELECT pp.product_id FROM pantry_product pp " +
+            "UNION ALL SELECT slp.product_id FROM shopping_list_product slp " +
+            "UNION ALL SELECT rp.product_id FROM recipe_product rp" +
+            ") used GROUP BY used.product_id) u ON u.product_id = p.id",
+            nativeQuery = true)
+    List<ProductUsage> findAllProductUsages();
 
-    @Query(value = "SELECT p.* FROM PRODUCT p WHERE LOWER(p.product_name) LIKE LOWER(CONCAT(:productName, '%'))", nativeQuery = true)
-    Page<Product> findProductsWithFilter(@Param("productName") String productName, PageRequest pageable);
+    /**
+     * Finds products with names similar to given name, the most similar first. Similarity is checked only for
+     * products found by trigram index, so it must not be lower than pg_trgm similarity threshold.
+     */
+    @Query(value = "SELECT p.* FROM product p " +
+            "WHERE p.product_name % :productName AND similarity(p.product_name, :productName) >= :minSimilarity " +
+            "AND (CAST(:category AS VARCHAR) IS NULL OR p.category = CAST(:category AS VARCHAR)) " +
+            "ORDER BY similarity(p.product_name, :productName) DESC, p.id LIMIT :limit",
+            nativeQuery = true)
+    List<Product> findSimilarProducts(@Param("productName") String productName,
+                                      @Param("category") String category,
+                                      @Param("minSimilarity") double minSimilarity,
+                                      @Param("limit") int limit);
 }
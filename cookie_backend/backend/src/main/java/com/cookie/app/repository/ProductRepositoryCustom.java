@@ -0,0 +1,10 @@
+package com.cookie.app.repository;
+
+import com.cookie.app.model.entity.Product;
+
+import java.util.Collection;
+import java.util.Map;
+
+public interface ProductRepositoryCustom {
+    Map<ProductKey, Product> findOrCreateProducts(Collection<Product> products);
+}
@@ -0,0 +1,187 @@
+package com.cookie.app.repository;
+
+import com.cookie.app.config.ProductMatchingProperties;
+import com.cookie.app.event.ProductCreatedEvent;
+import com.cookie.app.model.entity.Product;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.Query;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.*;
+
+/**
+ * Resolves products of whole request at once. Existing products are found by single query and the missing ones
+ * are inserted by single statement, which skips products created by concurrent request in the meantime thanks
+ * to the unique index on lower case name and category. When auto merge is enabled, misspelled names are resolved
+ * to similar existing products, so every typo does not add new product.
+ */
+@Transactional
+public class ProductRepositoryCustomImpl implements ProductRepositoryCustom {
+    private final ApplicationEventPublisher eventPublisher;
+    private final ProductMatchingProperties productMatchingProperties;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    public ProductRepositoryCustomImpl(ApplicationEventPublisher eventPublisher,
+                                       ProductMatchingProperties productMatchingProperties) {
+        this.eventPublisher = eventPublisher;
+        this.productMatchingProperties = productMatchingProperties;
+    }
+
+    /**
+     * Returns managed products by keys of given products. Product with the same name, ignoring case, and category
+     * is returned when it exists, otherwise the most similar product of the category when auto merge is enabled.
+     * Remaining products are created. It costs one query when all products exist and at most five otherwise.
+     */
+    @Override
+    public Map<ProductKey, Product> findOrCreateProducts(Collection<Product> products) {
+        Map<ProductKey, Product> requestedProducts = new LinkedHashMap<>();
+        products.forEach(product -> requestedProducts.putIfAbsent(ProductKey.of(product), product));
+
+        if (requestedProducts.isEmpty()) {
+            return new HashMap<>();
+        }
+
+        Map<ProductKey, Product> foundProducts = findProducts(requestedProducts.keySet());
+        List<Product> missingProducts = getMissingProducts(requestedProducts, foundProducts);
+
+        if (!missingProducts.isEmpty() && this.productMatchingProperties.autoMergeSimilarity() > 0) {
+            foundProducts.putAll(findMostSimilarProducts(missingProducts));
+            missingProducts = getMissingProducts(requestedProducts, foundProducts);
+        }
+
+        if (missingProducts.isEmpty()) {
+            return foundProducts;
+        }
+
+        for (Product product : insertProducts(missingProducts)) {
+            foundProducts.put(ProductKey.of(product), product);
+            // products are inserted without persisting entities, so the event is published here
+            this.eventPublisher.publishEvent(new ProductCreatedEvent(product));
+        }
+
+        // products skipped by the insert were created by concurrent request after they were looked up
+        List<ProductKey> concurrentlyCreatedProducts = getMissingProducts(requestedProducts, foundProducts)
+                .stream()
+                .map(ProductKey::of)
+                .toList();
+
+        if (!concurrentlyCreatedProducts.isEmpty()) {
+            foundProducts.putAll(findProducts(concurrentlyCreatedProducts));
+        }
+
+        return foundProducts;
+    }
+
+    private List<Product> getMissingProducts(Map<ProductKey, Product> requestedProducts,
+                                             Map<ProductKey, Product> foundProducts) {
+        return requestedProducts.entrySet()
+                .stream()
+                .filter(requestedProduct -> !foundProducts.containsKey(requestedProduct.getKey()))
+                .map(Map.Entry::getValue)
+                .toList();
+    }
+
+    @SuppressWarnings("unchecked")
+    private Map<ProductKey, Product> findProducts(Collection<ProductKey> productKeys) {
+        StringJoiner keys = new StringJoiner(", ");
+        for (int i = 0; i < productKeys.size(); i++) {
+            keys.add(String.format("(?%d, ?%d)", 2 * i + 1, 2 * i + 2));
+        }
+
+        Query query = this.entityManager.createNativeQuery(
+                "SELECT p.id, p.product_name, p.category FROM product p " +
+                        "WHERE (LOWER(p.product_name), p.category) IN (VALUES " + keys + ")",
+                Product.class
+        );
+        int position = 1;
+        for (ProductKey productKey : productKeys) {
+            query.setParameter(position++, productKey.lowerCaseName());
+            query.setParameter(position++, productKey.category().name());
+        }
+
+        Map<ProductKey, Product> products = new HashMap<>();
+        ((List<Product>) query.getResultList()).forEach(product -> products.put(ProductKey.of(product), product));
+
+        return products;
+    }
+
+    /**
+     * Finds the most similar product of the same category for every given product, products without similar
+     * enough product are skipped. Candidates are found by trigram index of product names.
+     */
+    @SuppressWarnings("unchecked")
+    private Map<ProductKey, Product> findMostSimilarProducts(List<Product> products) {
+        StringJoiner keys = new StringJoiner(", ");
+        for (int i = 0; i < products.size(); i++) {
+            keys.add(String.format("(?%d, ?%d, ?%d)", 3 * i + 1, 3 * i + 2, 3 * i + 3));
+        }
+
+        Query query = this.entityManager.createNativeQuery(
+                "SELECT DISTINCT ON (k.position) k.position, p.id " +
+                        "FROM (VALUES " + keys + ") AS k(position, product_name, category) " +
+                        "JOIN product p ON p.category = k.category AND p.product_name % k.product_name " +
+                        "WHERE similarity(p.product_name, k.product_name) >= ?" + (3 * products.size() + 1) + " " +
+                        "ORDER BY k.position, similarity(p.product_name, k.product_name) DESC, p.id"
+        );
+        int position = 1;
+        for (int i = 0; i < products.size(); i++) {
+            query.setParameter(position++, i);
+            query.setParameter(position++, products.get(i).getProductName());
+            query.setParameter(position++, products.get(i).getCategory().name());
+        }
+        query.setParameter(position, this.productMatchingProperties.autoMergeSimilarity());
+
+        // several misspelled products can be resolved to the same product
+        Map<Integer, Long> similarProductIds = new HashMap<>();
+        for (Object[] row : (List<Object[]>) query.getResultList()) {
+            similarProductIds.put(((Number) row[0]).intValue(), ((Number) row[1]).longValue());
+        }
+
+        if (similarProductIds.isEmpty()) {
+            return new HashMap<>();
+        }
+
+        Map<Long, Product> productsById = new HashMap<>();
+        this.entityManager.createQuery("SELECT p FROM Product p WHERE p.id IN :ids", Product.class)
+                .setParameter("ids", new HashSet<>(similarProductIds.values()))
+                .getResultList()
+                .forEach(product -> productsById.put(product.getId(), product));
+
+        Map<ProductKey, Product> similarProducts = new HashMap<>();
+        similarProductIds.forEach((productPosition, productId) -> {
+            Product similarProduct = productsById.get(productId);
+
+            if (similarProduct != null) {
+                similarProducts.put(ProductKey.of(products.get(productPosition)), similarProduct);
+            }
+        });
+
+        return similarProducts;
+    }
+
+    @SuppressWarnings("unchecked")
+    private List<Product> insertProducts(List<Product> products) {
+        StringJoiner values = new StringJoiner(", ");
+        for (int i = 0; i < products.size(); i++) {
+            values.add(String.format("(nextval('product_sequence'), ?%d, ?%d)", 2 * i + 1, 2 * i + 2));
+        }
+
+        Query query = this.entityManager.createNativeQuery(
+                "INSERT INTO product (id, product_name, category) VALUES " + values +
+                        " ON CONFLICT (LOWER(product_name), category) DO NOTHING " +
+                        "RETURNING id, product_name, category",
+                Product.class
+        );
+        int position = 1;
+        for (Product product : products) {
+            query.setParameter(position++, product.getProductName());
+            query.setParameter(position++, product.getCategory().name());
+        }
+
+        return query.getResultList();
+    }
+}
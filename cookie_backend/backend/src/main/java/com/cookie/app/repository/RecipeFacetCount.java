@@ -0,0 +1,16 @@
+package com.cookie.app.repository;
+
+/**
+ * Number of recipes with given value of the facet. Preparation time and portions values are bucket upper bounds,
+ * count of TOTAL facet is number of recipes matching whole filter.
+ */
+public record RecipeFacetCount(Facet facet, String value, long count) {
+
+    public enum Facet {
+        MEAL_TYPE,
+        CUISINE,
+        PREPARATION_TIME,
+        PORTIONS,
+        TOTAL
+    }
+}
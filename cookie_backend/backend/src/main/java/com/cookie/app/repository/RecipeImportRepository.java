@@ -0,0 +1,122 @@
+package com.cookie.app.repository;
+
+import com.cookie.app.model.entity.Product;
+import com.cookie.app.model.entity.Recipe;
+import com.cookie.app.model.entity.RecipeProduct;
+import com.cookie.app.model.enums.Category;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.stereotype.Repository;
+
+import java.sql.Types;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Writes imported recipes with plain JDBC. Every statement handles whole chunk of recipes, so importing
+ * a chunk costs a few round trips instead of several per recipe and product like saving entities one by one.
+ */
+@RequiredArgsConstructor
+@Repository
+public class RecipeImportRepository {
+    private static final RowMapper<Product> PRODUCT_ROW_MAPPER = (resultSet, rowNum) -> Product.builder()
+            .id(resultSet.getLong("id"))
+            .productName(resultSet.getString("product_name"))
+            .category(Category.valueOf(resultSet.getString("category")))
+            .build();
+
+    private final JdbcTemplate jdbcTemplate;
+
+    /**
+     * Finds products by lower case names paired with categories.
+     */
+    public List<Product> findProducts(String[] lowerCaseNames, String[] categories) {
+        return this.jdbcTemplate.query(
+                "SELECT p.id, p.product_name, p.category FROM product p " +
+                        "JOIN unnest(?, ?) AS k(product_name, category) " +
+                        "ON LOWER(p.product_name) = k.product_name AND p.category = k.category",
+                preparedStatement -> {
+                    preparedStatement.setArray(1, preparedStatement.getConnection().createArrayOf("text", lowerCaseNames));
+                    preparedStatement.setArray(2, preparedStatement.getConnection().createArrayOf("text", categories));
+                },
+                PRODUCT_ROW_MAPPER
+        );
+    }
+
+    /**
+     * Inserts products and returns the inserted ones, products created by concurrent request in the meantime
+     * are skipped.
+     */
+    public List<Product> insertProducts(String[] names, String[] categories) {
+        return this.jdbcTemplate.query(
+                "INSERT INTO product (id, product_name, category) " +
+                        "SELECT nextval('product_sequence'), k.product_name, k.category " +
+                        "FROM unnest(?, ?) AS k(product_name, category) " +
+                        "ON CONFLICT (LOWER(product_name), category) DO NOTHING " +
+                        "RETURNING id, product_name, category",
+                preparedStatement -> {
+                    preparedStatement.setArray(1, preparedStatement.getConnection().createArrayOf("text", names));
+                    preparedStatement.setArray(2, preparedStatement.getConnection().createArrayOf("text", categories));
+                },
+                PRODUCT_ROW_MAPPER
+        );
+    }
+
+    // sequence has allocation size 1, so all ids of the chunk are taken from it in single query
+    public List<Long> reserveRecipeIds(int count) {
+        return this.jdbcTemplate.queryForList(
+                "SELECT nextval('recipe_sequence') FROM generate_series(1, ?)",
+                Long.class,
+                count
+        );
+    }
+
+    /**
+     * Inserts recipes with already reserved ids and their products using JDBC batches.
+     */
+    public void insertRecipes(List<Recipe> recipes) {
+        this.jdbcTemplate.batchUpdate(
+                "INSERT INTO recipe (id, recipe_name, preparation, preparation_time, meal_type, cuisine, portions, creator_id) " +
+                        "VALUES (?, ?, ?, ?, ?, ?, ?, ?)",
+                recipes,
+                recipes.size(),
+                (preparedStatement, recipe) -> {
+                    preparedStatement.setLong(1, recipe.getId());
+                    preparedStatement.setString(2, recipe.getRecipeName());
+                    preparedStatement.setString(3, recipe.getPreparation());
+                    preparedStatement.setInt(4, recipe.getPreparationTime());
+                    preparedStatement.setString(5, recipe.getMealType().name());
+                    if (recipe.getCuisine() == null) {
+                        preparedStatement.setNull(6, Types.VARCHAR);
+                    } else {
+                        preparedStatement.setString(6, recipe.getCuisine());
+                    }
+                    preparedStatement.setInt(7, recipe.getPortions());
+                    preparedStatement.setLong(8, recipe.getCreator().getId());
+                }
+        );
+
+        List<RecipeProductRow> recipeProducts = new ArrayList<>();
+        for (Recipe recipe : recipes) {
+            for (RecipeProduct recipeProduct : recipe.getRecipeProducts()) {
+                recipeProducts.add(new RecipeProductRow(recipe.getId(), recipeProduct));
+            }
+        }
+
+        this.jdbcTemplate.batchUpdate(
+                "INSERT INTO recipe_product (id, quantity, unit, product_id, recipe_id) " +
+                        "VALUES (nextval('recipe_product_sequence'), ?, ?, ?, ?)",
+                recipeProducts,
+                recipeProducts.size(),
+                (preparedStatement, row) -> {
+                    preparedStatement.setInt(1, row.recipeProduct().getQuantity());
+                    preparedStatement.setString(2, row.recipeProduct().getUnit().name());
+                    preparedStatement.setLong(3, row.recipeProduct().getProduct().getId());
+                    preparedStatement.setLong(4, row.recipeId());
+                }
+        );
+    }
+
+    private record RecipeProductRow(long recipeId, RecipeProduct recipeProduct) {}
+}
@@ -0,0 +1,25 @@
+package com.cookie.app.repository;
+
+import org.springframework.data.domain.Sort;
+
+import java.util.Set;
+
+/**
+ * Position of the last returned recipe in keyset (seek) pagination.
+ * lastId equal to null means that the first page is requested.
+ */
+public record RecipeKeyset(
+        String sortColName,
+        Sort.Direction direction,
+        String lastValue,
+        Long lastId
+) {
+    public static final String ID_COL = "id";
+    public static final Set<String> SORTABLE_COLUMNS =
+            Set.of(ID_COL, "recipe_name", "preparation_time", "cuisine", "portions");
+    public static final Set<String> NUMERIC_COLUMNS = Set.of("preparation_time", "portions");
+
+    public boolean isFirstPage() {
+        return this.lastId == null;
+    }
+}
@@ -1,7 +1,17 @@
 package com.cookie.app.repository;
 
 import com.cookie.app.model.entity.RecipeProduct;
+import com.cookie.app.model.projection.RecipeIngredient;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.CrudRepository;
 
+import java.util.List;
+
 public interface RecipeProductRepository extends CrudRepository<RecipeProduct, Long> {
+
+    @Query(value = "SELECT DISTINCT rp.recipe_id AS \"recipeId\", rp.product_id AS \"productId\", " +
+            "p.category AS \"category\" " +
+            "FROM recipe_product rp JOIN product p ON p.id = rp.product_id WHERE rp.recipe_id IS NOT NULL",
+            nativeQuery = true)
+    List<RecipeIngredient> findAllRecipeIngredients();
 }
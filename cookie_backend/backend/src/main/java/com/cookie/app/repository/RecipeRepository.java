@@ -1,44 +1,189 @@
 package com.cookie.app.repository;
 
 import com.cookie.app.model.entity.Recipe;
+import com.cookie.app.model.projection.RecipeExportRow;
+import com.cookie.app.model.projection.RecipeImageState;
+import com.cookie.app.model.projection.RecipeSearchTerms;
+import com.cookie.app.model.projection.RecipeSummary;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.CrudRepository;
 import org.springframework.stereotype.Repository;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
 import java.util.Set;
+import java.util.stream.Stream;
 
 @Transactional
 @Repository
-public interface RecipeRepository extends CrudRepository<Recipe, Long> {
-    @Query(value = "SELECT DISTINCT r.* FROM recipe r " +
+public interface RecipeRepository extends CrudRepository<Recipe, Long>, RecipeRepositoryCustom {
+    String SEARCH_RANK_COL = "search_rank";
+    String VIEW_COUNT_COL = "view_count";
+    String TRENDING_VIEWS_COL = "trending_views";
+    String EXPORT_FETCH_SIZE = "500";
+    // the same values as max preparation time and portions options of the recipe browser
+    List<Integer> PREPARATION_TIME_BUCKETS = List.of(5, 15, 30, 45, 60, 90, 120, 2880);
+    List<Integer> PORTIONS_BUCKETS = List.of(1, 2, 4, 8, 12);
+    String RECIPE_SUMMARY_COLUMNS = "r.id AS \"id\", r.recipe_name AS \"recipeName\", " +
+            "r.preparation_time AS \"preparationTime\", r.meal_type AS \"mealType\", r.cuisine AS \"cuisine\", " +
+            "r.portions AS \"portions\", r.image_hash AS \"imageHash\", u.username AS \"creatorUserName\", " +
+            "(SELECT COUNT(*) FROM recipe_product rp WHERE rp.recipe_id = r.id) AS \"nrOfProducts\"";
+    // recipe pages can be sorted by these columns, recipes which were never viewed have no stats row
+    String RECIPE_VIEWS_COLUMNS = "COALESCE(vs.view_count, 0) AS " + VIEW_COUNT_COL + ", " +
+            "COALESCE(vs.trending_views, 0) AS " + TRENDING_VIEWS_COL;
+    String RECIPE_VIEWS_JOIN = "LEFT JOIN recipe_view_stats vs ON vs.recipe_id = r.id ";
+
+    @Query(value = "SELECT " + RECIPE_SUMMARY_COLUMNS + ", " + RECIPE_VIEWS_COLUMNS + " FROM recipe r " +
+            "LEFT JOIN user_table u ON u.id = r.creator_id " +
+            RECIPE_VIEWS_JOIN +
             "WHERE r.preparation_time <= (CASE WHEN ?1 >= 5 THEN ?1 ELSE 2880 END) AND " +
             "r.portions <= (CASE WHEN ?2 >= 1 THEN ?2 ELSE 12 END) AND " +
-            "r.meal_type IN ?3", nativeQuery = true)
-    Page<Recipe> findRecipes(int preparationTime, int portions, Set<String> mealTypes, PageRequest pageable);
+            "r.meal_type IN ?3",
+            countQuery = "SELECT COUNT(*) FROM recipe r " +
+                    "WHERE r.preparation_time <= (CASE WHEN ?1 >= 5 THEN ?1 ELSE 2880 END) AND " +
+                    "r.portions <= (CASE WHEN ?2 >= 1 THEN ?2 ELSE 12 END) AND " +
+                    "r.meal_type IN ?3",
+            nativeQuery = true)
+    Page<RecipeSummary> findRecipes(int preparationTime, int portions, Set<String> mealTypes, PageRequest pageable);
 
-    @Query(value = "SELECT DISTINCT r.* FROM recipe r " +
-            "WHERE (LOWER(r.recipe_name) LIKE LOWER(CONCAT('%', ?1, '%')) OR " +
-            "LOWER(r.cuisine) LIKE LOWER(CONCAT('%', ?1, '%'))) AND " +
+    @Query(value = "SELECT " + RECIPE_SUMMARY_COLUMNS + ", " + RECIPE_VIEWS_COLUMNS + ", " +
+            "ts_rank(r.search_vector, q.query) AS search_rank " +
+            "FROM recipe r CROSS JOIN to_tsquery('simple', ?1) AS q(query) " +
+            "LEFT JOIN user_table u ON u.id = r.creator_id " +
+            RECIPE_VIEWS_JOIN +
+            "WHERE r.search_vector @@ q.query AND " +
             "r.preparation_time <= (CASE WHEN ?2 >= 5 THEN ?2 ELSE 2880 END) AND " +
             "r.portions <= (CASE WHEN ?3 >= 1 THEN ?3 ELSE 12 END) AND " +
-            "r.meal_type IN ?4", nativeQuery = true)
-    Page<Recipe> findRecipesByFilter(String filterValue, int preparationTime, int portions, Set<String> mealTypes, PageRequest pageable);
+            "r.meal_type IN ?4",
+            countQuery = "SELECT COUNT(*) FROM recipe r " +
+                    "WHERE r.search_vector @@ to_tsquery('simple', ?1) AND " +
+                    "r.preparation_time <= (CASE WHEN ?2 >= 5 THEN ?2 ELSE 2880 END) AND " +
+                    "r.portions <= (CASE WHEN ?3 >= 1 THEN ?3 ELSE 12 END) AND " +
+                    "r.meal_type IN ?4",
+            nativeQuery = true)
+    Page<RecipeSummary> findRecipesByFilter(String tsQuery, int preparationTime, int portions, Set<String> mealTypes, PageRequest pageable);
 
-    @Query(value = "SELECT DISTINCT r.* FROM recipe r " +
+    @Query(value = "SELECT " + RECIPE_SUMMARY_COLUMNS + ", " + RECIPE_VIEWS_COLUMNS + " FROM recipe r " +
+            "LEFT JOIN user_table u ON u.id = r.creator_id " +
+            RECIPE_VIEWS_JOIN +
             "WHERE r.creator_id = ?1 AND r.preparation_time <= (CASE WHEN ?2 >= 5 THEN ?2 ELSE 2880 END) AND " +
             "r.portions <= (CASE WHEN ?3 >= 1 THEN ?3 ELSE 12 END) AND " +
-            "r.meal_type IN ?4", nativeQuery = true)
-    Page<Recipe> findUserRecipes(Long creatorId, int preparationTime, int portions, Set<String> mealTypes, PageRequest pageable);
+            "r.meal_type IN ?4",
+            countQuery = "SELECT COUNT(*) FROM recipe r " +
+                    "WHERE r.creator_id = ?1 AND r.preparation_time <= (CASE WHEN ?2 >= 5 THEN ?2 ELSE 2880 END) AND " +
+                    "r.portions <= (CASE WHEN ?3 >= 1 THEN ?3 ELSE 12 END) AND " +
+                    "r.meal_type IN ?4",
+            nativeQuery = true)
+    Page<RecipeSummary> findUserRecipes(Long creatorId, int preparationTime, int portions, Set<String> mealTypes, PageRequest pageable);
 
-    @Query(value = "SELECT DISTINCT r.* FROM recipe r " +
-            "WHERE r.creator_id = ?1 AND (LOWER(r.recipe_name) LIKE LOWER(CONCAT('%', ?2, '%')) OR " +
-            "LOWER(r.cuisine) LIKE LOWER(CONCAT('%', ?2, '%'))) AND " +
+    @Query(value = "SELECT " + RECIPE_SUMMARY_COLUMNS + ", " + RECIPE_VIEWS_COLUMNS + ", " +
+            "ts_rank(r.search_vector, q.query) AS search_rank " +
+            "FROM recipe r CROSS JOIN to_tsquery('simple', ?2) AS q(query) " +
+            "LEFT JOIN user_table u ON u.id = r.creator_id " +
+            RECIPE_VIEWS_JOIN +
+            "WHERE r.creator_id = ?1 AND r.search_vector @@ q.query AND " +
             "r.preparation_time <= (CASE WHEN ?3 >= 5 THEN ?3 ELSE 2880 END) AND " +
             "r.portions <= (CASE WHEN ?4 >= 1 THEN ?4 ELSE 12 END) AND " +
-            "r.meal_type IN ?5", nativeQuery = true)
-    Page<Recipe> findUserRecipesByFilter(Long creatorId, String filterValue, int preparationTime, int portions, Set<String> mealTypes, PageRequest pageable);
-}
+            "r.meal_type IN ?5",
+            countQuery = "SELECT COUNT(*) FROM recipe r " +
+                    "WHERE r.creator_id = ?1 AND r.search_vector @@ to_tsquery('simple', ?2) AND " +
+                    "r.preparation_time <= (CASE WHEN ?3 >= 5 THEN ?3 ELSE 2880 END) AND " +
+                    "r.portions <= (CASE WHEN ?4 >= 1 THEN ?4 ELSE 12 END) AND " +
+                    "r.meal_type IN ?5",
+            nativeQuery = true)
+    Page<RecipeSummary> findUserRecipesByFilter(Long creatorId, String tsQuery, int preparationTime, int portions, Set<String> mealTypes, PageRequest pageable);
+
+    @Query(value = "SELECT " + RECIPE_SUMMARY_COLUMNS + " FROM recipe r " +
+            "LEFT JOIN user_table u ON u.id = r.creator_id " +
+            "WHERE r.id IN ?1",
+            nativeQuery = true)
+    List<RecipeSummary> findRecipeSummariesByIdIn(Collection<Long> recipeIds);
+
+    /**
+     * Streams recipes with their products ordered by recipe, recipes of all users when creator id is 0.
+     * Rows are read through database cursor in batches of fetch size and images are not read at all.
+     */
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = EXPORT_FETCH_SIZE),
+            @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    @Query(value = "SELECT r.id AS \"recipeId\", r.recipe_name AS \"recipeName\", r.preparation AS \"preparation\", " +
+            "r.preparation_time AS \"preparationTime\", r.meal_type AS \"mealType\", r.cuisine AS \"cuisine\", " +
+            "r.portions AS \"portions\", u.username AS \"creatorUserName\", p.product_name AS \"productName\", " +
+            "p.category AS \"category\", rp.quantity AS \"quantity\", rp.unit AS \"unit\" " +
+            "FROM recipe r " +
+            "LEFT JOIN user_table u ON u.id = r.creator_id " +
+            "LEFT JOIN recipe_product rp ON rp.recipe_id = r.id " +
+            "LEFT JOIN product p ON p.id = rp.product_id " +
+            "WHERE (?1 = 0 OR r.creator_id = ?1) " +
+            "ORDER BY r.id, rp.id",
+            nativeQuery = true)
+    Stream<RecipeExportRow> streamRecipesForExport(long creatorId);
+
+    @Query(value = "SELECT r.image_hash FROM recipe r WHERE r.id = ?1", nativeQuery = true)
+    Optional<String> findImageHashById(long recipeId);
+
+    @Query(value = "SELECT r.id AS \"id\", r.recipe_name AS \"recipeName\", r.cuisine AS \"cuisine\" FROM recipe r",
+            nativeQuery = true)
+    List<RecipeSearchTerms> findAllRecipeSearchTerms();
+
+    @Query(value = "SELECT r.image_status AS \"imageStatus\", r.image_hash AS \"imageHash\" FROM recipe r WHERE r.id = ?1",
+            nativeQuery = true)
+    Optional<RecipeImageState> findImageStateById(long recipeId);
+
+    @Query(value = "SELECT r.recipe_thumbnail FROM recipe r WHERE r.id = ?1", nativeQuery = true)
+    Optional<byte[]> findThumbnailById(long recipeId);
 
+    @Query(value = "SELECT r.recipe_card_image FROM recipe r WHERE r.id = ?1", nativeQuery = true)
+    Optional<byte[]> findCardImageById(long recipeId);
+
+    // recipe_image column holds large objects of images saved before image store was introduced
+    @Query(value = "SELECT lo_get(r.recipe_image) FROM recipe r WHERE r.id = ?1 AND r.recipe_image IS NOT NULL", nativeQuery = true)
+    Optional<byte[]> findCompressedImageById(long recipeId);
+
+    // update does nothing when legacy image was released in the meantime, migration later sets the same hash
+    @Modifying
+    @Query(value = "UPDATE recipe SET image_hash = ?2 WHERE id = ?1 AND image_hash IS NULL AND recipe_image IS NOT NULL",
+            nativeQuery = true)
+    int saveLegacyImageHash(long recipeId, String imageHash);
+
+    @Query(value = "SELECT r.id FROM recipe r WHERE r.recipe_image IS NOT NULL ORDER BY r.id LIMIT ?1", nativeQuery = true)
+    List<Long> findRecipeIdsWithLegacyImage(int limit);
+
+    @Modifying
+    @Query(value = "UPDATE recipe SET image_hash = ?2, " +
+            "recipe_thumbnail = COALESCE(recipe_thumbnail, ?3), " +
+            "recipe_card_image = COALESCE(recipe_card_image, ?4), " +
+            "recipe_image = NULL " +
+            "WHERE id = ?1 AND recipe_image IS NOT NULL AND lo_unlink(recipe_image) = 1",
+            nativeQuery = true)
+    int moveLegacyImage(long recipeId, String imageHash, byte[] thumbnail, byte[] cardImage);
+
+    @Modifying
+    @Query(value = "UPDATE recipe SET recipe_image = NULL " +
+            "WHERE id = ?1 AND recipe_image IS NOT NULL AND lo_unlink(recipe_image) = 1",
+            nativeQuery = true)
+    int releaseLegacyImage(long recipeId);
+
+    // upload id does not match when recipe got another image while this one was processed
+    @Modifying
+    @Query(value = "UPDATE recipe SET image_hash = ?3, recipe_thumbnail = ?4, recipe_card_image = ?5, " +
+            "image_status = 'READY', image_upload_id = NULL " +
+            "WHERE id = ?1 AND image_upload_id = ?2",
+            nativeQuery = true)
+    int completeImageProcessing(long recipeId, String uploadId, String imageHash, byte[] thumbnail, byte[] cardImage);
+
+    @Modifying
+    @Query(value = "UPDATE recipe SET image_status = 'FAILED', image_upload_id = NULL " +
+            "WHERE id = ?1 AND image_upload_id = ?2",
+            nativeQuery = true)
+    int failImageProcessing(long recipeId, String uploadId);
+}
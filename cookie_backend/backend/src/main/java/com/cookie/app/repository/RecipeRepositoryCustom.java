@@ -0,0 +1,17 @@
+package com.cookie.app.repository;
+
+import com.cookie.app.model.projection.RecipeSummary;
+
+import java.util.List;
+import java.util.Set;
+
+public interface RecipeRepositoryCustom {
+    List<RecipeSummary> findRecipesAfter(RecipeKeyset keyset,
+                                         String tsQuery,
+                                         int preparationTime,
+                                         int portions,
+                                         Set<String> mealTypes,
+                                         int limit);
+
+    List<RecipeFacetCount> countRecipeFacets(String tsQuery, int preparationTime, int portions, Set<String> mealTypes);
+}
@@ -0,0 +1,238 @@
+package com.cookie.app.repository;
+
+import com.cookie.app.model.enums.MealType;
+import com.cookie.app.model.projection.RecipeSummary;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.Query;
+import jakarta.persistence.Tuple;
+import org.springframework.data.domain.Sort;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+@Transactional(readOnly = true)
+public class RecipeRepositoryCustomImpl implements RecipeRepositoryCustom {
+    // every expression is backed by (expression, id) index, so the query seeks instead of skipping rows
+    private static final Map<String, String> SORT_EXPRESSIONS = Map.of(
+            RecipeKeyset.ID_COL, "r.id",
+            "recipe_name", "r.recipe_name",
+            "preparation_time", "r.preparation_time",
+            "cuisine", "COALESCE(r.cuisine, '')",
+            "portions", "r.portions"
+    );
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @SuppressWarnings("unchecked")
+    @Override
+    public List<RecipeSummary> findRecipesAfter(RecipeKeyset keyset,
+                                                String tsQuery,
+                                                int preparationTime,
+                                                int portions,
+                                                Set<String> mealTypes,
+                                                int limit) {
+        String sortExpression = SORT_EXPRESSIONS.get(keyset.sortColName());
+
+        if (sortExpression == null) {
+            throw new IllegalArgumentException("Recipes cannot be sorted by " + keyset.sortColName());
+        }
+
+        boolean isIdSort = RecipeKeyset.ID_COL.equals(keyset.sortColName());
+        boolean hasSearch = tsQuery != null && !tsQuery.isEmpty();
+        String direction = keyset.direction() == Sort.Direction.ASC ? "ASC" : "DESC";
+        String comparison = keyset.direction() == Sort.Direction.ASC ? ">" : "<";
+
+        StringBuilder sql = new StringBuilder("SELECT ")
+                .append(RecipeRepository.RECIPE_SUMMARY_COLUMNS)
+                .append(" FROM recipe r LEFT JOIN user_table u ON u.id = r.creator_id ")
+                .append("WHERE r.preparation_time <= (CASE WHEN :prepTime >= 5 THEN :prepTime ELSE 2880 END) AND ")
+                .append("r.portions <= (CASE WHEN :portions >= 1 THEN :portions ELSE 12 END) AND ")
+                .append("r.meal_type IN (:mealTypes)");
+
+        if (hasSearch) {
+            sql.append(" AND r.search_vector @@ to_tsquery('simple', :tsQuery)");
+        }
+
+        if (!keyset.isFirstPage()) {
+            if (isIdSort) {
+                sql.append(" AND r.id ").append(comparison).append(" :lastId");
+            } else {
+                sql.append(" AND (").append(sortExpression).append(", r.id) ")
+                        .append(comparison).append(" (:lastValue, :lastId)");
+            }
+        }
+
+        sql.append(" ORDER BY ");
+        if (!isIdSort) {
+            sql.append(sortExpression).append(' ').append(direction).append(", ");
+        }
+        sql.append("r.id ").append(direction).append(" LIMIT :limit");
+
+        Query query = this.entityManager.createNativeQuery(sql.toString(), Tuple.class)
+                .setParameter("prepTime", preparationTime)
+                .setParameter("portions", portions)
+                .setParameter("mealTypes", mealTypes)
+                .setParameter("limit", limit);
+
+        if (hasSearch) {
+            query.setParameter("tsQuery", tsQuery);
+        }
+
+        if (!keyset.isFirstPage()) {
+            query.setParameter("lastId", keyset.lastId());
+
+            if (!isIdSort) {
+                query.setParameter("lastValue", RecipeKeyset.NUMERIC_COLUMNS.contains(keyset.sortColName()) ?
+                        Integer.valueOf(keyset.lastValue()) :
+                        keyset.lastValue());
+            }
+        }
+
+        return ((List<Tuple>) query.getResultList())
+                .stream()
+                .map(this::mapToRecipeSummary)
+                .toList();
+    }
+
+    /**
+     * Counts recipes per meal type, cuisine, preparation time and portions bucket in one pass using grouping sets.
+     * Count of every facet ignores filter of that facet, so the browser knows how many recipes it gets
+     * after changing only that filter.
+     */
+    @SuppressWarnings("unchecked")
+    @Override
+    public List<RecipeFacetCount> countRecipeFacets(String tsQuery, int preparationTime, int portions, Set<String> mealTypes) {
+        boolean hasSearch = tsQuery != null && !tsQuery.isEmpty();
+        StringBuilder sql = new StringBuilder("WITH f AS (SELECT r.meal_type AS meal_type, ")
+                .append("COALESCE(r.cuisine, '') AS cuisine, ")
+                .append(createBucketExpression("r.preparation_time", RecipeRepository.PREPARATION_TIME_BUCKETS))
+                .append(" AS prep_bucket, ")
+                .append(createBucketExpression("r.portions", RecipeRepository.PORTIONS_BUCKETS))
+                .append(" AS portions_bucket, ")
+                .append("r.preparation_time <= (CASE WHEN :prepTime >= 5 THEN :prepTime ELSE 2880 END) AS prep_match, ")
+                .append("r.portions <= (CASE WHEN :portions >= 1 THEN :portions ELSE 12 END) AS portions_match, ")
+                .append("r.meal_type IN (:mealTypes) AS meal_type_match ")
+                .append("FROM recipe r");
+
+        if (hasSearch) {
+            sql.append(" WHERE r.search_vector @@ to_tsquery('simple', :tsQuery)");
+        }
+
+        sql.append(") SELECT CASE WHEN GROUPING(f.meal_type) = 0 THEN 'MEAL_TYPE' ")
+                .append("WHEN GROUPING(f.cuisine) = 0 THEN 'CUISINE' ")
+                .append("WHEN GROUPING(f.prep_bucket) = 0 THEN 'PREPARATION_TIME' ")
+                .append("WHEN GROUPING(f.portions_bucket) = 0 THEN 'PORTIONS' ")
+                .append("ELSE 'TOTAL' END AS \"facet\", ")
+                .append("COALESCE(f.meal_type, f.cuisine, CAST(f.prep_bucket AS TEXT), CAST(f.portions_bucket AS TEXT)) AS \"value\", ")
+                .append("CASE WHEN GROUPING(f.meal_type) = 0 THEN COUNT(*) FILTER (WHERE f.prep_match AND f.portions_match) ")
+                .append("WHEN GROUPING(f.prep_bucket) = 0 THEN COUNT(*) FILTER (WHERE f.meal_type_match AND f.portions_match) ")
+                .append("WHEN GROUPING(f.portions_bucket) = 0 THEN COUNT(*) FILTER (WHERE f.meal_type_match AND f.prep_match) ")
+                .append("ELSE COUNT(*) FILTER (WHERE f.meal_type_match AND f.prep_match AND f.portions_match) END AS \"count\" ")
+                .append("FROM f GROUP BY GROUPING SETS ((f.meal_type), (f.cuisine), (f.prep_bucket), (f.portions_bucket), ())");
+
+        Query query = this.entityManager.createNativeQuery(sql.toString(), Tuple.class)
+                .setParameter("prepTime", preparationTime)
+                .setParameter("portions", portions)
+                .setParameter("mealTypes", mealTypes);
+
+        if (hasSearch) {
+            query.setParameter("tsQuery", tsQuery);
+        }
+
+        return ((List<Tuple>) query.getResultList())
+                .stream()
+                .map(tuple -> new RecipeFacetCount(
+                        RecipeFacetCount.Facet.valueOf(tuple.get("facet", String.class)),
+                        tuple.get("value", String.class),
+                        tuple.get("count", Number.class).longValue()
+                ))
+                .toList();
+    }
+
+    // buckets are fixed integers, so they are inlined and every recipe falls to the smallest bucket not lower than value
+    private String createBucketExpression(String column, List<Integer> buckets) {
+        StringBuilder expression = new StringBuilder("CASE");
+
+        for (int i = 0; i < buckets.size() - 1; i++) {
+            expression.append(" WHEN ").append(column).append(" <= ").append(buckets.get(i))
+                    .append(" THEN ").append(buckets.get(i));
+        }
+
+        return expression.append(" ELSE ").append(buckets.get(buckets.size() - 1)).append(" END").toString();
+    }
+
+    private RecipeSummary mapToRecipeSummary(Tuple tuple) {
+        return new RecipeSummaryRow(
+                tuple.get("id", Number.class).longValue(),
+                tuple.get("recipeName", String.class),
+                tuple.get("preparationTime", Number.class).intValue(),
+                MealType.valueOf(tuple.get("mealType", String.class)),
+                tuple.get("cuisine", String.class),
+                tuple.get("portions", Number.class).intValue(),
+                tuple.get("creatorUserName", String.class),
+                tuple.get("nrOfProducts", Number.class).intValue(),
+                tuple.get("imageHash", String.class)
+        );
+    }
+
+    private record RecipeSummaryRow(
+            long id,
+            String recipeName,
+            int preparationTime,
+            MealType mealType,
+            String cuisine,
+            int portions,
+            String creatorUserName,
+            int nrOfProducts,
+            String imageHash
+    ) implements RecipeSummary {
+        @Override
+        public long getId() {
+            return this.id;
+        }
+
+        @Override
+        public String getRecipeName() {
+            return this.recipeName;
+        }
+
+        @Override
+        public int getPreparationTime() {
+            return this.preparationTime;
+        }
+
+        @Override
+        public MealType getMealType() {
+            return this.mealType;
+        }
+
+        @Override
+        public String getCuisine() {
+            return this.cuisine;
+        }
+
+        @Override
+        public int getPortions() {
+            return this.portions;
+        }
+
+        @Override
+        public String getCreatorUserName() {
+            return this.creatorUserName;
+        }
+
+        @Override
+        public int getNrOfProducts() {
+            return this.nrOfProducts;
+        }
+
+        @Override
+        public String getImageHash() {
+            return this.imageHash;
+        }
+    }
+}
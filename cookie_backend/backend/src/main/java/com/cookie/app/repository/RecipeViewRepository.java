@@ -0,0 +1,61 @@
+package com.cookie.app.repository;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+/**
+ * Writes recipe views counted in memory. Views are kept in hourly buckets, trending views of recipe are the sum
+ * of its buckets which were not expired yet, so they are updated together with buckets instead of summed on read.
+ */
+@RequiredArgsConstructor
+@Repository
+public class RecipeViewRepository {
+    private final JdbcTemplate jdbcTemplate;
+
+    /**
+     * Adds views of all recipes to their totals and to the bucket of given hour in single statement. Views of
+     * recipes deleted in the meantime are skipped. Recipe ids should be sorted, so concurrent flushes lock rows
+     * in the same order.
+     */
+    public int addViews(Long[] recipeIds, Long[] views, long bucketHour) {
+        return this.jdbcTemplate.update(
+                "WITH added AS (" +
+                        "SELECT v.recipe_id, v.view_count FROM unnest(?, ?) AS v(recipe_id, view_count) " +
+                        "JOIN recipe r ON r.id = v.recipe_id" +
+                        "), buckets AS (" +
+                        "INSERT INTO recipe_view_bucket (recipe_id, bucket_hour, view_count) " +
+                        "SELECT a.recipe_id, ?, a.view_count FROM added a " +
+                        "ON CONFLICT (recipe_id, bucket_hour) " +
+                        "DO UPDATE SET view_count = recipe_view_bucket.view_count + EXCLUDED.view_count" +
+                        ") " +
+                        "INSERT INTO recipe_view_stats (recipe_id, view_count, trending_views) " +
+                        "SELECT a.recipe_id, a.view_count, a.view_count FROM added a " +
+                        "ON CONFLICT (recipe_id) DO UPDATE SET " +
+                        "view_count = recipe_view_stats.view_count + EXCLUDED.view_count, " +
+                        "trending_views = recipe_view_stats.trending_views + EXCLUDED.trending_views",
+                preparedStatement -> {
+                    preparedStatement.setArray(1, preparedStatement.getConnection().createArrayOf("bigint", recipeIds));
+                    preparedStatement.setArray(2, preparedStatement.getConnection().createArrayOf("bigint", views));
+                    preparedStatement.setLong(3, bucketHour);
+                }
+        );
+    }
+
+    /**
+     * Deletes buckets older than given hour and subtracts their views from trending views. Buckets are deleted
+     * by the same statement, so views of expired bucket are subtracted only once.
+     */
+    public int expireViews(long firstBucketHour) {
+        return this.jdbcTemplate.update(
+                "WITH expired AS (" +
+                        "DELETE FROM recipe_view_bucket WHERE bucket_hour < ? " +
+                        "RETURNING recipe_id, view_count" +
+                        ") " +
+                        "UPDATE recipe_view_stats s SET trending_views = GREATEST(s.trending_views - e.view_count, 0) " +
+                        "FROM (SELECT recipe_id, SUM(view_count) AS view_count FROM expired GROUP BY recipe_id) e " +
+                        "WHERE s.recipe_id = e.recipe_id",
+                firstBucketHour
+        );
+    }
+}
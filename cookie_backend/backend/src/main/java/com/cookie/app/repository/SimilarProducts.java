@@ -0,0 +1,13 @@
+package com.cookie.app.repository;
+
+/**
+ * Two products of the same category with similar names, usages are numbers of pantry, shopping list
+ * and recipe products which use the product.
+ */
+public record SimilarProducts(long productId,
+                              String productName,
+                              long productUsages,
+                              long similarProductId,
+                              String similarProductName,
+                              long similarProductUsages) {
+}
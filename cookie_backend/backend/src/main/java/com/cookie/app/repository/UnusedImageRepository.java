@@ -0,0 +1,60 @@
+package com.cookie.app.repository;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.util.List;
+
+/**
+ * Keeps images which stopped being used by a recipe. Images are marked in the transaction which dropped them,
+ * so marks of rolled back changes disappear, and they are deleted from the image store only later, because
+ * another recipe can start using the same image in the meantime.
+ */
+@RequiredArgsConstructor
+@Repository
+public class UnusedImageRepository {
+    private final JdbcTemplate jdbcTemplate;
+
+    public void markUnused(String imageHash, Instant markedAt) {
+        this.jdbcTemplate.update(
+                "INSERT INTO unused_image (image_hash, marked_at) VALUES (?, ?) " +
+                        "ON CONFLICT (image_hash) DO UPDATE SET marked_at = EXCLUDED.marked_at",
+                imageHash,
+                Timestamp.from(markedAt)
+        );
+    }
+
+    /**
+     * Returns images marked before given time which are not used by any recipe, the oldest marks first.
+     */
+    public List<String> findUnusedImages(Instant markedBefore, int limit) {
+        return this.jdbcTemplate.queryForList(
+                "SELECT u.image_hash FROM unused_image u " +
+                        "WHERE u.marked_at < ? AND NOT EXISTS (SELECT 1 FROM recipe r WHERE r.image_hash = u.image_hash) " +
+                        "ORDER BY u.marked_at LIMIT ?",
+                String.class,
+                Timestamp.from(markedBefore),
+                limit
+        );
+    }
+
+    public int deleteMarks(String[] imageHashes) {
+        return this.jdbcTemplate.update(
+                "DELETE FROM unused_image u USING unnest(?) AS d(image_hash) WHERE u.image_hash = d.image_hash",
+                preparedStatement -> preparedStatement.setArray(
+                        1,
+                        preparedStatement.getConnection().createArrayOf("text", imageHashes)
+                )
+        );
+    }
+
+    // images marked as unused can be used again by another recipe, they are not deleted then
+    public int deleteMarksOfUsedImages() {
+        return this.jdbcTemplate.update(
+                "DELETE FROM unused_image u WHERE EXISTS (SELECT 1 FROM recipe r WHERE r.image_hash = u.image_hash)"
+        );
+    }
+}
@@ -0,0 +1,78 @@
+package com.cookie.app.search;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.SplittableRandom;
+
+/**
+ * Creates MinHash signatures of product sets and cuts them into locality sensitive hashing bands.
+ * Two sets share a band key with probability depending on their Jaccard similarity, with 16 bands
+ * of 4 rows sets more than about half similar share at least one band with high probability.
+ */
+public class MinHasher {
+    public static final int BANDS = 16;
+    public static final int ROWS_PER_BAND = 4;
+    private static final int SIGNATURE_SIZE = BANDS * ROWS_PER_BAND;
+    // fixed seed keeps band keys stable between restarts and equal on every instance
+    private static final long SEED = 0x5DEECE66DL;
+
+    private final long[] multipliers = new long[SIGNATURE_SIZE];
+    private final long[] increments = new long[SIGNATURE_SIZE];
+
+    public MinHasher() {
+        SplittableRandom random = new SplittableRandom(SEED);
+
+        for (int i = 0; i < SIGNATURE_SIZE; i++) {
+            // odd multiplier makes every hash function a bijection of 64 bit values before mixing
+            this.multipliers[i] = random.nextLong() | 1L;
+            this.increments[i] = random.nextLong();
+        }
+    }
+
+    public long[] createSignature(Collection<Long> productIds) {
+        long[] signature = new long[SIGNATURE_SIZE];
+        Arrays.fill(signature, Long.MAX_VALUE);
+
+        for (long productId : productIds) {
+            for (int i = 0; i < SIGNATURE_SIZE; i++) {
+                long hash = mix(productId * this.multipliers[i] + this.increments[i]);
+
+                if (hash < signature[i]) {
+                    signature[i] = hash;
+                }
+            }
+        }
+
+        return signature;
+    }
+
+    /**
+     * Hashes every band of the signature into one key. Band number is part of the key,
+     * so equal rows in different bands do not collide.
+     */
+    public long[] createBandKeys(long[] signature) {
+        long[] bandKeys = new long[BANDS];
+
+        for (int band = 0; band < BANDS; band++) {
+            long key = band;
+
+            for (int row = 0; row < ROWS_PER_BAND; row++) {
+                key = key * 0x9E3779B97F4A7C15L + signature[band * ROWS_PER_BAND + row];
+            }
+            bandKeys[band] = mix(key);
+        }
+
+        return bandKeys;
+    }
+
+    // finalizer of MurmurHash3, spreads every input bit over the whole hash
+    private static long mix(long value) {
+        value ^= value >>> 33;
+        value *= 0xFF51AFD7ED558CCDL;
+        value ^= value >>> 33;
+        value *= 0xC4CEB93FE1A85EC5L;
+        value ^= value >>> 33;
+
+        return value;
+    }
+}
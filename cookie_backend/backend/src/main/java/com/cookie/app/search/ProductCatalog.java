@@ -0,0 +1,218 @@
+package com.cookie.app.search;
+
+import com.cookie.app.event.ProductCreatedEvent;
+import com.cookie.app.event.ProductsMergedEvent;
+import com.cookie.app.model.dto.ProductDTO;
+import com.cookie.app.model.entity.Product;
+import com.cookie.app.model.enums.Category;
+import com.cookie.app.model.projection.ProductUsage;
+import com.cookie.app.repository.ProductRepository;
+import com.cookie.app.util.SearchQueryUtil;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.Clock;
+import java.util.*;
+
+/**
+ * Keeps all products in memory, so product autocomplete does not query the database. Products of every category
+ * are sorted by normalized name, so products with typed prefix are next to each other and are found with binary
+ * search. The most used products in pantries, shopping lists and recipes are returned first.
+ * Catalog is replaced as a whole on every change and its version is increased, so readers never lock and clients
+ * can cache products of given version. Products deleted by merging are dropped when catalog is loaded again.
+ */
+@Slf4j
+@Component
+public class ProductCatalog {
+    private static final Comparator<Entry> BY_NAME = Comparator
+            .comparing(Entry::key)
+            .thenComparingLong(entry -> entry.product().productId());
+    private static final Comparator<Entry> MOST_USED_FIRST = Comparator
+            .comparingLong(Entry::usages).reversed()
+            .thenComparing(BY_NAME);
+    private static final Entry[] NO_ENTRIES = new Entry[0];
+
+    private final ProductRepository productRepository;
+    private final Clock clock;
+    private volatile Snapshot snapshot = new Snapshot(0, new EnumMap<>(Category.class));
+    // accessed only while synchronized
+    private final Set<Long> createdProductIds = new HashSet<>();
+
+    public ProductCatalog(ProductRepository productRepository, Clock clock) {
+        this.productRepository = productRepository;
+        this.clock = clock;
+    }
+
+    /**
+     * Loads all products with their usages. It runs also periodically, because usages of products change
+     * when they are used and only new products are added between rebuilds, and because products can be merged
+     * by another instance.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    @Scheduled(
+            initialDelayString = "${config.product-catalog.refresh-delay-ms:600000}",
+            fixedDelayString = "${config.product-catalog.refresh-delay-ms:600000}"
+    )
+    public void rebuild() {
+        synchronized (this) {
+            this.createdProductIds.clear();
+        }
+
+        List<ProductUsage> productUsages = this.productRepository.findAllProductUsages();
+        Map<Category, List<Entry>> entries = new EnumMap<>(Category.class);
+        Set<Long> loadedProductIds = new HashSet<>();
+
+        for (ProductUsage productUsage : productUsages) {
+            entries.computeIfAbsent(productUsage.getCategory(), category -> new ArrayList<>()).add(createEntry(
+                    productUsage.getId(),
+                    productUsage.getProductName(),
+                    productUsage.getCategory(),
+                    productUsage.getUsages()
+            ));
+            loadedProductIds.add(productUsage.getId());
+        }
+
+        synchronized (this) {
+            // product which was created while products were loaded can be missing in loaded products
+            for (Entry[] categoryEntries : this.snapshot.categories().values()) {
+                for (Entry entry : categoryEntries) {
+                    long productId = entry.product().productId();
+
+                    if (this.createdProductIds.contains(productId) && !loadedProductIds.contains(productId)) {
+                        entries.computeIfAbsent(entry.product().category(), category -> new ArrayList<>()).add(entry);
+                    }
+                }
+            }
+
+            Map<Category, Entry[]> categories = new EnumMap<>(Category.class);
+            entries.forEach((category, categoryEntries) -> {
+                Entry[] sortedEntries = categoryEntries.toArray(Entry[]::new);
+                Arrays.sort(sortedEntries, BY_NAME);
+                categories.put(category, sortedEntries);
+            });
+
+            // version is kept when nothing changed, so clients do not download the same products again
+            if (!this.snapshot.hasSameEntries(categories)) {
+                this.snapshot = new Snapshot(nextVersion(), categories);
+            }
+        }
+
+        log.info("Product catalog loaded {} products, version {}", productUsages.size(), this.snapshot.version());
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public synchronized void onProductCreated(ProductCreatedEvent event) {
+        Product product = event.product();
+        this.createdProductIds.add(product.getId());
+        Entry entry = createEntry(product.getId(), product.getProductName(), product.getCategory(), 0);
+        Entry[] entries = this.snapshot.categories().getOrDefault(product.getCategory(), NO_ENTRIES);
+        int position = Arrays.binarySearch(entries, entry, BY_NAME);
+
+        // product is already in catalog when it was loaded by rebuild before the event came
+        if (position >= 0) {
+            return;
+        }
+
+        int insertionPoint = -position - 1;
+        Entry[] updatedEntries = new Entry[entries.length + 1];
+        System.arraycopy(entries, 0, updatedEntries, 0, insertionPoint);
+        updatedEntries[insertionPoint] = entry;
+        System.arraycopy(entries, insertionPoint, updatedEntries, insertionPoint + 1, entries.length - insertionPoint);
+
+        Map<Category, Entry[]> categories = new EnumMap<>(this.snapshot.categories());
+        categories.put(product.getCategory(), updatedEntries);
+        this.snapshot = new Snapshot(nextVersion(), categories);
+    }
+
+    // merged products are deleted and usages of kept products are increased, so whole catalog is loaded again
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onProductsMerged(ProductsMergedEvent event) {
+        rebuild();
+    }
+
+    /**
+     * Returns the most used products which names start with filter value, ignoring case and accents.
+     * Products of all categories are searched when category is null.
+     */
+    public List<ProductDTO> findProducts(String filterValue, Category category, int limit) {
+        String prefix = SearchQueryUtil.normalizeSearchText(filterValue);
+        Snapshot currentSnapshot = this.snapshot;
+
+        if (prefix.isEmpty() || limit <= 0) {
+            return Collections.emptyList();
+        }
+
+        // the least used product of the best ones is at the head, so it is dropped when better one is found
+        PriorityQueue<Entry> mostUsed = new PriorityQueue<>(limit + 1, MOST_USED_FIRST.reversed());
+        Collection<Entry[]> searchedCategories = category == null ?
+                currentSnapshot.categories().values() :
+                Collections.singletonList(currentSnapshot.categories().getOrDefault(category, NO_ENTRIES));
+
+        for (Entry[] entries : searchedCategories) {
+            for (int i = findFirstWithPrefix(entries, prefix); i < entries.length && entries[i].key().startsWith(prefix); i++) {
+                mostUsed.offer(entries[i]);
+                if (mostUsed.size() > limit) {
+                    mostUsed.poll();
+                }
+            }
+        }
+
+        List<Entry> foundEntries = new ArrayList<>(mostUsed);
+        foundEntries.sort(MOST_USED_FIRST);
+
+        return foundEntries.stream().map(Entry::product).toList();
+    }
+
+    public long getVersion() {
+        return this.snapshot.version();
+    }
+
+    // version starts from the current time, so it keeps growing also after application is restarted
+    private long nextVersion() {
+        return Math.max(this.clock.millis(), this.snapshot.version() + 1);
+    }
+
+    private int findFirstWithPrefix(Entry[] entries, String prefix) {
+        int low = 0;
+        int high = entries.length;
+
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+
+            if (entries[middle].key().compareTo(prefix) < 0) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+
+        return low;
+    }
+
+    private Entry createEntry(long productId, String productName, Category category, long usages) {
+        return new Entry(
+                SearchQueryUtil.normalizeSearchText(productName),
+                new ProductDTO(productId, productName, category),
+                usages
+        );
+    }
+
+    private record Entry(String key, ProductDTO product, long usages) {}
+
+    private record Snapshot(long version, Map<Category, Entry[]> categories) {
+
+        boolean hasSameEntries(Map<Category, Entry[]> otherCategories) {
+            if (!this.categories.keySet().equals(otherCategories.keySet())) {
+                return false;
+            }
+
+            return this.categories.entrySet()
+                    .stream()
+                    .allMatch(category -> Arrays.equals(category.getValue(), otherCategories.get(category.getKey())));
+        }
+    }
+}
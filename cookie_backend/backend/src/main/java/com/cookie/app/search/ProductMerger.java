@@ -0,0 +1,147 @@
+package com.cookie.app.search;
+
+import com.cookie.app.config.CacheConfig;
+import com.cookie.app.config.ProductMatchingProperties;
+import com.cookie.app.event.ProductsMergedEvent;
+import com.cookie.app.repository.ProductMergeRepository;
+import com.cookie.app.repository.SimilarProducts;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.cache.annotation.CacheEvict;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DataAccessException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.TransactionException;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.*;
+
+/**
+ * Merges products with similar names, which were created before product names were matched by similarity or
+ * by several requests at the same time. The most used product of similar products is kept, so misspelled names
+ * used only by few items are replaced by the right ones. Every merged product is similar to the product which
+ * replaced it, similarity is not chained through other products.
+ * Similar names can still mean different products, so merging is disabled by default and its dry run logs
+ * products which would be merged for review.
+ */
+@Slf4j
+@RequiredArgsConstructor
+@Component
+public class ProductMerger {
+    private static final Comparator<Map.Entry<Long, Long>> MOST_USED_FIRST = Map.Entry.<Long, Long>comparingByValue()
+            .reversed()
+            .thenComparing(Map.Entry.comparingByKey());
+
+    private final ProductMergeRepository productMergeRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final ApplicationEventPublisher eventPublisher;
+    private final ProductMatchingProperties productMatchingProperties;
+
+    /**
+     * Merges one batch of similar products and returns number of merged products. Products left over are merged
+     * by the next run. Products of cached recipes can change and merges are rare, so all cached recipes are evicted
+     * when any product was merged.
+     */
+    @CacheEvict(
+            cacheNames = {CacheConfig.RECIPE_DETAILS_CACHE, CacheConfig.RECIPE_PAGES_CACHE, CacheConfig.RECIPE_FACETS_CACHE},
+            allEntries = true,
+            condition = "#result > 0"
+    )
+    @Scheduled(
+            initialDelayString = "${config.product-matching.merge-delay-ms:86400000}",
+            fixedDelayString = "${config.product-matching.merge-delay-ms:86400000}"
+    )
+    public int mergeSimilarProducts() {
+        ProductMatchingProperties.MergeMode mergeMode = this.productMatchingProperties.mergeMode();
+
+        if (mergeMode == ProductMatchingProperties.MergeMode.DISABLED) {
+            return 0;
+        }
+
+        try {
+            Integer mergedProducts = this.transactionTemplate.execute(status -> {
+                List<SimilarProducts> similarProducts = this.productMergeRepository.findSimilarProducts(
+                        this.productMatchingProperties.mergeSimilarity(),
+                        this.productMatchingProperties.mergeBatchSize()
+                );
+                Map<Long, Long> keptProductIds = selectProductsToMerge(similarProducts);
+
+                if (keptProductIds.isEmpty()) {
+                    return 0;
+                }
+
+                if (mergeMode == ProductMatchingProperties.MergeMode.DRY_RUN) {
+                    logProductsToMerge(similarProducts, keptProductIds);
+                    return 0;
+                }
+
+                int deletedProducts = this.productMergeRepository.mergeProducts(
+                        keptProductIds.keySet().toArray(Long[]::new),
+                        keptProductIds.values().toArray(Long[]::new)
+                );
+                this.eventPublisher.publishEvent(new ProductsMergedEvent(keptProductIds));
+
+                return deletedProducts;
+            });
+
+            log.info("Merged {} products with similar names", mergedProducts);
+            return mergedProducts == null ? 0 : mergedProducts;
+        } catch (DataAccessException | TransactionException exception) {
+            log.error("Merging products with similar names failed", exception);
+            return 0;
+        }
+    }
+
+    // merged product ids are sorted, so rows are locked in the same order as by the previous runs
+    Map<Long, Long> selectProductsToMerge(List<SimilarProducts> similarProducts) {
+        Map<Long, Long> usages = new HashMap<>();
+        Map<Long, List<Long>> similarProductIds = new HashMap<>();
+
+        for (SimilarProducts products : similarProducts) {
+            usages.put(products.productId(), products.productUsages());
+            usages.put(products.similarProductId(), products.similarProductUsages());
+            similarProductIds.computeIfAbsent(products.productId(), id -> new ArrayList<>()).add(products.similarProductId());
+            similarProductIds.computeIfAbsent(products.similarProductId(), id -> new ArrayList<>()).add(products.productId());
+        }
+
+        List<Map.Entry<Long, Long>> productsByUsages = new ArrayList<>(usages.entrySet());
+        productsByUsages.sort(MOST_USED_FIRST);
+
+        Map<Long, Long> keptProductIds = new TreeMap<>();
+        Set<Long> keptProducts = new HashSet<>();
+
+        for (Map.Entry<Long, Long> product : productsByUsages) {
+            long productId = product.getKey();
+
+            if (keptProductIds.containsKey(productId)) {
+                continue;
+            }
+
+            keptProducts.add(productId);
+            for (long similarProductId : similarProductIds.get(productId)) {
+                if (!keptProducts.contains(similarProductId)) {
+                    keptProductIds.putIfAbsent(similarProductId, productId);
+                }
+            }
+        }
+
+        return keptProductIds;
+    }
+
+    private void logProductsToMerge(List<SimilarProducts> similarProducts, Map<Long, Long> keptProductIds) {
+        Map<Long, String> productNames = new HashMap<>();
+        for (SimilarProducts products : similarProducts) {
+            productNames.put(products.productId(), products.productName());
+            productNames.put(products.similarProductId(), products.similarProductName());
+        }
+
+        keptProductIds.forEach((mergedProductId, keptProductId) -> log.info(
+                "Dry run: product id={} name={} would be replaced by product id={} name={}",
+                mergedProductId,
+                productNames.get(mergedProductId),
+                keptProductId,
+                productNames.get(keptProductId)
+        ));
+    }
+}
@@ -0,0 +1,378 @@
+package com.cookie.app.search;
+
+import com.cookie.app.event.RecipeChangedEvent;
+import com.cookie.app.model.dto.RecipeSuggestionDTO;
+import com.cookie.app.model.entity.Recipe;
+import com.cookie.app.model.enums.SuggestionType;
+import com.cookie.app.model.projection.RecipeSearchTerms;
+import com.cookie.app.repository.RecipeRepository;
+import com.cookie.app.util.SearchQueryUtil;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.BaseUnits;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.*;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Completes recipe names and cuisines typed in recipe search. Names and cuisines are kept in prefix tries under
+ * their normalized form and every trie node keeps its most popular completions, so query walks only the typed prefix
+ * and never visits the subtree below it. Popularity of name or cuisine is the number of recipes which use it.
+ */
+@Slf4j
+@Component
+public class RecipeAutocompleteIndex {
+    public static final int MAX_SUGGESTIONS = 10;
+    private static final Comparator<Entry> MOST_POPULAR_FIRST = Comparator
+            .comparingInt((Entry entry) -> entry.recipeCount).reversed()
+            .thenComparing(entry -> entry.key);
+
+    private final RecipeRepository recipeRepository;
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private final Map<Long, IndexedRecipe> recipes = new HashMap<>();
+    private final Trie names = new Trie(SuggestionType.RECIPE_NAME);
+    private final Trie cuisines = new Trie(SuggestionType.CUISINE);
+
+    public RecipeAutocompleteIndex(RecipeRepository recipeRepository, MeterRegistry meterRegistry) {
+        this.recipeRepository = recipeRepository;
+
+        Gauge.builder("recipe.autocomplete.index.size", this, RecipeAutocompleteIndex::estimateSize)
+                .baseUnit(BaseUnits.BYTES)
+                .description("Estimated heap used by recipe autocomplete tries")
+                .register(meterRegistry);
+        Gauge.builder("recipe.autocomplete.index.nodes", this, RecipeAutocompleteIndex::countNodes)
+                .description("Nodes of recipe autocomplete tries")
+                .register(meterRegistry);
+    }
+
+    // index is loaded under write lock, so recipe changes committed meanwhile are applied after it, never lost
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuild() {
+        this.lock.writeLock().lock();
+        try {
+            List<RecipeSearchTerms> searchTerms = this.recipeRepository.findAllRecipeSearchTerms();
+
+            this.recipes.clear();
+            this.names.clear();
+            this.cuisines.clear();
+
+            // completions are selected once for the whole trie instead of after every added recipe
+            for (RecipeSearchTerms recipe : searchTerms) {
+                putRecipe(recipe.getId(), recipe.getRecipeName(), recipe.getCuisine(), false);
+            }
+            this.names.updateAllTopEntries();
+            this.cuisines.updateAllTopEntries();
+            log.info("Recipe autocomplete index built for {} recipes, estimated size {} bytes",
+                    this.recipes.size(), estimateSize());
+        } finally {
+            this.lock.writeLock().unlock();
+        }
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onRecipeChanged(RecipeChangedEvent event) {
+        Recipe recipe = event.recipe();
+
+        this.lock.writeLock().lock();
+        try {
+            IndexedRecipe previousRecipe = this.recipes.remove(recipe.getId());
+
+            if (previousRecipe != null) {
+                this.names.remove(previousRecipe.nameKey());
+                this.cuisines.remove(previousRecipe.cuisineKey());
+            }
+
+            if (event.changeType() != RecipeChangedEvent.ChangeType.DELETED) {
+                putRecipe(recipe.getId(), recipe.getRecipeName(), recipe.getCuisine(), true);
+            }
+        } finally {
+            this.lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Returns at most limit recipe names and cuisines starting with the query, used by the most recipes first.
+     */
+    public List<RecipeSuggestionDTO> complete(String query, int limit) {
+        String prefix = SearchQueryUtil.normalizeSearchText(query);
+
+        if (prefix.isEmpty()) {
+            return Collections.emptyList();
+        }
+
+        List<Entry> entries = new ArrayList<>(2 * MAX_SUGGESTIONS);
+
+        this.lock.readLock().lock();
+        try {
+            entries.addAll(this.names.complete(prefix));
+            entries.addAll(this.cuisines.complete(prefix));
+            entries.sort(MOST_POPULAR_FIRST);
+
+            return entries.stream()
+                    .limit(Math.min(limit, MAX_SUGGESTIONS))
+                    .map(entry -> new RecipeSuggestionDTO(entry.text, entry.type, entry.recipeCount))
+                    .toList();
+        } finally {
+            this.lock.readLock().unlock();
+        }
+    }
+
+    long estimateSize() {
+        this.lock.readLock().lock();
+        try {
+            return this.names.estimateSize() + this.cuisines.estimateSize();
+        } finally {
+            this.lock.readLock().unlock();
+        }
+    }
+
+    private int countNodes() {
+        this.lock.readLock().lock();
+        try {
+            return this.names.nodes + this.cuisines.nodes;
+        } finally {
+            this.lock.readLock().unlock();
+        }
+    }
+
+    private void putRecipe(long recipeId, String recipeName, String cuisine, boolean updateTopEntries) {
+        String nameKey = SearchQueryUtil.normalizeSearchText(recipeName);
+        String cuisineKey = SearchQueryUtil.normalizeSearchText(cuisine);
+
+        this.names.add(nameKey, recipeName, updateTopEntries);
+        this.cuisines.add(cuisineKey, cuisine, updateTopEntries);
+        this.recipes.put(recipeId, new IndexedRecipe(nameKey, cuisineKey));
+    }
+
+    private record IndexedRecipe(String nameKey, String cuisineKey) {}
+
+    private static final class Entry {
+        private final String key;
+        private final String text;
+        private final SuggestionType type;
+        private int recipeCount;
+
+        private Entry(String key, String text, SuggestionType type) {
+            this.key = key;
+            this.text = text;
+            this.type = type;
+        }
+    }
+
+    private static final class Trie {
+        // rough sizes of objects on 64-bit JVM with compressed references, used only to report memory footprint
+        private static final int NODE_BYTES = 32;
+        private static final int ENTRY_BYTES = 24;
+        private static final int ARRAY_BYTES = 16;
+        private static final int STRING_BYTES = 40;
+        private static final int REFERENCE_BYTES = 4;
+        private static final char[] NO_KEYS = new char[0];
+        private static final Node[] NO_CHILDREN = new Node[0];
+        private static final Entry[] NO_ENTRIES = new Entry[0];
+
+        private final SuggestionType type;
+        private Node root = new Node();
+        private int nodes = 1;
+        private int entries;
+        private long topEntrySlots;
+        private long textChars;
+
+        private Trie(SuggestionType type) {
+            this.type = type;
+        }
+
+        private void clear() {
+            this.root = new Node();
+            this.nodes = 1;
+            this.entries = 0;
+            this.topEntrySlots = 0;
+            this.textChars = 0;
+        }
+
+        private void add(String key, String text, boolean updateTopEntries) {
+            if (key.isEmpty()) {
+                return;
+            }
+
+            Node[] path = new Node[key.length() + 1];
+            Node node = this.root;
+            path[0] = node;
+
+            for (int i = 0; i < key.length(); i++) {
+                Node child = node.child(key.charAt(i));
+
+                if (child == null) {
+                    child = node.addChild(key.charAt(i));
+                    this.nodes++;
+                }
+                node = child;
+                path[i + 1] = node;
+            }
+
+            // recipes with the same normalized name share the entry, the first spelling is suggested
+            if (node.entry == null) {
+                node.entry = new Entry(key, text.trim(), this.type);
+                this.entries++;
+                this.textChars += key.length() + node.entry.text.length();
+            }
+            node.entry.recipeCount++;
+
+            if (updateTopEntries) {
+                updateTopEntries(path, key);
+            }
+        }
+
+        private void remove(String key) {
+            if (key.isEmpty()) {
+                return;
+            }
+
+            Node[] path = new Node[key.length() + 1];
+            Node node = this.root;
+            path[0] = node;
+
+            for (int i = 0; i < key.length(); i++) {
+                node = node.child(key.charAt(i));
+
+                if (node == null) {
+                    return;
+                }
+                path[i + 1] = node;
+            }
+
+            if (node.entry == null) {
+                return;
+            }
+
+            if (--node.entry.recipeCount == 0) {
+                this.textChars -= key.length() + node.entry.text.length();
+                this.entries--;
+                node.entry = null;
+            }
+
+            updateTopEntries(path, key);
+        }
+
+        private List<Entry> complete(String prefix) {
+            Node node = this.root;
+
+            for (int i = 0; i < prefix.length() && node != null; i++) {
+                node = node.child(prefix.charAt(i));
+            }
+
+            return node == null ? Collections.emptyList() : Arrays.asList(node.topEntries);
+        }
+
+        // entry can be completion only of nodes on its path, so only they are updated, from the deepest one
+        private void updateTopEntries(Node[] path, String key) {
+            for (int i = path.length - 1; i >= 0; i--) {
+                Node node = path[i];
+
+                if (i > 0 && node.entry == null && node.keys.length == 0) {
+                    this.topEntrySlots -= node.topEntries.length;
+                    path[i - 1].removeChild(key.charAt(i - 1));
+                    this.nodes--;
+                    continue;
+                }
+
+                this.topEntrySlots += node.updateTopEntries();
+            }
+        }
+
+        private void updateAllTopEntries() {
+            this.topEntrySlots = updateAllTopEntries(this.root);
+        }
+
+        // recursion depth is limited by the length of recipe name and cuisine columns
+        private long updateAllTopEntries(Node node) {
+            long slots = 0;
+
+            for (Node child : node.children) {
+                slots += updateAllTopEntries(child);
+            }
+            node.updateTopEntries();
+
+            return slots + node.topEntries.length;
+        }
+
+        private long estimateSize() {
+            return (long) this.nodes * (NODE_BYTES + 3L * ARRAY_BYTES)
+                    // every node except the root is referenced from its parent by a key and a child slot
+                    + (this.nodes - 1L) * (Character.BYTES + REFERENCE_BYTES)
+                    + this.topEntrySlots * REFERENCE_BYTES
+                    + (long) this.entries * (ENTRY_BYTES + 2L * STRING_BYTES)
+                    + this.textChars;
+        }
+
+        private static final class Node {
+            private char[] keys = NO_KEYS;
+            private Node[] children = NO_CHILDREN;
+            private Entry entry;
+            private Entry[] topEntries = NO_ENTRIES;
+
+            // children are kept sorted by key, so child is found by binary search in compact array
+            private Node child(char key) {
+                int index = Arrays.binarySearch(this.keys, key);
+
+                return index >= 0 ? this.children[index] : null;
+            }
+
+            private Node addChild(char key) {
+                int index = -Arrays.binarySearch(this.keys, key) - 1;
+                char[] keys = new char[this.keys.length + 1];
+                Node[] children = new Node[this.children.length + 1];
+                Node child = new Node();
+
+                System.arraycopy(this.keys, 0, keys, 0, index);
+                System.arraycopy(this.children, 0, children, 0, index);
+                keys[index] = key;
+                children[index] = child;
+                System.arraycopy(this.keys, index, keys, index + 1, this.keys.length - index);
+                System.arraycopy(this.children, index, children, index + 1, this.children.length - index);
+                this.keys = keys;
+                this.children = children;
+
+                return child;
+            }
+
+            private void removeChild(char key) {
+                int index = Arrays.binarySearch(this.keys, key);
+                char[] keys = new char[this.keys.length - 1];
+                Node[] children = new Node[this.children.length - 1];
+
+                System.arraycopy(this.keys, 0, keys, 0, index);
+                System.arraycopy(this.children, 0, children, 0, index);
+                System.arraycopy(this.keys, index + 1, keys, index, keys.length - index);
+                System.arraycopy(this.children, index + 1, children, index, children.length - index);
+                this.keys = keys.length == 0 ? NO_KEYS : keys;
+                this.children = children.length == 0 ? NO_CHILDREN : children;
+            }
+
+            // the most popular completions of node are among its own entry and the most popular ones of its children
+            private int updateTopEntries() {
+                List<Entry> candidates = new ArrayList<>();
+                int previousLength = this.topEntries.length;
+
+                if (this.entry != null) {
+                    candidates.add(this.entry);
+                }
+                for (Node child : this.children) {
+                    candidates.addAll(Arrays.asList(child.topEntries));
+                }
+                candidates.sort(MOST_POPULAR_FIRST);
+
+                this.topEntries = candidates.isEmpty() ?
+                        NO_ENTRIES :
+                        candidates.subList(0, Math.min(candidates.size(), MAX_SUGGESTIONS)).toArray(Entry[]::new);
+
+                return this.topEntries.length - previousLength;
+            }
+        }
+    }
+}
@@ -0,0 +1,6 @@
+package com.cookie.app.search;
+
+/**
+ * Number of distinct products used by the recipe and how many of them are missing in the pantry.
+ */
+public record RecipeCoverage(long recipeId, int ingredients, int missingIngredients) {}
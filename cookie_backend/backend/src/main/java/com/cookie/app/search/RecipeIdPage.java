@@ -0,0 +1,8 @@
+package com.cookie.app.search;
+
+import java.util.List;
+
+/**
+ * Ids of recipes on requested page, newest first, and number of all matching recipes.
+ */
+public record RecipeIdPage(List<Long> recipeIds, long totalElements) {}
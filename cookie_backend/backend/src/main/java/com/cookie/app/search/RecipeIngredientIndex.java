@@ -0,0 +1,282 @@
+package com.cookie.app.search;
+
+import com.cookie.app.event.ProductsMergedEvent;
+import com.cookie.app.event.RecipeChangedEvent;
+import com.cookie.app.model.entity.Recipe;
+import com.cookie.app.model.entity.RecipeProduct;
+import com.cookie.app.model.enums.Category;
+import com.cookie.app.model.projection.RecipeIngredient;
+import com.cookie.app.model.request.IngredientFilterRequest;
+import com.cookie.app.repository.RecipeProductRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.roaringbitmap.FastAggregation;
+import org.roaringbitmap.PeekableIntIterator;
+import org.roaringbitmap.RoaringBitmap;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.*;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * In-memory inverted index of recipe ingredients. Every product and product category has a posting list
+ * of recipes which use it, kept as compressed roaring bitmap, so recipes are found by intersecting postings
+ * without loading recipes from database. Recipe ids are used directly as bitmap values.
+ */
+@Slf4j
+@Component
+public class RecipeIngredientIndex {
+    private final RecipeProductRepository recipeProductRepository;
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private final Map<Long, RoaringBitmap> recipesByProduct = new HashMap<>();
+    private final Map<Category, RoaringBitmap> recipesByCategory = new EnumMap<>(Category.class);
+    private final Map<Integer, IndexedRecipe> recipes = new HashMap<>();
+    private final RoaringBitmap allRecipes = new RoaringBitmap();
+
+    public RecipeIngredientIndex(RecipeProductRepository recipeProductRepository) {
+        this.recipeProductRepository = recipeProductRepository;
+    }
+
+    // index is loaded under write lock, so recipe changes committed meanwhile are applied after it, never lost
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuild() {
+        this.lock.writeLock().lock();
+        try {
+            Map<Integer, Map<Long, Category>> ingredients = new HashMap<>();
+
+            for (RecipeIngredient ingredient : this.recipeProductRepository.findAllRecipeIngredients()) {
+                ingredients.computeIfAbsent(toRecipeIndex(ingredient.getRecipeId()), key -> new HashMap<>())
+                        .put(ingredient.getProductId(), ingredient.getCategory());
+            }
+
+            this.recipesByProduct.clear();
+            this.recipesByCategory.clear();
+            this.recipes.clear();
+            this.allRecipes.clear();
+            ingredients.forEach(this::putRecipe);
+
+            // postings built bit by bit are compacted once, later changes touch only few containers
+            this.recipesByProduct.values().forEach(RoaringBitmap::runOptimize);
+            this.recipesByCategory.values().forEach(RoaringBitmap::runOptimize);
+            this.allRecipes.runOptimize();
+            log.info("Recipe ingredient index built for {} recipes and {} products",
+                    this.recipes.size(),
+                    this.recipesByProduct.size());
+        } finally {
+            this.lock.writeLock().unlock();
+        }
+    }
+
+    // recipes of merged products use the products which replaced them, merges are rare, so index is built again
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onProductsMerged(ProductsMergedEvent event) {
+        rebuild();
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onRecipeChanged(RecipeChangedEvent event) {
+        Recipe recipe = event.recipe();
+        int recipeIndex = toRecipeIndex(recipe.getId());
+
+        this.lock.writeLock().lock();
+        try {
+            removeRecipe(recipeIndex);
+
+            if (event.changeType() != RecipeChangedEvent.ChangeType.DELETED && recipe.getRecipeProducts() != null) {
+                Map<Long, Category> products = new HashMap<>();
+
+                for (RecipeProduct recipeProduct : recipe.getRecipeProducts()) {
+                    products.put(recipeProduct.getProduct().getId(), recipeProduct.getProduct().getCategory());
+                }
+                putRecipe(recipeIndex, products);
+            }
+        } finally {
+            this.lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Finds recipes which use at least one of given products and miss at most maxMissing of their products.
+     * Recipes missing the fewest products come first, recipes using more products are preferred among them.
+     */
+    public List<RecipeCoverage> findRecipesCoveredBy(Collection<Long> productIds, int maxMissing, int limit) {
+        List<RecipeCoverage> coverages = new ArrayList<>();
+
+        this.lock.readLock().lock();
+        try {
+            List<RoaringBitmap> productRecipes = getPostings(this.recipesByProduct, productIds);
+            RoaringBitmap candidates = FastAggregation.or(productRecipes.iterator());
+
+            if (candidates.isEmpty()) {
+                return coverages;
+            }
+
+            // matches are counted by candidate rank, so counters are allocated only for candidates, not up to max id
+            int[] matchedProducts = new int[candidates.getCardinality()];
+            for (RoaringBitmap postings : productRecipes) {
+                postings.forEach((int recipe) -> matchedProducts[(int) candidates.rankLong(recipe) - 1]++);
+            }
+
+            PeekableIntIterator candidateIterator = candidates.getIntIterator();
+            for (int rank = 0; candidateIterator.hasNext(); rank++) {
+                int recipe = candidateIterator.next();
+                int ingredients = this.recipes.get(recipe).productIds().length;
+                int missingIngredients = ingredients - matchedProducts[rank];
+
+                if (missingIngredients <= maxMissing) {
+                    coverages.add(new RecipeCoverage(recipe, ingredients, missingIngredients));
+                }
+            }
+        } finally {
+            this.lock.readLock().unlock();
+        }
+
+        return coverages.stream()
+                .sorted(Comparator.comparingInt(RecipeCoverage::missingIngredients)
+                        .thenComparing(Comparator.comparingInt(RecipeCoverage::ingredients).reversed())
+                        .thenComparingLong(RecipeCoverage::recipeId))
+                .limit(limit)
+                .toList();
+    }
+
+    /**
+     * Finds recipes which contain all required products and categories, at least one product or category
+     * from optional ones, when any of them is given, and none of excluded ones. Ids are returned newest first.
+     */
+    public RecipeIdPage searchRecipes(IngredientFilterRequest filterRequest, int page, int pageSize) {
+        RoaringBitmap result;
+
+        this.lock.readLock().lock();
+        try {
+            result = findMatchingRecipes(filterRequest);
+        } finally {
+            this.lock.readLock().unlock();
+        }
+
+        // select finds id of given rank without iterating preceding ids, ranks are reversed to get newest first
+        int totalElements = result.getCardinality();
+        int offset = page * pageSize;
+        List<Long> recipeIds = new ArrayList<>(pageSize);
+
+        for (int rank = totalElements - 1 - offset; rank >= 0 && recipeIds.size() < pageSize; rank--) {
+            recipeIds.add((long) result.select(rank));
+        }
+
+        return new RecipeIdPage(recipeIds, totalElements);
+    }
+
+    private RoaringBitmap findMatchingRecipes(IngredientFilterRequest filterRequest) {
+        List<Long> allProducts = Objects.requireNonNullElse(filterRequest.allProducts(), List.of());
+        List<Category> allCategories = Objects.requireNonNullElse(filterRequest.allCategories(), List.of());
+        List<Long> anyProducts = Objects.requireNonNullElse(filterRequest.anyProducts(), List.of());
+        List<Category> anyCategories = Objects.requireNonNullElse(filterRequest.anyCategories(), List.of());
+        List<RoaringBitmap> required = new ArrayList<>();
+
+        required.add(this.allRecipes);
+        for (Long productId : allProducts) {
+            required.add(this.recipesByProduct.getOrDefault(productId, new RoaringBitmap()));
+        }
+        for (Category category : allCategories) {
+            required.add(this.recipesByCategory.getOrDefault(category, new RoaringBitmap()));
+        }
+
+        if (!anyProducts.isEmpty() || !anyCategories.isEmpty()) {
+            List<RoaringBitmap> optional = getPostings(this.recipesByProduct, anyProducts);
+            optional.addAll(getPostings(this.recipesByCategory, anyCategories));
+            required.add(FastAggregation.or(optional.iterator()));
+        }
+
+        // intersection starting from the smallest posting list is the cheapest
+        required.sort(Comparator.comparingLong(RoaringBitmap::getLongCardinality));
+        RoaringBitmap result = required.get(0).clone();
+        for (int i = 1; i < required.size() && !result.isEmpty(); i++) {
+            result.and(required.get(i));
+        }
+
+        List<RoaringBitmap> excluded = getPostings(this.recipesByProduct, filterRequest.excludedProducts());
+        excluded.addAll(getPostings(this.recipesByCategory, filterRequest.excludedCategories()));
+        if (!excluded.isEmpty()) {
+            result.andNot(FastAggregation.or(excluded.iterator()));
+        }
+
+        return result;
+    }
+
+    private <K> List<RoaringBitmap> getPostings(Map<K, RoaringBitmap> postings, Collection<K> keys) {
+        List<RoaringBitmap> foundPostings = new ArrayList<>();
+
+        if (keys == null) {
+            return foundPostings;
+        }
+
+        for (K key : new HashSet<>(keys)) {
+            RoaringBitmap recipeIds = postings.get(key);
+
+            if (recipeIds != null) {
+                foundPostings.add(recipeIds);
+            }
+        }
+
+        return foundPostings;
+    }
+
+    private void putRecipe(int recipeIndex, Map<Long, Category> products) {
+        if (products.isEmpty()) {
+            return;
+        }
+
+        long[] productIds = new long[products.size()];
+        Set<Category> categories = EnumSet.noneOf(Category.class);
+        int i = 0;
+
+        for (Map.Entry<Long, Category> product : products.entrySet()) {
+            this.recipesByProduct.computeIfAbsent(product.getKey(), key -> new RoaringBitmap()).add(recipeIndex);
+            productIds[i++] = product.getKey();
+
+            if (product.getValue() != null) {
+                categories.add(product.getValue());
+            }
+        }
+
+        for (Category category : categories) {
+            this.recipesByCategory.computeIfAbsent(category, key -> new RoaringBitmap()).add(recipeIndex);
+        }
+
+        this.recipes.put(recipeIndex, new IndexedRecipe(productIds, categories));
+        this.allRecipes.add(recipeIndex);
+    }
+
+    private void removeRecipe(int recipeIndex) {
+        IndexedRecipe recipe = this.recipes.remove(recipeIndex);
+
+        if (recipe == null) {
+            return;
+        }
+
+        for (long productId : recipe.productIds()) {
+            removeFromPostings(this.recipesByProduct, productId, recipeIndex);
+        }
+        for (Category category : recipe.categories()) {
+            removeFromPostings(this.recipesByCategory, category, recipeIndex);
+        }
+        this.allRecipes.remove(recipeIndex);
+    }
+
+    private <K> void removeFromPostings(Map<K, RoaringBitmap> postings, K key, int recipeIndex) {
+        RoaringBitmap recipeIds = postings.get(key);
+        recipeIds.remove(recipeIndex);
+
+        if (recipeIds.isEmpty()) {
+            postings.remove(key);
+        }
+    }
+
+    private int toRecipeIndex(long recipeId) {
+        return Math.toIntExact(recipeId);
+    }
+
+    private record IndexedRecipe(long[] productIds, Set<Category> categories) {}
+}
@@ -0,0 +1,189 @@
+package com.cookie.app.search;
+
+import com.cookie.app.event.ProductsMergedEvent;
+import com.cookie.app.event.RecipeChangedEvent;
+import com.cookie.app.model.entity.Recipe;
+import com.cookie.app.model.entity.RecipeProduct;
+import com.cookie.app.model.projection.RecipeIngredient;
+import com.cookie.app.repository.RecipeProductRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.roaringbitmap.FastAggregation;
+import org.roaringbitmap.RoaringBitmap;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.*;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Finds recipes with similar ingredients using MinHash signatures and locality sensitive hashing.
+ * Signature of recipe is created when recipe is saved and only its band keys are kept. Recipes sharing
+ * any band with the given recipe are candidates, and only candidates are compared by exact Jaccard similarity,
+ * so query time depends on number of similar recipes, not on size of the catalog.
+ */
+@Slf4j
+@Component
+public class SimilarRecipeIndex {
+    private final RecipeProductRepository recipeProductRepository;
+    private final MinHasher minHasher = new MinHasher();
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private final Map<Long, RoaringBitmap> recipesByBandKey = new HashMap<>();
+    private final Map<Integer, IndexedRecipe> recipes = new HashMap<>();
+
+    public SimilarRecipeIndex(RecipeProductRepository recipeProductRepository) {
+        this.recipeProductRepository = recipeProductRepository;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuild() {
+        this.lock.writeLock().lock();
+        try {
+            Map<Integer, Set<Long>> ingredients = new HashMap<>();
+
+            for (RecipeIngredient ingredient : this.recipeProductRepository.findAllRecipeIngredients()) {
+                ingredients.computeIfAbsent(toRecipeIndex(ingredient.getRecipeId()), key -> new HashSet<>())
+                        .add(ingredient.getProductId());
+            }
+
+            this.recipesByBandKey.clear();
+            this.recipes.clear();
+            ingredients.forEach(this::putRecipe);
+            log.info("Similar recipe index built for {} recipes", this.recipes.size());
+        } finally {
+            this.lock.writeLock().unlock();
+        }
+    }
+
+    // recipes of merged products use the products which replaced them, merges are rare, so index is built again
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onProductsMerged(ProductsMergedEvent event) {
+        rebuild();
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onRecipeChanged(RecipeChangedEvent event) {
+        Recipe recipe = event.recipe();
+        int recipeIndex = toRecipeIndex(recipe.getId());
+        Set<Long> productIds = new HashSet<>();
+
+        if (event.changeType() != RecipeChangedEvent.ChangeType.DELETED && recipe.getRecipeProducts() != null) {
+            for (RecipeProduct recipeProduct : recipe.getRecipeProducts()) {
+                productIds.add(recipeProduct.getProduct().getId());
+            }
+        }
+
+        this.lock.writeLock().lock();
+        try {
+            removeRecipe(recipeIndex);
+            putRecipe(recipeIndex, productIds);
+        } finally {
+            this.lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Returns ids of at most limit recipes sharing the most ingredients with given recipe, the most similar first.
+     */
+    public List<Long> findSimilarRecipes(long recipeId, int limit) {
+        List<SimilarRecipe> similarRecipes = new ArrayList<>();
+
+        this.lock.readLock().lock();
+        try {
+            int recipeIndex = toRecipeIndex(recipeId);
+            IndexedRecipe recipe = this.recipes.get(recipeIndex);
+
+            if (recipe == null) {
+                return Collections.emptyList();
+            }
+
+            List<RoaringBitmap> buckets = new ArrayList<>(MinHasher.BANDS);
+            for (long bandKey : recipe.bandKeys()) {
+                buckets.add(this.recipesByBandKey.get(bandKey));
+            }
+
+            RoaringBitmap candidates = FastAggregation.or(buckets.iterator());
+            candidates.remove(recipeIndex);
+            candidates.forEach((int candidate) -> {
+                double similarity = jaccardSimilarity(recipe.productIds(), this.recipes.get(candidate).productIds());
+                similarRecipes.add(new SimilarRecipe(candidate, similarity));
+            });
+        } finally {
+            this.lock.readLock().unlock();
+        }
+
+        return similarRecipes.stream()
+                .sorted(Comparator.comparingDouble(SimilarRecipe::similarity).reversed()
+                        .thenComparing(Comparator.comparingLong(SimilarRecipe::recipeId).reversed()))
+                .limit(limit)
+                .map(SimilarRecipe::recipeId)
+                .toList();
+    }
+
+    // both arrays are sorted, so common products are counted with single merge pass
+    static double jaccardSimilarity(long[] firstProducts, long[] secondProducts) {
+        int i = 0;
+        int j = 0;
+        int common = 0;
+
+        while (i < firstProducts.length && j < secondProducts.length) {
+            if (firstProducts[i] == secondProducts[j]) {
+                common++;
+                i++;
+                j++;
+            } else if (firstProducts[i] < secondProducts[j]) {
+                i++;
+            } else {
+                j++;
+            }
+        }
+
+        return (double) common / (firstProducts.length + secondProducts.length - common);
+    }
+
+    private void putRecipe(int recipeIndex, Set<Long> productIds) {
+        if (productIds.isEmpty()) {
+            return;
+        }
+
+        long[] bandKeys = this.minHasher.createBandKeys(this.minHasher.createSignature(productIds));
+        long[] sortedProductIds = productIds.stream().mapToLong(Long::longValue).sorted().toArray();
+
+        for (long bandKey : bandKeys) {
+            this.recipesByBandKey.computeIfAbsent(bandKey, key -> new RoaringBitmap()).add(recipeIndex);
+        }
+        this.recipes.put(recipeIndex, new IndexedRecipe(sortedProductIds, bandKeys));
+    }
+
+    private void removeRecipe(int recipeIndex) {
+        IndexedRecipe recipe = this.recipes.remove(recipeIndex);
+
+        if (recipe == null) {
+            return;
+        }
+
+        for (long bandKey : recipe.bandKeys()) {
+            RoaringBitmap bucket = this.recipesByBandKey.get(bandKey);
+
+            // two bands of one recipe can hash to the same key, then the bucket is already removed
+            if (bucket == null) {
+                continue;
+            }
+
+            bucket.remove(recipeIndex);
+            if (bucket.isEmpty()) {
+                this.recipesByBandKey.remove(bandKey);
+            }
+        }
+    }
+
+    private int toRecipeIndex(long recipeId) {
+        return Math.toIntExact(recipeId);
+    }
+
+    private record IndexedRecipe(long[] productIds, long[] bandKeys) {}
+
+    private record SimilarRecipe(long recipeId, double similarity) {}
+}
@@ -1,9 +1,12 @@
 package com.cookie.app.service;
 
 import com.cookie.app.model.dto.ProductDTO;
+import com.cookie.app.model.enums.Category;
 
 import java.util.List;
 
 public interface ProductService {
-    List<ProductDTO> getProductsWithFilter(String filterValue);
+    List<ProductDTO> getProductsWithFilter(String filterValue, Category category);
+    long getProductCatalogVersion();
+    List<ProductDTO> getProductSuggestions(String productName, Category category);
 }
@@ -0,0 +1,9 @@
+package com.cookie.app.service;
+
+import com.cookie.app.model.response.ImportRecipesResponse;
+
+import java.io.InputStream;
+
+public interface RecipeImportService {
+    ImportRecipesResponse importRecipes(String userEmail, InputStream recipes);
+}
@@ -5,20 +5,37 @@ import com.cookie.app.model.entity.Group;
 import com.cookie.app.model.entity.Recipe;
 import com.cookie.app.model.entity.RecipeProduct;
 import com.cookie.app.model.entity.User;
+import com.cookie.app.model.enums.ImageRendition;
 import com.cookie.app.model.enums.MealType;
 import com.cookie.app.model.request.CreateRecipeRequest;
+import com.cookie.app.model.request.IngredientFilterRequest;
 import com.cookie.app.model.request.RecipeFilterRequest;
 import com.cookie.app.model.request.UpdateRecipeRequest;
 import com.cookie.app.model.response.CreateRecipeResponse;
+import com.cookie.app.storage.ImageContent;
 import org.springframework.data.domain.Sort;
 import org.springframework.web.multipart.MultipartFile;
 
+import java.io.IOException;
+import java.io.OutputStream;
 import java.util.List;
 
 public interface RecipeService {
     PageResult<RecipeDTO> getRecipes(int page, RecipeFilterRequest filterRequest);
+    byte[] getRecipesJson(int page, RecipeFilterRequest filterRequest);
+    RecipeFacetsDTO getRecipeFacets(RecipeFilterRequest filterRequest);
+    PageResult<RecipeDTO> searchRecipesByIngredients(int page, IngredientFilterRequest filterRequest);
+    CursorPageResult<RecipeDTO> scrollRecipes(String cursor, RecipeFilterRequest filterRequest);
     PageResult<RecipeDTO> getUserRecipes(String userEmail, int page, RecipeFilterRequest filterRequest);
     RecipeDetailsDTO getRecipeDetails(long recipeId);
+    void recordRecipeView(long recipeId);
+    List<RecipeDTO> getSimilarRecipes(long recipeId, int limit);
+    List<RecipeSuggestionDTO> getRecipeSuggestions(String query, int limit);
+    String getRecipeImageHash(long recipeId);
+    RecipeImageStatusDTO getRecipeImageStatus(long recipeId);
+    ImageContent getRecipeImage(long recipeId, ImageRendition rendition);
+    void exportRecipes(OutputStream outputStream) throws IOException;
+    void exportUserRecipes(String userEmail, OutputStream outputStream) throws IOException;
     CreateRecipeResponse createRecipe(String userEmail, CreateRecipeRequest createRecipeRequest, MultipartFile recipeImage);
     void deleteRecipe(String userEmail, long recipeId);
     CreateRecipeResponse updateRecipe(String userEmail, UpdateRecipeRequest updateRecipeRequest, MultipartFile recipeImage);
@@ -6,6 +6,7 @@ import com.cookie.app.model.dto.ProductDTO;
 import com.cookie.app.model.entity.*;
 import com.cookie.app.model.enums.AuthorityEnum;
 import com.cookie.app.model.mapper.AuthorityMapper;
+import com.cookie.app.repository.ProductKey;
 import com.cookie.app.repository.ProductRepository;
 import com.cookie.app.repository.UserRepository;
 import lombok.extern.slf4j.Slf4j;
@@ -13,7 +14,9 @@ import org.apache.commons.lang3.StringUtils;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Sort;
 
+import java.util.Collection;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
 import java.util.stream.Collectors;
@@ -21,7 +24,7 @@ import java.util.stream.Collectors;
 @Slf4j
 public abstract sealed class AbstractCookieService permits
         AbstractPantryService, AbstractShoppingListService, GroupServiceImpl,
-        LoginServiceImpl, MealServiceImpl, RecipeServiceImpl {
+        LoginServiceImpl, MealServiceImpl, RecipeImportServiceImpl, RecipeServiceImpl {
     private static final int PRODUCTS_PAGE_SIZE = 20;
     final UserRepository userRepository;
     final ProductRepository productRepository;
@@ -82,21 +85,24 @@ public abstract sealed class AbstractCookieService permits
         return pageRequest.withSort(sort);
     }
 
-    protected Product checkIfProductExists(ProductDTO productDTO) {
-        Optional<Product> productOptional = this.productRepository
-                .findByProductNameAndCategory(productDTO.productName(), productDTO.category().name());
-
-
-        if (productOptional.isPresent()) {
-            return productOptional.get();
-        }
-
-        Product product = new Product();
-        product.setProductName(productDTO.productName());
-        product.setCategory(productDTO.category());
-        this.productRepository.save(product);
+    /**
+     * Finds products of all given DTOs and creates the missing ones, so products of whole request cost a few queries
+     * instead of several per product. Products are mapped by their keys, see {@link #getProduct(Map, ProductDTO)}.
+     */
+    protected Map<ProductKey, Product> findOrCreateProducts(Collection<ProductDTO> productDTOs) {
+        List<Product> products = productDTOs.stream()
+                .map(productDTO -> Product.builder()
+                        .productName(StringUtils.normalizeSpace(productDTO.productName()))
+                        .category(productDTO.category())
+                        .build())
+                .toList();
+
+        return this.productRepository.findOrCreateProducts(products);
+    }
 
-        return product;
+    // whitespaces are normalized, so "tomato " and "tomato" are the same product
+    protected Product getProduct(Map<ProductKey, Product> products, ProductDTO productDTO) {
+        return products.get(ProductKey.of(StringUtils.normalizeSpace(productDTO.productName()), productDTO.category()));
     }
 
     protected <T> boolean isAnyProductNotOnList(List<T> products, List<T> productsToPerformAction) {
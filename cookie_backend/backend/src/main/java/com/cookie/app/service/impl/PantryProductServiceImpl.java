@@ -4,11 +4,14 @@ import com.cookie.app.exception.*;
 import com.cookie.app.model.dto.PageResult;
 import com.cookie.app.model.entity.*;
 import com.cookie.app.model.enums.AuthorityEnum;
+import com.cookie.app.model.enums.Unit;
 import com.cookie.app.model.mapper.AuthorityMapper;
 import com.cookie.app.model.mapper.PantryProductMapper;
 import com.cookie.app.model.dto.PantryProductDTO;
 import com.cookie.app.model.request.FilterRequest;
 import com.cookie.app.repository.PantryProductRepository;
+import com.cookie.app.repository.PantryStock;
+import com.cookie.app.repository.ProductKey;
 import com.cookie.app.repository.ProductRepository;
 import com.cookie.app.repository.UserRepository;
 import com.cookie.app.service.PantryProductService;
@@ -130,38 +133,25 @@ public non-sealed class PantryProductServiceImpl extends AbstractPantryService i
         super.getPantryIfUserHasAuthority(pantryId, userEmail, AuthorityEnum.RESERVE);
         PantryProduct pantryProduct = getPantryProductById(pantryId, pantryProductId, userEmail, "reserve");
 
-        if (reserved > pantryProduct.getQuantity() || (reserved * -1) > pantryProduct.getReserved()) {
+        // quantities are checked by the update, because they could be changed by concurrent reservation since read
+        if (!this.pantryProductRepository.reservePantryProduct(pantryProduct, reserved)) {
             return null;
         }
 
-        pantryProduct.setReserved(pantryProduct.getReserved() + reserved);
-        pantryProduct.setQuantity(pantryProduct.getQuantity() - reserved);
-        this.pantryProductRepository.save(pantryProduct);
-
         return this.pantryProductMapper.mapToDto(pantryProduct);
     }
 
     @Transactional
     @Override
-    public List<RecipeProduct>  reservePantryProductsFromRecipe(long pantryId, User user, List<RecipeProduct> recipeProducts) {
+    public List<RecipeProduct> reservePantryProductsFromRecipe(long pantryId, User user, List<RecipeProduct> recipeProducts) {
         Pantry pantry = super.getPantryIfUserHasAuthority(pantryId, user, AuthorityEnum.RESERVE);
-        List<RecipeProduct> unreservedProducts = new ArrayList<>();
-
-        for (RecipeProduct recipeProduct : recipeProducts) {
-            Optional<PantryProduct> optionalPantryProduct = pantry.getPantryProducts()
-                    .stream()
-                    .filter(pantryProduct -> areRecipeAndPantryProductsEqual(recipeProduct, pantryProduct))
-                    .findFirst();
+        Map<Long, Integer> reservedQuantities = new TreeMap<>();
+        // stock is locked before matching, so it cannot be reserved by concurrent request until the update
+        List<PantryStock> pantryStock = this.pantryProductRepository.lockPantryStock(pantry.getId(), recipeProducts);
+        List<RecipeProduct> unreservedProducts = matchRecipeProducts(pantryStock, recipeProducts, reservedQuantities);
 
-            if (optionalPantryProduct.isEmpty()) {
-                unreservedProducts.add(recipeProduct);
-                continue;
-            }
-
-            PantryProduct pantryProduct = optionalPantryProduct.get();
-            pantryProduct.setReserved(pantryProduct.getReserved() + recipeProduct.getQuantity());
-            pantryProduct.setQuantity(pantryProduct.getQuantity() - recipeProduct.getQuantity());
-            this.pantryProductRepository.save(pantryProduct);
+        if (!reservedQuantities.isEmpty()) {
+            this.pantryProductRepository.reservePantryProducts(reservedQuantities);
         }
 
         return unreservedProducts;
@@ -173,20 +163,43 @@ public non-sealed class PantryProductServiceImpl extends AbstractPantryService i
             return recipeProducts;
         }
 
-        List<RecipeProduct> missingProducts = new ArrayList<>();
+        List<PantryStock> pantryStock = this.pantryProductRepository.findPantryStock(pantry.getId(), recipeProducts);
+
+        return matchRecipeProducts(pantryStock, recipeProducts, new HashMap<>());
+    }
+
+    /**
+     * Matches every recipe product with the first pantry product of the same product and unit which has enough
+     * quantity left after previous recipe products were matched. Matched quantities are summed per pantry product
+     * into given map and recipe products without match are returned.
+     */
+    private List<RecipeProduct> matchRecipeProducts(List<PantryStock> pantryStock,
+                                                    List<RecipeProduct> recipeProducts,
+                                                    Map<Long, Integer> matchedQuantities) {
+        Map<StockKey, List<PantryStock>> stockByKey = new HashMap<>();
+        for (PantryStock stock : pantryStock) {
+            stockByKey.computeIfAbsent(new StockKey(stock.productId(), stock.unit()), key -> new ArrayList<>()).add(stock);
+        }
+
+        List<RecipeProduct> unmatchedProducts = new ArrayList<>();
 
         for (RecipeProduct recipeProduct : recipeProducts) {
-            Optional<PantryProduct> optionalPantryProduct = pantry.getPantryProducts()
+            StockKey stockKey = new StockKey(recipeProduct.getProduct().getId(), recipeProduct.getUnit());
+            Optional<PantryStock> matchedStock = stockByKey.getOrDefault(stockKey, Collections.emptyList())
                     .stream()
-                    .filter(pantryProduct -> areRecipeAndPantryProductsEqual(recipeProduct, pantryProduct))
+                    .filter(stock -> recipeProduct.getQuantity() <=
+                            stock.quantity() - matchedQuantities.getOrDefault(stock.pantryProductId(), 0))
                     .findFirst();
 
-            if (optionalPantryProduct.isEmpty()) {
-                missingProducts.add(recipeProduct);
+            if (matchedStock.isEmpty()) {
+                unmatchedProducts.add(recipeProduct);
+                continue;
             }
+
+            matchedQuantities.merge(matchedStock.get().pantryProductId(), recipeProduct.getQuantity(), Integer::sum);
         }
 
-        return missingProducts;
+        return unmatchedProducts;
     }
 
     private PantryProduct getPantryProductById(long pantryId, long pantryProductId, String userEmail, String action) {
@@ -203,12 +216,6 @@ public non-sealed class PantryProductServiceImpl extends AbstractPantryService i
         return pantryProduct;
     }
 
-    private boolean areRecipeAndPantryProductsEqual(RecipeProduct recipeProduct, PantryProduct pantryProduct) {
-        return recipeProduct.getProduct().equals(pantryProduct.getProduct()) &&
-                recipeProduct.getUnit() == pantryProduct.getUnit() &&
-                recipeProduct.getQuantity() <= pantryProduct.getQuantity();
-    }
-
     private boolean isAnyProductNotOnList(Pantry pantry, List<Long> pantryProductIds) {
         List<Long> pantryProductsIds = pantry
                 .getPantryProducts()
@@ -219,8 +226,10 @@ public non-sealed class PantryProductServiceImpl extends AbstractPantryService i
         return super.isAnyProductNotOnList(pantryProductsIds, pantryProductIds);
     }
 
-    private PantryProduct mapToPantryProduct(PantryProductDTO pantryProductDTO, Pantry pantry) {
-        Product product = super.checkIfProductExists(pantryProductDTO.product());
+    private PantryProduct mapToPantryProduct(PantryProductDTO pantryProductDTO,
+                                             Pantry pantry,
+                                             Map<ProductKey, Product> products) {
+        Product product = super.getProduct(products, pantryProductDTO.product());
         PantryProduct foundPantryProduct = findPantryProductInPantry(pantry, pantryProductDTO, product);
 
         if (foundPantryProduct != null) {
@@ -283,6 +292,9 @@ public non-sealed class PantryProductServiceImpl extends AbstractPantryService i
 
     private void addProductsToPantry(List<PantryProductDTO> pantryProductDTOS, Pantry pantry) {
         List<PantryProduct> productsToAdd = new ArrayList<>();
+        Map<ProductKey, Product> products = super.findOrCreateProducts(
+                pantryProductDTOS.stream().map(PantryProductDTO::product).toList()
+        );
 
         for (PantryProductDTO productDTO : pantryProductDTOS) {
             if (productDTO.id() > 0) {
@@ -293,7 +305,7 @@ public non-sealed class PantryProductServiceImpl extends AbstractPantryService i
                         "Pantry product reserved quantity must be 0 while inserting it to pantry");
             }
 
-            PantryProduct pantryProduct = mapToPantryProduct(productDTO, pantry);
+            PantryProduct pantryProduct = mapToPantryProduct(productDTO, pantry, products);
 
             if (pantryProduct.getId() == 0L) {
                 pantry.getPantryProducts().add(pantryProduct);
@@ -303,4 +315,6 @@ public non-sealed class PantryProductServiceImpl extends AbstractPantryService i
 
         this.pantryProductRepository.saveAll(productsToAdd);
     }
+
+    private record StockKey(long productId, Unit unit) {}
 }
@@ -2,12 +2,15 @@ package com.cookie.app.service.impl;
 
 import com.cookie.app.exception.ResourceNotFoundException;
 import com.cookie.app.exception.UserPerformedForbiddenActionException;
+import com.cookie.app.model.dto.CookableRecipeDTO;
 import com.cookie.app.model.entity.Group;
 import com.cookie.app.model.entity.Pantry;
 import com.cookie.app.model.entity.User;
 import com.cookie.app.model.enums.AuthorityEnum;
 import com.cookie.app.model.mapper.AuthorityMapper;
 import com.cookie.app.model.mapper.PantryMapper;
+import com.cookie.app.model.mapper.RecipeMapper;
+import com.cookie.app.model.projection.RecipeSummary;
 import com.cookie.app.model.request.CreatePantryRequest;
 import com.cookie.app.model.request.UpdatePantryRequest;
 import com.cookie.app.model.response.DeletePantryResponse;
@@ -15,28 +18,43 @@ import com.cookie.app.model.response.GetPantryResponse;
 import com.cookie.app.model.response.GetUserPantriesResponse;
 import com.cookie.app.repository.PantryRepository;
 import com.cookie.app.repository.ProductRepository;
+import com.cookie.app.repository.RecipeRepository;
 import com.cookie.app.repository.UserRepository;
+import com.cookie.app.search.RecipeCoverage;
+import com.cookie.app.search.RecipeIngredientIndex;
 import com.cookie.app.service.PantryService;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
-import java.util.Optional;
+import java.util.*;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 
 @Slf4j
 @Service
 public non-sealed class PantryServiceImpl extends AbstractPantryService implements PantryService {
+    private static final int COOKABLE_RECIPES_LIMIT = 50;
     private final PantryRepository pantryRepository;
     private final PantryMapper pantryMapper;
+    private final RecipeRepository recipeRepository;
+    private final RecipeMapper recipeMapper;
+    private final RecipeIngredientIndex recipeIngredientIndex;
 
     public PantryServiceImpl(UserRepository userRepository,
                              ProductRepository productRepository,
                              AuthorityMapper authorityMapper,
                              PantryRepository pantryRepository,
-                             PantryMapper pantryMapper) {
+                             PantryMapper pantryMapper,
+                             RecipeRepository recipeRepository,
+                             RecipeMapper recipeMapper,
+                             RecipeIngredientIndex recipeIngredientIndex) {
         super(userRepository, productRepository, authorityMapper);
         this.pantryRepository = pantryRepository;
         this.pantryMapper = pantryMapper;
+        this.recipeRepository = recipeRepository;
+        this.recipeMapper = recipeMapper;
+        this.recipeIngredientIndex = recipeIngredientIndex;
     }
 
     @Transactional
@@ -116,6 +134,39 @@ public non-sealed class PantryServiceImpl extends AbstractPantryService implemen
         return createGetPantryResponse(pantry, user);
     }
 
+    @Transactional(readOnly = true)
+    @Override
+    public List<CookableRecipeDTO> getCookableRecipes(long pantryId, int maxMissingIngredients, String userEmail) {
+        Pantry pantry = super.getPantryIfUserHasAuthority(pantryId, userEmail, null);
+        // reserved products are already subtracted from quantity, so only products which are left are used
+        Set<Long> pantryProductIds = pantry.getPantryProducts()
+                .stream()
+                .filter(pantryProduct -> pantryProduct.getQuantity() > 0)
+                .map(pantryProduct -> pantryProduct.getProduct().getId())
+                .collect(Collectors.toSet());
+        List<RecipeCoverage> coverages = this.recipeIngredientIndex
+                .findRecipesCoveredBy(pantryProductIds, maxMissingIngredients, COOKABLE_RECIPES_LIMIT);
+
+        if (coverages.isEmpty()) {
+            return Collections.emptyList();
+        }
+
+        Map<Long, RecipeSummary> recipes = this.recipeRepository
+                .findRecipeSummariesByIdIn(coverages.stream().map(RecipeCoverage::recipeId).toList())
+                .stream()
+                .collect(Collectors.toMap(RecipeSummary::getId, Function.identity()));
+
+        // recipe deleted after the index was read is skipped
+        return coverages.stream()
+                .filter(coverage -> recipes.containsKey(coverage.recipeId()))
+                .map(coverage -> new CookableRecipeDTO(
+                        this.recipeMapper.mapToDto(recipes.get(coverage.recipeId())),
+                        coverage.ingredients(),
+                        coverage.missingIngredients()
+                ))
+                .toList();
+    }
+
     private GetPantryResponse createGetPantryResponse(Pantry pantry, User user) {
         return new GetPantryResponse(
                 pantry.getId(),
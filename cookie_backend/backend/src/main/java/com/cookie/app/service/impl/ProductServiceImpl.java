@@ -1,14 +1,15 @@
 package com.cookie.app.service.impl;
 
+import com.cookie.app.config.ProductMatchingProperties;
 import com.cookie.app.model.dto.ProductDTO;
-import com.cookie.app.model.entity.Product;
+import com.cookie.app.model.enums.Category;
 import com.cookie.app.model.mapper.ProductMapper;
 import com.cookie.app.repository.ProductRepository;
+import com.cookie.app.search.ProductCatalog;
 import com.cookie.app.service.ProductService;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.data.domain.Page;
-import org.springframework.data.domain.PageRequest;
+import org.apache.commons.lang3.StringUtils;
 import org.springframework.stereotype.Service;
 
 import java.util.List;
@@ -17,19 +18,33 @@ import java.util.List;
 @Slf4j
 @Service
 public class ProductServiceImpl implements ProductService {
-    private static final int PAGE_NUMBER = 0;
     private static final int PAGE_SIZE = 10;
 
+    private final ProductCatalog productCatalog;
     private final ProductRepository productRepository;
     private final ProductMapper productMapper;
+    private final ProductMatchingProperties productMatchingProperties;
 
     @Override
-    public List<ProductDTO> getProductsWithFilter(String filterValue) {
-        PageRequest pageRequest = PageRequest.of(PAGE_NUMBER, PAGE_SIZE);
+    public List<ProductDTO> getProductsWithFilter(String filterValue, Category category) {
+        return this.productCatalog.findProducts(filterValue, category, PAGE_SIZE);
+    }
 
-        Page<Product> productsPage = this.productRepository.findProductsWithFilter(filterValue, pageRequest);
-        return productsPage.get()
-                        .map(productMapper::mapToDto)
-                        .toList();
+    @Override
+    public long getProductCatalogVersion() {
+        return this.productCatalog.getVersion();
+    }
+
+    @Override
+    public List<ProductDTO> getProductSuggestions(String productName, Category category) {
+        return this.productRepository.findSimilarProducts(
+                        StringUtils.normalizeSpace(productName),
+                        category == null ? null : category.name(),
+                        this.productMatchingProperties.suggestionSimilarity(),
+                        PAGE_SIZE
+                )
+                .stream()
+                .map(this.productMapper::mapToDto)
+                .toList();
     }
 }
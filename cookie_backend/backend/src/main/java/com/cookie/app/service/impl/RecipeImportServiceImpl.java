@@ -0,0 +1,281 @@
+package com.cookie.app.service.impl;
+
+import com.cookie.app.config.CacheConfig;
+import com.cookie.app.event.ProductCreatedEvent;
+import com.cookie.app.event.RecipeChangedEvent;
+import com.cookie.app.model.entity.Product;
+import com.cookie.app.model.entity.Recipe;
+import com.cookie.app.model.entity.RecipeProduct;
+import com.cookie.app.model.entity.User;
+import com.cookie.app.model.mapper.AuthorityMapper;
+import com.cookie.app.model.request.ImportRecipeRequest;
+import com.cookie.app.model.response.ImportRecipesResponse;
+import com.cookie.app.repository.ProductKey;
+import com.cookie.app.repository.ProductRepository;
+import com.cookie.app.repository.RecipeImportRepository;
+import com.cookie.app.repository.UserRepository;
+import com.cookie.app.service.RecipeImportService;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.commons.lang3.StringUtils;
+import org.springframework.cache.annotation.CacheEvict;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DataAccessException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.TransactionException;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+import java.util.stream.Collectors;
+
+/**
+ * Imports recipes from newline delimited JSON. Lines are read one by one and saved in chunks, so memory used
+ * by import does not depend on size of the stream. Every chunk is saved in its own transaction, invalid line
+ * is reported with its number and does not stop the import.
+ */
+@Slf4j
+@Service
+public non-sealed class RecipeImportServiceImpl extends AbstractCookieService implements RecipeImportService {
+    static final int IMPORT_CHUNK_SIZE = 500;
+    static final int MAX_REPORTED_ERRORS = 100;
+    private final RecipeImportRepository recipeImportRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final ObjectReader recipeReader;
+    private final Validator validator;
+    private final ApplicationEventPublisher eventPublisher;
+
+    public RecipeImportServiceImpl(UserRepository userRepository,
+                                   ProductRepository productRepository,
+                                   AuthorityMapper authorityMapper,
+                                   RecipeImportRepository recipeImportRepository,
+                                   TransactionTemplate transactionTemplate,
+                                   ObjectMapper objectMapper,
+                                   Validator validator,
+                                   ApplicationEventPublisher eventPublisher) {
+        super(userRepository, productRepository, authorityMapper);
+        this.recipeImportRepository = recipeImportRepository;
+        this.transactionTemplate = transactionTemplate;
+        this.recipeReader = objectMapper.readerFor(ImportRecipeRequest.class);
+        this.validator = validator;
+        this.eventPublisher = eventPublisher;
+    }
+
+    // new recipes can be on any cached page and their ids could be cached as not existing recipes before
+    @CacheEvict(
+            cacheNames = {CacheConfig.RECIPE_DETAILS_CACHE, CacheConfig.RECIPE_PAGES_CACHE, CacheConfig.RECIPE_FACETS_CACHE},
+            allEntries = true
+    )
+    @Override
+    public ImportRecipesResponse importRecipes(String userEmail, InputStream recipes) {
+        User user = super.getUserByEmail(userEmail);
+        ImportReport report = new ImportReport();
+        List<ImportedLine> chunk = new ArrayList<>(IMPORT_CHUNK_SIZE);
+        long lineNumber = 0;
+
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(recipes, StandardCharsets.UTF_8))) {
+            String line;
+
+            while ((line = reader.readLine()) != null) {
+                lineNumber++;
+
+                if (StringUtils.isBlank(line)) {
+                    continue;
+                }
+
+                ImportRecipeRequest recipe = parseLine(line, lineNumber, report);
+                if (recipe != null) {
+                    chunk.add(new ImportedLine(lineNumber, recipe));
+                }
+
+                if (chunk.size() == IMPORT_CHUNK_SIZE) {
+                    importChunk(user, chunk, report);
+                    chunk.clear();
+                }
+            }
+        } catch (IOException exception) {
+            log.info("Reading recipes import of user with email={} failed at line={}", userEmail, lineNumber + 1);
+            report.stop(lineNumber + 1, "Reading recipes stopped, the rest of the stream was not imported");
+        }
+
+        if (!chunk.isEmpty()) {
+            importChunk(user, chunk, report);
+        }
+
+        log.info("User with email={} imported {} recipes, {} recipes failed",
+                userEmail,
+                report.importedRecipes,
+                report.failedRecipes);
+
+        return new ImportRecipesResponse(report.importedRecipes, report.failedRecipes, report.errors);
+    }
+
+    private ImportRecipeRequest parseLine(String line, long lineNumber, ImportReport report) {
+        ImportRecipeRequest recipe;
+
+        try {
+            recipe = this.recipeReader.readValue(line);
+        } catch (JsonProcessingException exception) {
+            report.addError(lineNumber, "Line is not valid recipe JSON");
+            return null;
+        }
+
+        Set<ConstraintViolation<ImportRecipeRequest>> violations = this.validator.validate(recipe);
+        if (!violations.isEmpty()) {
+            report.addError(lineNumber, violations.stream()
+                    .map(ConstraintViolation::getMessage)
+                    .sorted()
+                    .collect(Collectors.joining(", ")));
+            return null;
+        }
+
+        return recipe;
+    }
+
+    // chunk rejected by database is saved again recipe by recipe, so only the recipes which cannot be saved fail
+    private void importChunk(User user, List<ImportedLine> chunk, ImportReport report) {
+        try {
+            List<Recipe> savedRecipes = this.transactionTemplate.execute(status -> saveRecipes(user, chunk));
+            report.importedRecipes += chunk.size();
+            publishCreatedRecipes(savedRecipes);
+        } catch (DataAccessException | TransactionException exception) {
+            if (chunk.size() == 1) {
+                log.info("Saving imported recipe from line={} failed", chunk.get(0).lineNumber(), exception);
+                report.addError(chunk.get(0).lineNumber(), "Recipe could not be saved");
+                return;
+            }
+
+            for (ImportedLine line : chunk) {
+                importChunk(user, List.of(line), report);
+            }
+        }
+    }
+
+    private List<Recipe> saveRecipes(User user, List<ImportedLine> chunk) {
+        Map<ProductKey, Product> products = resolveProducts(chunk);
+        List<Long> recipeIds = this.recipeImportRepository.reserveRecipeIds(chunk.size());
+        List<Recipe> recipes = new ArrayList<>(chunk.size());
+
+        for (int i = 0; i < chunk.size(); i++) {
+            recipes.add(mapToRecipe(recipeIds.get(i), user, chunk.get(i).recipe(), products));
+        }
+
+        this.recipeImportRepository.insertRecipes(recipes);
+
+        return recipes;
+    }
+
+    // all products of the chunk are found with one query and the missing ones are created with one insert
+    private Map<ProductKey, Product> resolveProducts(List<ImportedLine> chunk) {
+        Map<ProductKey, ImportRecipeRequest.ImportedProduct> requestedProducts = new LinkedHashMap<>();
+
+        for (ImportedLine line : chunk) {
+            for (ImportRecipeRequest.ImportedProduct product : line.recipe().products()) {
+                requestedProducts.putIfAbsent(ProductKey.of(product.productName(), product.category()), product);
+            }
+        }
+
+        Map<ProductKey, Product> products = new HashMap<>();
+        findProducts(requestedProducts.keySet(), products);
+
+        List<ImportRecipeRequest.ImportedProduct> missingProducts = requestedProducts.entrySet()
+                .stream()
+                .filter(requestedProduct -> !products.containsKey(requestedProduct.getKey()))
+                .map(Map.Entry::getValue)
+                .toList();
+
+        if (missingProducts.isEmpty()) {
+            return products;
+        }
+
+        this.recipeImportRepository.insertProducts(
+                missingProducts.stream().map(ImportRecipeRequest.ImportedProduct::productName).toArray(String[]::new),
+                missingProducts.stream().map(product -> product.category().name()).toArray(String[]::new)
+        ).forEach(product -> {
+            products.put(ProductKey.of(product), product);
+            // products are inserted with plain JDBC, so the event is published here
+            this.eventPublisher.publishEvent(new ProductCreatedEvent(product));
+        });
+
+        // products skipped by the insert were created by concurrent request after they were looked up
+        List<ProductKey> concurrentlyCreatedProducts = missingProducts.stream()
+                .map(product -> ProductKey.of(product.productName(), product.category()))
+                .filter(productKey -> !products.containsKey(productKey))
+                .toList();
+
+        if (!concurrentlyCreatedProducts.isEmpty()) {
+            findProducts(concurrentlyCreatedProducts, products);
+        }
+
+        return products;
+    }
+
+    private void findProducts(Collection<ProductKey> productKeys, Map<ProductKey, Product> products) {
+        this.recipeImportRepository.findProducts(
+                productKeys.stream().map(ProductKey::lowerCaseName).toArray(String[]::new),
+                productKeys.stream().map(productKey -> productKey.category().name()).toArray(String[]::new)
+        ).forEach(product -> products.put(ProductKey.of(product), product));
+    }
+
+    private Recipe mapToRecipe(long recipeId,
+                               User creator,
+                               ImportRecipeRequest importRecipeRequest,
+                               Map<ProductKey, Product> products) {
+        List<RecipeProduct> recipeProducts = importRecipeRequest.products()
+                .stream()
+                .map(product -> RecipeProduct.builder()
+                        .product(products.get(ProductKey.of(product.productName(), product.category())))
+                        .quantity(product.quantity())
+                        .unit(product.unit())
+                        .build())
+                .toList();
+
+        return Recipe.builder()
+                .id(recipeId)
+                .recipeName(importRecipeRequest.recipeName())
+                .preparation(importRecipeRequest.preparation())
+                .preparationTime(importRecipeRequest.preparationTime())
+                .mealType(importRecipeRequest.mealType())
+                .cuisine(importRecipeRequest.cuisine())
+                .portions(importRecipeRequest.portions())
+                .creator(creator)
+                .recipeProducts(recipeProducts)
+                .build();
+    }
+
+    // events are published after the chunk is committed, so listeners apply them immediately
+    private void publishCreatedRecipes(List<Recipe> recipes) {
+        for (Recipe recipe : recipes) {
+            this.eventPublisher.publishEvent(new RecipeChangedEvent(recipe, RecipeChangedEvent.ChangeType.CREATED));
+        }
+    }
+
+    private record ImportedLine(long lineNumber, ImportRecipeRequest recipe) {}
+
+    // only first errors are returned, so response stays small even when every line of large import is wrong
+    private static class ImportReport {
+        private final List<ImportRecipesResponse.LineError> errors = new ArrayList<>();
+        private int importedRecipes;
+        private int failedRecipes;
+
+        void addError(long lineNumber, String message) {
+            this.failedRecipes++;
+
+            if (this.errors.size() < MAX_REPORTED_ERRORS) {
+                this.errors.add(new ImportRecipesResponse.LineError(lineNumber, message));
+            }
+        }
+
+        void stop(long lineNumber, String message) {
+            this.errors.add(new ImportRecipesResponse.LineError(lineNumber, message));
+        }
+    }
+}
@@ -1,46 +1,97 @@
 package com.cookie.app.service.impl;
 
+import com.cookie.app.config.CacheConfig;
+import com.cookie.app.event.RecipeChangedEvent;
+import com.cookie.app.event.RecipeImageUploadedEvent;
+import com.cookie.app.exception.ImageProcessingPendingException;
 import com.cookie.app.exception.ResourceNotFoundException;
 import com.cookie.app.exception.UserPerformedForbiddenActionException;
+import com.cookie.app.exception.ValidationException;
 import com.cookie.app.model.dto.*;
 import com.cookie.app.model.entity.*;
+import com.cookie.app.model.enums.ImageRendition;
+import com.cookie.app.model.enums.ImageStatus;
 import com.cookie.app.model.enums.MealType;
 import com.cookie.app.model.mapper.AuthorityMapper;
 import com.cookie.app.model.mapper.RecipeDetailsMapper;
 import com.cookie.app.model.mapper.RecipeMapper;
+import com.cookie.app.model.projection.RecipeExportRow;
+import com.cookie.app.model.projection.RecipeImageState;
+import com.cookie.app.model.projection.RecipeSummary;
 import com.cookie.app.model.request.CreateRecipeRequest;
+import com.cookie.app.model.request.IngredientFilterRequest;
 import com.cookie.app.model.request.RecipeFilterRequest;
 import com.cookie.app.model.request.UpdateRecipeRequest;
 import com.cookie.app.model.response.CreateRecipeResponse;
+import com.cookie.app.repository.ProductKey;
 import com.cookie.app.repository.ProductRepository;
+import com.cookie.app.repository.RecipeFacetCount;
+import com.cookie.app.repository.RecipeKeyset;
 import com.cookie.app.repository.RecipeProductRepository;
 import com.cookie.app.repository.RecipeRepository;
 import com.cookie.app.repository.UserRepository;
+import com.cookie.app.search.RecipeAutocompleteIndex;
+import com.cookie.app.search.RecipeIdPage;
+import com.cookie.app.search.RecipeIngredientIndex;
+import com.cookie.app.search.SimilarRecipeIndex;
 import com.cookie.app.service.PantryProductService;
 import com.cookie.app.service.RecipeService;
 import com.cookie.app.service.ShoppingListProductService;
+import com.cookie.app.stats.RecipeViewCounter;
+import com.cookie.app.storage.ByteArrayImageContent;
+import com.cookie.app.storage.ImageContent;
+import com.cookie.app.storage.ImageStore;
+import com.cookie.app.storage.PendingImage;
+import com.cookie.app.storage.RecipeImageProcessor;
+import com.cookie.app.storage.UnusedImageCollector;
+import com.cookie.app.util.CursorUtil;
+import com.cookie.app.util.ImageRenditionUtil;
 import com.cookie.app.util.ImageUtil;
+import com.cookie.app.util.SearchQueryUtil;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import lombok.extern.slf4j.Slf4j;
 import org.apache.commons.lang3.StringUtils;
+import org.springframework.cache.annotation.CacheEvict;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.cache.annotation.Cacheable;
+import org.springframework.cache.annotation.Caching;
+import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 import org.springframework.web.multipart.MultipartFile;
 
 import java.io.IOException;
+import java.io.OutputStream;
 import java.util.*;
 import java.util.function.Function;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 @Slf4j
 @Service
 public non-sealed class RecipeServiceImpl extends AbstractCookieService implements RecipeService {
+    private static final int RECIPES_SCROLL_SIZE = 20;
+    private static final int INGREDIENT_SEARCH_PAGE_SIZE = 20;
+    private static final long ALL_CREATORS = 0;
     private final RecipeRepository recipeRepository;
     private final RecipeProductRepository recipeProductRepository;
     private final PantryProductService pantryProductService;
     private final ShoppingListProductService shoppingListProductService;
     private final RecipeMapper recipeMapper;
     private final RecipeDetailsMapper recipeDetailsMapper;
+    private final ImageStore imageStore;
+    private final RecipeImageProcessor recipeImageProcessor;
+    private final ObjectMapper objectMapper;
+    private final ApplicationEventPublisher eventPublisher;
+    private final RecipeIngredientIndex recipeIngredientIndex;
+    private final SimilarRecipeIndex similarRecipeIndex;
+    private final RecipeAutocompleteIndex recipeAutocompleteIndex;
+    private final RecipeViewCounter recipeViewCounter;
+    private final UnusedImageCollector unusedImageCollector;
 
     public RecipeServiceImpl(UserRepository userRepository,
                              ProductRepository productRepository,
@@ -50,7 +101,16 @@ public non-sealed class RecipeServiceImpl extends AbstractCookieService implemen
                              PantryProductService pantryProductService,
                              ShoppingListProductService shoppingListProductService,
                              RecipeMapper recipeMapper,
-                             RecipeDetailsMapper recipeDetailsMapper) {
+                             RecipeDetailsMapper recipeDetailsMapper,
+                             ImageStore imageStore,
+                             RecipeImageProcessor recipeImageProcessor,
+                             ObjectMapper objectMapper,
+                             ApplicationEventPublisher eventPublisher,
+                             RecipeIngredientIndex recipeIngredientIndex,
+                             SimilarRecipeIndex similarRecipeIndex,
+                             RecipeAutocompleteIndex recipeAutocompleteIndex,
+                             RecipeViewCounter recipeViewCounter,
+                             UnusedImageCollector unusedImageCollector) {
         super(userRepository, productRepository, authorityMapper);
         this.recipeRepository = recipeRepository;
         this.recipeProductRepository = recipeProductRepository;
@@ -58,50 +118,168 @@ public non-sealed class RecipeServiceImpl extends AbstractCookieService implemen
         this.shoppingListProductService = shoppingListProductService;
         this.recipeMapper = recipeMapper;
         this.recipeDetailsMapper = recipeDetailsMapper;
+        this.imageStore = imageStore;
+        this.recipeImageProcessor = recipeImageProcessor;
+        this.objectMapper = objectMapper;
+        this.eventPublisher = eventPublisher;
+        this.recipeIngredientIndex = recipeIngredientIndex;
+        this.similarRecipeIndex = similarRecipeIndex;
+        this.recipeAutocompleteIndex = recipeAutocompleteIndex;
+        this.recipeViewCounter = recipeViewCounter;
+        this.unusedImageCollector = unusedImageCollector;
     }
 
     @Override
     public PageResult<RecipeDTO> getRecipes(int page, RecipeFilterRequest filterRequest) {
-        PageRequest pageRequest = super
-                .createPageRequest(page - 1, filterRequest.getSortColName(), filterRequest.getSortDirection());
+        String tsQuery = SearchQueryUtil.toPrefixTsQuery(filterRequest.getFilterValue());
+        PageRequest pageRequest = createRecipesPageRequest(page, filterRequest, !tsQuery.isEmpty());
         Set<String> selectedMealTypes = getMealTypesAsStrings(filterRequest.getMealTypes());
         int prepTime = filterRequest.getPrepTime() == null ? 0 : filterRequest.getPrepTime();
         int portions = filterRequest.getPortions() == null ? 0 : filterRequest.getPortions();
 
-        if (StringUtils.isBlank(filterRequest.getFilterValue())) {
+        if (tsQuery.isEmpty()) {
             return new PageResult<>(this.recipeRepository
                     .findRecipes(prepTime, portions, selectedMealTypes, pageRequest)
                     .map(recipeMapper::mapToDto));
         }
 
         return new PageResult<>(this.recipeRepository
-                .findRecipesByFilter(filterRequest.getFilterValue(), prepTime, portions, selectedMealTypes, pageRequest)
+                .findRecipesByFilter(tsQuery, prepTime, portions, selectedMealTypes, pageRequest)
                 .map(recipeMapper::mapToDto));
     }
 
+    // page is cached already serialized, so hot pages are returned without running queries and Jackson
+    @Cacheable(cacheNames = CacheConfig.RECIPE_PAGES_CACHE, keyGenerator = CacheConfig.RECIPE_PAGE_KEY_GENERATOR, sync = true)
+    @Override
+    public byte[] getRecipesJson(int page, RecipeFilterRequest filterRequest) {
+        try {
+            return this.objectMapper.writeValueAsBytes(getRecipes(page, filterRequest));
+        } catch (JsonProcessingException exception) {
+            throw new IllegalStateException("Serializing recipes page failed", exception);
+        }
+    }
+
+    @Cacheable(cacheNames = CacheConfig.RECIPE_FACETS_CACHE, keyGenerator = CacheConfig.RECIPE_FILTER_KEY_GENERATOR, sync = true)
+    @Override
+    public RecipeFacetsDTO getRecipeFacets(RecipeFilterRequest filterRequest) {
+        String tsQuery = SearchQueryUtil.toPrefixTsQuery(filterRequest.getFilterValue());
+        Set<String> selectedMealTypes = getMealTypesAsStrings(filterRequest.getMealTypes());
+        int prepTime = filterRequest.getPrepTime() == null ? 0 : filterRequest.getPrepTime();
+        int portions = filterRequest.getPortions() == null ? 0 : filterRequest.getPortions();
+
+        List<RecipeFacetCount> facetCounts = this.recipeRepository
+                .countRecipeFacets(tsQuery, prepTime, portions, selectedMealTypes);
+        long totalElements = 0;
+        Map<MealType, Long> mealTypes = new EnumMap<>(MealType.class);
+        Map<String, Long> cuisines = new TreeMap<>();
+        Map<Integer, Long> preparationTimeBuckets = new HashMap<>();
+        Map<Integer, Long> portionsBuckets = new HashMap<>();
+
+        for (MealType mealType : MealType.values()) {
+            mealTypes.put(mealType, 0L);
+        }
+
+        for (RecipeFacetCount facetCount : facetCounts) {
+            switch (facetCount.facet()) {
+                case MEAL_TYPE -> mealTypes.put(MealType.valueOf(facetCount.value()), facetCount.count());
+                case CUISINE -> {
+                    if (StringUtils.isNotBlank(facetCount.value()) && facetCount.count() > 0) {
+                        cuisines.put(facetCount.value(), facetCount.count());
+                    }
+                }
+                case PREPARATION_TIME -> preparationTimeBuckets.put(Integer.valueOf(facetCount.value()), facetCount.count());
+                case PORTIONS -> portionsBuckets.put(Integer.valueOf(facetCount.value()), facetCount.count());
+                case TOTAL -> totalElements = facetCount.count();
+            }
+        }
+
+        return new RecipeFacetsDTO(
+                totalElements,
+                mealTypes,
+                cuisines,
+                accumulateBuckets(RecipeRepository.PREPARATION_TIME_BUCKETS, preparationTimeBuckets),
+                accumulateBuckets(RecipeRepository.PORTIONS_BUCKETS, portionsBuckets)
+        );
+    }
+
+    @Override
+    public PageResult<RecipeDTO> searchRecipesByIngredients(int page, IngredientFilterRequest filterRequest) {
+        RecipeIdPage idPage = this.recipeIngredientIndex.searchRecipes(filterRequest, page - 1, INGREDIENT_SEARCH_PAGE_SIZE);
+        List<RecipeSummary> pageContent = findRecipeSummariesInOrder(idPage.recipeIds());
+
+        return new PageResult<>(new PageImpl<>(
+                pageContent,
+                PageRequest.of(page - 1, INGREDIENT_SEARCH_PAGE_SIZE),
+                idPage.totalElements()
+        ).map(recipeMapper::mapToDto));
+    }
+
+    @Override
+    public List<RecipeDTO> getSimilarRecipes(long recipeId, int limit) {
+        return findRecipeSummariesInOrder(this.similarRecipeIndex.findSimilarRecipes(recipeId, limit))
+                .stream()
+                .map(recipeMapper::mapToDto)
+                .toList();
+    }
+
+    @Override
+    public List<RecipeSuggestionDTO> getRecipeSuggestions(String query, int limit) {
+        return this.recipeAutocompleteIndex.complete(query, limit);
+    }
+
+    @Override
+    public CursorPageResult<RecipeDTO> scrollRecipes(String cursor, RecipeFilterRequest filterRequest) {
+        RecipeKeyset keyset = StringUtils.isBlank(cursor) ?
+                createFirstKeyset(filterRequest.getSortColName(), filterRequest.getSortDirection()) :
+                CursorUtil.decode(cursor);
+        String tsQuery = SearchQueryUtil.toPrefixTsQuery(filterRequest.getFilterValue());
+        Set<String> selectedMealTypes = getMealTypesAsStrings(filterRequest.getMealTypes());
+        int prepTime = filterRequest.getPrepTime() == null ? 0 : filterRequest.getPrepTime();
+        int portions = filterRequest.getPortions() == null ? 0 : filterRequest.getPortions();
+
+        // one additional recipe is fetched to find out if there is next page without counting all of them
+        List<RecipeSummary> recipes = this.recipeRepository
+                .findRecipesAfter(keyset, tsQuery, prepTime, portions, selectedMealTypes, RECIPES_SCROLL_SIZE + 1);
+        boolean hasNext = recipes.size() > RECIPES_SCROLL_SIZE;
+        List<RecipeSummary> pageContent = hasNext ? recipes.subList(0, RECIPES_SCROLL_SIZE) : recipes;
+        String nextCursor = null;
+
+        if (hasNext) {
+            RecipeSummary lastRecipe = pageContent.get(pageContent.size() - 1);
+            nextCursor = CursorUtil.encode(new RecipeKeyset(
+                    keyset.sortColName(),
+                    keyset.direction(),
+                    getSortValue(lastRecipe, keyset.sortColName()),
+                    lastRecipe.getId()
+            ));
+        }
+
+        return new CursorPageResult<>(pageContent.stream().map(recipeMapper::mapToDto).toList(), nextCursor);
+    }
+
     @Override
     public PageResult<RecipeDTO> getUserRecipes(String userEmail, int page, RecipeFilterRequest filterRequest) {
         User user = super.getUserByEmail(userEmail);
-        PageRequest pageRequest = super
-                .createPageRequest(page - 1, filterRequest.getSortColName(), filterRequest.getSortDirection());
+        String tsQuery = SearchQueryUtil.toPrefixTsQuery(filterRequest.getFilterValue());
+        PageRequest pageRequest = createRecipesPageRequest(page, filterRequest, !tsQuery.isEmpty());
         Set<String> selectedMealTypes = getMealTypesAsStrings(filterRequest.getMealTypes());
         int prepTime = filterRequest.getPrepTime() == null ? 0 : filterRequest.getPrepTime();
         int portions = filterRequest.getPortions() == null ? 0 : filterRequest.getPortions();
 
-        if (StringUtils.isBlank(filterRequest.getFilterValue())) {
+        if (tsQuery.isEmpty()) {
             return new PageResult<>(this.recipeRepository
                     .findUserRecipes(user.getId(), prepTime, portions, selectedMealTypes, pageRequest)
                     .map(recipeMapper::mapToDto));
         }
 
         return new PageResult<>(this.recipeRepository
-                .findUserRecipesByFilter(
-                        user.getId(), filterRequest.getFilterValue(), prepTime, portions, selectedMealTypes, pageRequest
-                )
+                .findUserRecipesByFilter(user.getId(), tsQuery, prepTime, portions, selectedMealTypes, pageRequest)
                 .map(recipeMapper::mapToDto));
     }
 
 
+    // sync makes concurrent misses for the same recipe wait for single database load
+    @Cacheable(cacheNames = CacheConfig.RECIPE_DETAILS_CACHE, key = "#recipeId", sync = true)
     @Override
     public RecipeDetailsDTO getRecipeDetails(long recipeId) {
         Optional<Recipe> recipeOptional = this.recipeRepository.findById(recipeId);
@@ -110,31 +288,149 @@ public non-sealed class RecipeServiceImpl extends AbstractCookieService implemen
                 new RecipeDetailsDTO(0, null, null, 0, null, null,0, null, null, null));
     }
 
+    // details are cached, so views are recorded separately for every request, also when details come from cache
+    @Override
+    public void recordRecipeView(long recipeId) {
+        this.recipeViewCounter.recordView(recipeId);
+    }
+
+    @Override
+    public String getRecipeImageHash(long recipeId) {
+        Optional<String> imageHash = this.recipeRepository.findImageHashById(recipeId);
+
+        if (imageHash.isPresent()) {
+            return imageHash.get();
+        }
+
+        // hash of legacy image is computed from inflated image once and saved, so next requests do not inflate it
+        Optional<String> legacyImageHash = this.recipeRepository.findCompressedImageById(recipeId)
+                .map(ImageUtil::decompressImage)
+                .map(ImageRenditionUtil::createImageHash);
+
+        if (legacyImageHash.isPresent()) {
+            this.recipeRepository.saveLegacyImageHash(recipeId, legacyImageHash.get());
+            return legacyImageHash.get();
+        }
+
+        // recipe without image hash can still wait for its image, then client should ask for it again later
+        boolean imagePending = this.recipeRepository.findImageStateById(recipeId)
+                .map(imageState -> imageState.getImageStatus() == ImageStatus.PENDING)
+                .orElse(false);
+
+        if (imagePending) {
+            throw new ImageProcessingPendingException("Recipe image is being processed");
+        }
+
+        throw new ResourceNotFoundException("Recipe image does not exists");
+    }
+
+    @Override
+    public RecipeImageStatusDTO getRecipeImageStatus(long recipeId) {
+        RecipeImageState imageState = this.recipeRepository.findImageStateById(recipeId)
+                .orElseThrow(() -> new ResourceNotFoundException("Recipe does not exists"));
+
+        return new RecipeImageStatusDTO(
+                imageState.getImageStatus(),
+                ImageRenditionUtil.createImageUrl(recipeId, imageState.getImageHash(), ImageRendition.CARD)
+        );
+    }
+
+    @Override
+    public ImageContent getRecipeImage(long recipeId, ImageRendition rendition) {
+        Optional<byte[]> image = switch (rendition) {
+            case THUMBNAIL -> this.recipeRepository.findThumbnailById(recipeId);
+            case CARD -> this.recipeRepository.findCardImageById(recipeId);
+            case FULL -> Optional.empty();
+        };
+
+        // recipes saved before renditions were introduced have only the original image
+        return image
+                .filter(imageData -> imageData.length > 0)
+                .<ImageContent>map(ByteArrayImageContent::new)
+                .orElseGet(() -> getOriginalImage(recipeId));
+    }
+
+    // rows are read through database cursor inside read only transaction, so whole catalog is never loaded at once
+    @Transactional(readOnly = true)
+    @Override
+    public void exportRecipes(OutputStream outputStream) throws IOException {
+        writeRecipes(ALL_CREATORS, outputStream);
+    }
+
+    @Transactional(readOnly = true)
+    @Override
+    public void exportUserRecipes(String userEmail, OutputStream outputStream) throws IOException {
+        User user = super.getUserByEmail(userEmail);
+
+        writeRecipes(user.getId(), outputStream);
+    }
+
+    // details of not existing recipe could be cached before, so entry with the new id is evicted
+    @Caching(evict = {
+            @CacheEvict(cacheNames = CacheConfig.RECIPE_DETAILS_CACHE, key = "#result.recipeId()"),
+            @CacheEvict(cacheNames = {CacheConfig.RECIPE_PAGES_CACHE, CacheConfig.RECIPE_FACETS_CACHE}, allEntries = true)
+    })
     @Override
     public CreateRecipeResponse createRecipe(String userEmail, CreateRecipeRequest createRecipeRequest, MultipartFile recipeImage) {
         User user = super.getUserByEmail(userEmail);
 
         Recipe recipe = mapRecipeRequestToRecipe(user, createRecipeRequest, recipeImage);
-        this.recipeRepository.save(recipe);
+        PendingImage pendingImage = recipeImage != null ? setRecipeImages(recipe, recipeImage) : null;
+
+        try {
+            this.recipeRepository.save(recipe);
+            this.eventPublisher.publishEvent(new RecipeChangedEvent(recipe, RecipeChangedEvent.ChangeType.CREATED));
+            publishImageUploaded(recipe, pendingImage);
+        } catch (RuntimeException exception) {
+            this.recipeImageProcessor.discard(pendingImage);
+            throw exception;
+        }
 
         return new CreateRecipeResponse(recipe.getId());
     }
 
+    @Caching(evict = {
+            @CacheEvict(cacheNames = CacheConfig.RECIPE_DETAILS_CACHE, key = "#recipeId"),
+            @CacheEvict(cacheNames = {CacheConfig.RECIPE_PAGES_CACHE, CacheConfig.RECIPE_FACETS_CACHE}, allEntries = true)
+    })
     @Transactional
     @Override
     public void deleteRecipe(String userEmail, long recipeId) {
         Recipe recipe = findRecipeIfUserIsCreator(userEmail, recipeId, "delete");
 
+        this.recipeRepository.releaseLegacyImage(recipe.getId());
         this.recipeRepository.delete(recipe);
+        this.unusedImageCollector.markUnused(recipe.getImageHash());
+        this.eventPublisher.publishEvent(new RecipeChangedEvent(recipe, RecipeChangedEvent.ChangeType.DELETED));
     }
 
+    @Caching(evict = {
+            @CacheEvict(cacheNames = CacheConfig.RECIPE_DETAILS_CACHE, key = "#updateRecipeRequest.id()"),
+            @CacheEvict(cacheNames = {CacheConfig.RECIPE_PAGES_CACHE, CacheConfig.RECIPE_FACETS_CACHE}, allEntries = true)
+    })
     @Transactional
     @Override
     public CreateRecipeResponse updateRecipe(String userEmail, UpdateRecipeRequest updateRecipeRequest, MultipartFile recipeImage) {
         Recipe recipe = findRecipeIfUserIsCreator(userEmail, updateRecipeRequest.id(), "update");
+        String previousImageHash = recipe.getImageHash();
+        PendingImage pendingImage = updateRecipe(recipe, updateRecipeRequest, recipeImage);
 
-        updateRecipe(recipe, updateRecipeRequest, recipeImage);
-        this.recipeRepository.save(recipe);
+        // image processor discards the image also when transaction is rolled back after the event was published
+        try {
+            if (updateRecipeRequest.updateImage()) {
+                this.recipeRepository.releaseLegacyImage(recipe.getId());
+            }
+            this.recipeRepository.save(recipe);
+
+            if (previousImageHash != null && !previousImageHash.equals(recipe.getImageHash())) {
+                this.unusedImageCollector.markUnused(previousImageHash);
+            }
+            this.eventPublisher.publishEvent(new RecipeChangedEvent(recipe, RecipeChangedEvent.ChangeType.UPDATED));
+            publishImageUploaded(recipe, pendingImage);
+        } catch (RuntimeException exception) {
+            this.recipeImageProcessor.discard(pendingImage);
+            throw exception;
+        }
 
         return new CreateRecipeResponse(recipe.getId());
     }
@@ -171,6 +467,122 @@ public non-sealed class RecipeServiceImpl extends AbstractCookieService implemen
         return recipe;
     }
 
+    private PageRequest createRecipesPageRequest(int page, RecipeFilterRequest filterRequest, boolean search) {
+        // if user searches recipes without choosing sort column, the best matching recipes are returned first
+        if (search && StringUtils.isBlank(filterRequest.getSortColName())) {
+            return super.createPageRequest(page - 1, RecipeRepository.SEARCH_RANK_COL, Sort.Direction.DESC);
+        }
+
+        return super.createPageRequest(page - 1, filterRequest.getSortColName(), filterRequest.getSortDirection());
+    }
+
+    private RecipeKeyset createFirstKeyset(String sortColName, Sort.Direction sortDirection) {
+        if (StringUtils.isBlank(sortColName)) {
+            return new RecipeKeyset(RecipeKeyset.ID_COL, Sort.Direction.DESC, null, null);
+        }
+
+        if (!RecipeKeyset.SORTABLE_COLUMNS.contains(sortColName)) {
+            throw new ValidationException(String.format("Recipes cannot be sorted by %s", sortColName));
+        }
+
+        return new RecipeKeyset(
+                sortColName,
+                sortDirection == Sort.Direction.DESC ? Sort.Direction.DESC : Sort.Direction.ASC,
+                null,
+                null
+        );
+    }
+
+    private String getSortValue(RecipeSummary recipe, String sortColName) {
+        return switch (sortColName) {
+            case "recipe_name" -> recipe.getRecipeName();
+            case "preparation_time" -> String.valueOf(recipe.getPreparationTime());
+            case "cuisine" -> recipe.getCuisine() == null ? "" : recipe.getCuisine();
+            case "portions" -> String.valueOf(recipe.getPortions());
+            default -> String.valueOf(recipe.getId());
+        };
+    }
+
+    // filters select recipes with value not greater than the option, so every option counts all lower buckets too
+    private Map<Integer, Long> accumulateBuckets(List<Integer> buckets, Map<Integer, Long> bucketCounts) {
+        Map<Integer, Long> cumulativeCounts = new LinkedHashMap<>();
+        long count = 0;
+
+        for (Integer bucket : buckets) {
+            count += bucketCounts.getOrDefault(bucket, 0L);
+            cumulativeCounts.put(bucket, count);
+        }
+
+        return cumulativeCounts;
+    }
+
+    // rows of one recipe come one after another, so recipe is written as soon as row of the next one is read
+    private void writeRecipes(long creatorId, OutputStream outputStream) throws IOException {
+        try (Stream<RecipeExportRow> rows = this.recipeRepository.streamRecipesForExport(creatorId);
+             JsonGenerator generator = this.objectMapper.createGenerator(outputStream)) {
+            generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+            Iterator<RecipeExportRow> iterator = rows.iterator();
+            RecipeExportRow recipe = null;
+            List<RecipeExportDTO.ExportedProduct> products = new ArrayList<>();
+
+            while (iterator.hasNext()) {
+                RecipeExportRow row = iterator.next();
+
+                if (recipe != null && recipe.getRecipeId() != row.getRecipeId()) {
+                    writeRecipe(generator, recipe, products);
+                    products = new ArrayList<>();
+                }
+
+                recipe = row;
+                if (row.getProductName() != null) {
+                    products.add(new RecipeExportDTO.ExportedProduct(
+                            row.getProductName(),
+                            row.getCategory(),
+                            row.getQuantity(),
+                            row.getUnit()
+                    ));
+                }
+            }
+
+            if (recipe != null) {
+                writeRecipe(generator, recipe, products);
+            }
+        }
+    }
+
+    private void writeRecipe(JsonGenerator generator,
+                             RecipeExportRow recipe,
+                             List<RecipeExportDTO.ExportedProduct> products) throws IOException {
+        generator.writeObject(new RecipeExportDTO(
+                recipe.getRecipeId(),
+                recipe.getRecipeName(),
+                recipe.getPreparation(),
+                recipe.getPreparationTime(),
+                recipe.getMealType(),
+                recipe.getCuisine(),
+                recipe.getPortions(),
+                recipe.getCreatorUserName(),
+                products
+        ));
+        generator.writeRaw('\n');
+    }
+
+    // summaries are returned in the order of given ids, recipe deleted after its id was found is skipped
+    private List<RecipeSummary> findRecipeSummariesInOrder(List<Long> recipeIds) {
+        if (recipeIds.isEmpty()) {
+            return Collections.emptyList();
+        }
+
+        Map<Long, RecipeSummary> recipes = this.recipeRepository.findRecipeSummariesByIdIn(recipeIds)
+                .stream()
+                .collect(Collectors.toMap(RecipeSummary::getId, Function.identity()));
+
+        return recipeIds.stream()
+                .map(recipes::get)
+                .filter(Objects::nonNull)
+                .toList();
+    }
+
     private Set<String> getMealTypesAsStrings(List<MealType> mealTypes) {
         if (mealTypes == null || mealTypes.isEmpty()) {
             return MealType.ALL_MEAL_TYPES
@@ -185,7 +597,7 @@ public non-sealed class RecipeServiceImpl extends AbstractCookieService implemen
                 .collect(Collectors.toSet());
     }
 
-    private void updateRecipe(Recipe recipe, UpdateRecipeRequest recipeDetailsDTO, MultipartFile recipeImage) {
+    private PendingImage updateRecipe(Recipe recipe, UpdateRecipeRequest recipeDetailsDTO, MultipartFile recipeImage) {
         recipe.setRecipeName(recipeDetailsDTO.recipeName());
         recipe.setPreparation(recipeDetailsDTO.preparation());
         recipe.setPreparationTime(recipeDetailsDTO.preparationTime());
@@ -193,24 +605,12 @@ public non-sealed class RecipeServiceImpl extends AbstractCookieService implemen
         recipe.setPortions(recipeDetailsDTO.portions());
         recipe.setMealType(recipeDetailsDTO.mealType());
 
-        if (recipeDetailsDTO.updateImage()) {
-            byte[] newImage = new byte[0];
-
-            if (recipeImage != null) {
-                try {
-                    newImage = recipeImage.getBytes();
-                } catch (IOException exception) {
-                    log.info("Reading file data failed!");
-                }
-
-                String contentType = recipeImage.getContentType();
+        if (recipeDetailsDTO.updateImage() && recipeImage != null) {
+            String contentType = recipeImage.getContentType();
 
-                if (contentType != null && !contentType.equals("image/jpeg") && !contentType.equals("image/png")) {
-                    throw new UserPerformedForbiddenActionException("You tried to save file in forbidden format");
-                }
+            if (contentType != null && !contentType.equals("image/jpeg") && !contentType.equals("image/png")) {
+                throw new UserPerformedForbiddenActionException("You tried to save file in forbidden format");
             }
-
-            recipe.setRecipeImage(ImageUtil.compressImage(newImage));
         }
 
         Map<Long, RecipeProductDTO> recipeProductDTOMap = recipeDetailsDTO.products()
@@ -240,13 +640,22 @@ public non-sealed class RecipeServiceImpl extends AbstractCookieService implemen
 
         this.recipeProductRepository.deleteAll(productsToRemove);
 
-        List<RecipeProduct> addedProducts = recipeDetailsDTO.products()
+        List<RecipeProductDTO> addedProductDTOs = recipeDetailsDTO.products()
                 .stream()
                 .filter(recipeProductDTO -> recipeProductDTO.id() == 0)
-                .map(recipeProductDTO -> this.mapToRecipeProduct(recipeProductDTO, recipe))
+                .toList();
+        Map<ProductKey, Product> products = super.findOrCreateProducts(
+                addedProductDTOs.stream().map(RecipeProductDTO::product).toList()
+        );
+        List<RecipeProduct> addedProducts = addedProductDTOs
+                .stream()
+                .map(recipeProductDTO -> this.mapToRecipeProduct(recipeProductDTO, products))
                 .toList();
 
         recipe.getRecipeProducts().addAll(addedProducts);
+
+        // image is accepted as the last step, so it does not wait for processing when recipe is not valid
+        return recipeDetailsDTO.updateImage() ? setRecipeImages(recipe, recipeImage) : null;
     }
 
     private Recipe getRecipeById(long recipeId, String userEmail) {
@@ -260,23 +669,14 @@ public non-sealed class RecipeServiceImpl extends AbstractCookieService implemen
 
 
     private Recipe mapRecipeRequestToRecipe(User creator, CreateRecipeRequest createRecipeRequest, MultipartFile recipeImage) {
-        byte[] recipeImg = null;
-
         if (recipeImage != null) {
             String contentType = recipeImage.getContentType();
 
             if (contentType == null || (!contentType.equals("image/jpeg") && !contentType.equals("image/png"))) {
                 throw new UserPerformedForbiddenActionException("You tried to save file in forbidden format");
             }
-
-            try {
-                recipeImg = ImageUtil.compressImage(recipeImage.getBytes());
-            } catch (IOException exception) {
-                log.info("Reading file data failed!");
-            }
         }
 
-
         Recipe recipe =  Recipe.builder()
                 .recipeName(createRecipeRequest.recipeName())
                 .preparation(createRecipeRequest.preparation())
@@ -284,14 +684,17 @@ public non-sealed class RecipeServiceImpl extends AbstractCookieService implemen
                 .mealType(createRecipeRequest.mealType())
                 .cuisine(createRecipeRequest.cuisine())
                 .portions(createRecipeRequest.portions())
-                .recipeImage(recipeImg)
                 .creator(creator)
+                .imageStatus(ImageStatus.NONE)
                 .build();
 
+        Map<ProductKey, Product> products = super.findOrCreateProducts(
+                createRecipeRequest.products().stream().map(RecipeProductDTO::product).toList()
+        );
         List<RecipeProduct> recipeProducts = createRecipeRequest
                 .products()
                 .stream()
-                .map(recipeProduct -> this.mapToRecipeProduct(recipeProduct, recipe))
+                .map(recipeProduct -> this.mapToRecipeProduct(recipeProduct, products))
                 .toList();
 
         recipe.setRecipeProducts(recipeProducts);
@@ -299,9 +702,52 @@ public non-sealed class RecipeServiceImpl extends AbstractCookieService implemen
         return recipe;
     }
 
-    private RecipeProduct mapToRecipeProduct(RecipeProductDTO recipeProductDTO, Recipe recipe) {
+    // image is only accepted here, it is saved to image store and its renditions are created after recipe is saved
+    private PendingImage setRecipeImages(Recipe recipe, MultipartFile image) {
+        recipe.setImageHash(null);
+        recipe.setRecipeThumbnail(new byte[0]);
+        recipe.setRecipeCardImage(new byte[0]);
+        recipe.setImageStatus(ImageStatus.NONE);
+        recipe.setImageUploadId(null);
+
+        if (image == null || image.isEmpty()) {
+            return null;
+        }
+
+        PendingImage pendingImage = this.recipeImageProcessor.accept(image);
+        if (pendingImage != null) {
+            recipe.setImageStatus(ImageStatus.PENDING);
+            recipe.setImageUploadId(pendingImage.getUploadId());
+        }
+
+        return pendingImage;
+    }
+
+    private void publishImageUploaded(Recipe recipe, PendingImage pendingImage) {
+        if (pendingImage != null) {
+            this.eventPublisher.publishEvent(new RecipeImageUploadedEvent(recipe.getId(), pendingImage));
+        }
+    }
+
+    private ImageContent getOriginalImage(long recipeId) {
+        Optional<ImageContent> storedImage = this.recipeRepository.findImageHashById(recipeId)
+                .flatMap(this.imageStore::find);
+
+        if (storedImage.isPresent()) {
+            return storedImage.get();
+        }
+
+        // image was not moved from large object to image store yet, it is left to LegacyImageMigrator
+        return this.recipeRepository.findCompressedImageById(recipeId)
+                .map(ImageUtil::decompressImage)
+                .filter(image -> image.length > 0)
+                .map(ByteArrayImageContent::new)
+                .orElseThrow(() -> new ResourceNotFoundException("Recipe image does not exists"));
+    }
+
+    private RecipeProduct mapToRecipeProduct(RecipeProductDTO recipeProductDTO, Map<ProductKey, Product> products) {
         return RecipeProduct.builder()
-                .product(super.checkIfProductExists(recipeProductDTO.product()))
+                .product(super.getProduct(products, recipeProductDTO.product()))
                 .quantity(recipeProductDTO.quantity())
                 .unit(recipeProductDTO.unit())
                 .build();
@@ -12,6 +12,7 @@ import com.cookie.app.model.enums.AuthorityEnum;
 import com.cookie.app.model.mapper.AuthorityMapper;
 import com.cookie.app.model.mapper.ShoppingListProductMapper;
 import com.cookie.app.model.request.FilterRequest;
+import com.cookie.app.repository.ProductKey;
 import com.cookie.app.repository.ProductRepository;
 import com.cookie.app.repository.ShoppingListProductRepository;
 import com.cookie.app.repository.UserRepository;
@@ -26,6 +27,7 @@ import org.springframework.transaction.annotation.Transactional;
 import java.time.LocalDate;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
 @Slf4j
@@ -74,6 +76,9 @@ public non-sealed class ShoppingListProductServiceImpl extends AbstractShoppingL
     public void addProductsToShoppingList(long listId, List<ShoppingListProductDTO> listProductDTOList, String userEmail) {
         ShoppingList shoppingList = super.getShoppingListIfUserHasAuthority(listId, userEmail, AuthorityEnum.ADD_TO_SHOPPING_LIST);
         List<ShoppingListProduct> newShoppingListProducts = new ArrayList<>();
+        Map<ProductKey, Product> products = super.findOrCreateProducts(
+                listProductDTOList.stream().map(ShoppingListProductDTO::product).toList()
+        );
 
         for (ShoppingListProductDTO listProductDTO : listProductDTOList) {
             if (listProductDTO.id() > 0) {
@@ -84,7 +89,7 @@ public non-sealed class ShoppingListProductServiceImpl extends AbstractShoppingL
                         "Shopping list product cannot be purchased while inserting it to shopping list");
             }
 
-            ShoppingListProduct shoppingListProduct = mapToShoppingListProduct(listProductDTO, shoppingList);
+            ShoppingListProduct shoppingListProduct = mapToShoppingListProduct(listProductDTO, shoppingList, products);
 
             if (shoppingListProduct.getId() == 0L) {
                 shoppingList.getProductsList().add(shoppingListProduct);
@@ -293,8 +298,10 @@ public non-sealed class ShoppingListProductServiceImpl extends AbstractShoppingL
         return super.isAnyProductNotOnList(shoppingListProductsIds, productIds);
     }
 
-    private ShoppingListProduct mapToShoppingListProduct(ShoppingListProductDTO listProductDTO, ShoppingList shoppingList) {
-        Product product = super.checkIfProductExists(listProductDTO.product());
+    private ShoppingListProduct mapToShoppingListProduct(ShoppingListProductDTO listProductDTO,
+                                                         ShoppingList shoppingList,
+                                                         Map<ProductKey, Product> products) {
+        Product product = super.getProduct(products, listProductDTO.product());
         ShoppingListProduct foundShoppingListProduct = findProductInShoppingList(shoppingList, listProductDTO, product);
 
         if (foundShoppingListProduct != null) {
@@ -0,0 +1,123 @@
+package com.cookie.app.stats;
+
+import com.cookie.app.event.RecipeChangedEvent;
+import com.cookie.app.repository.RecipeViewRepository;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Counts recipe views in memory and writes them to the database in batches, so viewing recipe does not update
+ * its row on every request. Counters are never reset, flush writes only views added since the previous flush,
+ * so views counted while flush is running are written by the next one.
+ */
+@Slf4j
+@RequiredArgsConstructor
+@Component
+public class RecipeViewCounter {
+    static final int TRENDING_WINDOW_HOURS = 24;
+    private static final long BUCKET_MILLIS = Duration.ofHours(1).toMillis();
+
+    private final RecipeViewRepository recipeViewRepository;
+    private final Clock clock;
+    private final ConcurrentMap<Long, LongAdder> views = new ConcurrentHashMap<>();
+    // accessed only by flush, which is synchronized
+    private final Map<Long, Long> flushedViews = new HashMap<>();
+    private long expiredBucketHour = -1;
+
+    public void recordView(long recipeId) {
+        LongAdder recipeViews = this.views.get(recipeId);
+
+        if (recipeViews == null) {
+            recipeViews = this.views.computeIfAbsent(recipeId, id -> new LongAdder());
+        }
+
+        recipeViews.increment();
+    }
+
+    /**
+     * Writes views counted since the previous flush and expires buckets which left trending window. When writing
+     * fails, views stay in memory and are written by the next flush.
+     */
+    @Scheduled(
+            initialDelayString = "${config.recipe-views.flush-delay-ms:5000}",
+            fixedDelayString = "${config.recipe-views.flush-delay-ms:5000}"
+    )
+    public synchronized void flush() {
+        long bucketHour = this.clock.millis() / BUCKET_MILLIS;
+
+        try {
+            expireBuckets(bucketHour);
+            writeViews(bucketHour);
+        } catch (RuntimeException exception) {
+            log.error("Writing recipe views failed", exception);
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        flush();
+    }
+
+    // views of deleted recipe are not needed anymore, database rows are deleted together with recipe
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onRecipeChanged(RecipeChangedEvent event) {
+        if (event.changeType() == RecipeChangedEvent.ChangeType.DELETED) {
+            this.views.remove(event.recipe().getId());
+        }
+    }
+
+    private void expireBuckets(long bucketHour) {
+        if (this.expiredBucketHour == bucketHour) {
+            return;
+        }
+
+        int expiredRecipes = this.recipeViewRepository.expireViews(bucketHour - TRENDING_WINDOW_HOURS + 1);
+        this.expiredBucketHour = bucketHour;
+        log.info("Expired trending views of {} recipes", expiredRecipes);
+    }
+
+    private void writeViews(long bucketHour) {
+        // sorted ids make concurrent flushes of several instances lock rows in the same order
+        SortedMap<Long, Long> totalViews = new TreeMap<>();
+        SortedMap<Long, Long> addedViews = new TreeMap<>();
+
+        if (this.flushedViews.size() > this.views.size()) {
+            this.flushedViews.keySet().retainAll(this.views.keySet());
+        }
+
+        this.views.forEach((recipeId, recipeViews) -> {
+            long total = recipeViews.sum();
+            long added = total - this.flushedViews.getOrDefault(recipeId, 0L);
+
+            if (added > 0) {
+                totalViews.put(recipeId, total);
+                addedViews.put(recipeId, added);
+            }
+        });
+
+        if (addedViews.isEmpty()) {
+            return;
+        }
+
+        this.recipeViewRepository.addViews(
+                addedViews.keySet().toArray(Long[]::new),
+                addedViews.values().toArray(Long[]::new),
+                bucketHour
+        );
+        this.flushedViews.putAll(totalViews);
+    }
+}
@@ -0,0 +1,25 @@
+package com.cookie.app.storage;
+
+import com.cookie.app.util.ImageRenditionUtil;
+import org.springframework.http.MediaType;
+
+import java.io.IOException;
+import java.io.OutputStream;
+
+public record ByteArrayImageContent(byte[] image) implements ImageContent {
+
+    @Override
+    public long contentLength() {
+        return this.image.length;
+    }
+
+    @Override
+    public MediaType mediaType() {
+        return ImageRenditionUtil.detectMediaType(this.image);
+    }
+
+    @Override
+    public void writeTo(OutputStream outputStream, long position, long count) throws IOException {
+        outputStream.write(this.image, (int) position, (int) count);
+    }
+}
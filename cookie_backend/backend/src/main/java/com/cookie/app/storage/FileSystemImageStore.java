@@ -0,0 +1,224 @@
+package com.cookie.app.storage;
+
+import com.cookie.app.config.ImageStoreProperties;
+import com.cookie.app.model.enums.ImageCodec;
+import com.cookie.app.util.ImageRenditionUtil;
+import com.cookie.app.util.ImageUtil;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.*;
+import java.nio.file.attribute.FileTime;
+import java.security.DigestInputStream;
+import java.time.Clock;
+import java.time.Instant;
+import java.util.HexFormat;
+import java.util.Optional;
+import java.util.regex.Pattern;
+
+@Slf4j
+@Component
+public class FileSystemImageStore implements ImageStore {
+    private static final Pattern KEY_PATTERN = Pattern.compile("[0-9a-f]{64}");
+    private static final int MEDIA_TYPE_HEADER_SIZE = 8;
+    private static final int KEY_LOCKS = 64;
+
+    private final Path rootDirectory;
+    private final Clock clock;
+    // saving existing image and deleting unused image of the same key exclude each other
+    private final Object[] keyLocks = new Object[KEY_LOCKS];
+
+    public FileSystemImageStore(ImageStoreProperties imageStoreProperties, Clock clock) {
+        this.rootDirectory = Path.of(imageStoreProperties.directory()).toAbsolutePath().normalize();
+        this.clock = clock;
+        for (int i = 0; i < KEY_LOCKS; i++) {
+            this.keyLocks[i] = new Object();
+        }
+    }
+
+    @Override
+    public String save(byte[] image) {
+        if (image == null || image.length == 0) {
+            throw new IllegalArgumentException("Empty image cannot be saved");
+        }
+
+        try {
+            return save(new ByteArrayInputStream(image));
+        } catch (IOException e) {
+            throw new UncheckedIOException("Saving image failed", e);
+        }
+    }
+
+    /**
+     * Copies image from the stream to the store, hashing and encoding it on the fly. Key is known only after
+     * whole image is read, so image is written to temporary file first and then moved to its final path.
+     */
+    @Override
+    public String save(InputStream image) throws IOException {
+        DigestInputStream digestInputStream = new DigestInputStream(image, ImageRenditionUtil.createImageDigest());
+        byte[] codecSample = digestInputStream.readNBytes(ImageUtil.CODEC_SAMPLE_SIZE);
+
+        if (codecSample.length == 0) {
+            throw new IllegalArgumentException("Empty image cannot be saved");
+        }
+
+        ImageCodec codec = ImageUtil.selectCodec(codecSample);
+        Files.createDirectories(this.rootDirectory);
+        // temporary file is created in the store, so it can be moved atomically and readers never see partial image
+        Path tempPath = Files.createTempFile(this.rootDirectory, "upload", ".tmp");
+
+        try {
+            try (OutputStream outputStream = Files.newOutputStream(tempPath)) {
+                InputStream content = new SequenceInputStream(new ByteArrayInputStream(codecSample), digestInputStream);
+                ImageUtil.encodeImage(content, outputStream, codec);
+            }
+
+            String key = HexFormat.of().formatHex(digestInputStream.getMessageDigest().digest());
+
+            // modification time of image is its last save, so unused image is not deleted while it is being reused
+            for (ImageCodec storedCodec : ImageCodec.values()) {
+                if (touch(resolve(key, storedCodec))) {
+                    return key;
+                }
+            }
+
+            Path imagePath = resolve(key, codec);
+            Files.createDirectories(imagePath.getParent());
+            // new image is stamped with store clock too, so its age is measured the same way as of touched images
+            Files.setLastModifiedTime(tempPath, FileTime.from(this.clock.instant()));
+            Files.move(tempPath, imagePath, StandardCopyOption.ATOMIC_MOVE);
+
+            return key;
+        } finally {
+            Files.deleteIfExists(tempPath);
+        }
+    }
+
+    @Override
+    public Optional<ImageContent> find(String key) {
+        if (key == null || !KEY_PATTERN.matcher(key).matches()) {
+            return Optional.empty();
+        }
+
+        Path imagePath = resolve(key, ImageCodec.RAW);
+
+        try (FileChannel channel = FileChannel.open(imagePath, StandardOpenOption.READ)) {
+            ByteBuffer header = ByteBuffer.allocate(MEDIA_TYPE_HEADER_SIZE);
+            channel.read(header, 0);
+
+            return Optional.of(new FileImageContent(
+                    imagePath,
+                    channel.size(),
+                    ImageRenditionUtil.detectMediaType(header.array())
+            ));
+        } catch (NoSuchFileException e) {
+            return findDeflatedImage(key);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Reading image failed", e);
+        }
+    }
+
+    @Override
+    public void delete(String key) {
+        if (key == null || !KEY_PATTERN.matcher(key).matches()) {
+            return;
+        }
+
+        for (ImageCodec codec : ImageCodec.values()) {
+            try {
+                Files.deleteIfExists(resolve(key, codec));
+            } catch (IOException e) {
+                log.warn("Deleting image with key={} failed", key, e);
+            }
+        }
+    }
+
+    @Override
+    public boolean deleteIfSavedBefore(String key, Instant savedBefore) {
+        if (key == null || !KEY_PATTERN.matcher(key).matches()) {
+            return true;
+        }
+
+        synchronized (lockFor(key)) {
+            for (ImageCodec codec : ImageCodec.values()) {
+                Path imagePath = resolve(key, codec);
+
+                try {
+                    if (Files.getLastModifiedTime(imagePath).toInstant().isAfter(savedBefore)) {
+                        return false;
+                    }
+                    Files.deleteIfExists(imagePath);
+                } catch (NoSuchFileException e) {
+                    // image is stored with another codec
+                } catch (IOException e) {
+                    log.warn("Deleting image with key={} failed", key, e);
+                    return false;
+                }
+            }
+
+            return true;
+        }
+    }
+
+    private boolean touch(Path imagePath) throws IOException {
+        synchronized (lockFor(imagePath.getFileName().toString())) {
+            try {
+                Files.setLastModifiedTime(imagePath, FileTime.from(this.clock.instant()));
+                return true;
+            } catch (NoSuchFileException e) {
+                return false;
+            }
+        }
+    }
+
+    private Object lockFor(String key) {
+        return this.keyLocks[Math.floorMod(key.substring(0, 8).hashCode(), KEY_LOCKS)];
+    }
+
+    // only images which compress well are deflated, so they are inflated in memory instead of being streamed
+    private Optional<ImageContent> findDeflatedImage(String key) {
+        try {
+            byte[] image = ImageUtil.decodeImage(Files.readAllBytes(resolve(key, ImageCodec.DEFLATE)), ImageCodec.DEFLATE);
+            return image.length == 0 ? Optional.empty() : Optional.of(new ByteArrayImageContent(image));
+        } catch (NoSuchFileException e) {
+            return Optional.empty();
+        } catch (IOException e) {
+            throw new UncheckedIOException("Reading image failed", e);
+        }
+    }
+
+    // images are spread over two levels of directories, so no directory contains too many files
+    private Path resolve(String key, ImageCodec codec) {
+        return this.rootDirectory
+                .resolve(key.substring(0, 2))
+                .resolve(key.substring(2, 4))
+                .resolve(key + codec.getFileSuffix());
+    }
+
+    private record FileImageContent(Path path, long contentLength, MediaType mediaType) implements ImageContent {
+
+        // FileChannel.transferTo lets the OS copy file pages to the output without reading them into heap buffers
+        @Override
+        public void writeTo(OutputStream outputStream, long position, long count) throws IOException {
+            try (FileChannel channel = FileChannel.open(this.path, StandardOpenOption.READ)) {
+                WritableByteChannel target = Channels.newChannel(outputStream);
+                long transferred = 0;
+
+                while (transferred < count) {
+                    long written = channel.transferTo(position + transferred, count - transferred, target);
+
+                    if (written <= 0) {
+                        break;
+                    }
+                    transferred += written;
+                }
+            }
+        }
+    }
+}
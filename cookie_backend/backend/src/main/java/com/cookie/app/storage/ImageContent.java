@@ -0,0 +1,12 @@
+package com.cookie.app.storage;
+
+import org.springframework.http.MediaType;
+
+import java.io.IOException;
+import java.io.OutputStream;
+
+public interface ImageContent {
+    long contentLength();
+    MediaType mediaType();
+    void writeTo(OutputStream outputStream, long position, long count) throws IOException;
+}
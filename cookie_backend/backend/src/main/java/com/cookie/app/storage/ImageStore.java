@@ -0,0 +1,23 @@
+package com.cookie.app.storage;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.time.Instant;
+import java.util.Optional;
+
+/**
+ * Storage of original recipe images. Images are addressed by SHA-256 of their content,
+ * so the same image uploaded for many recipes is stored only once.
+ */
+public interface ImageStore {
+    String save(byte[] image);
+    String save(InputStream image) throws IOException;
+    Optional<ImageContent> find(String key);
+    void delete(String key);
+
+    /**
+     * Deletes image which was saved for the last time before given time. Returns false when image was saved
+     * later and is kept, true when it was deleted or it does not exist.
+     */
+    boolean deleteIfSavedBefore(String key, Instant savedBefore);
+}
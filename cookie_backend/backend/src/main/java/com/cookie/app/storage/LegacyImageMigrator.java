@@ -0,0 +1,79 @@
+package com.cookie.app.storage;
+
+import com.cookie.app.config.ImageStoreProperties;
+import com.cookie.app.model.enums.ImageRendition;
+import com.cookie.app.repository.RecipeRepository;
+import com.cookie.app.util.ImageRenditionUtil;
+import com.cookie.app.util.ImageUtil;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.io.ByteArrayInputStream;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Moves images stored as PostgreSQL large objects in recipe.recipe_image column to the image store.
+ * Only small batch of recipes is migrated on every run, so migration does not compete with user requests.
+ */
+@Slf4j
+@RequiredArgsConstructor
+@Component
+public class LegacyImageMigrator {
+    private final RecipeRepository recipeRepository;
+    private final ImageStore imageStore;
+    private final ImageStoreProperties imageStoreProperties;
+
+    @Scheduled(
+            initialDelayString = "${config.image-store.migration-initial-delay-ms:30000}",
+            fixedDelayString = "${config.image-store.migration-delay-ms:60000}"
+    )
+    public void migrateBatch() {
+        List<Long> recipeIds = this.recipeRepository
+                .findRecipeIdsWithLegacyImage(this.imageStoreProperties.migrationBatchSize());
+
+        if (recipeIds.isEmpty()) {
+            return;
+        }
+
+        int migrated = 0;
+        for (long recipeId : recipeIds) {
+            try {
+                migrated += migrate(recipeId);
+            } catch (RuntimeException e) {
+                log.error("Migrating image of recipe with id={} failed", recipeId, e);
+            }
+        }
+
+        log.info("Migrated {} of {} legacy recipe images to image store", migrated, recipeIds.size());
+    }
+
+    int migrate(long recipeId) {
+        byte[] image = ImageUtil.decompressImage(this.recipeRepository
+                .findCompressedImageById(recipeId)
+                .orElse(new byte[0]));
+
+        return migrate(recipeId, image);
+    }
+
+    // re-encodes inflated legacy image with the image store codec and releases its large object
+    private int migrate(long recipeId, byte[] image) {
+        if (image.length == 0) {
+            return this.recipeRepository.releaseLegacyImage(recipeId);
+        }
+
+        String imageHash = this.imageStore.save(image);
+        Map<ImageRendition, byte[]> renditions = ImageRenditionUtil
+                .createRenditions(() -> new ByteArrayInputStream(image), ImageRendition.THUMBNAIL, ImageRendition.CARD);
+
+        // update does nothing when user uploaded new image in the meantime, because it already released legacy image
+        return this.recipeRepository.moveLegacyImage(
+                recipeId,
+                imageHash,
+                renditions.get(ImageRendition.THUMBNAIL),
+                renditions.get(ImageRendition.CARD)
+        );
+    }
+}
@@ -0,0 +1,32 @@
+package com.cookie.app.storage;
+
+import java.nio.file.Path;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Uploaded image waiting for processing in temporary file. Upload id is saved with the recipe, so result of
+ * processing is applied only if recipe did not get another image in the meantime.
+ */
+public final class PendingImage {
+    private final String uploadId;
+    private final Path path;
+    private final AtomicBoolean released = new AtomicBoolean();
+
+    PendingImage(String uploadId, Path path) {
+        this.uploadId = uploadId;
+        this.path = path;
+    }
+
+    public String getUploadId() {
+        return this.uploadId;
+    }
+
+    public Path getPath() {
+        return this.path;
+    }
+
+    // image is released by processing task or by rolled back request, whichever comes first
+    boolean release() {
+        return this.released.compareAndSet(false, true);
+    }
+}
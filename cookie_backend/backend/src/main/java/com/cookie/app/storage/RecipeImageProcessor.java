@@ -0,0 +1,217 @@
+package com.cookie.app.storage;
+
+import com.cookie.app.config.CacheConfig;
+import com.cookie.app.config.ImageStoreProperties;
+import com.cookie.app.event.RecipeImageUploadedEvent;
+import com.cookie.app.exception.ImageProcessingUnavailableException;
+import com.cookie.app.model.enums.ImageRendition;
+import com.cookie.app.repository.RecipeRepository;
+import com.cookie.app.util.ImageRenditionUtil;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.core.io.PathResource;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.web.multipart.MultipartFile;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.*;
+
+/**
+ * Saves uploaded recipe images to the image store and creates their renditions outside of request threads.
+ * Every accepted image holds one permit until it is processed or discarded and there are only as many permits
+ * as threads and queue slots, so when processing falls behind new uploads are rejected instead of piling up.
+ */
+@Slf4j
+@Component
+public class RecipeImageProcessor {
+    private static final String PENDING_DIRECTORY = "pending";
+    private static final long SHUTDOWN_TIMEOUT_SECONDS = 30;
+
+    private final RecipeRepository recipeRepository;
+    private final ImageStore imageStore;
+    private final UnusedImageCollector unusedImageCollector;
+    private final CacheManager cacheManager;
+    private final Path pendingDirectory;
+    private final Semaphore permits;
+    private final ThreadPoolExecutor executor;
+    private final Counter rejectedImages;
+
+    public RecipeImageProcessor(RecipeRepository recipeRepository,
+                                ImageStore imageStore,
+                                UnusedImageCollector unusedImageCollector,
+                                ImageStoreProperties imageStoreProperties,
+                                CacheManager cacheManager,
+                                MeterRegistry meterRegistry) {
+        int threads = imageStoreProperties.processingThreads();
+        int queueCapacity = imageStoreProperties.processingQueueCapacity();
+
+        this.recipeRepository = recipeRepository;
+        this.imageStore = imageStore;
+        this.unusedImageCollector = unusedImageCollector;
+        this.cacheManager = cacheManager;
+        this.pendingDirectory = Path.of(imageStoreProperties.directory(), PENDING_DIRECTORY).toAbsolutePath().normalize();
+        this.permits = new Semaphore(threads + queueCapacity);
+        this.executor = new ThreadPoolExecutor(
+                threads,
+                threads,
+                0L,
+                TimeUnit.MILLISECONDS,
+                new LinkedBlockingQueue<>(queueCapacity),
+                new CustomizableThreadFactory("recipe-image-")
+        );
+        this.rejectedImages = Counter.builder("recipe.images.rejected")
+                .description("Recipe images rejected because processing queue was full")
+                .register(meterRegistry);
+        Gauge.builder("recipe.images.queued", this.executor, executor -> executor.getQueue().size())
+                .description("Recipe images waiting for processing")
+                .register(meterRegistry);
+        Gauge.builder("recipe.images.processing", this.executor, ThreadPoolExecutor::getActiveCount)
+                .description("Recipe images being processed")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Moves uploaded image to temporary file, so multipart request can be completed before image is processed.
+     * Returns null when image could not be read, like image was never sent.
+     */
+    public PendingImage accept(MultipartFile image) {
+        if (!this.permits.tryAcquire()) {
+            this.rejectedImages.increment();
+            log.warn("Recipe image rejected, processing queue is full");
+            throw new ImageProcessingUnavailableException("Too many images are processed now, try again later");
+        }
+
+        PendingImage pendingImage = null;
+        try {
+            Files.createDirectories(this.pendingDirectory);
+            pendingImage = new PendingImage(
+                    UUID.randomUUID().toString(),
+                    Files.createTempFile(this.pendingDirectory, "upload", ".tmp")
+            );
+            image.transferTo(pendingImage.getPath().toFile());
+
+            return pendingImage;
+        } catch (IOException exception) {
+            log.info("Reading file data failed!");
+            if (pendingImage != null) {
+                discard(pendingImage);
+            } else {
+                this.permits.release();
+            }
+
+            return null;
+        }
+    }
+
+    /**
+     * Deletes image which will not be processed and frees its permit. Calling it again for the same image does nothing.
+     */
+    public void discard(PendingImage image) {
+        if (image == null || !image.release()) {
+            return;
+        }
+
+        try {
+            Files.deleteIfExists(image.getPath());
+        } catch (IOException exception) {
+            log.warn("Deleting pending image {} failed", image.getPath(), exception);
+        } finally {
+            this.permits.release();
+        }
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onImageUploaded(RecipeImageUploadedEvent event) {
+        try {
+            this.executor.execute(() -> process(event.recipeId(), event.image()));
+        } catch (RejectedExecutionException exception) {
+            // happens only while application is shutting down, because permits never exceed queue capacity
+            log.error("Processing image of recipe with id={} was rejected", event.recipeId(), exception);
+            failProcessing(event.recipeId(), event.image());
+        }
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_ROLLBACK)
+    public void onImageUploadRolledBack(RecipeImageUploadedEvent event) {
+        discard(event.image());
+    }
+
+    @PreDestroy
+    public void shutdown() throws InterruptedException {
+        // queued images are still processed, so their recipes do not stay pending
+        this.executor.shutdown();
+        if (!this.executor.awaitTermination(SHUTDOWN_TIMEOUT_SECONDS, TimeUnit.SECONDS)) {
+            log.warn("Recipe images were not processed before shutdown, {} left in queue", this.executor.getQueue().size());
+        }
+    }
+
+    void process(long recipeId, PendingImage image) {
+        try {
+            String imageHash;
+            try (InputStream inputStream = Files.newInputStream(image.getPath())) {
+                imageHash = this.imageStore.save(inputStream);
+            }
+
+            Map<ImageRendition, byte[]> renditions = ImageRenditionUtil
+                    .createRenditions(new PathResource(image.getPath()), ImageRendition.THUMBNAIL, ImageRendition.CARD);
+            int updatedRecipes = this.recipeRepository.completeImageProcessing(
+                    recipeId,
+                    image.getUploadId(),
+                    imageHash,
+                    renditions.get(ImageRendition.THUMBNAIL),
+                    renditions.get(ImageRendition.CARD)
+            );
+
+            // recipe was deleted or got another image while this one was processed, image can still be used by another one
+            if (updatedRecipes == 0) {
+                this.unusedImageCollector.markUnused(imageHash);
+                return;
+            }
+
+            evictRecipe(recipeId);
+        } catch (IOException | RuntimeException exception) {
+            log.error("Processing image of recipe with id={} failed", recipeId, exception);
+            failProcessing(recipeId, image);
+        } finally {
+            discard(image);
+        }
+    }
+
+    private void failProcessing(long recipeId, PendingImage image) {
+        try {
+            if (this.recipeRepository.failImageProcessing(recipeId, image.getUploadId()) > 0) {
+                evictRecipe(recipeId);
+            }
+        } catch (RuntimeException exception) {
+            log.error("Marking image of recipe with id={} as failed did not succeed", recipeId, exception);
+        } finally {
+            discard(image);
+        }
+    }
+
+    // image url of recipe contains image hash, so cached details and pages with the old url are dropped
+    private void evictRecipe(long recipeId) {
+        Cache detailsCache = this.cacheManager.getCache(CacheConfig.RECIPE_DETAILS_CACHE);
+        Cache pagesCache = this.cacheManager.getCache(CacheConfig.RECIPE_PAGES_CACHE);
+
+        if (detailsCache != null) {
+            detailsCache.evict(recipeId);
+        }
+        if (pagesCache != null) {
+            pagesCache.clear();
+        }
+    }
+}
@@ -0,0 +1,75 @@
+package com.cookie.app.storage;
+
+import com.cookie.app.config.ImageStoreProperties;
+import com.cookie.app.repository.UnusedImageRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.DataAccessException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Clock;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Deletes images which are not used by any recipe from the image store. Images are shared between recipes with
+ * the same image, so recipe which drops its image only marks it as unused. Image is deleted when it was not used
+ * for the whole grace period and it was not saved again during it, so image which is just being uploaded for
+ * another recipe is kept until that recipe is committed.
+ */
+@Slf4j
+@RequiredArgsConstructor
+@Component
+public class UnusedImageCollector {
+    private static final int BATCH_SIZE = 500;
+
+    private final UnusedImageRepository unusedImageRepository;
+    private final ImageStore imageStore;
+    private final ImageStoreProperties imageStoreProperties;
+    private final Clock clock;
+
+    /**
+     * Marks image as unused, so it is deleted by one of the next runs unless a recipe uses it again.
+     * It should be called in the transaction which dropped the image.
+     */
+    public void markUnused(String imageHash) {
+        if (imageHash != null) {
+            this.unusedImageRepository.markUnused(imageHash, this.clock.instant());
+        }
+    }
+
+    /**
+     * Deletes one batch of unused images and returns number of deleted images.
+     */
+    @Scheduled(
+            initialDelayString = "${config.image-store.unused-image-delay-ms:3600000}",
+            fixedDelayString = "${config.image-store.unused-image-delay-ms:3600000}"
+    )
+    public int deleteUnusedImages() {
+        Instant savedBefore = this.clock.instant().minus(this.imageStoreProperties.unusedImageGracePeriod());
+
+        try {
+            this.unusedImageRepository.deleteMarksOfUsedImages();
+            List<String> deletedImages = new ArrayList<>();
+
+            for (String imageHash : this.unusedImageRepository.findUnusedImages(savedBefore, BATCH_SIZE)) {
+                // image saved during grace period can be referenced by recipe which is not committed yet
+                if (this.imageStore.deleteIfSavedBefore(imageHash, savedBefore)) {
+                    deletedImages.add(imageHash);
+                }
+            }
+
+            if (!deletedImages.isEmpty()) {
+                this.unusedImageRepository.deleteMarks(deletedImages.toArray(String[]::new));
+                log.info("Deleted {} unused recipe images", deletedImages.size());
+            }
+
+            return deletedImages.size();
+        } catch (DataAccessException exception) {
+            log.error("Deleting unused recipe images failed", exception);
+            return 0;
+        }
+    }
+}
@@ -0,0 +1,61 @@
+package com.cookie.app.util;
+
+import com.cookie.app.exception.ValidationException;
+import com.cookie.app.repository.RecipeKeyset;
+import org.springframework.data.domain.Sort;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+public class CursorUtil {
+    private static final String SEPARATOR = "\n";
+    private static final int CURSOR_PARTS = 4;
+    private static final String INVALID_CURSOR_MESSAGE = "Cursor is invalid";
+
+    private CursorUtil() {}
+
+    /**
+     * Encodes keyset as opaque url-safe token, e.g. "recipe_name\nASC\n15\nPizza salami".
+     * Sort value is placed at the end, because it can contain separator character.
+     */
+    public static String encode(RecipeKeyset keyset) {
+        String rawCursor = String.join(SEPARATOR,
+                keyset.sortColName(),
+                keyset.direction().name(),
+                String.valueOf(keyset.lastId()),
+                keyset.lastValue() == null ? "" : keyset.lastValue()
+        );
+
+        return Base64.getUrlEncoder()
+                .withoutPadding()
+                .encodeToString(rawCursor.getBytes(StandardCharsets.UTF_8));
+    }
+
+    public static RecipeKeyset decode(String cursor) {
+        String[] parts;
+
+        try {
+            parts = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8)
+                    .split(SEPARATOR, CURSOR_PARTS);
+        } catch (IllegalArgumentException exception) {
+            throw new ValidationException(INVALID_CURSOR_MESSAGE);
+        }
+
+        if (parts.length != CURSOR_PARTS || !RecipeKeyset.SORTABLE_COLUMNS.contains(parts[0])) {
+            throw new ValidationException(INVALID_CURSOR_MESSAGE);
+        }
+
+        try {
+            Sort.Direction direction = Sort.Direction.valueOf(parts[1]);
+            long lastId = Long.parseLong(parts[2]);
+
+            if (RecipeKeyset.NUMERIC_COLUMNS.contains(parts[0])) {
+                Integer.parseInt(parts[3]);
+            }
+
+            return new RecipeKeyset(parts[0], direction, parts[3], lastId);
+        } catch (IllegalArgumentException exception) {
+            throw new ValidationException(INVALID_CURSOR_MESSAGE);
+        }
+    }
+}
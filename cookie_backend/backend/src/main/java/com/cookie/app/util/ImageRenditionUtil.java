@@ -0,0 +1,216 @@
+package com.cookie.app.util;
+
+import com.cookie.app.model.enums.ImageRendition;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.core.io.InputStreamSource;
+import org.springframework.http.MediaType;
+
+import javax.imageio.IIOImage;
+import javax.imageio.ImageIO;
+import javax.imageio.ImageWriteParam;
+import javax.imageio.ImageWriter;
+import javax.imageio.stream.ImageOutputStream;
+import java.awt.*;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.EnumMap;
+import java.util.HexFormat;
+import java.util.Iterator;
+import java.util.Map;
+
+@Slf4j
+public class ImageRenditionUtil {
+    private static final float JPEG_QUALITY = 0.8f;
+    private static final String IMAGE_URL = "/api/v1/recipes/%d/image?rendition=%s&v=%s";
+    private static final byte[] PNG_SIGNATURE = {(byte) 0x89, 'P', 'N', 'G'};
+
+    private ImageRenditionUtil() {}
+
+    /**
+     * Creates downscaled copy of the uploaded image, so its longest side is not bigger than
+     * rendition's max dimension. Images with transparency are encoded as PNG, others as JPEG.
+     * Returns empty array when image is empty or cannot be decoded.
+     */
+    public static byte[] createRendition(byte[] image, ImageRendition rendition) {
+        if (image == null || image.length == 0) {
+            return new byte[0];
+        }
+
+        byte[] scaledImage = scaleImage(decodeImage(() -> new ByteArrayInputStream(image)), rendition);
+
+        return scaledImage == null ? image : scaledImage;
+    }
+
+    /**
+     * Creates all given renditions of the uploaded image. Image is decoded only once and read again only
+     * when some rendition is the original image, so upload does not have to be copied to byte array first.
+     */
+    public static Map<ImageRendition, byte[]> createRenditions(InputStreamSource image, ImageRendition... renditions) {
+        Map<ImageRendition, byte[]> createdRenditions = new EnumMap<>(ImageRendition.class);
+        BufferedImage source = decodeImage(image);
+        byte[] originalImage = null;
+
+        for (ImageRendition rendition : renditions) {
+            byte[] scaledImage = scaleImage(source, rendition);
+
+            if (scaledImage == null) {
+                originalImage = originalImage == null ? readImage(image) : originalImage;
+                scaledImage = originalImage;
+            }
+            createdRenditions.put(rendition, scaledImage);
+        }
+
+        return createdRenditions;
+    }
+
+    /**
+     * Returns hex encoded SHA-256 of the uploaded image. It is used as image version in image urls and ETags,
+     * so browsers download image again only when it was changed. Returns null when there is no image.
+     */
+    public static String createImageHash(byte[] image) {
+        if (image == null || image.length == 0) {
+            return null;
+        }
+
+        return HexFormat.of().formatHex(createImageDigest().digest(image));
+    }
+
+    public static MessageDigest createImageDigest() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not supported", e);
+        }
+    }
+
+    public static String createImageUrl(long recipeId, String imageHash, ImageRendition rendition) {
+        if (imageHash == null) {
+            return null;
+        }
+
+        return String.format(IMAGE_URL, recipeId, rendition.name(), imageHash);
+    }
+
+    public static MediaType detectMediaType(byte[] image) {
+        if (image != null && image.length >= PNG_SIGNATURE.length &&
+                Arrays.equals(image, 0, PNG_SIGNATURE.length, PNG_SIGNATURE, 0, PNG_SIGNATURE.length)) {
+            return MediaType.IMAGE_PNG;
+        }
+
+        return MediaType.IMAGE_JPEG;
+    }
+
+    private static BufferedImage decodeImage(InputStreamSource image) {
+        try (InputStream inputStream = image.getInputStream()) {
+            BufferedImage source = ImageIO.read(inputStream);
+
+            if (source == null) {
+                log.info("Creating renditions failed, image format is not supported");
+            }
+            return source;
+        } catch (IOException | RuntimeException e) {
+            log.error("Decoding image failed", e);
+            return null;
+        }
+    }
+
+    private static byte[] readImage(InputStreamSource image) {
+        try (InputStream inputStream = image.getInputStream()) {
+            return inputStream.readAllBytes();
+        } catch (IOException e) {
+            log.error("Reading image failed", e);
+            return new byte[0];
+        }
+    }
+
+    // returns null when image is already small enough, so the original image can be used as rendition
+    private static byte[] scaleImage(BufferedImage source, ImageRendition rendition) {
+        if (source == null) {
+            return new byte[0];
+        }
+
+        int longestSide = Math.max(source.getWidth(), source.getHeight());
+        if (rendition.getMaxDimension() <= 0 || longestSide <= rendition.getMaxDimension()) {
+            return null;
+        }
+
+        try {
+            double scale = (double) rendition.getMaxDimension() / longestSide;
+            int width = Math.max(1, (int) Math.round(source.getWidth() * scale));
+            int height = Math.max(1, (int) Math.round(source.getHeight() * scale));
+            boolean hasAlpha = source.getColorModel().hasAlpha();
+            BufferedImage scaled = scale(source, width, height, hasAlpha);
+
+            return hasAlpha ? encode(scaled, "png") : encodeJpeg(scaled);
+        } catch (IOException | RuntimeException e) {
+            log.error("Creating {} rendition failed", rendition, e);
+            return new byte[0];
+        }
+    }
+
+    // image is halved step by step, because single bilinear downscale by big factor gives aliased result
+    private static BufferedImage scale(BufferedImage source, int targetWidth, int targetHeight, boolean hasAlpha) {
+        int imageType = hasAlpha ? BufferedImage.TYPE_INT_ARGB : BufferedImage.TYPE_INT_RGB;
+        BufferedImage current = source;
+        int width = source.getWidth();
+        int height = source.getHeight();
+
+        do {
+            width = Math.max(targetWidth, width / 2);
+            height = Math.max(targetHeight, height / 2);
+
+            BufferedImage step = new BufferedImage(width, height, imageType);
+            Graphics2D graphics = step.createGraphics();
+            try {
+                graphics.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+                graphics.setRenderingHint(RenderingHints.KEY_RENDERING, RenderingHints.VALUE_RENDER_QUALITY);
+                if (!hasAlpha) {
+                    graphics.setColor(Color.WHITE);
+                    graphics.fillRect(0, 0, width, height);
+                }
+                graphics.drawImage(current, 0, 0, width, height, null);
+            } finally {
+                graphics.dispose();
+            }
+            current = step;
+        } while (width != targetWidth || height != targetHeight);
+
+        return current;
+    }
+
+    private static byte[] encodeJpeg(BufferedImage image) throws IOException {
+        Iterator<ImageWriter> writers = ImageIO.getImageWritersByFormatName("jpeg");
+
+        if (!writers.hasNext()) {
+            return encode(image, "png");
+        }
+
+        ImageWriter writer = writers.next();
+        ImageWriteParam params = writer.getDefaultWriteParam();
+        params.setCompressionMode(ImageWriteParam.MODE_EXPLICIT);
+        params.setCompressionQuality(JPEG_QUALITY);
+
+        try (ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+             ImageOutputStream imageOutputStream = ImageIO.createImageOutputStream(outputStream)) {
+            writer.setOutput(imageOutputStream);
+            writer.write(null, new IIOImage(image, null, null), params);
+            imageOutputStream.flush();
+            return outputStream.toByteArray();
+        } finally {
+            writer.dispose();
+        }
+    }
+
+    private static byte[] encode(BufferedImage image, String format) throws IOException {
+        try (ByteArrayOutputStream outputStream = new ByteArrayOutputStream()) {
+            ImageIO.write(image, format, outputStream);
+            return outputStream.toByteArray();
+        }
+    }
+}
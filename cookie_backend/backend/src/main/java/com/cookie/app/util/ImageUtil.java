@@ -1,25 +1,88 @@
 package com.cookie.app.util;
 
+import com.cookie.app.model.enums.ImageCodec;
 import lombok.extern.slf4j.Slf4j;
 
 import java.io.ByteArrayOutputStream;
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
 import java.util.zip.DataFormatException;
 import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
 import java.util.zip.Inflater;
+import java.util.zip.InflaterInputStream;
 
 @Slf4j
 public class ImageUtil {
+    public static final int CODEC_SAMPLE_SIZE = 16 * 1024;
+    // JPEG, PNG and WebP are already compressed, so deflate saves only few percent of them
+    private static final double MIN_DEFLATE_RATIO = 0.9;
+    private static final int BUFFER_SIZE = 8 * 1024;
+    private static final int CODEC_POOL_SIZE = 16;
+    // zlib keeps its state in native memory, so codecs are reused and ended explicitly instead of waiting for GC
+    private static final BlockingQueue<Deflater> DEFLATERS = new ArrayBlockingQueue<>(CODEC_POOL_SIZE);
+    private static final BlockingQueue<Inflater> INFLATERS = new ArrayBlockingQueue<>(CODEC_POOL_SIZE);
 
     private ImageUtil() {}
 
+    /**
+     * Chooses codec by compressing only the first block of the image with the fastest deflate level.
+     * Image is deflated only when the sample shrinks noticeably, otherwise it is stored as it is.
+     */
+    public static ImageCodec selectCodec(byte[] data) {
+        if (data == null || data.length == 0) {
+            return ImageCodec.RAW;
+        }
+
+        int sampleSize = Math.min(data.length, CODEC_SAMPLE_SIZE);
+        Deflater sampleCompressor = borrowDeflater(Deflater.BEST_SPEED);
+        try {
+            sampleCompressor.setInput(data, 0, sampleSize);
+            sampleCompressor.finish();
+
+            byte[] tmp = new byte[4 * 1024];
+            while (!sampleCompressor.finished()) {
+                sampleCompressor.deflate(tmp);
+            }
+
+            return sampleCompressor.getBytesWritten() < sampleSize * MIN_DEFLATE_RATIO ?
+                    ImageCodec.DEFLATE :
+                    ImageCodec.RAW;
+        } finally {
+            releaseDeflater(sampleCompressor);
+        }
+    }
+
+    public static byte[] encodeImage(byte[] data, ImageCodec codec) {
+        return codec == ImageCodec.DEFLATE ? compressImage(data) : data;
+    }
+
+    public static byte[] decodeImage(byte[] data, ImageCodec codec) {
+        return codec == ImageCodec.DEFLATE ? decompressImage(data) : data;
+    }
+
+    /**
+     * Streaming variant of {@link #encodeImage(byte[], ImageCodec)}, image is copied from input to output
+     * through fixed size buffer, so it is never held in memory as a whole. Streams are not closed.
+     */
+    public static void encodeImage(InputStream input, OutputStream output, ImageCodec codec) throws IOException {
+        if (codec == ImageCodec.DEFLATE) {
+            compressImage(input, output);
+        } else {
+            input.transferTo(output);
+        }
+    }
+
     public static byte[] compressImage(byte[] data) {
         if (data == null || data.length == 0) {
             return new byte[0];
         }
 
+        Deflater compressor = borrowDeflater(Deflater.BEST_COMPRESSION);
         try (ByteArrayOutputStream outputStream = new ByteArrayOutputStream(data.length)) {
-            Deflater compressor = new Deflater(Deflater.BEST_COMPRESSION);
             compressor.setInput(data);
             compressor.finish();
 
@@ -36,6 +99,22 @@ public class ImageUtil {
         } catch (IOException e) {
             log.error("Compressing image failed due to IOException", e);
             return new byte[0];
+        } finally {
+            releaseDeflater(compressor);
+        }
+    }
+
+    public static long compressImage(InputStream input, OutputStream output) throws IOException {
+        Deflater compressor = borrowDeflater(Deflater.BEST_COMPRESSION);
+        try {
+            // stream with own deflater does not end it, so deflater can be returned to the pool
+            DeflaterOutputStream deflaterOutputStream = new DeflaterOutputStream(output, compressor, BUFFER_SIZE);
+            input.transferTo(deflaterOutputStream);
+            deflaterOutputStream.finish();
+
+            return compressor.getBytesWritten();
+        } finally {
+            releaseDeflater(compressor);
         }
     }
 
@@ -44,14 +123,17 @@ public class ImageUtil {
             return new byte[0];
         }
 
+        Inflater decompressor = borrowInflater();
         try (ByteArrayOutputStream outputStream = new ByteArrayOutputStream(data.length)) {
-            Inflater decompressor = new Inflater();
             decompressor.setInput(data);
 
             byte[] tmp = new byte[4 * 1024];
             int readCount;
             while (!decompressor.finished()) {
                 readCount = decompressor.inflate(tmp);
+                if (readCount == 0 && (decompressor.needsInput() || decompressor.needsDictionary())) {
+                    throw new DataFormatException("Compressed image is truncated");
+                }
                 outputStream.write(tmp, 0, readCount);
             }
             return outputStream.toByteArray();
@@ -59,6 +141,50 @@ public class ImageUtil {
         } catch (IOException | DataFormatException e) {
             log.error("Decompressing image failed", e);
             return new byte[0];
+        } finally {
+            releaseInflater(decompressor);
+        }
+    }
+
+    public static long decompressImage(InputStream input, OutputStream output) throws IOException {
+        Inflater decompressor = borrowInflater();
+        try {
+            return new InflaterInputStream(input, decompressor, BUFFER_SIZE).transferTo(output);
+        } finally {
+            releaseInflater(decompressor);
+        }
+    }
+
+    private static Deflater borrowDeflater(int level) {
+        Deflater deflater = DEFLATERS.poll();
+
+        if (deflater == null) {
+            return new Deflater(level);
+        }
+
+        deflater.setLevel(level);
+        return deflater;
+    }
+
+    private static void releaseDeflater(Deflater deflater) {
+        deflater.reset();
+
+        if (!DEFLATERS.offer(deflater)) {
+            deflater.end();
+        }
+    }
+
+    private static Inflater borrowInflater() {
+        Inflater inflater = INFLATERS.poll();
+
+        return inflater == null ? new Inflater() : inflater;
+    }
+
+    private static void releaseInflater(Inflater inflater) {
+        inflater.reset();
+
+        if (!INFLATERS.offer(inflater)) {
+            inflater.end();
         }
     }
 }
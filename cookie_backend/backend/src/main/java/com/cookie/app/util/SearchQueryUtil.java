@@ -0,0 +1,52 @@
+package com.cookie.app.util;
+
+import org.apache.commons.lang3.StringUtils;
+
+import java.text.Normalizer;
+import java.util.Arrays;
+import java.util.Locale;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+
+public class SearchQueryUtil {
+    // everything but letters and digits separates words, so tsquery operators typed by the user are never passed on
+    private static final String TOKEN_SEPARATOR_REGEX = "[^\\p{L}\\p{M}\\p{N}]+";
+    private static final String PREFIX_MATCH_SUFFIX = ":*";
+    private static final String AND_OPERATOR = " & ";
+    private static final Pattern COMBINING_MARKS = Pattern.compile("\\p{M}+");
+    private static final Pattern WHITESPACES = Pattern.compile("\\s+");
+
+    private SearchQueryUtil() {}
+
+    /**
+     * Converts filter value typed by the user to PostgreSQL tsquery text, where every word
+     * is matched as a prefix, so results are returned while the user is still typing
+     * e.g. "pizza sal" -> "pizza:* & sal:*", "mac & cheese" -> "mac:* & cheese:*"
+     */
+    public static String toPrefixTsQuery(String filterValue) {
+        if (StringUtils.isBlank(filterValue)) {
+            return "";
+        }
+
+        return Arrays.stream(filterValue.trim().toLowerCase(Locale.ROOT).split(TOKEN_SEPARATOR_REGEX))
+                .filter(StringUtils::isNotBlank)
+                .map(token -> token + PREFIX_MATCH_SUFFIX)
+                .collect(Collectors.joining(AND_OPERATOR));
+    }
+
+    /**
+     * Converts text to the form used to compare it with text typed by the user, without case, accents
+     * and repeated whitespaces e.g. " Crème  Brûlée" -> "creme brulee"
+     */
+    public static String normalizeSearchText(String text) {
+        if (StringUtils.isBlank(text)) {
+            return "";
+        }
+
+        String withoutAccents = COMBINING_MARKS
+                .matcher(Normalizer.normalize(text, Normalizer.Form.NFD))
+                .replaceAll("");
+
+        return WHITESPACES.matcher(withoutAccents.trim().toLowerCase(Locale.ROOT)).replaceAll(" ");
+    }
+}
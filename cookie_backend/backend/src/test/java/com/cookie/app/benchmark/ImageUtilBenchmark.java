@@ -0,0 +1,106 @@
+package com.cookie.app.benchmark;
+
+import com.cookie.app.model.enums.ImageCodec;
+import com.cookie.app.util.ImageUtil;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.mock.web.MockMultipartFile;
+import org.springframework.web.multipart.MultipartFile;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.SequenceInputStream;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.Deflater;
+
+/**
+ * Compares the previous upload path, which copied upload to byte array and always deflated it with new Deflater,
+ * with the streaming path that picks codec from a sample and reuses pooled Deflater instances.
+ * It is not run by tests, run main method and compare time and gc.alloc.rate.norm of both benchmarks.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ImageUtilBenchmark {
+
+    @Param({"JPEG", "BITMAP"})
+    private String imageType;
+
+    @Param({"2097152"})
+    private int imageSize;
+
+    private MultipartFile upload;
+
+    @Setup
+    public void setup() {
+        byte[] image = new byte[this.imageSize];
+
+        // random bytes behave like entropy coded JPEG, repeated rows like uncompressed bitmap
+        if (this.imageType.equals("JPEG")) {
+            new Random(1).nextBytes(image);
+        } else {
+            for (int i = 0; i < image.length; i++) {
+                image[i] = (byte) (i % 256);
+            }
+        }
+
+        this.upload = new MockMultipartFile("image", "image", "image/jpeg", image);
+    }
+
+    @Benchmark
+    public void previousCompressImage(Blackhole blackhole) throws IOException {
+        byte[] image = this.upload.getBytes();
+        blackhole.consume(previousCompressImage(image));
+    }
+
+    @Benchmark
+    public void streamingEncodeImage(Blackhole blackhole) throws IOException {
+        // encoded image is collected to byte array like in the previous path, so both produce the same output
+        try (InputStream inputStream = this.upload.getInputStream();
+             ByteArrayOutputStream outputStream = new ByteArrayOutputStream(this.imageSize)) {
+            byte[] codecSample = inputStream.readNBytes(ImageUtil.CODEC_SAMPLE_SIZE);
+            ImageCodec codec = ImageUtil.selectCodec(codecSample);
+            InputStream content = new SequenceInputStream(new ByteArrayInputStream(codecSample), inputStream);
+
+            ImageUtil.encodeImage(content, outputStream, codec);
+            blackhole.consume(outputStream.toByteArray());
+        }
+    }
+
+    // copy of ImageUtil.compressImage before codec selection and pooling were introduced
+    private static byte[] previousCompressImage(byte[] data) throws IOException {
+        try (ByteArrayOutputStream outputStream = new ByteArrayOutputStream(data.length)) {
+            Deflater compressor = new Deflater(Deflater.BEST_COMPRESSION);
+            compressor.setInput(data);
+            compressor.finish();
+
+            byte[] tmp = new byte[4 * 1024];
+            int readCount;
+            while (!compressor.finished()) {
+                readCount = compressor.deflate(tmp);
+                if (readCount > 0) {
+                    outputStream.write(tmp, 0, readCount);
+                }
+            }
+            return outputStream.toByteArray();
+        }
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(ImageUtilBenchmark.class.getSimpleName())
+                .addProfiler(GCProfiler.class)
+                .build()
+        ).run();
+    }
+}
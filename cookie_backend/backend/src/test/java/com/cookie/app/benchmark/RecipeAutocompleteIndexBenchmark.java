@@ -0,0 +1,78 @@
+package com.cookie.app.benchmark;
+
+import com.cookie.app.event.RecipeChangedEvent;
+import com.cookie.app.model.entity.Recipe;
+import com.cookie.app.search.RecipeAutocompleteIndex;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures latency distribution of recipe autocomplete for prefixes of 1 to 3 characters, which match the most
+ * recipes. Sample time mode reports percentiles, so p99 can be compared with the latency budget of autocomplete.
+ * It is not run by tests, run main method and compare query times.
+ */
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class RecipeAutocompleteIndexBenchmark {
+    private static final String[] WORDS = {
+            "chicken", "curry", "pasta", "salad", "soup", "beef", "stew", "pie",
+            "cake", "bread", "rice", "fried", "spicy", "sweet", "green", "tomato"
+    };
+    private static final int QUERIES = 1024;
+
+    @Param({"100000"})
+    private int recipeCount;
+
+    private RecipeAutocompleteIndex index;
+    private String[] queries;
+    private int query;
+
+    @Setup
+    public void setup() {
+        Random random = new Random(1);
+
+        this.index = new RecipeAutocompleteIndex(null, new SimpleMeterRegistry());
+        for (int recipeId = 1; recipeId <= this.recipeCount; recipeId++) {
+            Recipe recipe = Recipe.builder()
+                    .id(recipeId)
+                    .recipeName(randomWord(random) + " " + randomWord(random) + " " + random.nextInt(100))
+                    .cuisine(randomWord(random))
+                    .build();
+
+            this.index.onRecipeChanged(new RecipeChangedEvent(recipe, RecipeChangedEvent.ChangeType.CREATED));
+        }
+
+        this.queries = new String[QUERIES];
+        for (int i = 0; i < QUERIES; i++) {
+            this.queries[i] = randomWord(random).substring(0, 1 + random.nextInt(3));
+        }
+    }
+
+    @Benchmark
+    public void complete(Blackhole blackhole) {
+        this.query = (this.query + 1) % QUERIES;
+        blackhole.consume(this.index.complete(this.queries[this.query], RecipeAutocompleteIndex.MAX_SUGGESTIONS));
+    }
+
+    private static String randomWord(Random random) {
+        return WORDS[random.nextInt(WORDS.length)];
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(RecipeAutocompleteIndexBenchmark.class.getSimpleName())
+                .build()
+        ).run();
+    }
+}
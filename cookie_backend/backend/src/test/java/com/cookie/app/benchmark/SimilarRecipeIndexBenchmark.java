@@ -0,0 +1,150 @@
+package com.cookie.app.benchmark;
+
+import com.cookie.app.event.RecipeChangedEvent;
+import com.cookie.app.model.entity.Product;
+import com.cookie.app.model.entity.Recipe;
+import com.cookie.app.model.entity.RecipeProduct;
+import com.cookie.app.search.SimilarRecipeIndex;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares similar recipe lookup through LSH buckets with exact Jaccard similarity computed against every recipe.
+ * Recipes are variations of a few thousand base recipes with 1 to 3 products replaced, like real catalogs where
+ * many recipes differ only in a few ingredients. It is not run by tests, run main method and compare query times.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class SimilarRecipeIndexBenchmark {
+    private static final int PRODUCTS = 2000;
+    private static final int BASE_RECIPES = 5000;
+    private static final int QUERIES = 1024;
+    private static final int LIMIT = 6;
+
+    @Param({"100000", "200000"})
+    private int recipeCount;
+
+    private SimilarRecipeIndex index;
+    private long[][] recipeProducts;
+    private long[] queryRecipeIds;
+    private int query;
+
+    @Setup
+    public void setup() {
+        Random random = new Random(1);
+        long[][] baseRecipes = new long[BASE_RECIPES][];
+
+        for (int i = 0; i < BASE_RECIPES; i++) {
+            baseRecipes[i] = randomProducts(random, 6 + random.nextInt(10));
+        }
+
+        this.index = new SimilarRecipeIndex(null);
+        this.recipeProducts = new long[this.recipeCount + 1][];
+        for (int recipeId = 1; recipeId <= this.recipeCount; recipeId++) {
+            long[] products = baseRecipes[random.nextInt(BASE_RECIPES)].clone();
+            int replacedProducts = 1 + random.nextInt(3);
+
+            for (int i = 0; i < replacedProducts; i++) {
+                products[random.nextInt(products.length)] = 1 + random.nextInt(PRODUCTS);
+            }
+
+            this.recipeProducts[recipeId] = Arrays.stream(products).distinct().sorted().toArray();
+            this.index.onRecipeChanged(new RecipeChangedEvent(
+                    createRecipe(recipeId, this.recipeProducts[recipeId]),
+                    RecipeChangedEvent.ChangeType.CREATED
+            ));
+        }
+
+        this.queryRecipeIds = random.ints(QUERIES, 1, this.recipeCount + 1).asLongStream().toArray();
+    }
+
+    @Benchmark
+    public void lshQuery(Blackhole blackhole) {
+        blackhole.consume(this.index.findSimilarRecipes(nextQuery(), LIMIT));
+    }
+
+    @Benchmark
+    public void bruteForceQuery(Blackhole blackhole) {
+        int recipeId = (int) nextQuery();
+        long[] products = this.recipeProducts[recipeId];
+        PriorityQueue<double[]> mostSimilar = new PriorityQueue<>(Comparator.comparingDouble(recipe -> recipe[1]));
+
+        for (int candidate = 1; candidate <= this.recipeCount; candidate++) {
+            if (candidate == recipeId) {
+                continue;
+            }
+
+            mostSimilar.add(new double[]{candidate, jaccardSimilarity(products, this.recipeProducts[candidate])});
+            if (mostSimilar.size() > LIMIT) {
+                mostSimilar.poll();
+            }
+        }
+
+        blackhole.consume(mostSimilar);
+    }
+
+    private long nextQuery() {
+        this.query = (this.query + 1) % QUERIES;
+
+        return this.queryRecipeIds[this.query];
+    }
+
+    private static long[] randomProducts(Random random, int count) {
+        Set<Long> products = new HashSet<>();
+
+        while (products.size() < count) {
+            products.add(1L + random.nextInt(PRODUCTS));
+        }
+
+        return products.stream().mapToLong(Long::longValue).toArray();
+    }
+
+    // same merge of sorted arrays as in SimilarRecipeIndex, so both benchmarks compare equal work per candidate
+    private static double jaccardSimilarity(long[] firstProducts, long[] secondProducts) {
+        int i = 0;
+        int j = 0;
+        int common = 0;
+
+        while (i < firstProducts.length && j < secondProducts.length) {
+            if (firstProducts[i] == secondProducts[j]) {
+                common++;
+                i++;
+                j++;
+            } else if (firstProducts[i] < secondProducts[j]) {
+                i++;
+            } else {
+                j++;
+            }
+        }
+
+        return (double) common / (firstProducts.length + secondProducts.length - common);
+    }
+
+    private static Recipe createRecipe(long recipeId, long[] productIds) {
+        return Recipe.builder()
+                .id(recipeId)
+                .recipeProducts(Arrays.stream(productIds)
+                        .mapToObj(productId -> RecipeProduct.builder()
+                                .product(Product.builder().id(productId).build())
+                                .build())
+                        .toList())
+                .build();
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(SimilarRecipeIndexBenchmark.class.getSimpleName())
+                .build()
+        ).run();
+    }
+}
@@ -0,0 +1,56 @@
+package com.cookie.app.config;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import org.junit.jupiter.api.Test;
+import org.springframework.cache.CacheManager;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class CacheConfigTest {
+    private final CacheConfig cacheConfig = new CacheConfig();
+
+    @Test
+    void test_cacheManagerRegistersRecipeDetailsCacheRecordingStats() {
+
+        CacheManager cacheManager = cacheConfig.cacheManager();
+
+        assertThat(cacheManager.getCacheNames()).contains(
+                CacheConfig.RECIPE_DETAILS_CACHE,
+                CacheConfig.RECIPE_PAGES_CACHE,
+                CacheConfig.RECIPE_FACETS_CACHE
+        );
+        Cache<?, ?> nativeCache = (Cache<?, ?>) cacheManager.getCache(CacheConfig.RECIPE_DETAILS_CACHE).getNativeCache();
+        assertThat(nativeCache.policy().isRecordingStats()).isTrue();
+    }
+
+    @Test
+    void test_recipeDetailsCacheLoadsConcurrentMissesOnce() throws InterruptedException {
+        final int threads = 8;
+        CacheManager cacheManager = cacheConfig.cacheManager();
+        CountDownLatch start = new CountDownLatch(1);
+        AtomicInteger loads = new AtomicInteger();
+        ExecutorService executorService = Executors.newFixedThreadPool(threads);
+
+        for (int i = 0; i < threads; i++) {
+            executorService.submit(() -> {
+                start.await();
+                return cacheManager.getCache(CacheConfig.RECIPE_DETAILS_CACHE).get(1L, () -> {
+                    loads.incrementAndGet();
+                    Thread.sleep(100);
+                    return "recipe";
+                });
+            });
+        }
+        start.countDown();
+        executorService.shutdown();
+
+        assertThat(executorService.awaitTermination(5, TimeUnit.SECONDS)).isTrue();
+        assertThat(loads.get()).isEqualTo(1);
+    }
+}
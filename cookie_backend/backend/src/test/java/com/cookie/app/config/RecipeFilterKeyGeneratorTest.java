@@ -0,0 +1,59 @@
+package com.cookie.app.config;
+
+import com.cookie.app.model.enums.MealType;
+import com.cookie.app.model.request.RecipeFilterRequest;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.Sort;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class RecipeFilterKeyGeneratorTest {
+    private final RecipeFilterKeyGenerator keyGenerator = new RecipeFilterKeyGenerator(true);
+
+    @Test
+    void test_generateSameKeyForEquivalentFilters() {
+        final RecipeFilterRequest filterRequest = new RecipeFilterRequest(" Pasta  ", null, Sort.Direction.DESC, null, null, null);
+        final RecipeFilterRequest equivalentRequest = new RecipeFilterRequest("pasta", " ", null, 0, 0, List.of(MealType.values()));
+
+        Object key = keyGenerator.generate(null, null, 1, filterRequest);
+        Object equivalentKey = keyGenerator.generate(null, null, 1, equivalentRequest);
+
+        assertThat(key).isEqualTo(equivalentKey);
+        assertThat(key.hashCode()).isEqualTo(equivalentKey.hashCode());
+    }
+
+    @Test
+    void test_generateDifferentKeysForDifferentPages() {
+        final RecipeFilterRequest filterRequest = new RecipeFilterRequest(null, null, null, null, null, null);
+
+        Object firstPageKey = keyGenerator.generate(null, null, 1, filterRequest);
+        Object secondPageKey = keyGenerator.generate(null, null, 2, filterRequest);
+
+        assertThat(firstPageKey).isNotEqualTo(secondPageKey);
+    }
+
+    @Test
+    void test_generateDifferentKeysForDifferentSortDirections() {
+        final RecipeFilterRequest ascRequest = new RecipeFilterRequest(null, "portions", Sort.Direction.ASC, null, null, null);
+        final RecipeFilterRequest descRequest = new RecipeFilterRequest(null, "portions", Sort.Direction.DESC, null, null, null);
+
+        Object ascKey = keyGenerator.generate(null, null, 1, ascRequest);
+        Object descKey = keyGenerator.generate(null, null, 1, descRequest);
+
+        assertThat(ascKey).isNotEqualTo(descKey);
+    }
+
+    @Test
+    void test_generateSameKeyIgnoringSortWhenNotPaged() {
+        final RecipeFilterKeyGenerator filterKeyGenerator = new RecipeFilterKeyGenerator(false);
+        final RecipeFilterRequest ascRequest = new RecipeFilterRequest("pasta", "portions", Sort.Direction.ASC, 30, null, null);
+        final RecipeFilterRequest descRequest = new RecipeFilterRequest("pasta", "recipe_name", Sort.Direction.DESC, 30, null, null);
+
+        Object ascKey = filterKeyGenerator.generate(null, null, ascRequest);
+        Object descKey = filterKeyGenerator.generate(null, null, descRequest);
+
+        assertThat(ascKey).isEqualTo(descKey);
+    }
+}
@@ -39,7 +39,7 @@ class MealControllerTest extends AbstractControllerTest {
         final LocalDateTime dateBefore = LocalDateTime.now();
         final UserDTO userDTO = new UserDTO(id, username, Collections.emptySet());
         final GroupDTO groupDTO = new GroupDTO(id, username, userDTO, 1, id);
-        final RecipeDTO recipeDTO = new RecipeDTO(id, username, 15, MealType.APPETIZER, null, 1, new byte[0], userDTO.username(), 2);
+        final RecipeDTO recipeDTO = new RecipeDTO(id, username, 15, MealType.APPETIZER, null, 1, null, userDTO.username(), 2);
         final MealDTO mealDTO = new MealDTO(id, LocalDateTime.now().minusSeconds(3600), username, groupDTO, recipeDTO);
         final List<MealDTO> meals = Collections.singletonList(mealDTO);
 
@@ -62,7 +62,7 @@ class MealControllerTest extends AbstractControllerTest {
         final UserDTO userDTO = new UserDTO(id, username, Collections.emptySet());
         final GroupDTO groupDTO = new GroupDTO(id, username, userDTO, 1, id);
         final RecipeDTO recipeDTO = new RecipeDTO(id, username, 15, MealType.APPETIZER,
-                null, 1, new byte[0], userDTO.username(), 2);
+                null, 1, null, userDTO.username(), 2);
         final MealDTO mealDTO = new MealDTO(id, LocalDateTime.now().minusSeconds(3600), username, groupDTO, recipeDTO);
 
         doReturn(mealDTO).when(mealService).addMeal(request, authentication.getName(), false, id);
@@ -91,7 +91,7 @@ class MealControllerTest extends AbstractControllerTest {
         final AddMealRequest request = new AddMealRequest(LocalDateTime.now(), id, id);
         final UserDTO userDTO = new UserDTO(id, username, Collections.emptySet());
         final GroupDTO groupDTO = new GroupDTO(id, username, userDTO, 1, id);
-        final RecipeDTO recipeDTO = new RecipeDTO(id, username, 15, MealType.APPETIZER, null, 1, new byte[0], userDTO.username(), 2);
+        final RecipeDTO recipeDTO = new RecipeDTO(id, username, 15, MealType.APPETIZER, null, 1, null, userDTO.username(), 2);
         final MealDTO mealDTO = new MealDTO(id, LocalDateTime.now().minusSeconds(3600), username, groupDTO, recipeDTO);
 
         doReturn(mealDTO).when(mealService).updateMeal(id, request, authentication.getName());
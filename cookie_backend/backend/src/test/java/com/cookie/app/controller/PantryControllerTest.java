@@ -2,7 +2,10 @@ package com.cookie.app.controller;
 
 import com.cookie.app.exception.UserPerformedForbiddenActionException;
 import com.cookie.app.exception.UserWasNotFoundAfterAuthException;
+import com.cookie.app.model.dto.CookableRecipeDTO;
 import com.cookie.app.model.dto.PantryDTO;
+import com.cookie.app.model.dto.RecipeDTO;
+import com.cookie.app.model.enums.MealType;
 import com.cookie.app.model.request.CreatePantryRequest;
 import com.cookie.app.model.request.UpdatePantryRequest;
 import com.cookie.app.model.response.DeletePantryResponse;
@@ -18,6 +21,7 @@ import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 
 import java.util.Collections;
+import java.util.List;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.api.Assertions.assertThatThrownBy;
@@ -211,4 +215,16 @@ class PantryControllerTest extends AbstractControllerTest {
                 .isInstanceOf(UserWasNotFoundAfterAuthException.class)
                 .hasMessage("User not found");
     }
-}
\ No newline at end of file
+
+    @Test
+    void test_getCookableRecipesSuccess() {
+        final RecipeDTO recipeDTO = new RecipeDTO(id, "recipeName", 5, MealType.DINNER, null, 1, null, "username", 2);
+        final List<CookableRecipeDTO> cookableRecipes = List.of(new CookableRecipeDTO(recipeDTO, 2, 0));
+
+        doReturn(cookableRecipes).when(pantryService).getCookableRecipes(id, 0, authentication.getName());
+        ResponseEntity<List<CookableRecipeDTO>> response = controller.getCookableRecipes(id, 0, authentication);
+
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.OK);
+        assertThat(response.getBody()).isEqualTo(cookableRecipes);
+    }
+}
@@ -8,14 +8,22 @@ import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.web.context.request.ServletWebRequest;
 
 import java.util.Collections;
 import java.util.List;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
 import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
 
 @ExtendWith(MockitoExtension.class)
 class ProductControllerTest {
@@ -29,15 +37,18 @@ class ProductControllerTest {
         final String filterValue = "prod";
         final ProductDTO product = new ProductDTO(1L, "product", Category.CEREAL);
         final List<ProductDTO> listResponse = List.of(product);
+        final ServletWebRequest webRequest = new ServletWebRequest(new MockHttpServletRequest(), new MockHttpServletResponse());
 
-        doReturn(listResponse).when(productService).getProductsWithFilter(filterValue);
-        ResponseEntity<List<ProductDTO>> response = controller.getProductsWithFilter(filterValue);
+        doReturn(7L).when(productService).getProductCatalogVersion();
+        doReturn(listResponse).when(productService).getProductsWithFilter(filterValue, null);
+        ResponseEntity<List<ProductDTO>> response = controller.getProductsWithFilter(filterValue, null, webRequest);
 
         assertThat(response.getBody()).isNotNull();
         assertThat(response.getBody()).hasSize(listResponse.size());
         assertThat(response.getBody().get(0).productId()).isEqualTo(product.productId());
         assertThat(response.getBody().get(0).productName()).isEqualTo(product.productName());
         assertThat(response.getBody().get(0).category()).isEqualTo(product.category());
+        assertThat(response.getHeaders().getETag()).isEqualTo("\"7\"");
         assertThat(response.getStatusCode()).isEqualTo(HttpStatus.OK);
     }
 
@@ -45,12 +56,39 @@ class ProductControllerTest {
     void test_getProductsWithFilterSuccessfulWithEmptyContent() {
         final String filterValue = "prod";
         final List<ProductDTO> listResponse = Collections.emptyList();
+        final ServletWebRequest webRequest = new ServletWebRequest(new MockHttpServletRequest(), new MockHttpServletResponse());
 
-        doReturn(listResponse).when(productService).getProductsWithFilter(filterValue);
-        ResponseEntity<List<ProductDTO>> response = controller.getProductsWithFilter(filterValue);
+        doReturn(7L).when(productService).getProductCatalogVersion();
+        doReturn(listResponse).when(productService).getProductsWithFilter(filterValue, Category.DAIRY);
+        ResponseEntity<List<ProductDTO>> response = controller.getProductsWithFilter(filterValue, Category.DAIRY, webRequest);
 
         assertThat(response.getBody()).isNotNull();
         assertThat(response.getBody()).isEmpty();
         assertThat(response.getStatusCode()).isEqualTo(HttpStatus.OK);
     }
-}
\ No newline at end of file
+
+    @Test
+    void test_getProductsWithFilterNotModified() {
+        final MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/v1/products");
+        request.addHeader(HttpHeaders.IF_NONE_MATCH, "\"7\"");
+        final ServletWebRequest webRequest = new ServletWebRequest(request, new MockHttpServletResponse());
+
+        doReturn(7L).when(productService).getProductCatalogVersion();
+        ResponseEntity<List<ProductDTO>> response = controller.getProductsWithFilter("prod", null, webRequest);
+
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.NOT_MODIFIED);
+        assertThat(response.getBody()).isNull();
+        verify(productService, times(0)).getProductsWithFilter(anyString(), any());
+    }
+
+    @Test
+    void test_getProductSuggestionsSuccessful() {
+        final ProductDTO product = new ProductDTO(1L, "Tomato", Category.VEGETABLES);
+
+        doReturn(List.of(product)).when(productService).getProductSuggestions("tomatos", Category.VEGETABLES);
+        ResponseEntity<List<ProductDTO>> response = controller.getProductSuggestions("tomatos", Category.VEGETABLES);
+
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.OK);
+        assertThat(response.getBody()).containsExactly(product);
+    }
+}
@@ -3,32 +3,60 @@ package com.cookie.app.controller;
 import com.cookie.app.exception.MappingJsonToObjectException;
 import com.cookie.app.model.dto.*;
 import com.cookie.app.model.enums.Category;
+import com.cookie.app.model.enums.ImageRendition;
+import com.cookie.app.model.enums.ImageStatus;
 import com.cookie.app.model.enums.MealType;
+import com.cookie.app.model.enums.SuggestionType;
 import com.cookie.app.model.enums.Unit;
 import com.cookie.app.model.request.CreateRecipeRequest;
+import com.cookie.app.model.request.IngredientFilterRequest;
 import com.cookie.app.model.request.RecipeFilterRequest;
 import com.cookie.app.model.request.UpdateRecipeRequest;
 import com.cookie.app.model.response.CreateRecipeResponse;
+import com.cookie.app.model.response.ImportRecipesResponse;
+import com.cookie.app.service.RecipeImportService;
 import com.cookie.app.service.RecipeService;
+import com.cookie.app.storage.ByteArrayImageContent;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import jakarta.validation.ConstraintViolationException;
+import jakarta.validation.Validation;
+import jakarta.validation.Validator;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.mock.web.MockPart;
+import org.springframework.web.context.request.ServletWebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
 import java.util.Collections;
 import java.util.List;
+import java.util.Map;
+import java.util.zip.GZIPInputStream;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
 import static org.mockito.Mockito.doNothing;
 import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
 
 @ExtendWith(MockitoExtension.class)
 class RecipeControllerTest extends AbstractControllerTest {
@@ -38,23 +66,99 @@ class RecipeControllerTest extends AbstractControllerTest {
 
     @Spy
     private ObjectMapper objectMapper;
+    @Spy
+    private Validator validator = Validation.buildDefaultValidatorFactory().getValidator();
     @Mock
     private RecipeService recipeService;
+    @Mock
+    private RecipeImportService recipeImportService;
     @InjectMocks
     private RecipeController controller;
 
     @Test
-    void test_getRecipesSuccessful() {
+    void test_getRecipesSuccessful() throws IOException {
         final RecipeFilterRequest filterRequest = new RecipeFilterRequest(null, null, null, 5, 1, mealTypes);
         final RecipeDTO recipeDTO = new RecipeDTO(id, recipeName, 5, MealType.APPETIZER, null, 1, null, username, 1);
         final List<RecipeDTO> foundRecipes = Collections.singletonList(recipeDTO);
         final PageResult<RecipeDTO> pageResponse = new PageResult<>(foundRecipes, foundRecipes.size(), 1, 0);
+        final byte[] pageJson = new ObjectMapper().writeValueAsBytes(pageResponse);
+
+        doReturn(pageJson).when(recipeService).getRecipesJson(1, filterRequest);
+        ResponseEntity<byte[]> response = this.controller.getRecipes(1, filterRequest);
+
+        assertThat(response.getBody()).isEqualTo(pageJson);
+        assertThat(response.getHeaders().getContentType()).isEqualTo(MediaType.APPLICATION_JSON);
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.OK);
+    }
 
-        doReturn(pageResponse).when(recipeService).getRecipes(1, filterRequest);
-        ResponseEntity<PageResult<RecipeDTO>> response = this.controller.getRecipes(1, filterRequest);
+    @Test
+    void test_scrollRecipesSuccessful() {
+        final String cursor = "cursor";
+        final RecipeFilterRequest filterRequest = new RecipeFilterRequest(null, null, null, 5, 1, mealTypes);
+        final RecipeDTO recipeDTO = new RecipeDTO(id, recipeName, 5, MealType.APPETIZER, null, 1, null, username, 1);
+        final CursorPageResult<RecipeDTO> pageResponse = new CursorPageResult<>(Collections.singletonList(recipeDTO), cursor);
+
+        doReturn(pageResponse).when(recipeService).scrollRecipes(null, filterRequest);
+        ResponseEntity<CursorPageResult<RecipeDTO>> response = this.controller.scrollRecipes(null, filterRequest);
 
         assertThat(response.getBody()).isNotNull();
-        assertThat(response.getBody().totalElements()).isEqualTo(foundRecipes.size());
+        assertThat(response.getBody().content()).hasSize(1);
+        assertThat(response.getBody().nextCursor()).isEqualTo(cursor);
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.OK);
+    }
+
+    @Test
+    void test_getRecipeFacetsSuccessful() {
+        final RecipeFilterRequest filterRequest = new RecipeFilterRequest(null, null, null, 5, 1, mealTypes);
+        final RecipeFacetsDTO facetsResponse = new RecipeFacetsDTO(
+                1,
+                Map.of(MealType.APPETIZER, 1L),
+                Map.of(),
+                Map.of(5, 1L),
+                Map.of(1, 1L)
+        );
+
+        doReturn(facetsResponse).when(recipeService).getRecipeFacets(filterRequest);
+        ResponseEntity<RecipeFacetsDTO> response = this.controller.getRecipeFacets(filterRequest);
+
+        assertThat(response.getBody()).isEqualTo(facetsResponse);
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.OK);
+    }
+
+    @Test
+    void test_searchRecipesByIngredientsSuccessful() {
+        final IngredientFilterRequest filterRequest = new IngredientFilterRequest(
+                List.of(id), null, null, null, null, List.of(Category.DAIRY)
+        );
+        final RecipeDTO recipeDTO = new RecipeDTO(id, recipeName, 5, MealType.APPETIZER, null, 1, null, username, 1);
+        final PageResult<RecipeDTO> pageResponse = new PageResult<>(List.of(recipeDTO), 1, 1, 0);
+
+        doReturn(pageResponse).when(recipeService).searchRecipesByIngredients(1, filterRequest);
+        ResponseEntity<PageResult<RecipeDTO>> response = this.controller.searchRecipesByIngredients(1, filterRequest);
+
+        assertThat(response.getBody()).isEqualTo(pageResponse);
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.OK);
+    }
+
+    @Test
+    void test_getRecipeSuggestionsSuccessful() {
+        final RecipeSuggestionDTO suggestion = new RecipeSuggestionDTO(recipeName, SuggestionType.RECIPE_NAME, 2);
+
+        doReturn(List.of(suggestion)).when(recipeService).getRecipeSuggestions("rec", 10);
+        ResponseEntity<List<RecipeSuggestionDTO>> response = this.controller.getRecipeSuggestions("rec", 10);
+
+        assertThat(response.getBody()).containsExactly(suggestion);
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.OK);
+    }
+
+    @Test
+    void test_getSimilarRecipesSuccessful() {
+        final RecipeDTO recipeDTO = new RecipeDTO(2L, recipeName, 5, MealType.APPETIZER, null, 1, null, username, 1);
+
+        doReturn(List.of(recipeDTO)).when(recipeService).getSimilarRecipes(id, 6);
+        ResponseEntity<List<RecipeDTO>> response = this.controller.getSimilarRecipes(id, 6);
+
+        assertThat(response.getBody()).containsExactly(recipeDTO);
         assertThat(response.getStatusCode()).isEqualTo(HttpStatus.OK);
     }
 
@@ -85,6 +189,105 @@ class RecipeControllerTest extends AbstractControllerTest {
         assertThat(response.getBody().id()).isEqualTo(recipeDetailsDTO.id());
         assertThat(response.getBody().recipeName()).isEqualTo(recipeDetailsDTO.recipeName());
         assertThat(response.getStatusCode()).isEqualTo(HttpStatus.OK);
+        verify(recipeService).recordRecipeView(id);
+    }
+
+    @Test
+    void test_getRecipeDetailsRecipeNotFound() {
+        final RecipeDetailsDTO recipeDetailsDTO = new RecipeDetailsDTO(0, null, null,
+                0, null, null, 0, null, null, null);
+
+        doReturn(recipeDetailsDTO).when(recipeService).getRecipeDetails(id);
+        ResponseEntity<RecipeDetailsDTO> response = this.controller.getRecipeDetails(id);
+
+        assertThat(response.getBody()).isNotNull();
+        assertThat(response.getBody().id()).isZero();
+        verify(recipeService, times(0)).recordRecipeView(anyLong());
+    }
+
+    @Test
+    void test_getRecipeImageSuccessful() throws IOException {
+        final String imageHash = "imageHash";
+        final byte[] image = new byte[] {1, 2, 3};
+        final ServletWebRequest webRequest = new ServletWebRequest(new MockHttpServletRequest(), new MockHttpServletResponse());
+
+        doReturn(imageHash).when(recipeService).getRecipeImageHash(id);
+        doReturn(new ByteArrayImageContent(image)).when(recipeService).getRecipeImage(id, ImageRendition.THUMBNAIL);
+        ResponseEntity<StreamingResponseBody> response = this.controller.getRecipeImage(id, ImageRendition.THUMBNAIL, imageHash, webRequest);
+
+        assertThat(response.getBody()).isNotNull();
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        response.getBody().writeTo(outputStream);
+        assertThat(outputStream.toByteArray()).isEqualTo(image);
+        assertThat(response.getHeaders().getETag()).isEqualTo("\"imageHash-thumbnail\"");
+        assertThat(response.getHeaders().getCacheControl()).contains("immutable");
+        assertThat(response.getHeaders().getContentLength()).isEqualTo(image.length);
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.OK);
+    }
+
+    @Test
+    void test_getRecipeImagePartialContent() throws IOException {
+        final String imageHash = "imageHash";
+        final byte[] image = new byte[] {1, 2, 3, 4};
+        final MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/v1/recipes/1/image");
+        request.addHeader(HttpHeaders.RANGE, "bytes=1-2");
+        final ServletWebRequest webRequest = new ServletWebRequest(request, new MockHttpServletResponse());
+
+        doReturn(imageHash).when(recipeService).getRecipeImageHash(id);
+        doReturn(new ByteArrayImageContent(image)).when(recipeService).getRecipeImage(id, ImageRendition.FULL);
+        ResponseEntity<StreamingResponseBody> response = this.controller.getRecipeImage(id, ImageRendition.FULL, imageHash, webRequest);
+
+        assertThat(response.getBody()).isNotNull();
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        response.getBody().writeTo(outputStream);
+        assertThat(outputStream.toByteArray()).isEqualTo(new byte[] {2, 3});
+        assertThat(response.getHeaders().getFirst(HttpHeaders.CONTENT_RANGE)).isEqualTo("bytes 1-2/4");
+        assertThat(response.getHeaders().getContentLength()).isEqualTo(2);
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.PARTIAL_CONTENT);
+    }
+
+    @Test
+    void test_getRecipeImageRangeNotSatisfiable() {
+        final String imageHash = "imageHash";
+        final MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/v1/recipes/1/image");
+        request.addHeader(HttpHeaders.RANGE, "bytes=10-20");
+        final ServletWebRequest webRequest = new ServletWebRequest(request, new MockHttpServletResponse());
+
+        doReturn(imageHash).when(recipeService).getRecipeImageHash(id);
+        doReturn(new ByteArrayImageContent(new byte[] {1, 2, 3})).when(recipeService).getRecipeImage(id, ImageRendition.FULL);
+        ResponseEntity<StreamingResponseBody> response = this.controller.getRecipeImage(id, ImageRendition.FULL, imageHash, webRequest);
+
+        assertThat(response.getBody()).isNull();
+        assertThat(response.getHeaders().getFirst(HttpHeaders.CONTENT_RANGE)).isEqualTo("bytes */3");
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.REQUESTED_RANGE_NOT_SATISFIABLE);
+    }
+
+    @Test
+    void test_getRecipeImageNotModified() {
+        final String imageHash = "imageHash";
+        final MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/v1/recipes/1/image");
+        request.addHeader(HttpHeaders.IF_NONE_MATCH, "\"imageHash-full\"");
+        final ServletWebRequest webRequest = new ServletWebRequest(request, new MockHttpServletResponse());
+
+        doReturn(imageHash).when(recipeService).getRecipeImageHash(id);
+        ResponseEntity<StreamingResponseBody> response = this.controller.getRecipeImage(id, ImageRendition.FULL, null, webRequest);
+
+        verify(recipeService, times(0)).getRecipeImage(anyLong(), any(ImageRendition.class));
+        assertThat(response.getBody()).isNull();
+        assertThat(response.getHeaders().getCacheControl()).isEqualTo("no-cache, public");
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.NOT_MODIFIED);
+    }
+
+    @Test
+    void test_getRecipeImageStatusSuccessful() {
+        final RecipeImageStatusDTO imageStatus = new RecipeImageStatusDTO(ImageStatus.PENDING, null);
+
+        doReturn(imageStatus).when(recipeService).getRecipeImageStatus(id);
+        ResponseEntity<RecipeImageStatusDTO> response = this.controller.getRecipeImageStatus(id);
+
+        assertThat(response.getBody()).isEqualTo(imageStatus);
+        assertThat(response.getHeaders().getCacheControl()).isEqualTo("no-store");
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.OK);
     }
 
     @Test
@@ -97,7 +300,7 @@ class RecipeControllerTest extends AbstractControllerTest {
         ObjectMapper objectMapper = new ObjectMapper();
 
         doReturn(createRecipeResponse).when(recipeService).createRecipe(authentication.getName(), request, null);
-        ResponseEntity<CreateRecipeResponse> response = this.controller.createRecipe(null, objectMapper.writeValueAsString(request), authentication);
+        ResponseEntity<CreateRecipeResponse> response = this.controller.createRecipe(null, new MockPart("recipe", objectMapper.writeValueAsBytes(request)), authentication);
 
         assertThat(response.getBody()).isNotNull();
         assertThat(response.getBody().recipeId()).isEqualTo(createRecipeResponse.recipeId());
@@ -106,7 +309,7 @@ class RecipeControllerTest extends AbstractControllerTest {
 
     @Test
     void test_createRecipeIncorrectRequestBodyStructure() {
-        assertThatThrownBy(() -> this.controller.createRecipe(null, "requestbody", authentication))
+        assertThatThrownBy(() -> this.controller.createRecipe(null, new MockPart("recipe", "requestbody".getBytes()), authentication))
                 .isInstanceOf(MappingJsonToObjectException.class);
     }
 
@@ -118,10 +321,57 @@ class RecipeControllerTest extends AbstractControllerTest {
                 5, MealType.APPETIZER, null, 1, false, Collections.singletonList(recipeProductDTO));
         ObjectMapper objectMapper = new ObjectMapper();
 
-        assertThatThrownBy(() -> this.controller.createRecipe(null, objectMapper.writeValueAsString(request), authentication))
+        assertThatThrownBy(() -> this.controller.createRecipe(null, new MockPart("recipe", objectMapper.writeValueAsBytes(request)), authentication))
                 .isInstanceOf(ConstraintViolationException.class);
     }
 
+    @Test
+    void test_exportRecipesSuccessful() throws IOException {
+        final ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+
+        doAnswer(invocation -> {
+            invocation.<OutputStream>getArgument(0).write("{\"id\":1}\n".getBytes());
+            return null;
+        }).when(recipeService).exportRecipes(any());
+        ResponseEntity<StreamingResponseBody> response = this.controller.exportRecipes(false);
+        response.getBody().writeTo(outputStream);
+
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.OK);
+        assertThat(response.getHeaders().getContentType()).isEqualTo(MediaType.APPLICATION_NDJSON);
+        assertThat(response.getHeaders().getContentDisposition().getFilename()).isEqualTo("recipes.ndjson");
+        assertThat(outputStream.toString()).isEqualTo("{\"id\":1}\n");
+    }
+
+    @Test
+    void test_exportUserRecipesCompressed() throws IOException {
+        final ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+
+        doAnswer(invocation -> {
+            invocation.<OutputStream>getArgument(1).write("{\"id\":1}\n".getBytes());
+            return null;
+        }).when(recipeService).exportUserRecipes(eq(authentication.getName()), any());
+        ResponseEntity<StreamingResponseBody> response = this.controller.exportUserRecipes(true, authentication);
+        response.getBody().writeTo(outputStream);
+
+        assertThat(response.getHeaders().getContentDisposition().getFilename()).isEqualTo("user-recipes.ndjson.gz");
+        try (GZIPInputStream inputStream = new GZIPInputStream(new ByteArrayInputStream(outputStream.toByteArray()))) {
+            assertThat(new String(inputStream.readAllBytes())).isEqualTo("{\"id\":1}\n");
+        }
+    }
+
+    @Test
+    void test_importRecipesSuccessful() {
+        final InputStream recipes = new ByteArrayInputStream("{}".getBytes());
+        final ImportRecipesResponse importResponse = new ImportRecipesResponse(0, 1,
+                List.of(new ImportRecipesResponse.LineError(1, "Recipe name must be present")));
+
+        doReturn(importResponse).when(recipeImportService).importRecipes(authentication.getName(), recipes);
+        ResponseEntity<ImportRecipesResponse> response = this.controller.importRecipes(recipes, authentication);
+
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.OK);
+        assertThat(response.getBody()).isEqualTo(importResponse);
+    }
+
     @Test
     void test_deleteRecipeSuccessful() {
         doNothing().when(recipeService).deleteRecipe(authentication.getName(), id);
@@ -140,7 +390,7 @@ class RecipeControllerTest extends AbstractControllerTest {
         ObjectMapper objectMapper = new ObjectMapper();
 
         doReturn(createRecipeResponse).when(recipeService).updateRecipe(authentication.getName(), request, null);
-        ResponseEntity<CreateRecipeResponse> response = this.controller.updateRecipe(null, objectMapper.writeValueAsString(request), authentication);
+        ResponseEntity<CreateRecipeResponse> response = this.controller.updateRecipe(null, new MockPart("recipe", objectMapper.writeValueAsBytes(request)), authentication);
 
         assertThat(response.getBody()).isNotNull();
         assertThat(response.getBody().recipeId()).isEqualTo(createRecipeResponse.recipeId());
@@ -149,7 +399,7 @@ class RecipeControllerTest extends AbstractControllerTest {
 
     @Test
     void test_updateRecipeIncorrectRequestBodyStructure() {
-        assertThatThrownBy(() -> this.controller.updateRecipe(null, "requestbody", authentication))
+        assertThatThrownBy(() -> this.controller.updateRecipe(null, new MockPart("recipe", "requestbody".getBytes()), authentication))
                 .isInstanceOf(MappingJsonToObjectException.class);
     }
 
@@ -161,7 +411,7 @@ class RecipeControllerTest extends AbstractControllerTest {
                 5, MealType.APPETIZER, null, 1, false, Collections.singletonList(recipeProductDTO));
         ObjectMapper objectMapper = new ObjectMapper();
 
-        assertThatThrownBy(() -> this.controller.updateRecipe(null, objectMapper.writeValueAsString(request), authentication))
+        assertThatThrownBy(() -> this.controller.updateRecipe(null, new MockPart("recipe", objectMapper.writeValueAsBytes(request)), authentication))
                 .isInstanceOf(ConstraintViolationException.class);
     }
 }
\ No newline at end of file
@@ -0,0 +1,190 @@
+package com.cookie.app.repository;
+
+import com.cookie.app.model.entity.PantryProduct;
+import com.cookie.app.model.entity.Product;
+import com.cookie.app.model.entity.RecipeProduct;
+import com.cookie.app.model.enums.Category;
+import com.cookie.app.model.enums.Unit;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.domain.EntityScan;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.ComponentScan;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.FilterType;
+import org.springframework.data.jpa.repository.config.EnableJpaRepositories;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Runs concurrent reservations against PostgreSQL, so quantity checks of the conditional updates and row locks
+ * are done by the database itself. Every reservation commits its own transaction. Test is run only with
+ * postgres-it profile, which passes connection to an empty database, schema is created by Liquibase:
+ * mvn test -Ppostgres-it -Dit.datasource.url=jdbc:postgresql://localhost:5432/cookie_it
+ * -Dit.datasource.username=postgres -Dit.datasource.password=postgres
+ */
+@Tag("postgres")
+@EnabledIfSystemProperty(named = "it.datasource.url", matches = ".+")
+@DataJpaTest
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+@ActiveProfiles("postgres-it")
+class PantryProductRepositoryCustomImplTest {
+    private static final int RESERVERS = 128;
+    private static final int AVAILABLE_QUANTITY = 100;
+
+    @Autowired
+    private PantryProductRepository pantryProductRepository;
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+    @Autowired
+    private DataSource dataSource;
+
+    private JdbcTemplate jdbcTemplate;
+    private TransactionTemplate transactionTemplate;
+    private long productId;
+    private long pantryId;
+    private long pantryProductId;
+
+    @DynamicPropertySource
+    static void datasourceProperties(DynamicPropertyRegistry registry) {
+        registry.add("spring.datasource.url", () -> System.getProperty("it.datasource.url"));
+        registry.add("spring.datasource.username", () -> System.getProperty("it.datasource.username"));
+        registry.add("spring.datasource.password", () -> System.getProperty("it.datasource.password"));
+        // fewer connections than reservers, so reservations also queue for connections like under load
+        registry.add("spring.datasource.hikari.maximum-pool-size", () -> 64);
+    }
+
+    @BeforeEach
+    void init() {
+        jdbcTemplate = new JdbcTemplate(dataSource);
+        transactionTemplate = new TransactionTemplate(transactionManager);
+
+        productId = jdbcTemplate.queryForObject(
+                "INSERT INTO product (id, product_name, category) VALUES (nextval('product_sequence'), ?, ?) RETURNING id",
+                Long.class, "Reserved product " + System.nanoTime(), Category.CEREAL.name()
+        );
+        pantryId = jdbcTemplate.queryForObject(
+                "INSERT INTO pantry (id, pantry_name) VALUES (nextval('pantry_sequence'), ?) RETURNING id",
+                Long.class, "pantry"
+        );
+        pantryProductId = jdbcTemplate.queryForObject(
+                "INSERT INTO pantry_product (id, pantry_id, product_id, quantity, reserved, unit) " +
+                        "VALUES (nextval('pantry_product_sequence'), ?, ?, ?, 0, ?) RETURNING id",
+                Long.class, pantryId, productId, AVAILABLE_QUANTITY, Unit.GRAMS.ordinal()
+        );
+    }
+
+    @AfterEach
+    void cleanUp() {
+        jdbcTemplate.update("DELETE FROM pantry_product WHERE pantry_id = ?", pantryId);
+        jdbcTemplate.update("DELETE FROM pantry WHERE id = ?", pantryId);
+        jdbcTemplate.update("DELETE FROM product WHERE id = ?", productId);
+    }
+
+    @Test
+    void test_reservePantryProductConcurrentReservationsAreNotLost() throws Exception {
+
+        List<Integer> reservedQuantities = runConcurrently(() -> transactionTemplate.execute(status -> {
+            PantryProduct pantryProduct = pantryProductRepository.findById(pantryProductId).orElseThrow();
+
+            return pantryProductRepository.reservePantryProduct(pantryProduct, 1) ? pantryProduct.getReserved() : null;
+        }));
+
+        // refreshed pantry product of every successful reservation contains reservations of all the previous ones
+        assertThat(reservedQuantities).containsExactlyInAnyOrderElementsOf(
+                IntStream.rangeClosed(1, AVAILABLE_QUANTITY).boxed().toList()
+        );
+        assertPantryProductFullyReserved();
+    }
+
+    @Test
+    void test_reservePantryProductsConcurrentRecipeReservationsAreNotLost() throws Exception {
+        final Product product = Product.builder().id(productId).build();
+        final List<RecipeProduct> recipeProducts = List.of(new RecipeProduct(0L, product, 1, Unit.GRAMS));
+
+        List<Integer> updatedProducts = runConcurrently(() -> transactionTemplate.execute(status -> {
+            List<PantryStock> pantryStock = pantryProductRepository.lockPantryStock(pantryId, recipeProducts);
+
+            if (pantryStock.isEmpty() || pantryStock.get(0).quantity() < 1) {
+                return null;
+            }
+
+            // quantity read under the lock is still available, so the update always succeeds
+            return pantryProductRepository.reservePantryProducts(Map.of(pantryStock.get(0).pantryProductId(), 1));
+        }));
+
+        assertThat(updatedProducts).hasSize(AVAILABLE_QUANTITY).containsOnly(1);
+        assertPantryProductFullyReserved();
+    }
+
+    private void assertPantryProductFullyReserved() {
+        Map<String, Object> pantryProduct = jdbcTemplate.queryForMap(
+                "SELECT quantity, reserved FROM pantry_product WHERE id = ?", pantryProductId
+        );
+
+        assertThat(((Number) pantryProduct.get("reserved")).intValue()).isEqualTo(AVAILABLE_QUANTITY);
+        assertThat(((Number) pantryProduct.get("quantity")).intValue()).isZero();
+    }
+
+    // reservers are released at once, results of failed reservations are returned as null and skipped
+    private <T> List<T> runConcurrently(Callable<T> reservation) throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(RESERVERS);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<T>> futures = new ArrayList<>();
+
+        try {
+            for (int i = 0; i < RESERVERS; i++) {
+                futures.add(executor.submit(() -> {
+                    start.await();
+                    return reservation.call();
+                }));
+            }
+            start.countDown();
+
+            List<T> results = new ArrayList<>();
+            for (Future<T> future : futures) {
+                results.add(future.get(60, TimeUnit.SECONDS));
+            }
+
+            return results.stream().filter(Objects::nonNull).toList();
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Configuration
+    @EntityScan(basePackageClasses = PantryProduct.class)
+    @EnableJpaRepositories(
+            basePackageClasses = PantryProductRepository.class,
+            includeFilters = @ComponentScan.Filter(type = FilterType.ASSIGNABLE_TYPE, classes = PantryProductRepository.class)
+    )
+    static class RepositoryConfig {
+    }
+}
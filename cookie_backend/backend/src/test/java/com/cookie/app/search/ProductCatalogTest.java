@@ -0,0 +1,160 @@
+package com.cookie.app.search;
+
+import com.cookie.app.event.ProductCreatedEvent;
+import com.cookie.app.event.ProductsMergedEvent;
+import com.cookie.app.model.dto.ProductDTO;
+import com.cookie.app.model.entity.Product;
+import com.cookie.app.model.enums.Category;
+import com.cookie.app.model.projection.ProductUsage;
+import com.cookie.app.repository.ProductRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.projection.SpelAwareProxyProjectionFactory;
+
+import java.time.Clock;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.doReturn;
+
+@ExtendWith(MockitoExtension.class)
+class ProductCatalogTest {
+    private final long now = 1_000L;
+
+    @Mock
+    private ProductRepository productRepository;
+
+    private ProductCatalog catalog;
+
+    @BeforeEach
+    void init() {
+        catalog = new ProductCatalog(productRepository, Clock.fixed(Instant.ofEpochMilli(now), ZoneOffset.UTC));
+
+        doReturn(List.of(
+                createProductUsage(1L, "Milk", Category.DAIRY, 3),
+                createProductUsage(2L, "Mozzarella", Category.DAIRY, 10),
+                createProductUsage(3L, "Mushrooms", Category.VEGETABLES, 5),
+                createProductUsage(4L, "Flour", Category.BAKING_GOODS, 1),
+                createProductUsage(5L, "Mąka", Category.BAKING_GOODS, 0)
+        )).when(productRepository).findAllProductUsages();
+        catalog.rebuild();
+    }
+
+    @Test
+    void test_findProductsMostUsedFirst() {
+
+        List<ProductDTO> response = catalog.findProducts("M", null, 10);
+
+        assertThat(response).extracting(ProductDTO::productName)
+                .containsExactly("Mozzarella", "Mushrooms", "Milk", "Mąka");
+    }
+
+    @Test
+    void test_findProductsOfCategory() {
+
+        List<ProductDTO> response = catalog.findProducts("m", Category.DAIRY, 10);
+
+        assertThat(response).containsExactly(
+                new ProductDTO(2L, "Mozzarella", Category.DAIRY),
+                new ProductDTO(1L, "Milk", Category.DAIRY)
+        );
+    }
+
+    @Test
+    void test_findProductsRespectsLimit() {
+
+        List<ProductDTO> response = catalog.findProducts("m", null, 2);
+
+        assertThat(response).extracting(ProductDTO::productName).containsExactly("Mozzarella", "Mushrooms");
+    }
+
+    @Test
+    void test_findProductsWithoutAccents() {
+
+        List<ProductDTO> response = catalog.findProducts("MAK", null, 10);
+
+        assertThat(response).extracting(ProductDTO::productId).containsExactly(5L);
+    }
+
+    @Test
+    void test_findProductsBlankOrUnknownPrefix() {
+
+        assertThat(catalog.findProducts(" ", null, 10)).isEmpty();
+        assertThat(catalog.findProducts("rice", null, 10)).isEmpty();
+        assertThat(catalog.findProducts("milk", Category.MEAT, 10)).isEmpty();
+    }
+
+    @Test
+    void test_onProductCreatedAddsProductAndIncreasesVersion() {
+        final long version = catalog.getVersion();
+
+        catalog.onProductCreated(new ProductCreatedEvent(new Product(6L, "Mascarpone", Category.DAIRY)));
+
+        assertThat(catalog.findProducts("ma", Category.DAIRY, 10)).extracting(ProductDTO::productId).containsExactly(6L);
+        assertThat(catalog.getVersion()).isEqualTo(version + 1);
+    }
+
+    @Test
+    void test_onProductCreatedAlreadyLoadedProductIgnored() {
+        final long version = catalog.getVersion();
+
+        catalog.onProductCreated(new ProductCreatedEvent(new Product(1L, "Milk", Category.DAIRY)));
+
+        assertThat(catalog.findProducts("milk", null, 10)).hasSize(1);
+        assertThat(catalog.getVersion()).isEqualTo(version);
+    }
+
+    @Test
+    void test_rebuildKeepsVersionWhenNothingChanged() {
+        final long version = catalog.getVersion();
+
+        catalog.rebuild();
+
+        assertThat(version).isEqualTo(now);
+        assertThat(catalog.getVersion()).isEqualTo(version);
+    }
+
+    @Test
+    void test_rebuildKeepsProductsCreatedWhileLoading() {
+        final List<ProductUsage> productUsages = productRepository.findAllProductUsages();
+
+        doAnswer(invocation -> {
+            catalog.onProductCreated(new ProductCreatedEvent(new Product(6L, "Mascarpone", Category.DAIRY)));
+            return productUsages;
+        }).when(productRepository).findAllProductUsages();
+        catalog.rebuild();
+
+        assertThat(catalog.findProducts("mascarpone", null, 10)).extracting(ProductDTO::productId).containsExactly(6L);
+    }
+
+    @Test
+    void test_onProductsMergedDropsMergedProducts() {
+        final long version = catalog.getVersion();
+
+        catalog.onProductCreated(new ProductCreatedEvent(new Product(6L, "Mlik", Category.DAIRY)));
+        doReturn(List.of(
+                createProductUsage(1L, "Milk", Category.DAIRY, 4),
+                createProductUsage(2L, "Mozzarella", Category.DAIRY, 10)
+        )).when(productRepository).findAllProductUsages();
+        catalog.onProductsMerged(new ProductsMergedEvent(Map.of(6L, 1L)));
+
+        assertThat(catalog.findProducts("m", null, 10)).extracting(ProductDTO::productId).containsExactly(2L, 1L);
+        assertThat(catalog.getVersion()).isGreaterThan(version);
+    }
+
+    private ProductUsage createProductUsage(long id, String productName, Category category, long usages) {
+        return new SpelAwareProxyProjectionFactory().createProjection(ProductUsage.class, Map.of(
+                "id", id,
+                "productName", productName,
+                "category", category,
+                "usages", usages
+        ));
+    }
+}
@@ -0,0 +1,149 @@
+package com.cookie.app.search;
+
+import com.cookie.app.config.ProductMatchingProperties;
+import com.cookie.app.event.ProductsMergedEvent;
+import com.cookie.app.repository.ProductMergeRepository;
+import com.cookie.app.repository.SimilarProducts;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Captor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.QueryTimeoutException;
+import org.springframework.transaction.support.TransactionCallback;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class ProductMergerTest {
+    private final double mergeSimilarity = 0.6;
+    private final int mergeBatchSize = 500;
+
+    @Captor
+    private ArgumentCaptor<Long[]> mergedIdsArgumentCaptor;
+    @Captor
+    private ArgumentCaptor<Long[]> keptIdsArgumentCaptor;
+    @Mock
+    private ProductMergeRepository productMergeRepository;
+    @Mock
+    private TransactionTemplate transactionTemplate;
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+
+    private ProductMerger merger;
+
+    @BeforeEach
+    void init() {
+        merger = createMerger(ProductMatchingProperties.MergeMode.ENABLED);
+    }
+
+    @Test
+    void test_mergeSimilarProductsKeepsMostUsedProduct() {
+
+        mockTransactionTemplate();
+        doReturn(List.of(
+                new SimilarProducts(1L, "tomatoe", 1, 2L, "tomato", 10),
+                new SimilarProducts(2L, "tomato", 10, 3L, "tomatos", 0)
+        )).when(productMergeRepository).findSimilarProducts(mergeSimilarity, mergeBatchSize);
+        doReturn(2).when(productMergeRepository)
+                .mergeProducts(mergedIdsArgumentCaptor.capture(), keptIdsArgumentCaptor.capture());
+        int mergedProducts = this.merger.mergeSimilarProducts();
+
+        verify(eventPublisher).publishEvent(new ProductsMergedEvent(Map.of(1L, 2L, 3L, 2L)));
+        assertThat(mergedProducts).isEqualTo(2);
+        assertThat(mergedIdsArgumentCaptor.getValue()).containsExactly(1L, 3L);
+        assertThat(keptIdsArgumentCaptor.getValue()).containsExactly(2L, 2L);
+    }
+
+    @Test
+    void test_mergeSimilarProductsDoesNotChainSimilarProducts() {
+
+        Map<Long, Long> keptProductIds = this.merger.selectProductsToMerge(List.of(
+                new SimilarProducts(1L, "milk", 5, 2L, "milks", 3),
+                new SimilarProducts(2L, "milks", 3, 3L, "silks", 1)
+        ));
+
+        assertThat(keptProductIds).containsExactly(Map.entry(2L, 1L));
+    }
+
+    @Test
+    void test_mergeSimilarProductsOlderProductKeptWhenUsagesEqual() {
+
+        Map<Long, Long> keptProductIds = this.merger.selectProductsToMerge(List.of(
+                new SimilarProducts(4L, "rice", 2, 7L, "rices", 2)
+        ));
+
+        assertThat(keptProductIds).containsExactly(Map.entry(7L, 4L));
+    }
+
+    @Test
+    void test_mergeSimilarProductsNothingToMerge() {
+
+        mockTransactionTemplate();
+        doReturn(List.of()).when(productMergeRepository).findSimilarProducts(mergeSimilarity, mergeBatchSize);
+        int mergedProducts = this.merger.mergeSimilarProducts();
+
+        verify(productMergeRepository, times(0)).mergeProducts(any(), any());
+        verify(eventPublisher, times(0)).publishEvent(any(ProductsMergedEvent.class));
+        assertThat(mergedProducts).isZero();
+    }
+
+    @Test
+    void test_mergeSimilarProductsFailed() {
+
+        mockTransactionTemplate();
+        doThrow(new QueryTimeoutException("timeout")).when(productMergeRepository)
+                .findSimilarProducts(mergeSimilarity, mergeBatchSize);
+        int mergedProducts = this.merger.mergeSimilarProducts();
+
+        verify(eventPublisher, times(0)).publishEvent(any(ProductsMergedEvent.class));
+        assertThat(mergedProducts).isZero();
+    }
+
+    @Test
+    void test_mergeSimilarProductsDisabled() {
+        this.merger = createMerger(ProductMatchingProperties.MergeMode.DISABLED);
+
+        int mergedProducts = this.merger.mergeSimilarProducts();
+
+        verifyNoInteractions(productMergeRepository, transactionTemplate, eventPublisher);
+        assertThat(mergedProducts).isZero();
+    }
+
+    @Test
+    void test_mergeSimilarProductsDryRunDoesNotMerge() {
+        this.merger = createMerger(ProductMatchingProperties.MergeMode.DRY_RUN);
+
+        mockTransactionTemplate();
+        doReturn(List.of(new SimilarProducts(1L, "tomatoe", 1, 2L, "tomato", 10)))
+                .when(productMergeRepository).findSimilarProducts(mergeSimilarity, mergeBatchSize);
+        int mergedProducts = this.merger.mergeSimilarProducts();
+
+        verify(productMergeRepository, times(0)).mergeProducts(any(), any());
+        verify(eventPublisher, times(0)).publishEvent(any(ProductsMergedEvent.class));
+        assertThat(mergedProducts).isZero();
+    }
+
+    private ProductMerger createMerger(ProductMatchingProperties.MergeMode mergeMode) {
+        return new ProductMerger(
+                productMergeRepository,
+                transactionTemplate,
+                eventPublisher,
+                new ProductMatchingProperties(0.3, 0, mergeSimilarity, mergeBatchSize, mergeMode)
+        );
+    }
+
+    private void mockTransactionTemplate() {
+        doAnswer(invocation -> invocation.<TransactionCallback<?>>getArgument(0).doInTransaction(null))
+                .when(transactionTemplate).execute(any());
+    }
+}
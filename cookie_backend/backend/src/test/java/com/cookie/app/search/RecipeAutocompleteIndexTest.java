@@ -0,0 +1,135 @@
+package com.cookie.app.search;
+
+import com.cookie.app.event.RecipeChangedEvent;
+import com.cookie.app.model.dto.RecipeSuggestionDTO;
+import com.cookie.app.model.entity.Recipe;
+import com.cookie.app.model.enums.SuggestionType;
+import com.cookie.app.model.projection.RecipeSearchTerms;
+import com.cookie.app.repository.RecipeRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.projection.SpelAwareProxyProjectionFactory;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.doReturn;
+
+@ExtendWith(MockitoExtension.class)
+class RecipeAutocompleteIndexTest {
+
+    @Mock
+    private RecipeRepository recipeRepository;
+
+    private SimpleMeterRegistry meterRegistry;
+    private RecipeAutocompleteIndex index;
+
+    @BeforeEach
+    void init() {
+        meterRegistry = new SimpleMeterRegistry();
+        index = new RecipeAutocompleteIndex(recipeRepository, meterRegistry);
+
+        doReturn(List.of(
+                createSearchTerms(1L, "Spaghetti Carbonara", "Italian"),
+                createSearchTerms(2L, "spaghetti  carbonara", "Italian"),
+                createSearchTerms(3L, "Spaghetti Bolognese", "italian"),
+                createSearchTerms(4L, "Sushi", "Japanese"),
+                createSearchTerms(5L, "Crème Brûlée", null)
+        )).when(recipeRepository).findAllRecipeSearchTerms();
+        index.rebuild();
+    }
+
+    @Test
+    void test_completeMostPopularFirst() {
+
+        List<RecipeSuggestionDTO> response = index.complete("SPAG", 10);
+
+        assertThat(response).containsExactly(
+                new RecipeSuggestionDTO("Spaghetti Carbonara", SuggestionType.RECIPE_NAME, 2),
+                new RecipeSuggestionDTO("Spaghetti Bolognese", SuggestionType.RECIPE_NAME, 1)
+        );
+    }
+
+    @Test
+    void test_completeNamesAndCuisines() {
+
+        List<RecipeSuggestionDTO> response = index.complete("s", 10);
+
+        assertThat(response).extracting(RecipeSuggestionDTO::text)
+                .containsExactly("Spaghetti Carbonara", "Spaghetti Bolognese", "Sushi");
+        assertThat(index.complete("i", 10)).containsExactly(
+                new RecipeSuggestionDTO("Italian", SuggestionType.CUISINE, 3)
+        );
+    }
+
+    @Test
+    void test_completeRespectsLimit() {
+
+        List<RecipeSuggestionDTO> response = index.complete("spaghetti", 1);
+
+        assertThat(response).extracting(RecipeSuggestionDTO::text).containsExactly("Spaghetti Carbonara");
+    }
+
+    @Test
+    void test_completeWithoutAccents() {
+
+        List<RecipeSuggestionDTO> response = index.complete("creme b", 10);
+
+        assertThat(response).extracting(RecipeSuggestionDTO::text).containsExactly("Crème Brûlée");
+    }
+
+    @Test
+    void test_completeBlankOrUnknownPrefix() {
+
+        assertThat(index.complete("  ", 10)).isEmpty();
+        assertThat(index.complete("pizza", 10)).isEmpty();
+    }
+
+    @Test
+    void test_onRecipeUpdatedReplacesTerms() {
+        final Recipe recipe = Recipe.builder().id(4L).recipeName("Spaghetti Carbonara").cuisine("Italian").build();
+
+        index.onRecipeChanged(new RecipeChangedEvent(recipe, RecipeChangedEvent.ChangeType.UPDATED));
+
+        assertThat(index.complete("su", 10)).isEmpty();
+        assertThat(index.complete("j", 10)).isEmpty();
+        assertThat(index.complete("spaghetti c", 10)).containsExactly(
+                new RecipeSuggestionDTO("Spaghetti Carbonara", SuggestionType.RECIPE_NAME, 3)
+        );
+    }
+
+    @Test
+    void test_onRecipeDeletedRemovesTerms() {
+        final Recipe recipe = Recipe.builder().id(3L).recipeName("Spaghetti Bolognese").cuisine("italian").build();
+        final long sizeBeforeDelete = index.estimateSize();
+
+        index.onRecipeChanged(new RecipeChangedEvent(recipe, RecipeChangedEvent.ChangeType.DELETED));
+
+        assertThat(index.complete("spaghetti", 10)).extracting(RecipeSuggestionDTO::text)
+                .containsExactly("Spaghetti Carbonara");
+        assertThat(index.complete("ital", 10)).extracting(RecipeSuggestionDTO::recipeCount).containsExactly(2);
+        assertThat(index.estimateSize()).isLessThan(sizeBeforeDelete);
+    }
+
+    @Test
+    void test_indexSizeReportedInMetrics() {
+
+        assertThat(meterRegistry.get("recipe.autocomplete.index.size").gauge().value()).isPositive();
+        assertThat(meterRegistry.get("recipe.autocomplete.index.nodes").gauge().value()).isPositive();
+    }
+
+    private RecipeSearchTerms createSearchTerms(long id, String recipeName, String cuisine) {
+        Map<String, Object> values = new HashMap<>();
+        values.put("id", id);
+        values.put("recipeName", recipeName);
+        values.put("cuisine", cuisine);
+
+        return new SpelAwareProxyProjectionFactory().createProjection(RecipeSearchTerms.class, values);
+    }
+}
@@ -0,0 +1,182 @@
+package com.cookie.app.search;
+
+import com.cookie.app.event.RecipeChangedEvent;
+import com.cookie.app.model.entity.Product;
+import com.cookie.app.model.entity.Recipe;
+import com.cookie.app.model.entity.RecipeProduct;
+import com.cookie.app.model.enums.Category;
+import com.cookie.app.model.projection.RecipeIngredient;
+import com.cookie.app.model.request.IngredientFilterRequest;
+import com.cookie.app.repository.RecipeProductRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.doReturn;
+
+@ExtendWith(MockitoExtension.class)
+class RecipeIngredientIndexTest {
+
+    @Mock
+    private RecipeProductRepository recipeProductRepository;
+    @InjectMocks
+    private RecipeIngredientIndex index;
+
+    @BeforeEach
+    void init() {
+        doReturn(List.of(
+                createIngredient(1L, 10L, Category.MEAT),
+                createIngredient(1L, 11L, Category.RICE),
+                createIngredient(2L, 10L, Category.MEAT),
+                createIngredient(2L, 11L, Category.RICE),
+                createIngredient(2L, 12L, Category.DAIRY),
+                createIngredient(3L, 13L, Category.DAIRY)
+        )).when(recipeProductRepository).findAllRecipeIngredients();
+        index.rebuild();
+    }
+
+    @Test
+    void test_findRecipesCoveredByAllProducts() {
+
+        List<RecipeCoverage> response = index.findRecipesCoveredBy(Set.of(10L, 11L), 0, 10);
+
+        assertThat(response).containsExactly(new RecipeCoverage(1L, 2, 0));
+    }
+
+    @Test
+    void test_findRecipesCoveredByAllButOneProduct() {
+
+        List<RecipeCoverage> response = index.findRecipesCoveredBy(Set.of(10L, 11L, 14L), 1, 10);
+
+        assertThat(response).containsExactly(new RecipeCoverage(1L, 2, 0), new RecipeCoverage(2L, 3, 1));
+    }
+
+    @Test
+    void test_findRecipesCoveredByRespectsLimit() {
+
+        List<RecipeCoverage> response = index.findRecipesCoveredBy(Set.of(10L, 11L, 12L, 13L), 0, 2);
+
+        assertThat(response).containsExactly(new RecipeCoverage(2L, 3, 0), new RecipeCoverage(1L, 2, 0));
+    }
+
+    @Test
+    void test_onRecipeUpdatedReplacesIngredients() {
+        final Recipe recipe = createRecipe(3L, 10L);
+
+        index.onRecipeChanged(new RecipeChangedEvent(recipe, RecipeChangedEvent.ChangeType.UPDATED));
+
+        assertThat(index.findRecipesCoveredBy(Set.of(13L), 0, 10)).isEmpty();
+        assertThat(index.findRecipesCoveredBy(Set.of(10L), 0, 10)).containsExactly(new RecipeCoverage(3L, 1, 0));
+    }
+
+    @Test
+    void test_onRecipeDeletedRemovesRecipe() {
+        final Recipe recipe = createRecipe(1L, 10L, 11L);
+
+        index.onRecipeChanged(new RecipeChangedEvent(recipe, RecipeChangedEvent.ChangeType.DELETED));
+
+        assertThat(index.findRecipesCoveredBy(Set.of(10L, 11L), 1, 10)).containsExactly(new RecipeCoverage(2L, 3, 1));
+    }
+
+    @Test
+    void test_searchRecipesWithAllProducts() {
+        final IngredientFilterRequest filterRequest = new IngredientFilterRequest(
+                List.of(10L, 11L), null, null, null, null, null
+        );
+
+        RecipeIdPage response = index.searchRecipes(filterRequest, 0, 10);
+
+        assertThat(response.recipeIds()).containsExactly(2L, 1L);
+        assertThat(response.totalElements()).isEqualTo(2);
+    }
+
+    @Test
+    void test_searchRecipesWithAnyProductExcludingCategory() {
+        final IngredientFilterRequest filterRequest = new IngredientFilterRequest(
+                null, List.of(10L, 13L), null, null, null, List.of(Category.DAIRY)
+        );
+
+        RecipeIdPage response = index.searchRecipes(filterRequest, 0, 10);
+
+        assertThat(response.recipeIds()).containsExactly(1L);
+        assertThat(response.totalElements()).isEqualTo(1);
+    }
+
+    @Test
+    void test_searchRecipesWithCategoryExcludingProductPaged() {
+        final IngredientFilterRequest filterRequest = new IngredientFilterRequest(
+                null, null, List.of(11L), List.of(Category.DAIRY), null, null
+        );
+
+        RecipeIdPage firstPage = index.searchRecipes(filterRequest, 0, 1);
+        RecipeIdPage secondPage = index.searchRecipes(filterRequest, 1, 1);
+        RecipeIdPage thirdPage = index.searchRecipes(filterRequest, 2, 1);
+
+        assertThat(firstPage.recipeIds()).containsExactly(3L);
+        assertThat(secondPage.recipeIds()).isEmpty();
+        assertThat(thirdPage.recipeIds()).isEmpty();
+        assertThat(firstPage.totalElements()).isEqualTo(1);
+    }
+
+    @Test
+    void test_searchRecipesWithUnknownProduct() {
+        final IngredientFilterRequest filterRequest = new IngredientFilterRequest(
+                List.of(10L, 99L), null, null, null, null, null
+        );
+
+        RecipeIdPage response = index.searchRecipes(filterRequest, 0, 10);
+
+        assertThat(response.recipeIds()).isEmpty();
+        assertThat(response.totalElements()).isZero();
+    }
+
+    @Test
+    void test_searchRecipesAfterRecipeDeleted() {
+        final IngredientFilterRequest filterRequest = new IngredientFilterRequest(
+                null, null, null, List.of(Category.MEAT), null, null
+        );
+
+        index.onRecipeChanged(new RecipeChangedEvent(createRecipe(2L, 10L), RecipeChangedEvent.ChangeType.DELETED));
+        RecipeIdPage response = index.searchRecipes(filterRequest, 0, 10);
+
+        assertThat(response.recipeIds()).containsExactly(1L);
+    }
+
+    private RecipeIngredient createIngredient(long recipeId, long productId, Category category) {
+        return new RecipeIngredient() {
+            @Override
+            public long getRecipeId() {
+                return recipeId;
+            }
+
+            @Override
+            public long getProductId() {
+                return productId;
+            }
+
+            @Override
+            public Category getCategory() {
+                return category;
+            }
+        };
+    }
+
+    private Recipe createRecipe(long recipeId, Long... productIds) {
+        return Recipe.builder()
+                .id(recipeId)
+                .recipeProducts(Arrays.stream(productIds)
+                        .map(productId -> RecipeProduct.builder()
+                                .product(Product.builder().id(productId).category(Category.MEAT).build())
+                                .build())
+                        .toList())
+                .build();
+    }
+}
@@ -0,0 +1,134 @@
+package com.cookie.app.search;
+
+import com.cookie.app.event.RecipeChangedEvent;
+import com.cookie.app.model.entity.Product;
+import com.cookie.app.model.entity.Recipe;
+import com.cookie.app.model.entity.RecipeProduct;
+import com.cookie.app.model.enums.Category;
+import com.cookie.app.model.projection.RecipeIngredient;
+import com.cookie.app.repository.RecipeProductRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.doReturn;
+
+@ExtendWith(MockitoExtension.class)
+class SimilarRecipeIndexTest {
+
+    @Mock
+    private RecipeProductRepository recipeProductRepository;
+    @InjectMocks
+    private SimilarRecipeIndex index;
+
+    @BeforeEach
+    void init() {
+        List<RecipeIngredient> ingredients = new ArrayList<>();
+
+        addIngredients(ingredients, 1L, 10L, 11L, 12L, 13L, 14L);
+        addIngredients(ingredients, 2L, 10L, 11L, 12L, 13L, 14L);
+        addIngredients(ingredients, 3L, 10L, 11L, 12L, 13L, 14L, 15L);
+        addIngredients(ingredients, 4L, 20L, 21L, 22L, 23L);
+        doReturn(ingredients).when(recipeProductRepository).findAllRecipeIngredients();
+        index.rebuild();
+    }
+
+    @Test
+    void test_findSimilarRecipesMostSimilarFirst() {
+
+        List<Long> response = index.findSimilarRecipes(1L, 10);
+
+        assertThat(response).containsExactly(2L, 3L);
+    }
+
+    @Test
+    void test_findSimilarRecipesRespectsLimit() {
+
+        List<Long> response = index.findSimilarRecipes(3L, 1);
+
+        assertThat(response).containsExactly(2L);
+    }
+
+    @Test
+    void test_findSimilarRecipesWithoutSimilarRecipe() {
+
+        List<Long> response = index.findSimilarRecipes(4L, 10);
+
+        assertThat(response).isEmpty();
+    }
+
+    @Test
+    void test_findSimilarRecipesNotIndexedRecipe() {
+
+        List<Long> response = index.findSimilarRecipes(99L, 10);
+
+        assertThat(response).isEmpty();
+    }
+
+    @Test
+    void test_onRecipeCreatedIndexesRecipe() {
+        final Recipe recipe = createRecipe(5L, 20L, 21L, 22L, 23L);
+
+        index.onRecipeChanged(new RecipeChangedEvent(recipe, RecipeChangedEvent.ChangeType.CREATED));
+
+        assertThat(index.findSimilarRecipes(4L, 10)).containsExactly(5L);
+    }
+
+    @Test
+    void test_onRecipeDeletedRemovesRecipe() {
+        final Recipe recipe = createRecipe(2L, 10L, 11L, 12L, 13L, 14L);
+
+        index.onRecipeChanged(new RecipeChangedEvent(recipe, RecipeChangedEvent.ChangeType.DELETED));
+
+        assertThat(index.findSimilarRecipes(1L, 10)).containsExactly(3L);
+        assertThat(index.findSimilarRecipes(2L, 10)).isEmpty();
+    }
+
+    @Test
+    void test_jaccardSimilarity() {
+
+        assertThat(SimilarRecipeIndex.jaccardSimilarity(new long[]{1L, 2L, 3L}, new long[]{2L, 3L, 4L})).isEqualTo(0.5);
+        assertThat(SimilarRecipeIndex.jaccardSimilarity(new long[]{1L, 2L}, new long[]{1L, 2L})).isEqualTo(1.0);
+        assertThat(SimilarRecipeIndex.jaccardSimilarity(new long[]{1L}, new long[]{2L})).isZero();
+    }
+
+    private void addIngredients(List<RecipeIngredient> ingredients, long recipeId, long... productIds) {
+        for (long productId : productIds) {
+            ingredients.add(new RecipeIngredient() {
+                @Override
+                public long getRecipeId() {
+                    return recipeId;
+                }
+
+                @Override
+                public long getProductId() {
+                    return productId;
+                }
+
+                @Override
+                public Category getCategory() {
+                    return Category.MEAT;
+                }
+            });
+        }
+    }
+
+    private Recipe createRecipe(long recipeId, Long... productIds) {
+        return Recipe.builder()
+                .id(recipeId)
+                .recipeProducts(Arrays.stream(productIds)
+                        .map(productId -> RecipeProduct.builder()
+                                .product(Product.builder().id(productId).category(Category.MEAT).build())
+                                .build())
+                        .toList())
+                .build();
+    }
+}
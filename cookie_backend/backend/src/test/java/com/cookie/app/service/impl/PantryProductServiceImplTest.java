@@ -13,6 +13,8 @@ import com.cookie.app.model.enums.Unit;
 import com.cookie.app.model.mapper.*;
 import com.cookie.app.model.request.FilterRequest;
 import com.cookie.app.repository.PantryProductRepository;
+import com.cookie.app.repository.PantryStock;
+import com.cookie.app.repository.ProductKey;
 import com.cookie.app.repository.ProductRepository;
 import com.cookie.app.repository.UserRepository;
 import org.junit.jupiter.api.BeforeEach;
@@ -185,18 +187,17 @@ class PantryProductServiceImplTest {
         final List<PantryProductDTO> productsToAdd = List.of(pantryProductDTO, pantryProductDTO2);
 
         doReturn(Optional.of(user)).when(userRepository).findByEmail(email);
-        doReturn(Optional.empty(), Optional.empty()).when(productRepository).findByProductNameAndCategory(
-                productDTO.productName(),
-                productDTO.category().name()
-        );
+        doReturn(Map.of(
+                ProductKey.of(productDTO.productName(), productDTO.category()),
+                Product.builder().id(2L).productName(productDTO.productName()).category(productDTO.category()).build()
+        )).when(productRepository).findOrCreateProducts(anyCollection());
         doReturn(Collections.emptyList()).when(pantryProductRepository).saveAll(
                 this.listOfProductsArgCaptor.capture()
         );
         this.service.addProductsToPantry(id, productsToAdd, email);
         List<PantryProduct> addedProducts = this.listOfProductsArgCaptor.getValue();
 
-        verify(productRepository, times(2)).findByProductNameAndCategory(anyString(), anyString());
-        verify(productRepository, times(2)).save(any(Product.class));
+        verify(productRepository).findOrCreateProducts(anyCollection());
         verify(pantryProductRepository, times(0)).deleteByIdIn(anyList());
         assertThat(addedProducts.get(0).getProduct().getProductName()).isEqualTo(productDTO.productName());
         assertThat(addedProducts.get(0).getProduct().getCategory()).isEqualTo(productDTO.category());
@@ -221,18 +222,14 @@ class PantryProductServiceImplTest {
         final List<PantryProductDTO> productsToAdd = List.of(pantryProductDTO, pantryProductDTO2);
 
         doReturn(Optional.of(user)).when(userRepository).findByEmail(email);
-        doReturn(Optional.of(product), Optional.of(product)).when(productRepository).findByProductNameAndCategory(
-                productDTO.productName(),
-                productDTO.category().name()
-        );
+        doReturn(Map.of(ProductKey.of(product), product)).when(productRepository).findOrCreateProducts(anyCollection());
         doReturn(Collections.emptyList()).when(pantryProductRepository).saveAll(
                 this.listOfProductsArgCaptor.capture()
         );
         this.service.addProductsToPantry(id, productsToAdd, email);
         List<PantryProduct> addedProducts = this.listOfProductsArgCaptor.getValue();
 
-        verify(productRepository, times(2)).findByProductNameAndCategory(anyString(), anyString());
-        verify(productRepository, times(0)).save(any(Product.class));
+        verify(productRepository).findOrCreateProducts(anyCollection());
         verify(pantryProductRepository, times(0)).deleteByIdIn(anyList());
         assertThat(addedProducts.get(0).getProduct().getProductName()).isEqualTo(productDTO.productName());
         assertThat(addedProducts.get(0).getProduct().getCategory()).isEqualTo(productDTO.category());
@@ -258,18 +255,14 @@ class PantryProductServiceImplTest {
         final List<PantryProductDTO> productsToAdd = List.of(pantryProductDTO, pantryProductDTO2);
 
         doReturn(Optional.of(user)).when(userRepository).findByEmail(email);
-        doReturn(Optional.of(product), Optional.of(product)).when(productRepository).findByProductNameAndCategory(
-                productDTO.productName(),
-                productDTO.category().name()
-        );
+        doReturn(Map.of(ProductKey.of(product), product)).when(productRepository).findOrCreateProducts(anyCollection());
         doReturn(Collections.emptyList()).when(pantryProductRepository).saveAll(
                 this.listOfProductsArgCaptor.capture()
         );
         this.service.addProductsToPantry(id, productsToAdd, email);
         List<PantryProduct> addedProducts = this.listOfProductsArgCaptor.getValue();
 
-        verify(productRepository, times(2)).findByProductNameAndCategory(anyString(), anyString());
-        verify(productRepository, times(0)).save(any(Product.class));
+        verify(productRepository).findOrCreateProducts(anyCollection());
         verify(pantryProductRepository, times(0)).deleteByIdIn(anyList());
         assertThat(addedProducts.get(0).getProduct().getProductName()).isEqualTo(productDTO.productName());
         assertThat(addedProducts.get(0).getProduct().getCategory()).isEqualTo(productDTO.category());
@@ -320,18 +313,17 @@ class PantryProductServiceImplTest {
         final PantryProductDTO pantryProductDTO2 = new PantryProductDTO(0L, productDTO2, null, null, 200, Unit.PIECES, 0, null);
         final List<PantryProductDTO> productsToAdd = List.of(pantryProductDTO, pantryProductDTO2);
 
-        doReturn(Optional.empty(), Optional.empty()).when(productRepository).findByProductNameAndCategory(
-                productDTO.productName(),
-                productDTO.category().name()
-        );
+        doReturn(Map.of(
+                ProductKey.of(productDTO.productName(), productDTO.category()),
+                Product.builder().id(2L).productName(productDTO.productName()).category(productDTO.category()).build()
+        )).when(productRepository).findOrCreateProducts(anyCollection());
         doReturn(Collections.emptyList()).when(pantryProductRepository).saveAll(
                 this.listOfProductsArgCaptor.capture()
         );
         this.service.addProductsToPantryFromList(pantry, productsToAdd);
         List<PantryProduct> addedProducts = this.listOfProductsArgCaptor.getValue();
 
-        verify(productRepository, times(2)).findByProductNameAndCategory(anyString(), anyString());
-        verify(productRepository, times(2)).save(any(Product.class));
+        verify(productRepository).findOrCreateProducts(anyCollection());
         verify(pantryProductRepository, times(0)).deleteByIdIn(anyList());
         assertThat(addedProducts.get(0).getProduct().getProductName()).isEqualTo(productDTO.productName());
         assertThat(addedProducts.get(0).getProduct().getCategory()).isEqualTo(productDTO.category());
@@ -491,34 +483,33 @@ class PantryProductServiceImplTest {
 
     @Test
     void test_reservePantryProductSuccessful() {
-        final int quantityBeforeReserving = pantryProduct.getQuantity();
         final int reservedQuantity = 100;
         authority.setAuthorityName(AuthorityEnum.RESERVE);
 
         doReturn(Optional.of(user)).when(userRepository).findByEmail(email);
         doReturn(Optional.of(pantryProduct)).when(pantryProductRepository).findById(id);
+        doReturn(true).when(pantryProductRepository).reservePantryProduct(pantryProduct, reservedQuantity);
         PantryProductDTO productAfterReserve = this.service.reservePantryProduct(id, id, reservedQuantity, email);
 
-        verify(pantryProductRepository).save(pantryProduct);
-        assertThat(productAfterReserve.reserved()).isEqualTo(reservedQuantity);
-        assertThat(productAfterReserve.quantity()).isEqualTo(quantityBeforeReserving - reservedQuantity);
+        verify(pantryProductRepository).reservePantryProduct(pantryProduct, reservedQuantity);
+        verify(pantryProductRepository, times(0)).save(pantryProduct);
+        assertThat(productAfterReserve.id()).isEqualTo(pantryProduct.getId());
     }
 
     @Test
     void test_reservePantryProductUnreservingSuccessful() {
-        final int quantityBeforeUnreserving = pantryProduct.getQuantity();
         final int reserveQuantity = -100;
         pantryProduct.setReserved(100);
-        final int reservedQuantityBeforeUnreserving = pantryProduct.getReserved();
         authority.setAuthorityName(AuthorityEnum.RESERVE);
 
         doReturn(Optional.of(user)).when(userRepository).findByEmail(email);
         doReturn(Optional.of(pantryProduct)).when(pantryProductRepository).findById(id);
+        doReturn(true).when(pantryProductRepository).reservePantryProduct(pantryProduct, reserveQuantity);
         PantryProductDTO productAfterUnreserve = this.service.reservePantryProduct(id, id, reserveQuantity, email);
 
-        verify(pantryProductRepository).save(pantryProduct);
-        assertThat(productAfterUnreserve.reserved()).isEqualTo(reservedQuantityBeforeUnreserving + reserveQuantity);
-        assertThat(productAfterUnreserve.quantity()).isEqualTo(quantityBeforeUnreserving - reserveQuantity);
+        verify(pantryProductRepository).reservePantryProduct(pantryProduct, reserveQuantity);
+        verify(pantryProductRepository, times(0)).save(pantryProduct);
+        assertThat(productAfterUnreserve.id()).isEqualTo(pantryProduct.getId());
     }
 
     @Test
@@ -528,6 +519,7 @@ class PantryProductServiceImplTest {
 
         doReturn(Optional.of(user)).when(userRepository).findByEmail(email);
         doReturn(Optional.of(pantryProduct)).when(pantryProductRepository).findById(id);
+        doReturn(false).when(pantryProductRepository).reservePantryProduct(pantryProduct, reservedQuantity);
         PantryProductDTO productAfterReserve = this.service.reservePantryProduct(id, id, reservedQuantity, email);
 
         verify(pantryProductRepository, times(0)).save(pantryProduct);
@@ -541,6 +533,7 @@ class PantryProductServiceImplTest {
 
         doReturn(Optional.of(user)).when(userRepository).findByEmail(email);
         doReturn(Optional.of(pantryProduct)).when(pantryProductRepository).findById(id);
+        doReturn(false).when(pantryProductRepository).reservePantryProduct(pantryProduct, reservedQuantity);
         PantryProductDTO productAfterReserve = this.service.reservePantryProduct(id, id, reservedQuantity, email);
 
         verify(pantryProductRepository, times(0)).save(pantryProduct);
@@ -549,18 +542,50 @@ class PantryProductServiceImplTest {
 
     @Test
     void test_reservePantryProductsFromRecipeSuccessful() {
-        final int reservedQuantityBeforeReserving = pantryProduct.getReserved();
-        final int quantityBeforeReserving = pantryProduct.getQuantity();
         authority.setAuthorityName(AuthorityEnum.RESERVE);
         final RecipeProduct recipeProduct = new RecipeProduct(id, product, 100, Unit.GRAMS);
         final List<RecipeProduct> recipeProducts = List.of(recipeProduct);
 
+        doReturn(List.of(new PantryStock(id, product.getId(), Unit.GRAMS, 100)))
+                .when(pantryProductRepository).lockPantryStock(id, recipeProducts);
         List<RecipeProduct> unreservedProducts = this.service.reservePantryProductsFromRecipe(id, user, recipeProducts);
 
         assertThat(unreservedProducts).isEmpty();
-        assertThat(pantryProduct.getReserved()).isEqualTo(reservedQuantityBeforeReserving + recipeProduct.getQuantity());
-        assertThat(pantryProduct.getQuantity()).isEqualTo(quantityBeforeReserving - recipeProduct.getQuantity());
-        verify(pantryProductRepository).save(pantryProduct);
+        verify(pantryProductRepository).reservePantryProducts(Map.of(id, recipeProduct.getQuantity()));
+        verify(pantryProductRepository, times(0)).save(any(PantryProduct.class));
+    }
+
+    @Test
+    void test_reservePantryProductsFromRecipeSumsQuantitiesOfSamePantryProduct() {
+        authority.setAuthorityName(AuthorityEnum.RESERVE);
+        final RecipeProduct firstRecipeProduct = new RecipeProduct(id, product, 40, Unit.GRAMS);
+        final RecipeProduct secondRecipeProduct = new RecipeProduct(2L, product, 50, Unit.GRAMS);
+        final RecipeProduct thirdRecipeProduct = new RecipeProduct(3L, product, 20, Unit.GRAMS);
+        final List<RecipeProduct> recipeProducts = List.of(firstRecipeProduct, secondRecipeProduct, thirdRecipeProduct);
+
+        doReturn(List.of(
+                new PantryStock(id, product.getId(), Unit.GRAMS, 100),
+                new PantryStock(2L, product.getId(), Unit.GRAMS, 30)
+        )).when(pantryProductRepository).lockPantryStock(id, recipeProducts);
+        List<RecipeProduct> unreservedProducts = this.service.reservePantryProductsFromRecipe(id, user, recipeProducts);
+
+        assertThat(unreservedProducts).isEmpty();
+        verify(pantryProductRepository).reservePantryProducts(Map.of(id, 90, 2L, 20));
+    }
+
+    @Test
+    void test_reservePantryProductsFromRecipeNotEnoughQuantity() {
+        authority.setAuthorityName(AuthorityEnum.RESERVE);
+        final RecipeProduct firstRecipeProduct = new RecipeProduct(id, product, 60, Unit.GRAMS);
+        final RecipeProduct secondRecipeProduct = new RecipeProduct(2L, product, 60, Unit.GRAMS);
+        final List<RecipeProduct> recipeProducts = List.of(firstRecipeProduct, secondRecipeProduct);
+
+        doReturn(List.of(new PantryStock(id, product.getId(), Unit.GRAMS, 100)))
+                .when(pantryProductRepository).lockPantryStock(id, recipeProducts);
+        List<RecipeProduct> unreservedProducts = this.service.reservePantryProductsFromRecipe(id, user, recipeProducts);
+
+        assertThat(unreservedProducts).containsExactly(secondRecipeProduct);
+        verify(pantryProductRepository).reservePantryProducts(Map.of(id, 60));
     }
 
     @Test
@@ -569,10 +594,11 @@ class PantryProductServiceImplTest {
         final RecipeProduct recipeProduct = new RecipeProduct(id, product, 100, Unit.PIECES);
         final List<RecipeProduct> recipeProducts = List.of(recipeProduct);
 
+        doReturn(List.of()).when(pantryProductRepository).lockPantryStock(id, recipeProducts);
         List<RecipeProduct> unreservedProducts = this.service.reservePantryProductsFromRecipe(id, user, recipeProducts);
 
         assertThat(unreservedProducts).hasSize(recipeProducts.size()).contains(recipeProduct);
-        verify(pantryProductRepository, times(0)).save(pantryProduct);
+        verify(pantryProductRepository, times(0)).reservePantryProducts(anyMap());
     }
 
     @Test
@@ -580,6 +606,7 @@ class PantryProductServiceImplTest {
         final RecipeProduct recipeProduct = new RecipeProduct(id, product, 100, Unit.PIECES);
         final List<RecipeProduct> recipeProducts = List.of(recipeProduct);
 
+        doReturn(List.of()).when(pantryProductRepository).findPantryStock(id, recipeProducts);
         List<RecipeProduct> missingProducts = this.service.getRecipeProductsNotInPantry(pantry, recipeProducts);
 
         assertThat(missingProducts).hasSize(recipeProducts.size()).contains(recipeProduct);
@@ -590,9 +617,12 @@ class PantryProductServiceImplTest {
         final RecipeProduct recipeProduct = new RecipeProduct(id, product, 100, Unit.GRAMS);
         final List<RecipeProduct> recipeProducts = List.of(recipeProduct);
 
+        doReturn(List.of(new PantryStock(id, product.getId(), Unit.GRAMS, 100)))
+                .when(pantryProductRepository).findPantryStock(id, recipeProducts);
         List<RecipeProduct> missingProducts = this.service.getRecipeProductsNotInPantry(pantry, recipeProducts);
 
         assertThat(missingProducts).isEmpty();
+        verify(pantryProductRepository, times(0)).reservePantryProducts(anyMap());
     }
 
     @Test
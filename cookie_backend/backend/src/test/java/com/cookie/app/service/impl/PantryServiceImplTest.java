@@ -4,9 +4,11 @@ import com.cookie.app.exception.ResourceNotFoundException;
 import com.cookie.app.exception.UserPerformedForbiddenActionException;
 import com.cookie.app.exception.UserWasNotFoundAfterAuthException;
 import com.cookie.app.model.dto.AuthorityDTO;
+import com.cookie.app.model.dto.CookableRecipeDTO;
 import com.cookie.app.model.entity.*;
 import com.cookie.app.model.enums.AuthorityEnum;
 import com.cookie.app.model.mapper.*;
+import com.cookie.app.model.projection.RecipeSummary;
 import com.cookie.app.model.request.CreatePantryRequest;
 import com.cookie.app.model.request.UpdatePantryRequest;
 import com.cookie.app.model.response.DeletePantryResponse;
@@ -14,7 +16,10 @@ import com.cookie.app.model.response.GetPantryResponse;
 import com.cookie.app.model.response.GetUserPantriesResponse;
 import com.cookie.app.repository.PantryRepository;
 import com.cookie.app.repository.ProductRepository;
+import com.cookie.app.repository.RecipeRepository;
 import com.cookie.app.repository.UserRepository;
+import com.cookie.app.search.RecipeCoverage;
+import com.cookie.app.search.RecipeIngredientIndex;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
@@ -30,6 +35,8 @@ import java.util.Set;
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.api.Assertions.assertThatThrownBy;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anySet;
 import static org.mockito.Mockito.*;
 
 @ExtendWith(MockitoExtension.class)
@@ -46,8 +53,14 @@ class PantryServiceImplTest {
     private UserRepository userRepository;
     @Mock
     private ProductRepository productRepository;
+    @Spy
+    private RecipeMapper recipeMapper = new RecipeMapperImpl();
     @Mock
     private PantryRepository pantryRepository;
+    @Mock
+    private RecipeRepository recipeRepository;
+    @Mock
+    private RecipeIngredientIndex recipeIngredientIndex;
     @InjectMocks
     private PantryServiceImpl service;
 
@@ -304,4 +317,38 @@ class PantryServiceImplTest {
                 .isInstanceOf(UserPerformedForbiddenActionException.class);
         verify(pantryRepository, times(0)).save(pantry);
     }
+
+    @Test
+    void test_getCookableRecipesSuccessful() {
+        final RecipeSummary recipeSummary = mock(RecipeSummary.class);
+        final Product product = Product.builder().id(id).build();
+        pantryProduct.setProduct(product);
+        pantryProduct.setQuantity(100);
+        pantry.setPantryProducts(List.of(
+                pantryProduct,
+                PantryProduct.builder().product(Product.builder().id(2L).build()).quantity(0).build()
+        ));
+
+        doReturn(Optional.of(user)).when(userRepository).findByEmail(email);
+        doReturn(List.of(new RecipeCoverage(3L, 2, 1), new RecipeCoverage(4L, 1, 0)))
+                .when(recipeIngredientIndex).findRecipesCoveredBy(Set.of(id), 1, 50);
+        doReturn(3L).when(recipeSummary).getId();
+        doReturn(List.of(recipeSummary)).when(recipeRepository).findRecipeSummariesByIdIn(List.of(3L, 4L));
+        List<CookableRecipeDTO> response = service.getCookableRecipes(id, 1, email);
+
+        assertThat(response).hasSize(1);
+        assertThat(response.get(0).recipe().id()).isEqualTo(3L);
+        assertThat(response.get(0).ingredients()).isEqualTo(2);
+        assertThat(response.get(0).missingIngredients()).isEqualTo(1);
+    }
+
+    @Test
+    void test_getCookableRecipesPantryNotFound() {
+
+        doReturn(Optional.of(user)).when(userRepository).findByEmail(email);
+
+        assertThatThrownBy(() -> service.getCookableRecipes(2L, 0, email))
+                .isInstanceOf(ResourceNotFoundException.class);
+        verify(recipeIngredientIndex, times(0)).findRecipesCoveredBy(anySet(), anyInt(), anyInt());
+    }
 }
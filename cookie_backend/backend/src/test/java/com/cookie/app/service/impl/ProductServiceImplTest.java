@@ -1,59 +1,93 @@
 package com.cookie.app.service.impl;
 
+import com.cookie.app.config.ProductMatchingProperties;
 import com.cookie.app.model.dto.ProductDTO;
 import com.cookie.app.model.entity.Product;
 import com.cookie.app.model.enums.Category;
 import com.cookie.app.model.mapper.ProductMapper;
 import com.cookie.app.model.mapper.ProductMapperImpl;
 import com.cookie.app.repository.ProductRepository;
+import com.cookie.app.search.ProductCatalog;
+import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
-import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
-import org.springframework.data.domain.PageImpl;
-import org.springframework.data.domain.PageRequest;
 
 import java.util.Collections;
 import java.util.List;
 
 import static org.assertj.core.api.Assertions.assertThat;
-import static org.mockito.ArgumentMatchers.any;
-import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.doReturn;
 
 @ExtendWith(MockitoExtension.class)
 class ProductServiceImplTest {
-    @Spy
-    private ProductMapper productMapper = new ProductMapperImpl();
+    @Mock
+    private ProductCatalog productCatalog;
     @Mock
     private ProductRepository productRepository;
-    @InjectMocks
+    @Spy
+    private ProductMapper productMapper = new ProductMapperImpl();
+
     private ProductServiceImpl service;
 
+    @BeforeEach
+    void init() {
+        service = new ProductServiceImpl(
+                productCatalog,
+                productRepository,
+                productMapper,
+                new ProductMatchingProperties(0.3, 0, 0.6, 500, ProductMatchingProperties.MergeMode.DISABLED)
+        );
+    }
+
     @Test
     void test_getProductsWithFilterSuccessful() {
         final String filterValue = "prod";
-        final Product product = new Product(1L, "product", Category.CEREAL);
-        final PageImpl<Product> pageResponse = new PageImpl<>(List.of(product));
+        final ProductDTO product = new ProductDTO(1L, "product", Category.CEREAL);
 
-        doReturn(pageResponse).when(productRepository).findProductsWithFilter(eq(filterValue), any(PageRequest.class));
-        List<ProductDTO> returnValue = this.service.getProductsWithFilter(filterValue);
+        doReturn(List.of(product)).when(productCatalog).findProducts(filterValue, Category.CEREAL, 10);
+        List<ProductDTO> returnValue = this.service.getProductsWithFilter(filterValue, Category.CEREAL);
 
-        assertThat(returnValue).hasSize(pageResponse.getContent().size());
-        assertThat(returnValue.get(0).productId()).isEqualTo(product.getId());
-        assertThat(returnValue.get(0).productName()).isEqualTo(product.getProductName());
-        assertThat(returnValue.get(0).category()).isEqualTo(product.getCategory());
+        assertThat(returnValue).containsExactly(product);
     }
 
     @Test
     void test_getProductsWithFilterSuccessfulReturnsEmptyContent() {
         final String filterValue = "prod";
-        final PageImpl<Product> pageResponse = new PageImpl<>(Collections.emptyList());
 
-        doReturn(pageResponse).when(productRepository).findProductsWithFilter(eq(filterValue), any(PageRequest.class));
-        List<ProductDTO> returnValue = this.service.getProductsWithFilter(filterValue);
+        doReturn(Collections.emptyList()).when(productCatalog).findProducts(filterValue, null, 10);
+        List<ProductDTO> returnValue = this.service.getProductsWithFilter(filterValue, null);
+
+        assertThat(returnValue).isEmpty();
+    }
+
+    @Test
+    void test_getProductCatalogVersionSuccessful() {
+
+        doReturn(5L).when(productCatalog).getVersion();
+        long returnValue = this.service.getProductCatalogVersion();
+
+        assertThat(returnValue).isEqualTo(5L);
+    }
+
+    @Test
+    void test_getProductSuggestionsSuccessful() {
+        final Product product = new Product(1L, "Tomato", Category.VEGETABLES);
+
+        doReturn(List.of(product)).when(productRepository)
+                .findSimilarProducts("tomatos with basil", Category.VEGETABLES.name(), 0.3, 10);
+        List<ProductDTO> returnValue = this.service.getProductSuggestions(" tomatos  with basil", Category.VEGETABLES);
+
+        assertThat(returnValue).containsExactly(new ProductDTO(1L, "Tomato", Category.VEGETABLES));
+    }
+
+    @Test
+    void test_getProductSuggestionsOfAllCategories() {
+
+        doReturn(Collections.emptyList()).when(productRepository).findSimilarProducts("tomatos", null, 0.3, 10);
+        List<ProductDTO> returnValue = this.service.getProductSuggestions("tomatos", null);
 
         assertThat(returnValue).isEmpty();
     }
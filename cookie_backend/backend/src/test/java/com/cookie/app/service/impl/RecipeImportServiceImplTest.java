@@ -0,0 +1,210 @@
+package com.cookie.app.service.impl;
+
+import com.cookie.app.event.ProductCreatedEvent;
+import com.cookie.app.event.RecipeChangedEvent;
+import com.cookie.app.model.entity.Product;
+import com.cookie.app.model.entity.Recipe;
+import com.cookie.app.model.entity.User;
+import com.cookie.app.model.enums.Category;
+import com.cookie.app.model.mapper.AuthorityMapper;
+import com.cookie.app.model.mapper.AuthorityMapperImpl;
+import com.cookie.app.model.response.ImportRecipesResponse;
+import com.cookie.app.repository.ProductRepository;
+import com.cookie.app.repository.RecipeImportRepository;
+import com.cookie.app.repository.UserRepository;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.validation.Validation;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Captor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.transaction.support.TransactionCallback;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class RecipeImportServiceImplTest {
+    private final String email = "email@email.com";
+    private final String preparation = "Mix flour with milk and fry thin pancakes on the pan";
+
+    @Captor
+    private ArgumentCaptor<List<Recipe>> recipesArgumentCaptor;
+    @Captor
+    private ArgumentCaptor<String[]> namesArgumentCaptor;
+
+    private AuthorityMapper authorityMapper = new AuthorityMapperImpl();
+    @Mock
+    private UserRepository userRepository;
+    @Mock
+    private ProductRepository productRepository;
+    @Mock
+    private RecipeImportRepository recipeImportRepository;
+    @Mock
+    private TransactionTemplate transactionTemplate;
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+
+    private RecipeImportServiceImpl service;
+    private User user;
+
+    @BeforeEach
+    void init() {
+        service = new RecipeImportServiceImpl(
+                userRepository,
+                productRepository,
+                authorityMapper,
+                recipeImportRepository,
+                transactionTemplate,
+                new ObjectMapper(),
+                Validation.buildDefaultValidatorFactory().getValidator(),
+                eventPublisher
+        );
+        user = User.builder().id(1L).email(email).build();
+
+        doReturn(Optional.of(user)).when(userRepository).findByEmail(email);
+    }
+
+    @Test
+    void test_importRecipesSuccessful() {
+        final Product flour = Product.builder().id(1L).productName("Flour").category(Category.BAKING_GOODS).build();
+        final Product milk = Product.builder().id(2L).productName("milk").category(Category.DAIRY).build();
+        final InputStream recipes = createImport(
+                createRecipeLine("Pancakes", "flour", "BAKING_GOODS", "milk", "DAIRY"),
+                createRecipeLine("Waffles", "FLOUR", "BAKING_GOODS", "milk", "DAIRY")
+        );
+
+        mockTransactionTemplate();
+        doReturn(List.of(flour)).when(recipeImportRepository).findProducts(any(), any());
+        doReturn(List.of(milk)).when(recipeImportRepository).insertProducts(namesArgumentCaptor.capture(), any());
+        doReturn(List.of(10L, 11L)).when(recipeImportRepository).reserveRecipeIds(2);
+        ImportRecipesResponse response = this.service.importRecipes(email, recipes);
+
+        verify(recipeImportRepository).insertRecipes(recipesArgumentCaptor.capture());
+        verify(eventPublisher, times(2)).publishEvent(any(RecipeChangedEvent.class));
+        verify(eventPublisher).publishEvent(new ProductCreatedEvent(milk));
+        assertThat(response).isEqualTo(new ImportRecipesResponse(2, 0, List.of()));
+        assertThat(namesArgumentCaptor.getValue()).containsExactly("milk");
+        assertThat(recipesArgumentCaptor.getValue()).extracting(Recipe::getId).containsExactly(10L, 11L);
+        assertThat(recipesArgumentCaptor.getValue().get(1).getCreator()).isEqualTo(user);
+        assertThat(recipesArgumentCaptor.getValue().get(1).getRecipeProducts())
+                .extracting(recipeProduct -> recipeProduct.getProduct().getId())
+                .containsExactly(1L, 2L);
+    }
+
+    @Test
+    void test_importRecipesUsesProductCreatedConcurrently() {
+        final Product milk = Product.builder().id(2L).productName("Milk").category(Category.DAIRY).build();
+        final InputStream recipes = createImport(createRecipeLine("Pancakes", "milk", "DAIRY"));
+
+        mockTransactionTemplate();
+        doReturn(List.of(), List.of(milk)).when(recipeImportRepository).findProducts(any(), any());
+        doReturn(List.of()).when(recipeImportRepository).insertProducts(any(), any());
+        doReturn(List.of(10L)).when(recipeImportRepository).reserveRecipeIds(1);
+        ImportRecipesResponse response = this.service.importRecipes(email, recipes);
+
+        verify(recipeImportRepository).insertRecipes(recipesArgumentCaptor.capture());
+        verify(recipeImportRepository, times(2)).findProducts(any(), any());
+        verify(eventPublisher, times(0)).publishEvent(any(ProductCreatedEvent.class));
+        assertThat(response).isEqualTo(new ImportRecipesResponse(1, 0, List.of()));
+        assertThat(recipesArgumentCaptor.getValue().get(0).getRecipeProducts())
+                .extracting(recipeProduct -> recipeProduct.getProduct().getId())
+                .containsExactly(2L);
+    }
+
+    @Test
+    void test_importRecipesReportsInvalidLines() {
+        final InputStream recipes = createImport(
+                "{not json",
+                "{\"recipeName\":\"Pancakes\",\"preparation\":\"" + preparation + "\",\"preparationTime\":20," +
+                        "\"mealType\":\"BREAKFAST\",\"portions\":2,\"products\":[]}",
+                "",
+                createRecipeLine("Waffles", "flour", "BAKING_GOODS", "milk", "DAIRY")
+        );
+
+        mockTransactionTemplate();
+        doReturn(List.of()).when(recipeImportRepository).findProducts(any(), any());
+        doReturn(List.of(
+                Product.builder().id(1L).productName("flour").category(Category.BAKING_GOODS).build(),
+                Product.builder().id(2L).productName("milk").category(Category.DAIRY).build()
+        )).when(recipeImportRepository).insertProducts(any(), any());
+        doReturn(List.of(10L)).when(recipeImportRepository).reserveRecipeIds(1);
+        ImportRecipesResponse response = this.service.importRecipes(email, recipes);
+
+        assertThat(response.importedRecipes()).isEqualTo(1);
+        assertThat(response.failedRecipes()).isEqualTo(2);
+        assertThat(response.errors()).containsExactly(
+                new ImportRecipesResponse.LineError(1, "Line is not valid recipe JSON"),
+                new ImportRecipesResponse.LineError(2, "Nr of products must be at least 1")
+        );
+    }
+
+    @Test
+    void test_importRecipesSavesRejectedChunkRecipeByRecipe() {
+        final Product flour = Product.builder().id(1L).productName("flour").category(Category.BAKING_GOODS).build();
+        final InputStream recipes = createImport(
+                createRecipeLine("Pancakes", "flour", "BAKING_GOODS"),
+                createRecipeLine("Recipe name which is too long for its column", "flour", "BAKING_GOODS")
+        );
+
+        mockTransactionTemplate();
+        doReturn(List.of(flour)).when(recipeImportRepository).findProducts(any(), any());
+        doReturn(List.of(10L, 11L), List.of(12L), List.of(13L)).when(recipeImportRepository).reserveRecipeIds(anyInt());
+        doAnswer(invocation -> {
+            List<Recipe> chunk = invocation.getArgument(0);
+
+            if (chunk.stream().anyMatch(recipe -> recipe.getRecipeName().length() > 30)) {
+                throw new DataIntegrityViolationException("value too long");
+            }
+            return null;
+        }).when(recipeImportRepository).insertRecipes(anyList());
+        ImportRecipesResponse response = this.service.importRecipes(email, recipes);
+
+        verify(recipeImportRepository, times(3)).insertRecipes(anyList());
+        verify(eventPublisher).publishEvent(any(RecipeChangedEvent.class));
+        assertThat(response).isEqualTo(new ImportRecipesResponse(1, 1,
+                List.of(new ImportRecipesResponse.LineError(2, "Recipe could not be saved"))));
+    }
+
+    private void mockTransactionTemplate() {
+        doAnswer(invocation -> invocation.<TransactionCallback<?>>getArgument(0).doInTransaction(null))
+                .when(transactionTemplate).execute(any());
+    }
+
+    private InputStream createImport(String... lines) {
+        return new ByteArrayInputStream(String.join("\n", lines).getBytes(StandardCharsets.UTF_8));
+    }
+
+    private String createRecipeLine(String recipeName, String... products) {
+        StringBuilder line = new StringBuilder("{\"recipeName\":\"")
+                .append(recipeName)
+                .append("\",\"preparation\":\"")
+                .append(preparation)
+                .append("\",\"preparationTime\":20,\"mealType\":\"BREAKFAST\",\"portions\":2,\"products\":[");
+
+        for (int i = 0; i < products.length; i += 2) {
+            if (i > 0) {
+                line.append(',');
+            }
+            line.append("{\"productName\":\"").append(products[i])
+                    .append("\",\"category\":\"").append(products[i + 1])
+                    .append("\",\"quantity\":100,\"unit\":\"GRAMS\"}");
+        }
+
+        return line.append("]}").toString();
+    }
+}
@@ -1,43 +1,77 @@
 package com.cookie.app.service.impl;
 
+import com.cookie.app.event.RecipeChangedEvent;
+import com.cookie.app.event.RecipeImageUploadedEvent;
+import com.cookie.app.exception.ImageProcessingPendingException;
 import com.cookie.app.exception.ResourceNotFoundException;
 import com.cookie.app.exception.UserPerformedForbiddenActionException;
+import com.cookie.app.exception.ValidationException;
 import com.cookie.app.model.dto.*;
 import com.cookie.app.model.entity.*;
 import com.cookie.app.model.enums.AuthorityEnum;
 import com.cookie.app.model.enums.Category;
+import com.cookie.app.model.enums.ImageRendition;
+import com.cookie.app.model.enums.ImageStatus;
 import com.cookie.app.model.enums.MealType;
+import com.cookie.app.model.enums.SuggestionType;
 import com.cookie.app.model.enums.Unit;
 import com.cookie.app.model.mapper.*;
+import com.cookie.app.model.projection.RecipeExportRow;
+import com.cookie.app.model.projection.RecipeImageState;
+import com.cookie.app.model.projection.RecipeSummary;
 import com.cookie.app.model.request.CreateRecipeRequest;
+import com.cookie.app.model.request.IngredientFilterRequest;
 import com.cookie.app.model.request.RecipeFilterRequest;
 import com.cookie.app.model.request.UpdateRecipeRequest;
+import com.cookie.app.repository.ProductKey;
 import com.cookie.app.repository.ProductRepository;
+import com.cookie.app.repository.RecipeFacetCount;
+import com.cookie.app.repository.RecipeKeyset;
 import com.cookie.app.repository.RecipeProductRepository;
 import com.cookie.app.repository.RecipeRepository;
 import com.cookie.app.repository.UserRepository;
+import com.cookie.app.search.RecipeAutocompleteIndex;
+import com.cookie.app.search.RecipeIdPage;
+import com.cookie.app.search.RecipeIngredientIndex;
+import com.cookie.app.search.SimilarRecipeIndex;
 import com.cookie.app.service.PantryProductService;
 import com.cookie.app.service.ShoppingListProductService;
+import com.cookie.app.stats.RecipeViewCounter;
+import com.cookie.app.storage.ByteArrayImageContent;
+import com.cookie.app.storage.ImageContent;
+import com.cookie.app.storage.ImageStore;
+import com.cookie.app.storage.PendingImage;
+import com.cookie.app.storage.RecipeImageProcessor;
+import com.cookie.app.storage.UnusedImageCollector;
+import com.cookie.app.util.CursorUtil;
+import com.cookie.app.util.ImageRenditionUtil;
 import com.cookie.app.util.ImageUtil;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.*;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Sort;
+import org.springframework.data.projection.SpelAwareProxyProjectionFactory;
 import org.springframework.mock.web.MockMultipartFile;
 import org.springframework.web.multipart.MultipartFile;
 
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.util.*;
 import java.util.List;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.api.Assertions.assertThatThrownBy;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
 import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.*;
 
@@ -47,6 +81,7 @@ class RecipeServiceImplTest {
     private final String recipeName = "recipeName";
     private final String productName = "productName";
     private final String filter = "filter";
+    private final String tsQuery = "filter:*";
     private final String col = "col";
     private final Sort.Direction direction = Sort.Direction.DESC;
     private final Long id = 1L;
@@ -73,11 +108,30 @@ class RecipeServiceImplTest {
     private PantryProductService pantryProductService;
     @Mock
     private ShoppingListProductService shoppingListProductService;
+    @Mock
+    private ImageStore imageStore;
+    @Mock
+    private RecipeImageProcessor recipeImageProcessor;
+    @Spy
+    private ObjectMapper objectMapper = new ObjectMapper();
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+    @Mock
+    private RecipeIngredientIndex recipeIngredientIndex;
+    @Mock
+    private SimilarRecipeIndex similarRecipeIndex;
+    @Mock
+    private RecipeAutocompleteIndex recipeAutocompleteIndex;
+    @Mock
+    private RecipeViewCounter recipeViewCounter;
+    @Mock
+    private UnusedImageCollector unusedImageCollector;
     @InjectMocks
     private RecipeServiceImpl service;
 
     private RecipeProduct recipeProduct;
     private Recipe recipe;
+    private RecipeSummary recipeSummary;
     private User user;
     private Group group;
     private Authority authority;
@@ -110,101 +164,217 @@ class RecipeServiceImplTest {
                 .recipeProducts(new ArrayList<>(Collections.singletonList(recipeProduct)))
                 .preparation("preparation preparation")
                 .build();
+        recipeSummary = createRecipeSummary(id, 1);
     }
 
     @Test
     void test_getRecipesSuccessful() {
         final RecipeFilterRequest filterRequest = new RecipeFilterRequest(filter, col, direction, 15, 1, List.of(MealType.APPETIZER));
-        final PageImpl<Recipe> pageResponse = new PageImpl<>(List.of(recipe));
+        final PageImpl<RecipeSummary> pageResponse = new PageImpl<>(List.of(recipeSummary));
 
         doReturn(pageResponse).when(recipeRepository)
-                .findRecipesByFilter(eq(filter), eq(15), eq(1), eq(Set.of("APPETIZER")), any(PageRequest.class));
-
-        try (MockedStatic<ImageUtil> imageUtilMockedStatic = mockStatic(ImageUtil.class)) {
-            imageUtilMockedStatic.when(() -> ImageUtil.decompressImage(any()))
-                    .thenReturn(new byte[0]);
-            PageResult<RecipeDTO> response = this.service.getRecipes(1, filterRequest);
-
-            verify(recipeRepository, times(0)).findRecipes(anyInt(), anyInt(), anySet(), any(PageRequest.class));
-            assertThat(response.pageNr()).isZero();
-            assertThat(response.totalElements()).isEqualTo(pageResponse.getTotalElements());
-            assertThat(response.content().get(0).id()).isEqualTo(pageResponse.getContent().get(0).getId());
-            assertThat(response.content().get(0).recipeName()).isEqualTo(pageResponse.getContent().get(0).getRecipeName());
-        }
+                .findRecipesByFilter(eq(tsQuery), eq(15), eq(1), eq(Set.of("APPETIZER")), any(PageRequest.class));
+
+        PageResult<RecipeDTO> response = this.service.getRecipes(1, filterRequest);
+
+        verify(recipeRepository, times(0)).findRecipes(anyInt(), anyInt(), anySet(), any(PageRequest.class));
+        assertThat(response.pageNr()).isZero();
+        assertThat(response.totalElements()).isEqualTo(pageResponse.getTotalElements());
+        assertThat(response.content().get(0).id()).isEqualTo(pageResponse.getContent().get(0).getId());
+        assertThat(response.content().get(0).recipeName()).isEqualTo(pageResponse.getContent().get(0).getRecipeName());
     }
 
     @Test
     void test_getRecipesSuccessfulWithNullMealTypesPrepTimeAndPortions() {
         final RecipeFilterRequest filterRequest = new RecipeFilterRequest(filter, col, direction, null, null, null);
-        final PageImpl<Recipe> pageResponse = new PageImpl<>(List.of(recipe));
+        final PageImpl<RecipeSummary> pageResponse = new PageImpl<>(List.of(recipeSummary));
         final Set<String> mealTypesStrings = MealType.ALL_MEAL_TYPES
                 .stream()
                 .map(Enum::name)
                 .collect(Collectors.toSet());
 
         doReturn(pageResponse).when(recipeRepository)
-                .findRecipesByFilter(eq(filter), eq(0), eq(0), eq(mealTypesStrings), any(PageRequest.class));
-
-        try (MockedStatic<ImageUtil> imageUtilMockedStatic = mockStatic(ImageUtil.class)) {
-            imageUtilMockedStatic.when(() -> ImageUtil.decompressImage(any()))
-                    .thenReturn(new byte[0]);
-            PageResult<RecipeDTO> response = this.service.getRecipes(1, filterRequest);
-
-            verify(recipeRepository, times(0)).findRecipes(anyInt(), anyInt(), anySet(), any(PageRequest.class));
-            assertThat(response.pageNr()).isZero();
-            assertThat(response.totalElements()).isEqualTo(pageResponse.getTotalElements());
-            assertThat(response.content().get(0).id()).isEqualTo(pageResponse.getContent().get(0).getId());
-            assertThat(response.content().get(0).recipeName()).isEqualTo(pageResponse.getContent().get(0).getRecipeName());
-        }
+                .findRecipesByFilter(eq(tsQuery), eq(0), eq(0), eq(mealTypesStrings), any(PageRequest.class));
+
+        PageResult<RecipeDTO> response = this.service.getRecipes(1, filterRequest);
+
+        verify(recipeRepository, times(0)).findRecipes(anyInt(), anyInt(), anySet(), any(PageRequest.class));
+        assertThat(response.pageNr()).isZero();
+        assertThat(response.totalElements()).isEqualTo(pageResponse.getTotalElements());
+        assertThat(response.content().get(0).id()).isEqualTo(pageResponse.getContent().get(0).getId());
+        assertThat(response.content().get(0).recipeName()).isEqualTo(pageResponse.getContent().get(0).getRecipeName());
     }
 
     @Test
     void test_getRecipesSuccessfulWithoutFilter() {
         final RecipeFilterRequest filterRequest = new RecipeFilterRequest(null, col, direction, 15, 1, List.of(MealType.APPETIZER));
-        final PageImpl<Recipe> pageResponse = new PageImpl<>(List.of(recipe));
+        final PageImpl<RecipeSummary> pageResponse = new PageImpl<>(List.of(recipeSummary));
+
+        doReturn(pageResponse).when(recipeRepository)
+                .findRecipes(eq(15), eq(1), eq(Set.of("APPETIZER")), any(PageRequest.class));
+
+        PageResult<RecipeDTO> response = this.service.getRecipes(1, filterRequest);
+
+        verify(recipeRepository, times(0)).findRecipesByFilter(anyString(), anyInt(), anyInt(), anySet(), any(PageRequest.class));
+        assertThat(response.pageNr()).isZero();
+        assertThat(response.totalElements()).isEqualTo(pageResponse.getTotalElements());
+        assertThat(response.content().get(0).id()).isEqualTo(pageResponse.getContent().get(0).getId());
+        assertThat(response.content().get(0).recipeName()).isEqualTo(pageResponse.getContent().get(0).getRecipeName());
+    }
+
+    @Test
+    void test_getRecipesJsonSuccessful() throws IOException {
+        final RecipeFilterRequest filterRequest = new RecipeFilterRequest(null, col, direction, 15, 1, List.of(MealType.APPETIZER));
+        final PageImpl<RecipeSummary> pageResponse = new PageImpl<>(List.of(recipeSummary));
 
         doReturn(pageResponse).when(recipeRepository)
                 .findRecipes(eq(15), eq(1), eq(Set.of("APPETIZER")), any(PageRequest.class));
 
-        try (MockedStatic<ImageUtil> imageUtilMockedStatic = mockStatic(ImageUtil.class)) {
-            imageUtilMockedStatic.when(() -> ImageUtil.decompressImage(any()))
-                    .thenReturn(new byte[0]);
-            PageResult<RecipeDTO> response = this.service.getRecipes(1, filterRequest);
+        byte[] response = this.service.getRecipesJson(1, filterRequest);
 
-            verify(recipeRepository, times(0)).findRecipesByFilter(anyString(), anyInt(), anyInt(), anySet(), any(PageRequest.class));
-            assertThat(response.pageNr()).isZero();
-            assertThat(response.totalElements()).isEqualTo(pageResponse.getTotalElements());
-            assertThat(response.content().get(0).id()).isEqualTo(pageResponse.getContent().get(0).getId());
-            assertThat(response.content().get(0).recipeName()).isEqualTo(pageResponse.getContent().get(0).getRecipeName());
+        JsonNode page = objectMapper.readTree(response);
+        assertThat(page.get("totalElements").asLong()).isEqualTo(pageResponse.getTotalElements());
+        assertThat(page.get("content").get(0).get("id").asLong()).isEqualTo(recipeSummary.getId());
+        assertThat(page.get("content").get(0).get("recipeName").asText()).isEqualTo(recipeSummary.getRecipeName());
+    }
+
+    @Test
+    void test_getRecipeFacetsSuccessful() {
+        final RecipeFilterRequest filterRequest = new RecipeFilterRequest(filter, null, null, 30, null, List.of(MealType.DINNER));
+        final List<RecipeFacetCount> facetCounts = List.of(
+                new RecipeFacetCount(RecipeFacetCount.Facet.MEAL_TYPE, "DINNER", 3),
+                new RecipeFacetCount(RecipeFacetCount.Facet.MEAL_TYPE, "SOUP", 2),
+                new RecipeFacetCount(RecipeFacetCount.Facet.CUISINE, "Italian", 2),
+                new RecipeFacetCount(RecipeFacetCount.Facet.CUISINE, "", 1),
+                new RecipeFacetCount(RecipeFacetCount.Facet.CUISINE, "Thai", 0),
+                new RecipeFacetCount(RecipeFacetCount.Facet.PREPARATION_TIME, "15", 1),
+                new RecipeFacetCount(RecipeFacetCount.Facet.PREPARATION_TIME, "60", 4),
+                new RecipeFacetCount(RecipeFacetCount.Facet.PORTIONS, "2", 2),
+                new RecipeFacetCount(RecipeFacetCount.Facet.PORTIONS, "12", 1),
+                new RecipeFacetCount(RecipeFacetCount.Facet.TOTAL, null, 3)
+        );
+
+        doReturn(facetCounts).when(recipeRepository).countRecipeFacets(tsQuery, 30, 0, Set.of("DINNER"));
+
+        RecipeFacetsDTO response = this.service.getRecipeFacets(filterRequest);
+
+        assertThat(response.totalElements()).isEqualTo(3);
+        assertThat(response.mealTypes()).hasSize(MealType.values().length)
+                .containsEntry(MealType.DINNER, 3L)
+                .containsEntry(MealType.SOUP, 2L)
+                .containsEntry(MealType.LUNCH, 0L);
+        assertThat(response.cuisines()).containsExactly(Map.entry("Italian", 2L));
+        assertThat(response.preparationTimes()).containsExactly(
+                Map.entry(5, 0L), Map.entry(15, 1L), Map.entry(30, 1L), Map.entry(45, 1L),
+                Map.entry(60, 5L), Map.entry(90, 5L), Map.entry(120, 5L), Map.entry(2880, 5L)
+        );
+        assertThat(response.portions()).containsExactly(
+                Map.entry(1, 0L), Map.entry(2, 2L), Map.entry(4, 2L), Map.entry(8, 2L), Map.entry(12, 3L)
+        );
+    }
+
+    @Test
+    void test_searchRecipesByIngredientsSuccessful() {
+        final IngredientFilterRequest filterRequest = new IngredientFilterRequest(
+                List.of(id), null, null, null, null, List.of(Category.DAIRY)
+        );
+        final RecipeSummary newerRecipeSummary = createRecipeSummary(2L, 1);
+
+        doReturn(new RecipeIdPage(List.of(2L, recipeSummary.getId(), 3L), 43))
+                .when(recipeIngredientIndex).searchRecipes(filterRequest, 1, 20);
+        doReturn(List.of(recipeSummary, newerRecipeSummary))
+                .when(recipeRepository).findRecipeSummariesByIdIn(List.of(2L, recipeSummary.getId(), 3L));
+        PageResult<RecipeDTO> response = this.service.searchRecipesByIngredients(2, filterRequest);
+
+        assertThat(response.content()).extracting(RecipeDTO::id).containsExactly(2L, recipeSummary.getId());
+        assertThat(response.totalElements()).isEqualTo(43);
+        assertThat(response.totalPages()).isEqualTo(3);
+        assertThat(response.pageNr()).isEqualTo(1);
+    }
+
+    @Test
+    void test_searchRecipesByIngredientsNothingFound() {
+        final IngredientFilterRequest filterRequest = new IngredientFilterRequest(
+                List.of(id), null, null, null, null, null
+        );
+
+        doReturn(new RecipeIdPage(List.of(), 0)).when(recipeIngredientIndex).searchRecipes(filterRequest, 0, 20);
+        PageResult<RecipeDTO> response = this.service.searchRecipesByIngredients(1, filterRequest);
+
+        assertThat(response.content()).isEmpty();
+        assertThat(response.totalElements()).isZero();
+        verify(recipeRepository, times(0)).findRecipeSummariesByIdIn(anyList());
+    }
+
+    @Test
+    void test_scrollRecipesFirstPageWithNextCursor() {
+        final RecipeFilterRequest filterRequest = new RecipeFilterRequest(null, "portions", Sort.Direction.ASC, null, null, null);
+        final List<RecipeSummary> foundRecipes = new ArrayList<>();
+        for (int i = 1; i <= 21; i++) {
+            foundRecipes.add(createRecipeSummary(i, i));
         }
+
+        doReturn(foundRecipes).when(recipeRepository)
+                .findRecipesAfter(any(RecipeKeyset.class), eq(""), eq(0), eq(0), anySet(), eq(21));
+
+        CursorPageResult<RecipeDTO> response = this.service.scrollRecipes(null, filterRequest);
+
+        assertThat(response.content()).hasSize(20);
+        assertThat(response.nextCursor()).isNotNull();
+        RecipeKeyset nextKeyset = CursorUtil.decode(response.nextCursor());
+        assertThat(nextKeyset.sortColName()).isEqualTo("portions");
+        assertThat(nextKeyset.direction()).isEqualTo(Sort.Direction.ASC);
+        assertThat(nextKeyset.lastValue()).isEqualTo("20");
+        assertThat(nextKeyset.lastId()).isEqualTo(20L);
+    }
+
+    @Test
+    void test_scrollRecipesLastPageUsingCursor() {
+        final RecipeKeyset keyset = new RecipeKeyset("recipe_name", Sort.Direction.DESC, recipeName, 5L);
+        final RecipeFilterRequest filterRequest = new RecipeFilterRequest(filter, null, null, 15, 1, List.of(MealType.APPETIZER));
+
+        doReturn(List.of(recipeSummary)).when(recipeRepository)
+                .findRecipesAfter(eq(keyset), eq(tsQuery), eq(15), eq(1), eq(Set.of("APPETIZER")), eq(21));
+
+        CursorPageResult<RecipeDTO> response = this.service.scrollRecipes(CursorUtil.encode(keyset), filterRequest);
+
+        assertThat(response.content()).hasSize(1);
+        assertThat(response.content().get(0).id()).isEqualTo(recipe.getId());
+        assertThat(response.nextCursor()).isNull();
+    }
+
+    @Test
+    void test_scrollRecipesNotSortableColumn() {
+        final RecipeFilterRequest filterRequest = new RecipeFilterRequest(null, col, direction, null, null, null);
+
+        assertThatThrownBy(() -> this.service.scrollRecipes(null, filterRequest))
+                .isInstanceOf(ValidationException.class);
+        verify(recipeRepository, times(0))
+                .findRecipesAfter(any(RecipeKeyset.class), anyString(), anyInt(), anyInt(), anySet(), anyInt());
     }
 
     @Test
     void test_getUserRecipesSuccessful() {
         final RecipeFilterRequest filterRequest = new RecipeFilterRequest(filter, col, direction, 15, 1, List.of(MealType.APPETIZER));
-        final PageImpl<Recipe> pageResponse = new PageImpl<>(List.of(recipe));
+        final PageImpl<RecipeSummary> pageResponse = new PageImpl<>(List.of(recipeSummary));
 
         doReturn(Optional.of(user)).when(userRepository).findByEmail(email);
         doReturn(pageResponse).when(recipeRepository)
-                .findUserRecipesByFilter(eq(user.getId()), eq(filter), eq(15), eq(1), eq(Set.of("APPETIZER")), any(PageRequest.class));
-
-        try (MockedStatic<ImageUtil> imageUtilMockedStatic = mockStatic(ImageUtil.class)) {
-            imageUtilMockedStatic.when(() -> ImageUtil.decompressImage(any()))
-                    .thenReturn(new byte[0]);
-            PageResult<RecipeDTO> response = this.service.getUserRecipes(email, 1, filterRequest);
-
-            verify(recipeRepository, times(0)).findUserRecipes(anyLong(), anyInt(), anyInt(), anySet(), any(PageRequest.class));
-            assertThat(response.pageNr()).isZero();
-            assertThat(response.totalElements()).isEqualTo(pageResponse.getTotalElements());
-            assertThat(response.content().get(0).id()).isEqualTo(pageResponse.getContent().get(0).getId());
-            assertThat(response.content().get(0).recipeName()).isEqualTo(pageResponse.getContent().get(0).getRecipeName());
-        }
+                .findUserRecipesByFilter(eq(user.getId()), eq(tsQuery), eq(15), eq(1), eq(Set.of("APPETIZER")), any(PageRequest.class));
+
+        PageResult<RecipeDTO> response = this.service.getUserRecipes(email, 1, filterRequest);
+
+        verify(recipeRepository, times(0)).findUserRecipes(anyLong(), anyInt(), anyInt(), anySet(), any(PageRequest.class));
+        assertThat(response.pageNr()).isZero();
+        assertThat(response.totalElements()).isEqualTo(pageResponse.getTotalElements());
+        assertThat(response.content().get(0).id()).isEqualTo(pageResponse.getContent().get(0).getId());
+        assertThat(response.content().get(0).recipeName()).isEqualTo(pageResponse.getContent().get(0).getRecipeName());
     }
 
     @Test
     void test_getUserRecipesSuccessfulWithNullMealTypesPrepTimeAndPortions() {
         final RecipeFilterRequest filterRequest = new RecipeFilterRequest(filter, null, null, null, null, null);
-        final PageImpl<Recipe> pageResponse = new PageImpl<>(List.of(recipe));
+        final PageImpl<RecipeSummary> pageResponse = new PageImpl<>(List.of(recipeSummary));
         final Set<String> mealTypesStrings = MealType.ALL_MEAL_TYPES
                 .stream()
                 .map(Enum::name)
@@ -212,41 +382,96 @@ class RecipeServiceImplTest {
 
         doReturn(Optional.of(user)).when(userRepository).findByEmail(email);
         doReturn(pageResponse).when(recipeRepository)
-                .findUserRecipesByFilter(eq(user.getId()), eq(filter), eq(0), eq(0), eq(mealTypesStrings), any(PageRequest.class));
-
-        try (MockedStatic<ImageUtil> imageUtilMockedStatic = mockStatic(ImageUtil.class)) {
-            imageUtilMockedStatic.when(() -> ImageUtil.decompressImage(any()))
-                    .thenReturn(new byte[0]);
-            PageResult<RecipeDTO> response = this.service.getUserRecipes(email, 1, filterRequest);
-
-            verify(recipeRepository, times(0)).findUserRecipes(anyLong(), anyInt(), anyInt(), anySet(), any(PageRequest.class));
-            assertThat(response.pageNr()).isZero();
-            assertThat(response.totalElements()).isEqualTo(pageResponse.getTotalElements());
-            assertThat(response.content().get(0).id()).isEqualTo(pageResponse.getContent().get(0).getId());
-            assertThat(response.content().get(0).recipeName()).isEqualTo(pageResponse.getContent().get(0).getRecipeName());
-        }
+                .findUserRecipesByFilter(eq(user.getId()), eq(tsQuery), eq(0), eq(0), eq(mealTypesStrings), any(PageRequest.class));
+
+        PageResult<RecipeDTO> response = this.service.getUserRecipes(email, 1, filterRequest);
+
+        verify(recipeRepository, times(0)).findUserRecipes(anyLong(), anyInt(), anyInt(), anySet(), any(PageRequest.class));
+        assertThat(response.pageNr()).isZero();
+        assertThat(response.totalElements()).isEqualTo(pageResponse.getTotalElements());
+        assertThat(response.content().get(0).id()).isEqualTo(pageResponse.getContent().get(0).getId());
+        assertThat(response.content().get(0).recipeName()).isEqualTo(pageResponse.getContent().get(0).getRecipeName());
     }
 
     @Test
     void test_getUserRecipesSuccessfulWithoutFilter() {
         final RecipeFilterRequest filterRequest = new RecipeFilterRequest(null, col, direction, 15, 1, List.of(MealType.APPETIZER));
-        final PageImpl<Recipe> pageResponse = new PageImpl<>(List.of(recipe));
+        final PageImpl<RecipeSummary> pageResponse = new PageImpl<>(List.of(recipeSummary));
 
         doReturn(Optional.of(user)).when(userRepository).findByEmail(email);
         doReturn(pageResponse).when(recipeRepository)
                 .findUserRecipes(eq(user.getId()), eq(15), eq(1), eq(Set.of("APPETIZER")), any(PageRequest.class));
 
-        try (MockedStatic<ImageUtil> imageUtilMockedStatic = mockStatic(ImageUtil.class)) {
-            imageUtilMockedStatic.when(() -> ImageUtil.decompressImage(any()))
-                    .thenReturn(new byte[0]);
-            PageResult<RecipeDTO> response = this.service.getUserRecipes(email, 1, filterRequest);
+        PageResult<RecipeDTO> response = this.service.getUserRecipes(email, 1, filterRequest);
 
-            verify(recipeRepository, times(0)).findUserRecipesByFilter(anyLong(), anyString(), anyInt(), anyInt(), anySet(), any(PageRequest.class));
-            assertThat(response.pageNr()).isZero();
-            assertThat(response.totalElements()).isEqualTo(pageResponse.getTotalElements());
-            assertThat(response.content().get(0).id()).isEqualTo(pageResponse.getContent().get(0).getId());
-            assertThat(response.content().get(0).recipeName()).isEqualTo(pageResponse.getContent().get(0).getRecipeName());
-        }
+        verify(recipeRepository, times(0)).findUserRecipesByFilter(anyLong(), anyString(), anyInt(), anyInt(), anySet(), any(PageRequest.class));
+        assertThat(response.pageNr()).isZero();
+        assertThat(response.totalElements()).isEqualTo(pageResponse.getTotalElements());
+        assertThat(response.content().get(0).id()).isEqualTo(pageResponse.getContent().get(0).getId());
+        assertThat(response.content().get(0).recipeName()).isEqualTo(pageResponse.getContent().get(0).getRecipeName());
+    }
+
+    @Test
+    void test_getSimilarRecipesSuccessful() {
+        final RecipeSummary similarRecipeSummary = createRecipeSummary(2L, 1);
+
+        doReturn(List.of(2L, 3L, recipeSummary.getId())).when(similarRecipeIndex).findSimilarRecipes(5L, 3);
+        doReturn(List.of(recipeSummary, similarRecipeSummary))
+                .when(recipeRepository).findRecipeSummariesByIdIn(List.of(2L, 3L, recipeSummary.getId()));
+        List<RecipeDTO> response = this.service.getSimilarRecipes(5L, 3);
+
+        assertThat(response).extracting(RecipeDTO::id).containsExactly(2L, recipeSummary.getId());
+    }
+
+    @Test
+    void test_getSimilarRecipesNotIndexedRecipe() {
+
+        doReturn(Collections.emptyList()).when(similarRecipeIndex).findSimilarRecipes(5L, 3);
+        List<RecipeDTO> response = this.service.getSimilarRecipes(5L, 3);
+
+        assertThat(response).isEmpty();
+        verify(recipeRepository, times(0)).findRecipeSummariesByIdIn(anyList());
+    }
+
+    @Test
+    void test_getRecipeSuggestionsSuccessful() {
+        final List<RecipeSuggestionDTO> suggestions = List.of(new RecipeSuggestionDTO("Italian", SuggestionType.CUISINE, 3));
+
+        doReturn(suggestions).when(recipeAutocompleteIndex).complete("ita", 5);
+        List<RecipeSuggestionDTO> response = this.service.getRecipeSuggestions("ita", 5);
+
+        assertThat(response).isEqualTo(suggestions);
+    }
+
+    @Test
+    void test_exportRecipesSuccessful() throws IOException {
+        final ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+
+        doReturn(Stream.of(
+                createRecipeExportRow(1L, "flour", Category.BAKING_GOODS),
+                createRecipeExportRow(1L, "milk", Category.DAIRY),
+                createRecipeExportRow(2L, null, null)
+        )).when(recipeRepository).streamRecipesForExport(0L);
+        this.service.exportRecipes(outputStream);
+
+        String[] lines = outputStream.toString().split("\n");
+        assertThat(lines).hasSize(2);
+        JsonNode firstRecipe = objectMapper.readTree(lines[0]);
+        assertThat(firstRecipe.get("id").asLong()).isEqualTo(1L);
+        assertThat(firstRecipe.get("products")).hasSize(2);
+        assertThat(firstRecipe.get("products").get(1).get("productName").asText()).isEqualTo("milk");
+        assertThat(objectMapper.readTree(lines[1]).get("products")).isEmpty();
+    }
+
+    @Test
+    void test_exportUserRecipesSuccessful() throws IOException {
+        final ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+
+        doReturn(Optional.of(user)).when(userRepository).findByEmail(email);
+        doReturn(Stream.empty()).when(recipeRepository).streamRecipesForExport(user.getId());
+        this.service.exportUserRecipes(email, outputStream);
+
+        assertThat(outputStream.size()).isZero();
     }
 
     @Test
@@ -254,26 +479,22 @@ class RecipeServiceImplTest {
 
         doReturn(Optional.of(recipe)).when(recipeRepository).findById(id);
 
-        try (MockedStatic<ImageUtil> imageUtilMockedStatic = mockStatic(ImageUtil.class)) {
-            imageUtilMockedStatic.when(() -> ImageUtil.decompressImage(any()))
-                    .thenReturn(new byte[0]);
-            RecipeDetailsDTO response = this.service.getRecipeDetails(id);
-
-            assertThat(response.id()).isEqualTo(recipe.getId());
-            assertThat(response.recipeName()).isEqualTo(recipe.getRecipeName());
-            assertThat(response.mealType()).isEqualTo(recipe.getMealType());
-            assertThat(response.portions()).isEqualTo(recipe.getPortions());
-            assertThat(response.preparationTime()).isEqualTo(recipe.getPreparationTime());
-            assertThat(response.preparation()).isEqualTo(recipe.getPreparation());
-            assertThat(response.creatorUserName()).isEqualTo(recipe.getCreator().getUsername());
-            assertThat(response.products()).hasSize(recipe.getRecipeProducts().size());
-            assertThat(response.products().get(0).id()).isEqualTo(recipe.getRecipeProducts().get(0).getId());
-            assertThat(response.products().get(0).unit()).isEqualTo(recipe.getRecipeProducts().get(0).getUnit());
-            assertThat(response.products().get(0).quantity()).isEqualTo(recipe.getRecipeProducts().get(0).getQuantity());
-            assertThat(response.products().get(0).product().productName()).isEqualTo(recipe.getRecipeProducts().get(0).getProduct().getProductName());
-            assertThat(response.recipeImage()).isEmpty();
-            assertThat(response.cuisine()).isNull();
-        }
+        RecipeDetailsDTO response = this.service.getRecipeDetails(id);
+
+        assertThat(response.id()).isEqualTo(recipe.getId());
+        assertThat(response.recipeName()).isEqualTo(recipe.getRecipeName());
+        assertThat(response.mealType()).isEqualTo(recipe.getMealType());
+        assertThat(response.portions()).isEqualTo(recipe.getPortions());
+        assertThat(response.preparationTime()).isEqualTo(recipe.getPreparationTime());
+        assertThat(response.preparation()).isEqualTo(recipe.getPreparation());
+        assertThat(response.creatorUserName()).isEqualTo(recipe.getCreator().getUsername());
+        assertThat(response.products()).hasSize(recipe.getRecipeProducts().size());
+        assertThat(response.products().get(0).id()).isEqualTo(recipe.getRecipeProducts().get(0).getId());
+        assertThat(response.products().get(0).unit()).isEqualTo(recipe.getRecipeProducts().get(0).getUnit());
+        assertThat(response.products().get(0).quantity()).isEqualTo(recipe.getRecipeProducts().get(0).getQuantity());
+        assertThat(response.products().get(0).product().productName()).isEqualTo(recipe.getRecipeProducts().get(0).getProduct().getProductName());
+        assertThat(response.imageUrl()).isNull();
+        assertThat(response.cuisine()).isNull();
     }
 
     @Test
@@ -290,13 +511,137 @@ class RecipeServiceImplTest {
         assertThat(response.preparation()).isNull();
         assertThat(response.creatorUserName()).isNull();
         assertThat(response.products()).isNull();
-        assertThat(response.recipeImage()).isNull();
+        assertThat(response.imageUrl()).isNull();
         assertThat(response.cuisine()).isNull();
     }
 
+    @Test
+    void test_recordRecipeViewSuccessful() {
+
+        this.service.recordRecipeView(id);
+
+        verify(recipeViewCounter).recordView(id);
+    }
+
+    @Test
+    void test_getRecipeImageHashSuccessful() {
+        final String imageHash = "imageHash";
+
+        doReturn(Optional.of(imageHash)).when(recipeRepository).findImageHashById(id);
+        String response = this.service.getRecipeImageHash(id);
+
+        assertThat(response).isEqualTo(imageHash);
+    }
+
+    @Test
+    void test_getRecipeImageHashOfLegacyImage() {
+        final byte[] originalImage = new byte[] {1, 2, 3};
+
+        doReturn(Optional.empty()).when(recipeRepository).findImageHashById(id);
+        doReturn(Optional.of(ImageUtil.compressImage(originalImage))).when(recipeRepository).findCompressedImageById(id);
+        String response = this.service.getRecipeImageHash(id);
+
+        assertThat(response).isEqualTo(ImageRenditionUtil.createImageHash(originalImage));
+        verify(recipeRepository).saveLegacyImageHash(id, response);
+    }
+
+    @Test
+    void test_getRecipeImageHashRecipeWithoutImage() {
+
+        doReturn(Optional.empty()).when(recipeRepository).findImageHashById(id);
+
+        assertThatThrownBy(() -> this.service.getRecipeImageHash(id))
+                .isInstanceOf(ResourceNotFoundException.class);
+        verify(recipeRepository, times(0)).saveLegacyImageHash(anyLong(), anyString());
+    }
+
+    @Test
+    void test_getRecipeImageHashImagePending() {
+        final RecipeImageState imageState = createRecipeImageState(ImageStatus.PENDING, null);
+
+        doReturn(Optional.empty()).when(recipeRepository).findImageHashById(id);
+        doReturn(Optional.of(imageState)).when(recipeRepository).findImageStateById(id);
+
+        assertThatThrownBy(() -> this.service.getRecipeImageHash(id))
+                .isInstanceOf(ImageProcessingPendingException.class)
+                .hasMessage("Recipe image is being processed");
+    }
+
+    @Test
+    void test_getRecipeImageStatusSuccessful() {
+        final String imageHash = "imageHash";
+        final RecipeImageState imageState = createRecipeImageState(ImageStatus.READY, imageHash);
+
+        doReturn(Optional.of(imageState)).when(recipeRepository).findImageStateById(id);
+        RecipeImageStatusDTO response = this.service.getRecipeImageStatus(id);
+
+        assertThat(response.imageStatus()).isEqualTo(ImageStatus.READY);
+        assertThat(response.imageUrl()).isEqualTo(ImageRenditionUtil.createImageUrl(id, imageHash, ImageRendition.CARD));
+    }
+
+    @Test
+    void test_getRecipeImageStatusRecipeNotFound() {
+
+        doReturn(Optional.empty()).when(recipeRepository).findImageStateById(id);
+
+        assertThatThrownBy(() -> this.service.getRecipeImageStatus(id))
+                .isInstanceOf(ResourceNotFoundException.class)
+                .hasMessage("Recipe does not exists");
+    }
+
+    @Test
+    void test_getRecipeImageThumbnailSuccessful() {
+        final byte[] thumbnail = new byte[] {1, 2, 3};
+
+        doReturn(Optional.of(thumbnail)).when(recipeRepository).findThumbnailById(id);
+        ImageContent response = this.service.getRecipeImage(id, ImageRendition.THUMBNAIL);
+
+        assertThat(response).isInstanceOf(ByteArrayImageContent.class);
+        assertThat(((ByteArrayImageContent) response).image()).isEqualTo(thumbnail);
+        verify(recipeRepository, times(0)).findImageHashById(anyLong());
+        verify(imageStore, times(0)).find(anyString());
+    }
+
+    @Test
+    void test_getRecipeImageFullFromImageStore() {
+        final String imageHash = "imageHash";
+        final ImageContent imageContent = new ByteArrayImageContent(new byte[] {1, 2, 3});
+
+        doReturn(Optional.of(imageHash)).when(recipeRepository).findImageHashById(id);
+        doReturn(Optional.of(imageContent)).when(imageStore).find(imageHash);
+        ImageContent response = this.service.getRecipeImage(id, ImageRendition.FULL);
+
+        assertThat(response).isSameAs(imageContent);
+        verify(recipeRepository, times(0)).findCompressedImageById(anyLong());
+    }
+
+    @Test
+    void test_getRecipeImageCardFallsBackToLegacyImage() {
+        final String imageHash = "imageHash";
+        final byte[] originalImage = new byte[] {1, 2, 3};
+
+        doReturn(Optional.empty()).when(recipeRepository).findCardImageById(id);
+        doReturn(Optional.of(imageHash)).when(recipeRepository).findImageHashById(id);
+        doReturn(Optional.empty()).when(imageStore).find(imageHash);
+        doReturn(Optional.of(ImageUtil.compressImage(originalImage))).when(recipeRepository).findCompressedImageById(id);
+        ImageContent response = this.service.getRecipeImage(id, ImageRendition.CARD);
+
+        assertThat(response).isInstanceOf(ByteArrayImageContent.class);
+        assertThat(((ByteArrayImageContent) response).image()).isEqualTo(originalImage);
+    }
+
+    @Test
+    void test_getRecipeImageRecipeNotFound() {
+
+        doReturn(Optional.empty()).when(recipeRepository).findImageHashById(id);
+        doReturn(Optional.empty()).when(recipeRepository).findCompressedImageById(id);
+
+        assertThatThrownBy(() -> this.service.getRecipeImage(id, ImageRendition.FULL))
+                .isInstanceOf(ResourceNotFoundException.class);
+    }
+
     @Test
     void test_createRecipeSuccessful() {
-        final byte[] imageData = new byte[0];
         final ProductDTO productDTO = new ProductDTO(id, productName, Category.CEREAL);
         final RecipeProductDTO recipeProductDTO = new RecipeProductDTO(id, productDTO, 100, Unit.GRAMS);
         final CreateRecipeRequest request = new CreateRecipeRequest(
@@ -306,28 +651,74 @@ class RecipeServiceImplTest {
         MultipartFile image = new MockMultipartFile("image.jpg", "image.jpg", "image/jpeg", new byte[0]);
 
         doReturn(Optional.of(user)).when(userRepository).findByEmail(email);
-        try (MockedStatic<ImageUtil> imageUtilMockedStatic = mockStatic(ImageUtil.class)) {
-            imageUtilMockedStatic.when(() -> ImageUtil.compressImage(image.getBytes()))
-                    .thenReturn(imageData);
-
-            doReturn(null).when(recipeRepository).save(this.recipeArgumentCaptor.capture());
-            this.service.createRecipe(email, request, image);
-
-            Recipe createdRecipe = this.recipeArgumentCaptor.getValue();
-            assertThat(createdRecipe.getCreator()).isEqualTo(user);
-            assertThat(createdRecipe.getRecipeImage()).isEqualTo(imageData);
-            assertThat(createdRecipe.getRecipeName()).isEqualTo(request.recipeName());
-            assertThat(createdRecipe.getPreparation()).isEqualTo(request.preparation());
-            assertThat(createdRecipe.getPreparationTime()).isEqualTo(request.preparationTime());
-            assertThat(createdRecipe.getPortions()).isEqualTo(request.portions());
-            assertThat(createdRecipe.getCuisine()).isEqualTo(request.cuisine());
-            assertThat(createdRecipe.getMealType()).isEqualTo(request.mealType());
-            assertThat(createdRecipe.getRecipeProducts()).hasSize(request.products().size());
-            assertThat(createdRecipe.getRecipeProducts().get(0).getProduct().getProductName()).isEqualTo(request.products().get(0).product().productName());
-            assertThat(createdRecipe.getRecipeProducts().get(0).getProduct().getCategory()).isEqualTo(request.products().get(0).product().category());
-            assertThat(createdRecipe.getRecipeProducts().get(0).getUnit()).isEqualTo(request.products().get(0).unit());
-            assertThat(createdRecipe.getRecipeProducts().get(0).getQuantity()).isEqualTo(request.products().get(0).quantity());
-        }
+        doReturn(Map.of(
+                ProductKey.of(productName, Category.CEREAL),
+                Product.builder().id(id).productName(productName).category(Category.CEREAL).build()
+        )).when(productRepository).findOrCreateProducts(anyCollection());
+        doReturn(null).when(recipeRepository).save(this.recipeArgumentCaptor.capture());
+        this.service.createRecipe(email, request, image);
+
+        Recipe createdRecipe = this.recipeArgumentCaptor.getValue();
+        verify(productRepository).findOrCreateProducts(anyCollection());
+        assertThat(createdRecipe.getCreator()).isEqualTo(user);
+        assertThat(createdRecipe.getImageHash()).isNull();
+        assertThat(createdRecipe.getRecipeName()).isEqualTo(request.recipeName());
+        assertThat(createdRecipe.getPreparation()).isEqualTo(request.preparation());
+        assertThat(createdRecipe.getPreparationTime()).isEqualTo(request.preparationTime());
+        assertThat(createdRecipe.getPortions()).isEqualTo(request.portions());
+        assertThat(createdRecipe.getCuisine()).isEqualTo(request.cuisine());
+        assertThat(createdRecipe.getMealType()).isEqualTo(request.mealType());
+        assertThat(createdRecipe.getRecipeProducts()).hasSize(request.products().size());
+        assertThat(createdRecipe.getRecipeProducts().get(0).getProduct().getProductName()).isEqualTo(request.products().get(0).product().productName());
+        assertThat(createdRecipe.getRecipeProducts().get(0).getProduct().getCategory()).isEqualTo(request.products().get(0).product().category());
+        assertThat(createdRecipe.getRecipeProducts().get(0).getUnit()).isEqualTo(request.products().get(0).unit());
+        assertThat(createdRecipe.getRecipeProducts().get(0).getQuantity()).isEqualTo(request.products().get(0).quantity());
+        verify(eventPublisher).publishEvent(new RecipeChangedEvent(createdRecipe, RecipeChangedEvent.ChangeType.CREATED));
+    }
+
+    @Test
+    void test_createRecipeSuccessfulWithPendingImage() {
+        final ProductDTO productDTO = new ProductDTO(id, productName, Category.CEREAL);
+        final RecipeProductDTO recipeProductDTO = new RecipeProductDTO(id, productDTO, 100, Unit.GRAMS);
+        final CreateRecipeRequest request = new CreateRecipeRequest(
+                recipeName, "preparation preparation", 15,
+                MealType.APPETIZER, "cuisine", 1, true, Collections.singletonList(recipeProductDTO)
+        );
+        MultipartFile image = new MockMultipartFile("image.jpg", "image.jpg", "image/jpeg", new byte[] {1, 2, 3});
+        PendingImage pendingImage = mock(PendingImage.class);
+
+        doReturn(Optional.of(user)).when(userRepository).findByEmail(email);
+        doReturn("uploadId").when(pendingImage).getUploadId();
+        doReturn(pendingImage).when(recipeImageProcessor).accept(image);
+        doReturn(null).when(recipeRepository).save(this.recipeArgumentCaptor.capture());
+        this.service.createRecipe(email, request, image);
+
+        Recipe createdRecipe = this.recipeArgumentCaptor.getValue();
+        assertThat(createdRecipe.getImageStatus()).isEqualTo(ImageStatus.PENDING);
+        assertThat(createdRecipe.getImageUploadId()).isEqualTo("uploadId");
+        assertThat(createdRecipe.getImageHash()).isNull();
+        verify(eventPublisher).publishEvent(new RecipeImageUploadedEvent(createdRecipe.getId(), pendingImage));
+    }
+
+    @Test
+    void test_createRecipeSavingFailedDiscardsPendingImage() {
+        final ProductDTO productDTO = new ProductDTO(id, productName, Category.CEREAL);
+        final RecipeProductDTO recipeProductDTO = new RecipeProductDTO(id, productDTO, 100, Unit.GRAMS);
+        final CreateRecipeRequest request = new CreateRecipeRequest(
+                recipeName, "preparation preparation", 15,
+                MealType.APPETIZER, "cuisine", 1, true, Collections.singletonList(recipeProductDTO)
+        );
+        MultipartFile image = new MockMultipartFile("image.jpg", "image.jpg", "image/jpeg", new byte[] {1, 2, 3});
+        PendingImage pendingImage = mock(PendingImage.class);
+
+        doReturn(Optional.of(user)).when(userRepository).findByEmail(email);
+        doReturn(pendingImage).when(recipeImageProcessor).accept(image);
+        doThrow(new IllegalStateException()).when(recipeRepository).save(any(Recipe.class));
+
+        assertThatThrownBy(() -> this.service.createRecipe(email, request, image))
+                .isInstanceOf(IllegalStateException.class);
+        verify(recipeImageProcessor).discard(pendingImage);
+        verify(eventPublisher, times(0)).publishEvent(any(RecipeImageUploadedEvent.class));
     }
 
     @Test
@@ -358,14 +749,19 @@ class RecipeServiceImplTest {
         MultipartFile image = mock(MultipartFile.class);
 
         doReturn(Optional.of(user)).when(userRepository).findByEmail(email);
+        doReturn(Map.of(
+                ProductKey.of(productName, Category.CEREAL),
+                Product.builder().id(id).productName(productName).category(Category.CEREAL).build()
+        )).when(productRepository).findOrCreateProducts(anyCollection());
         doReturn("image/jpeg").when(image).getContentType();
-        doThrow(new IOException()).when(image).getBytes();
+        doReturn(null).when(recipeImageProcessor).accept(image);
         doReturn(null).when(recipeRepository).save(this.recipeArgumentCaptor.capture());
         this.service.createRecipe(email, request, image);
 
         Recipe createdRecipe = this.recipeArgumentCaptor.getValue();
         assertThat(createdRecipe.getCreator()).isEqualTo(user);
-        assertThat(createdRecipe.getRecipeImage()).isNull();
+        assertThat(createdRecipe.getImageHash()).isNull();
+        assertThat(createdRecipe.getImageStatus()).isEqualTo(ImageStatus.NONE);
         assertThat(createdRecipe.getRecipeName()).isEqualTo(request.recipeName());
         assertThat(createdRecipe.getPreparation()).isEqualTo(request.preparation());
         assertThat(createdRecipe.getPreparationTime()).isEqualTo(request.preparationTime());
@@ -389,7 +785,7 @@ class RecipeServiceImplTest {
         verify(recipeRepository).delete(this.recipeArgumentCaptor.capture());
         Recipe deletedRecipe = this.recipeArgumentCaptor.getValue();
         assertThat(deletedRecipe.getCreator()).isEqualTo(user);
-        assertThat(deletedRecipe.getRecipeImage()).isNull();
+        assertThat(deletedRecipe.getImageHash()).isNull();
         assertThat(deletedRecipe.getId()).isEqualTo(recipe.getId());
         assertThat(deletedRecipe.getRecipeName()).isEqualTo(recipe.getRecipeName());
         assertThat(deletedRecipe.getPreparation()).isEqualTo(recipe.getPreparation());
@@ -406,6 +802,22 @@ class RecipeServiceImplTest {
                 .isEqualTo(recipe.getRecipeProducts().get(0).getUnit());
         assertThat(deletedRecipe.getRecipeProducts().get(0).getQuantity())
                 .isEqualTo(recipe.getRecipeProducts().get(0).getQuantity());
+        verify(eventPublisher).publishEvent(new RecipeChangedEvent(recipe, RecipeChangedEvent.ChangeType.DELETED));
+    }
+
+    @Test
+    void test_deleteRecipeSuccessfulMarkingImageAsUnused() {
+        final String imageHash = "imageHash";
+        recipe.setImageHash(imageHash);
+
+        doReturn(Optional.of(user)).when(userRepository).findByEmail(email);
+        doReturn(Optional.of(recipe)).when(recipeRepository).findById(id);
+        this.service.deleteRecipe(email, id);
+
+        verify(recipeRepository).releaseLegacyImage(id);
+        verify(recipeRepository).delete(recipe);
+        verify(unusedImageCollector).markUnused(imageHash);
+        verify(imageStore, times(0)).delete(anyString());
     }
 
     @Test
@@ -435,7 +847,6 @@ class RecipeServiceImplTest {
 
     @Test
     void test_updateRecipeSuccessful() {
-        final byte[] imageData = new byte[0];
         final ProductDTO productDTO = new ProductDTO(id, "productName", Category.CEREAL);
         final RecipeProductDTO recipeProductDTO = new RecipeProductDTO(0L, productDTO, 200, Unit.PIECES);
         final UpdateRecipeRequest request = new UpdateRecipeRequest(
@@ -447,27 +858,23 @@ class RecipeServiceImplTest {
         doReturn(Optional.of(user)).when(userRepository).findByEmail(email);
         doReturn(Optional.of(recipe)).when(recipeRepository).findById(id);
 
-        try (MockedStatic<ImageUtil> imageUtilMockedStatic = mockStatic(ImageUtil.class)) {
-            imageUtilMockedStatic.when(() -> ImageUtil.compressImage(image.getBytes()))
-                    .thenReturn(imageData);
-            this.service.updateRecipe(email, request, image);
-
-            verify(recipeProductRepository).deleteAll(List.of(recipeProduct));
-            verify(recipeRepository).save(this.recipeArgumentCaptor.capture());
-            Recipe updatedRecipe = this.recipeArgumentCaptor.getValue();
-            assertThat(updatedRecipe.getRecipeImage()).isEqualTo(imageData);
-            assertThat(updatedRecipe.getRecipeName()).isEqualTo(request.recipeName());
-            assertThat(updatedRecipe.getPreparation()).isEqualTo(request.preparation());
-            assertThat(updatedRecipe.getPreparationTime()).isEqualTo(request.preparationTime());
-            assertThat(updatedRecipe.getPortions()).isEqualTo(request.portions());
-            assertThat(updatedRecipe.getCuisine()).isEqualTo(request.cuisine());
-            assertThat(updatedRecipe.getMealType()).isEqualTo(request.mealType());
-            assertThat(updatedRecipe.getRecipeProducts()).hasSize(request.products().size());
-            assertThat(updatedRecipe.getRecipeProducts().get(0).getUnit())
-                    .isEqualTo(request.products().get(0).unit());
-            assertThat(updatedRecipe.getRecipeProducts().get(0).getQuantity())
-                    .isEqualTo(request.products().get(0).quantity());
-        }
+        this.service.updateRecipe(email, request, image);
+
+        verify(recipeProductRepository).deleteAll(List.of(recipeProduct));
+        verify(recipeRepository).save(this.recipeArgumentCaptor.capture());
+        Recipe updatedRecipe = this.recipeArgumentCaptor.getValue();
+        assertThat(updatedRecipe.getImageHash()).isNull();
+        assertThat(updatedRecipe.getRecipeName()).isEqualTo(request.recipeName());
+        assertThat(updatedRecipe.getPreparation()).isEqualTo(request.preparation());
+        assertThat(updatedRecipe.getPreparationTime()).isEqualTo(request.preparationTime());
+        assertThat(updatedRecipe.getPortions()).isEqualTo(request.portions());
+        assertThat(updatedRecipe.getCuisine()).isEqualTo(request.cuisine());
+        assertThat(updatedRecipe.getMealType()).isEqualTo(request.mealType());
+        assertThat(updatedRecipe.getRecipeProducts()).hasSize(request.products().size());
+        assertThat(updatedRecipe.getRecipeProducts().get(0).getUnit())
+                .isEqualTo(request.products().get(0).unit());
+        assertThat(updatedRecipe.getRecipeProducts().get(0).getQuantity())
+                .isEqualTo(request.products().get(0).quantity());
     }
 
     @Test
@@ -503,7 +910,6 @@ class RecipeServiceImplTest {
 
         doReturn(Optional.of(user)).when(userRepository).findByEmail(email);
         doReturn(Optional.of(recipe)).when(recipeRepository).findById(id);
-        doThrow(new IOException()).when(image).getBytes();
         doReturn("wrongContentType").when(image).getContentType();
 
         assertThatThrownBy(() -> this.service.updateRecipe(email, request, image))
@@ -515,7 +921,6 @@ class RecipeServiceImplTest {
 
     @Test
     void test_updateRecipeModifyingRecipeProductsFromDifferentRecipe() {
-        final byte[] imageData = new byte[0];
         final ProductDTO productDTO = new ProductDTO(id, "productName", Category.CEREAL);
         final RecipeProductDTO recipeProductDTO = new RecipeProductDTO(2L, productDTO, 200, Unit.PIECES);
         final UpdateRecipeRequest request = new UpdateRecipeRequest(
@@ -527,21 +932,15 @@ class RecipeServiceImplTest {
         doReturn(Optional.of(user)).when(userRepository).findByEmail(email);
         doReturn(Optional.of(recipe)).when(recipeRepository).findById(id);
 
-        try (MockedStatic<ImageUtil> imageUtilMockedStatic = mockStatic(ImageUtil.class)) {
-            imageUtilMockedStatic.when(() -> ImageUtil.compressImage(image.getBytes()))
-                    .thenReturn(imageData);
-
-            assertThatThrownBy(() -> this.service.updateRecipe(email, request, image))
-                    .isInstanceOf(UserPerformedForbiddenActionException.class)
-                    .hasMessage("You tried to modify recipe product from different recipe");
-            verify(recipeProductRepository, times(0)).deleteAll(List.of(recipeProduct));
-            verify(recipeRepository, times(0)).save(recipe);
-        }
+        assertThatThrownBy(() -> this.service.updateRecipe(email, request, image))
+                .isInstanceOf(UserPerformedForbiddenActionException.class)
+                .hasMessage("You tried to modify recipe product from different recipe");
+        verify(recipeProductRepository, times(0)).deleteAll(List.of(recipeProduct));
+        verify(recipeRepository, times(0)).save(recipe);
     }
 
     @Test
     void test_updateRecipeSuccessfulWithModifyingProduct() {
-        final byte[] imageData = new byte[0];
         final ProductDTO productDTO = new ProductDTO(id, "productName", Category.CEREAL);
         final RecipeProductDTO recipeProductDTO = new RecipeProductDTO(id, productDTO, 200, Unit.PIECES);
         final UpdateRecipeRequest request = new UpdateRecipeRequest(
@@ -553,27 +952,23 @@ class RecipeServiceImplTest {
         doReturn(Optional.of(user)).when(userRepository).findByEmail(email);
         doReturn(Optional.of(recipe)).when(recipeRepository).findById(id);
 
-        try (MockedStatic<ImageUtil> imageUtilMockedStatic = mockStatic(ImageUtil.class)) {
-            imageUtilMockedStatic.when(() -> ImageUtil.compressImage(image.getBytes()))
-                    .thenReturn(imageData);
-            this.service.updateRecipe(email, request, image);
-
-            verify(recipeProductRepository).deleteAll(anyList());
-            verify(recipeRepository).save(this.recipeArgumentCaptor.capture());
-            Recipe updatedRecipe = this.recipeArgumentCaptor.getValue();
-            assertThat(updatedRecipe.getRecipeImage()).isEqualTo(imageData);
-            assertThat(updatedRecipe.getRecipeName()).isEqualTo(request.recipeName());
-            assertThat(updatedRecipe.getPreparation()).isEqualTo(request.preparation());
-            assertThat(updatedRecipe.getPreparationTime()).isEqualTo(request.preparationTime());
-            assertThat(updatedRecipe.getPortions()).isEqualTo(request.portions());
-            assertThat(updatedRecipe.getCuisine()).isEqualTo(request.cuisine());
-            assertThat(updatedRecipe.getMealType()).isEqualTo(request.mealType());
-            assertThat(updatedRecipe.getRecipeProducts()).hasSize(request.products().size());
-            assertThat(updatedRecipe.getRecipeProducts().get(0).getUnit())
-                    .isEqualTo(request.products().get(0).unit());
-            assertThat(updatedRecipe.getRecipeProducts().get(0).getQuantity())
-                    .isEqualTo(request.products().get(0).quantity());
-        }
+        this.service.updateRecipe(email, request, image);
+
+        verify(recipeProductRepository).deleteAll(anyList());
+        verify(recipeRepository).save(this.recipeArgumentCaptor.capture());
+        Recipe updatedRecipe = this.recipeArgumentCaptor.getValue();
+        assertThat(updatedRecipe.getImageHash()).isNull();
+        assertThat(updatedRecipe.getRecipeName()).isEqualTo(request.recipeName());
+        assertThat(updatedRecipe.getPreparation()).isEqualTo(request.preparation());
+        assertThat(updatedRecipe.getPreparationTime()).isEqualTo(request.preparationTime());
+        assertThat(updatedRecipe.getPortions()).isEqualTo(request.portions());
+        assertThat(updatedRecipe.getCuisine()).isEqualTo(request.cuisine());
+        assertThat(updatedRecipe.getMealType()).isEqualTo(request.mealType());
+        assertThat(updatedRecipe.getRecipeProducts()).hasSize(request.products().size());
+        assertThat(updatedRecipe.getRecipeProducts().get(0).getUnit())
+                .isEqualTo(request.products().get(0).unit());
+        assertThat(updatedRecipe.getRecipeProducts().get(0).getQuantity())
+                .isEqualTo(request.products().get(0).quantity());
     }
 
     @Test
@@ -603,4 +998,42 @@ class RecipeServiceImplTest {
         this.service.addRecipeProductsToShoppingList(user, id, recipe.getRecipeProducts());
         verify(shoppingListProductService).addRecipeProductsToShoppingList(id, user, recipe.getRecipeProducts());
     }
+
+    private RecipeExportRow createRecipeExportRow(long recipeId, String productName, Category category) {
+        final Map<String, Object> values = new HashMap<>();
+        values.put("recipeId", recipeId);
+        values.put("recipeName", recipeName);
+        values.put("preparation", "preparation");
+        values.put("preparationTime", 15);
+        values.put("mealType", MealType.APPETIZER);
+        values.put("cuisine", null);
+        values.put("portions", 1);
+        values.put("creatorUserName", user.getUsername());
+        values.put("productName", productName);
+        values.put("category", category);
+        values.put("quantity", productName == null ? null : 100);
+        values.put("unit", productName == null ? null : Unit.GRAMS);
+        return new SpelAwareProxyProjectionFactory().createProjection(RecipeExportRow.class, values);
+    }
+
+    private RecipeSummary createRecipeSummary(long recipeId, int portions) {
+        final Map<String, Object> values = new HashMap<>();
+        values.put("id", recipeId);
+        values.put("recipeName", recipeName);
+        values.put("preparationTime", 15);
+        values.put("mealType", MealType.APPETIZER);
+        values.put("cuisine", null);
+        values.put("portions", portions);
+        values.put("creatorUserName", user.getUsername());
+        values.put("nrOfProducts", 1);
+        return new SpelAwareProxyProjectionFactory().createProjection(RecipeSummary.class, values);
+    }
+
+    private RecipeImageState createRecipeImageState(ImageStatus imageStatus, String imageHash) {
+        Map<String, Object> values = new HashMap<>();
+        values.put("imageStatus", imageStatus);
+        values.put("imageHash", imageHash);
+
+        return new SpelAwareProxyProjectionFactory().createProjection(RecipeImageState.class, values);
+    }
 }
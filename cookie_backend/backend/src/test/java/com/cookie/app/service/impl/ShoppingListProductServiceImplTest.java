@@ -13,6 +13,7 @@ import com.cookie.app.model.enums.Category;
 import com.cookie.app.model.enums.Unit;
 import com.cookie.app.model.mapper.*;
 import com.cookie.app.model.request.FilterRequest;
+import com.cookie.app.repository.ProductKey;
 import com.cookie.app.repository.ProductRepository;
 import com.cookie.app.repository.ShoppingListProductRepository;
 import com.cookie.app.repository.UserRepository;
@@ -32,8 +33,8 @@ import java.util.*;
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.api.Assertions.assertThatThrownBy;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
 import static org.mockito.ArgumentMatchers.anyList;
-import static org.mockito.ArgumentMatchers.anyString;
 import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.*;
 import static org.mockito.Mockito.times;
@@ -197,18 +198,17 @@ class ShoppingListProductServiceImplTest {
         final List<ShoppingListProductDTO> productsToAdd = List.of(listProductDTO, listProductDTO2);
 
         doReturn(Optional.of(user)).when(userRepository).findByEmail(email);
-        doReturn(Optional.empty(), Optional.empty()).when(productRepository).findByProductNameAndCategory(
-                productDTO.productName(),
-                productDTO.category().name()
-        );
+        doReturn(Map.of(
+                ProductKey.of(productDTO.productName(), productDTO.category()),
+                Product.builder().id(2L).productName(productDTO.productName()).category(productDTO.category()).build()
+        )).when(productRepository).findOrCreateProducts(anyCollection());
         doReturn(Collections.emptyList()).when(shoppingListProductRepository).saveAll(
                 this.listOfProductsArgCaptor.capture()
         );
         this.service.addProductsToShoppingList(id, productsToAdd, email);
         List<ShoppingListProduct> addedProducts = this.listOfProductsArgCaptor.getValue();
 
-        verify(productRepository, times(2)).findByProductNameAndCategory(anyString(), anyString());
-        verify(productRepository, times(2)).save(any(Product.class));
+        verify(productRepository).findOrCreateProducts(anyCollection());
         verify(shoppingListProductRepository, times(0)).deleteByIdIn(anyList());
         assertThat(addedProducts.get(0).getProduct().getProductName()).isEqualTo(productDTO.productName());
         assertThat(addedProducts.get(0).getProduct().getCategory()).isEqualTo(productDTO.category());
@@ -233,18 +233,14 @@ class ShoppingListProductServiceImplTest {
         final List<ShoppingListProductDTO> productsToAdd = List.of(listProductDTO, listProductDTO2);
 
         doReturn(Optional.of(user)).when(userRepository).findByEmail(email);
-        doReturn(Optional.of(product), Optional.of(product)).when(productRepository).findByProductNameAndCategory(
-                productDTO.productName(),
-                productDTO.category().name()
-        );
+        doReturn(Map.of(ProductKey.of(product), product)).when(productRepository).findOrCreateProducts(anyCollection());
         doReturn(Collections.emptyList()).when(shoppingListProductRepository).saveAll(
                 this.listOfProductsArgCaptor.capture()
         );
         this.service.addProductsToShoppingList(id, productsToAdd, email);
         List<ShoppingListProduct> addedProducts = this.listOfProductsArgCaptor.getValue();
 
-        verify(productRepository, times(2)).findByProductNameAndCategory(anyString(), anyString());
-        verify(productRepository, times(0)).save(any(Product.class));
+        verify(productRepository).findOrCreateProducts(anyCollection());
         verify(shoppingListProductRepository, times(0)).deleteByIdIn(anyList());
         assertThat(addedProducts.get(0).getProduct().getProductName()).isEqualTo(productDTO.productName());
         assertThat(addedProducts.get(0).getProduct().getCategory()).isEqualTo(productDTO.category());
@@ -270,18 +266,14 @@ class ShoppingListProductServiceImplTest {
         final List<ShoppingListProductDTO> productsToAdd = List.of(listProductDTO, listProductDTO2);
 
         doReturn(Optional.of(user)).when(userRepository).findByEmail(email);
-        doReturn(Optional.of(product), Optional.of(product)).when(productRepository).findByProductNameAndCategory(
-                productDTO.productName(),
-                productDTO.category().name()
-        );
+        doReturn(Map.of(ProductKey.of(product), product)).when(productRepository).findOrCreateProducts(anyCollection());
         doReturn(Collections.emptyList()).when(shoppingListProductRepository).saveAll(
                 this.listOfProductsArgCaptor.capture()
         );
         this.service.addProductsToShoppingList(id, productsToAdd, email);
         List<ShoppingListProduct> addedProducts = this.listOfProductsArgCaptor.getValue();
 
-        verify(productRepository, times(2)).findByProductNameAndCategory(anyString(), anyString());
-        verify(productRepository, times(0)).save(any(Product.class));
+        verify(productRepository).findOrCreateProducts(anyCollection());
         verify(shoppingListProductRepository, times(0)).deleteByIdIn(anyList());
         assertThat(addedProducts.get(0).getProduct().getProductName()).isEqualTo(productDTO.productName());
         assertThat(addedProducts.get(0).getProduct().getCategory()).isEqualTo(productDTO.category());
@@ -0,0 +1,113 @@
+package com.cookie.app.stats;
+
+import com.cookie.app.event.RecipeChangedEvent;
+import com.cookie.app.model.entity.Recipe;
+import com.cookie.app.repository.RecipeViewRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Captor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.QueryTimeoutException;
+
+import java.time.Clock;
+import java.time.Duration;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class RecipeViewCounterTest {
+    private final long bucketHour = 480_000L;
+
+    @Captor
+    private ArgumentCaptor<Long[]> recipeIdsArgumentCaptor;
+    @Captor
+    private ArgumentCaptor<Long[]> viewsArgumentCaptor;
+    @Mock
+    private RecipeViewRepository recipeViewRepository;
+    @Mock
+    private Clock clock;
+
+    private RecipeViewCounter counter;
+
+    @BeforeEach
+    void init() {
+        counter = new RecipeViewCounter(recipeViewRepository, clock);
+        doReturn(Duration.ofHours(bucketHour).toMillis()).when(clock).millis();
+    }
+
+    @Test
+    void test_flushWritesViewsSortedByRecipeId() {
+
+        this.counter.recordView(2L);
+        this.counter.recordView(1L);
+        this.counter.recordView(2L);
+        this.counter.flush();
+
+        verify(recipeViewRepository).addViews(recipeIdsArgumentCaptor.capture(), viewsArgumentCaptor.capture(), eq(bucketHour));
+        assertThat(recipeIdsArgumentCaptor.getValue()).containsExactly(1L, 2L);
+        assertThat(viewsArgumentCaptor.getValue()).containsExactly(1L, 2L);
+    }
+
+    @Test
+    void test_flushWritesOnlyViewsAddedSincePreviousFlush() {
+
+        this.counter.recordView(1L);
+        this.counter.recordView(2L);
+        this.counter.flush();
+        this.counter.recordView(2L);
+        this.counter.flush();
+        this.counter.flush();
+
+        verify(recipeViewRepository, times(2))
+                .addViews(recipeIdsArgumentCaptor.capture(), viewsArgumentCaptor.capture(), eq(bucketHour));
+        assertThat(recipeIdsArgumentCaptor.getAllValues().get(1)).containsExactly(2L);
+        assertThat(viewsArgumentCaptor.getAllValues().get(1)).containsExactly(1L);
+    }
+
+    @Test
+    void test_flushFailedViewsWrittenByNextFlush() {
+
+        this.counter.recordView(1L);
+        doThrow(new QueryTimeoutException("timeout")).doReturn(1)
+                .when(recipeViewRepository).addViews(any(), any(), anyLong());
+        this.counter.flush();
+        this.counter.recordView(1L);
+        this.counter.flush();
+
+        verify(recipeViewRepository, times(2))
+                .addViews(recipeIdsArgumentCaptor.capture(), viewsArgumentCaptor.capture(), eq(bucketHour));
+        assertThat(viewsArgumentCaptor.getAllValues().get(1)).containsExactly(2L);
+    }
+
+    @Test
+    void test_flushExpiresBucketsOncePerHour() {
+        final long firstBucketHour = bucketHour - RecipeViewCounter.TRENDING_WINDOW_HOURS + 1;
+
+        this.counter.flush();
+        this.counter.flush();
+        doReturn(Duration.ofHours(bucketHour + 1).toMillis()).when(clock).millis();
+        this.counter.flush();
+
+        verify(recipeViewRepository).expireViews(firstBucketHour);
+        verify(recipeViewRepository).expireViews(firstBucketHour + 1);
+        verify(recipeViewRepository, times(0)).addViews(any(), any(), anyLong());
+    }
+
+    @Test
+    void test_onRecipeDeletedViewsNotWritten() {
+        final Recipe recipe = Recipe.builder().id(1L).build();
+
+        this.counter.recordView(1L);
+        this.counter.onRecipeChanged(new RecipeChangedEvent(recipe, RecipeChangedEvent.ChangeType.DELETED));
+        this.counter.shutdown();
+
+        verify(recipeViewRepository, times(0)).addViews(any(), any(), anyLong());
+    }
+}
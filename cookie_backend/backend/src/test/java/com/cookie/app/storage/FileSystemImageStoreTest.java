@@ -0,0 +1,165 @@
+package com.cookie.app.storage;
+
+import com.cookie.app.config.ImageStoreProperties;
+import com.cookie.app.model.enums.ImageCodec;
+import com.cookie.app.util.ImageRenditionUtil;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.http.MediaType;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.Arrays;
+import java.util.Optional;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class FileSystemImageStoreTest {
+    private final byte[] image = new byte[] {(byte) 0x89, 'P', 'N', 'G', 1, 2, 3, 4, 5, 6};
+    private final Instant now = Instant.parse("2024-05-01T12:00:00Z");
+
+    @TempDir
+    private Path rootDirectory;
+
+    private FileSystemImageStore imageStore;
+
+    @BeforeEach
+    void init() {
+        imageStore = new FileSystemImageStore(
+                new ImageStoreProperties(rootDirectory.toString(), 20, 1, 1, Duration.ofHours(1)),
+                Clock.fixed(now, ZoneOffset.UTC)
+        );
+    }
+
+    @Test
+    void test_saveImageSuccessful() {
+        final String key = ImageRenditionUtil.createImageHash(image);
+
+        String response = this.imageStore.save(image);
+
+        assertThat(response).isEqualTo(key);
+        assertThat(rootDirectory.resolve(key.substring(0, 2)).resolve(key.substring(2, 4)).resolve(key)).hasBinaryContent(image);
+    }
+
+    @Test
+    void test_saveImageFromStream() throws IOException {
+        final byte[] bigImage = new byte[100 * 1024];
+        new Random(1).nextBytes(bigImage);
+
+        String response = this.imageStore.save(new ByteArrayInputStream(bigImage));
+
+        assertThat(response).isEqualTo(ImageRenditionUtil.createImageHash(bigImage));
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        ImageContent imageContent = this.imageStore.find(response).orElseThrow();
+        imageContent.writeTo(outputStream, 0, imageContent.contentLength());
+        assertThat(outputStream.toByteArray()).isEqualTo(bigImage);
+    }
+
+    @Test
+    void test_saveSameImageTwiceStoresOneFile() throws IOException {
+
+        String firstKey = this.imageStore.save(image);
+        String secondKey = this.imageStore.save(image.clone());
+
+        assertThat(secondKey).isEqualTo(firstKey);
+        try (var files = Files.walk(rootDirectory)) {
+            assertThat(files.filter(Files::isRegularFile).count()).isEqualTo(1);
+        }
+    }
+
+    @Test
+    void test_saveCompressibleImageDeflated() {
+        final byte[] bitmap = new byte[64 * 1024];
+        Arrays.fill(bitmap, (byte) 7);
+        final String key = ImageRenditionUtil.createImageHash(bitmap);
+
+        this.imageStore.save(bitmap);
+        Optional<ImageContent> response = this.imageStore.find(key);
+
+        Path imagePath = rootDirectory.resolve(key.substring(0, 2)).resolve(key.substring(2, 4));
+        assertThat(imagePath.resolve(key + ImageCodec.DEFLATE.getFileSuffix())).exists();
+        assertThat(imagePath.resolve(key)).doesNotExist();
+        assertThat(response).containsInstanceOf(ByteArrayImageContent.class);
+        assertThat(((ByteArrayImageContent) response.get()).image()).isEqualTo(bitmap);
+    }
+
+    @Test
+    void test_saveEmptyImage() {
+
+        assertThatThrownBy(() -> this.imageStore.save(new byte[0]))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    void test_findImageWritingRange() throws IOException {
+        final String key = this.imageStore.save(image);
+
+        Optional<ImageContent> response = this.imageStore.find(key);
+
+        assertThat(response).isPresent();
+        assertThat(response.get().contentLength()).isEqualTo(image.length);
+        assertThat(response.get().mediaType()).isEqualTo(MediaType.IMAGE_PNG);
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        response.get().writeTo(outputStream, 4, 3);
+        assertThat(outputStream.toByteArray()).isEqualTo(new byte[] {1, 2, 3});
+    }
+
+    @Test
+    void test_findImageWithInvalidKey() {
+
+        Optional<ImageContent> response = this.imageStore.find("../../etc/passwd");
+
+        assertThat(response).isEmpty();
+    }
+
+    @Test
+    void test_deleteImage() {
+        final String key = this.imageStore.save(image);
+
+        this.imageStore.delete(key);
+
+        assertThat(this.imageStore.find(key)).isEmpty();
+    }
+
+    @Test
+    void test_deleteIfSavedBeforeDeletesImageSavedEarlier() {
+        final String key = this.imageStore.save(image);
+
+        boolean response = this.imageStore.deleteIfSavedBefore(key, now.plusSeconds(1));
+
+        assertThat(response).isTrue();
+        assertThat(this.imageStore.find(key)).isEmpty();
+    }
+
+    @Test
+    void test_deleteIfSavedBeforeKeepsImageSavedAgain() throws IOException {
+        final String key = this.imageStore.save(image);
+        final Path imagePath = rootDirectory.resolve(key.substring(0, 2)).resolve(key.substring(2, 4)).resolve(key);
+        Files.setLastModifiedTime(imagePath, FileTime.from(now.minus(Duration.ofDays(1))));
+
+        this.imageStore.save(image);
+        boolean response = this.imageStore.deleteIfSavedBefore(key, now.minus(Duration.ofHours(1)));
+
+        assertThat(response).isFalse();
+        assertThat(this.imageStore.find(key)).isPresent();
+    }
+
+    @Test
+    void test_deleteIfSavedBeforeImageDoesNotExist() {
+
+        boolean response = this.imageStore.deleteIfSavedBefore(ImageRenditionUtil.createImageHash(image), now);
+
+        assertThat(response).isTrue();
+    }
+}
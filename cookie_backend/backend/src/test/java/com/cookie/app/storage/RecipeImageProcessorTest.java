@@ -0,0 +1,153 @@
+package com.cookie.app.storage;
+
+import com.cookie.app.config.CacheConfig;
+import com.cookie.app.config.ImageStoreProperties;
+import com.cookie.app.exception.ImageProcessingUnavailableException;
+import com.cookie.app.model.enums.ImageRendition;
+import com.cookie.app.repository.RecipeRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Captor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.cache.concurrent.ConcurrentMapCacheManager;
+import org.springframework.mock.web.MockMultipartFile;
+
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Path;
+import java.time.Duration;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class RecipeImageProcessorTest {
+    private final long recipeId = 1L;
+    private final String imageHash = "imageHash";
+
+    @TempDir
+    private Path rootDirectory;
+    @Captor
+    private ArgumentCaptor<byte[]> thumbnailArgumentCaptor;
+    @Captor
+    private ArgumentCaptor<byte[]> cardImageArgumentCaptor;
+    @Mock
+    private RecipeRepository recipeRepository;
+    @Mock
+    private ImageStore imageStore;
+    @Mock
+    private UnusedImageCollector unusedImageCollector;
+
+    private ConcurrentMapCacheManager cacheManager;
+    private SimpleMeterRegistry meterRegistry;
+    private RecipeImageProcessor processor;
+    private MockMultipartFile image;
+
+    @BeforeEach
+    void init() throws IOException {
+        cacheManager = new ConcurrentMapCacheManager();
+        meterRegistry = new SimpleMeterRegistry();
+        processor = new RecipeImageProcessor(
+                recipeRepository,
+                imageStore,
+                unusedImageCollector,
+                new ImageStoreProperties(rootDirectory.toString(), 20, 1, 1, Duration.ofHours(1)),
+                cacheManager,
+                meterRegistry
+        );
+
+        ByteArrayOutputStream imageOutputStream = new ByteArrayOutputStream();
+        ImageIO.write(new BufferedImage(1600, 1200, BufferedImage.TYPE_INT_RGB), "jpeg", imageOutputStream);
+        image = new MockMultipartFile("image.jpg", "image.jpg", "image/jpeg", imageOutputStream.toByteArray());
+    }
+
+    @AfterEach
+    void shutdown() throws InterruptedException {
+        processor.shutdown();
+    }
+
+    @Test
+    void test_acceptImageQueueFull() {
+
+        assertThat(this.processor.accept(image)).isNotNull();
+        assertThat(this.processor.accept(image)).isNotNull();
+        assertThatThrownBy(() -> this.processor.accept(image))
+                .isInstanceOf(ImageProcessingUnavailableException.class)
+                .hasMessage("Too many images are processed now, try again later");
+        assertThat(meterRegistry.get("recipe.images.rejected").counter().count()).isEqualTo(1);
+    }
+
+    @Test
+    void test_discardImageReleasesPermitOnce() {
+
+        PendingImage pendingImage = this.processor.accept(image);
+        this.processor.accept(image);
+        this.processor.discard(pendingImage);
+        this.processor.discard(pendingImage);
+
+        assertThat(pendingImage.getPath()).doesNotExist();
+        assertThat(this.processor.accept(image)).isNotNull();
+        assertThatThrownBy(() -> this.processor.accept(image))
+                .isInstanceOf(ImageProcessingUnavailableException.class);
+    }
+
+    @Test
+    void test_processImageSuccessful() throws IOException {
+        final PendingImage pendingImage = this.processor.accept(image);
+        cacheManager.getCache(CacheConfig.RECIPE_DETAILS_CACHE).put(recipeId, "details");
+        cacheManager.getCache(CacheConfig.RECIPE_PAGES_CACHE).put("page", "page");
+
+        doReturn(imageHash).when(imageStore).save(any(InputStream.class));
+        doReturn(1).when(recipeRepository).completeImageProcessing(eq(recipeId), eq(pendingImage.getUploadId()),
+                eq(imageHash), thumbnailArgumentCaptor.capture(), cardImageArgumentCaptor.capture());
+        this.processor.process(recipeId, pendingImage);
+
+        BufferedImage thumbnail = ImageIO.read(new ByteArrayInputStream(thumbnailArgumentCaptor.getValue()));
+        BufferedImage cardImage = ImageIO.read(new ByteArrayInputStream(cardImageArgumentCaptor.getValue()));
+        assertThat(thumbnail.getWidth()).isEqualTo(ImageRendition.THUMBNAIL.getMaxDimension());
+        assertThat(cardImage.getWidth()).isEqualTo(ImageRendition.CARD.getMaxDimension());
+        assertThat(cacheManager.getCache(CacheConfig.RECIPE_DETAILS_CACHE).get(recipeId)).isNull();
+        assertThat(cacheManager.getCache(CacheConfig.RECIPE_PAGES_CACHE).get("page")).isNull();
+        assertThat(pendingImage.getPath()).doesNotExist();
+        verify(unusedImageCollector, times(0)).markUnused(imageHash);
+    }
+
+    @Test
+    void test_processImageRecipeGotNewerImage() throws IOException {
+        final PendingImage pendingImage = this.processor.accept(image);
+
+        doReturn(imageHash).when(imageStore).save(any(InputStream.class));
+        doReturn(0).when(recipeRepository).completeImageProcessing(anyLong(), anyString(), anyString(), any(), any());
+        this.processor.process(recipeId, pendingImage);
+
+        verify(unusedImageCollector).markUnused(imageHash);
+        verify(imageStore, times(0)).delete(anyString());
+        assertThat(pendingImage.getPath()).doesNotExist();
+    }
+
+    @Test
+    void test_processImageFailed() throws IOException {
+        final PendingImage pendingImage = this.processor.accept(image);
+
+        doThrow(new IOException()).when(imageStore).save(any(InputStream.class));
+        doReturn(1).when(recipeRepository).failImageProcessing(recipeId, pendingImage.getUploadId());
+        this.processor.process(recipeId, pendingImage);
+
+        verify(recipeRepository).failImageProcessing(recipeId, pendingImage.getUploadId());
+        verify(recipeRepository, times(0)).completeImageProcessing(anyLong(), anyString(), anyString(), any(), any());
+        assertThat(pendingImage.getPath()).doesNotExist();
+    }
+}
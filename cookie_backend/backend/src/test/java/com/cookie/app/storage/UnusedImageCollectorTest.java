@@ -0,0 +1,96 @@
+package com.cookie.app.storage;
+
+import com.cookie.app.config.ImageStoreProperties;
+import com.cookie.app.repository.UnusedImageRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.QueryTimeoutException;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class UnusedImageCollectorTest {
+    private final Instant now = Instant.parse("2024-05-01T12:00:00Z");
+    private final Instant savedBefore = now.minus(Duration.ofHours(1));
+    private final String imageHash = "imageHash";
+
+    @Mock
+    private UnusedImageRepository unusedImageRepository;
+    @Mock
+    private ImageStore imageStore;
+
+    private UnusedImageCollector collector;
+
+    @BeforeEach
+    void init() {
+        collector = new UnusedImageCollector(
+                unusedImageRepository,
+                imageStore,
+                new ImageStoreProperties("images", 20, 1, 1, Duration.ofHours(1)),
+                Clock.fixed(now, ZoneOffset.UTC)
+        );
+    }
+
+    @Test
+    void test_markUnused() {
+
+        this.collector.markUnused(imageHash);
+
+        verify(unusedImageRepository).markUnused(imageHash, now);
+    }
+
+    @Test
+    void test_markUnusedWithoutImage() {
+
+        this.collector.markUnused(null);
+
+        verifyNoInteractions(unusedImageRepository);
+    }
+
+    @Test
+    void test_deleteUnusedImagesSuccessful() {
+        final String savedAgainImageHash = "savedAgainImageHash";
+
+        doReturn(List.of(imageHash, savedAgainImageHash)).when(unusedImageRepository).findUnusedImages(savedBefore, 500);
+        doReturn(true).when(imageStore).deleteIfSavedBefore(imageHash, savedBefore);
+        doReturn(false).when(imageStore).deleteIfSavedBefore(savedAgainImageHash, savedBefore);
+        int deletedImages = this.collector.deleteUnusedImages();
+
+        verify(unusedImageRepository).deleteMarksOfUsedImages();
+        verify(unusedImageRepository).deleteMarks(new String[] {imageHash});
+        assertThat(deletedImages).isEqualTo(1);
+    }
+
+    @Test
+    void test_deleteUnusedImagesNothingToDelete() {
+
+        doReturn(List.of()).when(unusedImageRepository).findUnusedImages(savedBefore, 500);
+        int deletedImages = this.collector.deleteUnusedImages();
+
+        verify(imageStore, times(0)).deleteIfSavedBefore(anyString(), any(Instant.class));
+        verify(unusedImageRepository, times(0)).deleteMarks(any());
+        assertThat(deletedImages).isZero();
+    }
+
+    @Test
+    void test_deleteUnusedImagesFailed() {
+
+        doThrow(new QueryTimeoutException("timeout")).when(unusedImageRepository).deleteMarksOfUsedImages();
+        int deletedImages = this.collector.deleteUnusedImages();
+
+        verifyNoInteractions(imageStore);
+        assertThat(deletedImages).isZero();
+    }
+}
@@ -0,0 +1,60 @@
+package com.cookie.app.util;
+
+import com.cookie.app.exception.ValidationException;
+import com.cookie.app.repository.RecipeKeyset;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.Sort;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class CursorUtilTest {
+
+    @Test
+    void test_encodeAndDecodeCursor() {
+        final RecipeKeyset keyset = new RecipeKeyset("recipe_name", Sort.Direction.ASC, "Pizza\nsalami", 15L);
+
+        RecipeKeyset decodedKeyset = CursorUtil.decode(CursorUtil.encode(keyset));
+
+        assertThat(decodedKeyset).isEqualTo(keyset);
+    }
+
+    @Test
+    void test_decodeCursorWithoutSortValue() {
+        final RecipeKeyset keyset = new RecipeKeyset("cuisine", Sort.Direction.DESC, null, 3L);
+
+        RecipeKeyset decodedKeyset = CursorUtil.decode(CursorUtil.encode(keyset));
+
+        assertThat(decodedKeyset.lastValue()).isEmpty();
+        assertThat(decodedKeyset.lastId()).isEqualTo(3L);
+    }
+
+    @Test
+    void test_decodeNotBase64Cursor() {
+        assertThatThrownBy(() -> CursorUtil.decode("not base64 !"))
+                .isInstanceOf(ValidationException.class);
+    }
+
+    @Test
+    void test_decodeCursorWithNotSortableColumn() {
+        final String cursor = encodeRaw("password\nASC\n1\nvalue");
+
+        assertThatThrownBy(() -> CursorUtil.decode(cursor))
+                .isInstanceOf(ValidationException.class);
+    }
+
+    @Test
+    void test_decodeCursorWithNotNumericValueForNumericColumn() {
+        final String cursor = encodeRaw("portions\nASC\n1\n1 OR 1=1");
+
+        assertThatThrownBy(() -> CursorUtil.decode(cursor))
+                .isInstanceOf(ValidationException.class);
+    }
+
+    private String encodeRaw(String rawCursor) {
+        return Base64.getUrlEncoder().encodeToString(rawCursor.getBytes(StandardCharsets.UTF_8));
+    }
+}
@@ -0,0 +1,96 @@
+package com.cookie.app.util;
+
+import com.cookie.app.model.enums.ImageRendition;
+import org.junit.jupiter.api.Test;
+
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ImageRenditionUtilTest {
+
+    @Test
+    void test_createRenditionWithNullData() {
+
+        byte[] rendition = ImageRenditionUtil.createRendition(null, ImageRendition.THUMBNAIL);
+
+        assertThat(rendition)
+                .isNotNull()
+                .isEmpty();
+    }
+
+    @Test
+    void test_createRenditionWithNotImageData() {
+
+        byte[] rendition = ImageRenditionUtil.createRendition(new byte[] {1, 2, 3}, ImageRendition.THUMBNAIL);
+
+        assertThat(rendition)
+                .isNotNull()
+                .isEmpty();
+    }
+
+    @Test
+    void test_createThumbnailFromBigImage() throws IOException {
+        final byte[] image = createImage(1600, 1200, BufferedImage.TYPE_INT_RGB, "jpeg");
+
+        byte[] rendition = ImageRenditionUtil.createRendition(image, ImageRendition.THUMBNAIL);
+        BufferedImage renditionImage = ImageIO.read(new ByteArrayInputStream(rendition));
+
+        assertThat(rendition.length).isLessThan(image.length);
+        assertThat(renditionImage.getWidth()).isEqualTo(320);
+        assertThat(renditionImage.getHeight()).isEqualTo(240);
+    }
+
+    @Test
+    void test_createRenditionFromImageWithTransparency() throws IOException {
+        final byte[] image = createImage(600, 1200, BufferedImage.TYPE_INT_ARGB, "png");
+
+        byte[] rendition = ImageRenditionUtil.createRendition(image, ImageRendition.CARD);
+        BufferedImage renditionImage = ImageIO.read(new ByteArrayInputStream(rendition));
+
+        assertThat(renditionImage.getColorModel().hasAlpha()).isTrue();
+        assertThat(renditionImage.getWidth()).isEqualTo(400);
+        assertThat(renditionImage.getHeight()).isEqualTo(800);
+    }
+
+    @Test
+    void test_createRenditionFromSmallImageReturnsOriginal() throws IOException {
+        final byte[] image = createImage(200, 100, BufferedImage.TYPE_INT_RGB, "jpeg");
+
+        byte[] rendition = ImageRenditionUtil.createRendition(image, ImageRendition.THUMBNAIL);
+
+        assertThat(rendition).isSameAs(image);
+    }
+
+    @Test
+    void test_createRenditionsFromStream() throws IOException {
+        final byte[] image = createImage(1000, 500, BufferedImage.TYPE_INT_RGB, "jpeg");
+
+        Map<ImageRendition, byte[]> renditions = ImageRenditionUtil.createRenditions(
+                () -> new ByteArrayInputStream(image), ImageRendition.THUMBNAIL, ImageRendition.CARD, ImageRendition.FULL
+        );
+
+        assertThat(ImageIO.read(new ByteArrayInputStream(renditions.get(ImageRendition.THUMBNAIL))).getWidth()).isEqualTo(320);
+        assertThat(ImageIO.read(new ByteArrayInputStream(renditions.get(ImageRendition.CARD))).getWidth()).isEqualTo(800);
+        assertThat(renditions.get(ImageRendition.FULL)).isEqualTo(image);
+    }
+
+    private byte[] createImage(int width, int height, int type, String format) throws IOException {
+        BufferedImage image = new BufferedImage(width, height, type);
+        for (int x = 0; x < width; x++) {
+            for (int y = 0; y < height; y++) {
+                image.setRGB(x, y, (x * 31 + y * 17) | 0xFF000000);
+            }
+        }
+
+        try (ByteArrayOutputStream outputStream = new ByteArrayOutputStream()) {
+            ImageIO.write(image, format, outputStream);
+            return outputStream.toByteArray();
+        }
+    }
+}
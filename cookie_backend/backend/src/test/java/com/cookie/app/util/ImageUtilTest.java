@@ -1,8 +1,13 @@
 package com.cookie.app.util;
 
+import com.cookie.app.model.enums.ImageCodec;
 import org.junit.jupiter.api.Test;
 
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
 import java.util.Arrays;
+import java.util.Random;
 
 import static org.assertj.core.api.Assertions.*;
 
@@ -75,4 +80,87 @@ class ImageUtilTest {
                 .isNotNull()
                 .containsExactly(inputData);
     }
-}
\ No newline at end of file
+
+    @Test
+    void test_selectCodecWithEmptyData() {
+
+        ImageCodec codec = ImageUtil.selectCodec(new byte[0]);
+
+        assertThat(codec).isEqualTo(ImageCodec.RAW);
+    }
+
+    @Test
+    void test_selectCodecWithCompressibleData() {
+        byte[] inputData = new byte[64 * 1024];
+        Arrays.fill(inputData, (byte) 1);
+
+        ImageCodec codec = ImageUtil.selectCodec(inputData);
+
+        assertThat(codec).isEqualTo(ImageCodec.DEFLATE);
+    }
+
+    @Test
+    void test_selectCodecWithIncompressibleData() {
+        byte[] inputData = new byte[64 * 1024];
+        new Random(1).nextBytes(inputData);
+
+        ImageCodec codec = ImageUtil.selectCodec(inputData);
+
+        assertThat(codec).isEqualTo(ImageCodec.RAW);
+    }
+
+    @Test
+    void test_encodeImageRawKeepsData() {
+        byte[] inputData = new byte[] {1, 2, 3};
+
+        byte[] encodedImage = ImageUtil.encodeImage(inputData, ImageCodec.RAW);
+
+        assertThat(encodedImage).isSameAs(inputData);
+        assertThat(ImageUtil.decodeImage(encodedImage, ImageCodec.RAW)).isSameAs(inputData);
+    }
+
+    @Test
+    void test_decodeImageDeflate() {
+        byte[] inputData = new byte[100];
+        Arrays.fill(inputData, (byte) 1);
+
+        byte[] decodedImage = ImageUtil.decodeImage(ImageUtil.encodeImage(inputData, ImageCodec.DEFLATE), ImageCodec.DEFLATE);
+
+        assertThat(decodedImage).containsExactly(inputData);
+    }
+
+    @Test
+    void test_compressImageStreamDecompressedByArrayVariant() throws IOException {
+        byte[] inputData = new byte[100 * 1024];
+        Arrays.fill(inputData, (byte) 1);
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+
+        long compressedSize = ImageUtil.compressImage(new ByteArrayInputStream(inputData), outputStream);
+
+        assertThat(compressedSize).isEqualTo(outputStream.size());
+        assertThat(ImageUtil.decompressImage(outputStream.toByteArray())).containsExactly(inputData);
+    }
+
+    @Test
+    void test_decompressImageStream() throws IOException {
+        byte[] inputData = new byte[100 * 1024];
+        new Random(1).nextBytes(inputData);
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+
+        long decompressedSize = ImageUtil.decompressImage(new ByteArrayInputStream(ImageUtil.compressImage(inputData)), outputStream);
+
+        assertThat(decompressedSize).isEqualTo(inputData.length);
+        assertThat(outputStream.toByteArray()).containsExactly(inputData);
+    }
+
+    @Test
+    void test_decompressImageWithTruncatedInput() {
+        byte[] inputData = new byte[100];
+        Arrays.fill(inputData, (byte) 1);
+        byte[] compressedData = ImageUtil.compressImage(inputData);
+
+        byte[] decompressedImage = ImageUtil.decompressImage(Arrays.copyOf(compressedData, compressedData.length / 2));
+
+        assertThat(decompressedImage).isEmpty();
+    }
+}
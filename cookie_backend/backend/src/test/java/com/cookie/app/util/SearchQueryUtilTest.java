@@ -0,0 +1,96 @@
+package com.cookie.app.util;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class SearchQueryUtilTest {
+
+    @Test
+    void test_toPrefixTsQueryWithNullFilter() {
+
+        String tsQuery = SearchQueryUtil.toPrefixTsQuery(null);
+
+        assertThat(tsQuery).isEmpty();
+    }
+
+    @Test
+    void test_toPrefixTsQueryWithBlankFilter() {
+
+        String tsQuery = SearchQueryUtil.toPrefixTsQuery("   ");
+
+        assertThat(tsQuery).isEmpty();
+    }
+
+    @Test
+    void test_toPrefixTsQueryWithSingleWord() {
+
+        String tsQuery = SearchQueryUtil.toPrefixTsQuery("Pizza");
+
+        assertThat(tsQuery).isEqualTo("pizza:*");
+    }
+
+    @Test
+    void test_toPrefixTsQueryWithManyWordsAndDashes() {
+
+        String tsQuery = SearchQueryUtil.toPrefixTsQuery("  spaghetti  bolo-nese ");
+
+        assertThat(tsQuery).isEqualTo("spaghetti:* & bolo:* & nese:*");
+    }
+
+    @Test
+    void test_toPrefixTsQueryWithOnlyDashes() {
+
+        String tsQuery = SearchQueryUtil.toPrefixTsQuery("--");
+
+        assertThat(tsQuery).isEmpty();
+    }
+
+    @Test
+    void test_toPrefixTsQueryWithTsQueryOperators() {
+
+        String tsQuery = SearchQueryUtil.toPrefixTsQuery("mac & cheese | !(pasta) <-> sal:* \\");
+
+        assertThat(tsQuery).isEqualTo("mac:* & cheese:* & pasta:* & sal:*");
+    }
+
+    @Test
+    void test_toPrefixTsQueryWithApostrophes() {
+
+        String tsQuery = SearchQueryUtil.toPrefixTsQuery("Rock'n'roll");
+
+        assertThat(tsQuery).isEqualTo("rock:* & n:* & roll:*");
+    }
+
+    @Test
+    void test_toPrefixTsQueryWithOnlyOperators() {
+
+        String tsQuery = SearchQueryUtil.toPrefixTsQuery("& | ! ( ) : ' < >");
+
+        assertThat(tsQuery).isEmpty();
+    }
+
+    @Test
+    void test_toPrefixTsQueryWithAccentsAndDigits() {
+
+        String tsQuery = SearchQueryUtil.toPrefixTsQuery("Crème brûlée 2");
+
+        assertThat(tsQuery).isEqualTo("crème:* & brûlée:* & 2:*");
+    }
+
+    @Test
+    void test_normalizeSearchTextWithAccentsAndWhitespaces() {
+
+        String normalizedText = SearchQueryUtil.normalizeSearchText(" Crème  Brûlée\t");
+
+        assertThat(normalizedText).isEqualTo("creme brulee");
+    }
+
+    @Test
+    void test_normalizeSearchTextWithNullText() {
+
+        String normalizedText = SearchQueryUtil.normalizeSearchText(null);
+
+        assertThat(normalizedText).isEmpty();
+    }
+}
@@ -30,6 +30,7 @@ import { MatDialog } from '@angular/material/dialog';
 import { ModifyIngredientComponent } from './modify-ingredient/modify-ingredient.component';
 import { ProductDTO } from 'src/app/shared/model/types/product-types';
 import { el } from '@fullcalendar/core/internal-common';
+import { environment } from 'src/environments/environment';
 
 @Component({
   selector: 'app-create-recipe',
@@ -134,9 +135,8 @@ export class CreateRecipeComponent implements OnInit {
             recipeDetails.portions.toString()
           );
           this.ingredientsToAdd = recipeDetails.products;
-          if (recipeDetails.recipeImage) {
-            this.imageUrl =
-              'data:image/JPEG;png;base64,' + recipeDetails.recipeImage;
+          if (recipeDetails.imageUrl) {
+            this.imageUrl = environment.backendHost + recipeDetails.imageUrl;
           }
         });
     }
@@ -3,6 +3,7 @@ import { Component, OnInit } from '@angular/core';
 import { ActivatedRoute, Router } from '@angular/router';
 import { RecipesService } from '../recipes.service';
 import {
+  RecipeDTO,
   RecipeDetailsDTO,
   RecipeProductDTO,
 } from 'src/app/shared/model/types/recipes-types';
@@ -11,6 +12,7 @@ import { UserService } from 'src/app/shared/services/user-service';
 import { MatDialog } from '@angular/material/dialog';
 import { DeletePopupComponent } from 'src/app/shared/components/delete-popup/delete-popup.component';
 import { MatSnackBar } from '@angular/material/snack-bar';
+import { environment } from 'src/environments/environment';
 
 @Component({
   selector: 'app-recipe-details',
@@ -20,6 +22,7 @@ import { MatSnackBar } from '@angular/material/snack-bar';
 export class RecipeDetailsComponent implements OnInit {
   protected recipeDetails: RecipeDetailsDTO | null = null;
   protected recipeImage: string = '';
+  protected similarRecipes: RecipeDTO[] = [];
   protected showReturnToMeals = false;
 
   constructor(
@@ -43,18 +46,25 @@ export class RecipeDetailsComponent implements OnInit {
       }
     });
 
-    const recipeId = this.route.snapshot.params['id'];
+    // similar recipe links reuse this component, so recipe is reloaded on every id change
+    this.route.params.subscribe((params) => {
+      const recipeId = params['id'];
 
-    this.recipesService
-      .getRecipeDetails(recipeId)
-      .subscribe((recipeDetails: RecipeDetailsDTO) => {
-        this.recipeDetails = recipeDetails;
+      this.recipesService
+        .getRecipeDetails(recipeId)
+        .subscribe((recipeDetails: RecipeDetailsDTO) => {
+          this.recipeDetails = recipeDetails;
+          this.recipeImage = recipeDetails.imageUrl
+            ? environment.backendHost + recipeDetails.imageUrl
+            : '';
+        });
 
-        if (recipeDetails.recipeImage) {
-          this.recipeImage =
-            'data:image/JPEG;png;base64,' + recipeDetails.recipeImage;
-        }
-      });
+      this.recipesService
+        .getSimilarRecipes(recipeId)
+        .subscribe((similarRecipes: RecipeDTO[]) => {
+          this.similarRecipes = similarRecipes;
+        });
+    });
   }
 
   printShortUnit(recipeProduct: RecipeProductDTO) {
@@ -3,6 +3,7 @@ import { Router } from '@angular/router';
 import { RecipeDTO } from 'src/app/shared/model/types/recipes-types';
 import { MealPlanningService } from 'src/app/shared/services/meal-planning-service';
 import { UserService } from 'src/app/shared/services/user-service';
+import { environment } from 'src/environments/environment';
 
 @Component({
   selector: 'app-recipe-tile',
@@ -21,9 +22,8 @@ export class RecipeTileComponent implements OnInit {
   ) {}
 
   ngOnInit(): void {
-    if (this.recipe.recipeImage) {
-      this.recipeImage =
-        'data:image/JPEG;png;base64,' + this.recipe.recipeImage;
+    if (this.recipe.imageUrl) {
+      this.recipeImage = environment.backendHost + this.recipe.imageUrl;
     }
   }
 
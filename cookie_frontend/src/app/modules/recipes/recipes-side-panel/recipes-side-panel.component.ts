@@ -23,9 +23,13 @@ import {
   FormControl,
   FormGroup,
 } from '@angular/forms';
-import { GetRecipesParams } from 'src/app/shared/model/types/recipes-types';
+import {
+  GetRecipesParams,
+  RecipeFacetsDTO,
+} from 'src/app/shared/model/types/recipes-types';
 import { MealType, mealTypes } from 'src/app/shared/model/enums/meal-type.enum';
 import { MatCheckbox, MatCheckboxChange } from '@angular/material/checkbox';
+import { RecipesService } from '../recipes.service';
 
 @Component({
   selector: 'app-recipes-side-panel',
@@ -42,8 +46,9 @@ export class RecipesSidePanelComponent implements AfterViewInit {
   protected prepTimes = maxPrepTimes;
   protected portions = portions;
   protected filterForm: FormGroup;
+  protected facets: RecipeFacetsDTO | null = null;
 
-  constructor(private fb: FormBuilder) {
+  constructor(private fb: FormBuilder, private recipesService: RecipesService) {
     this.filterForm = this.createFilterForm();
   }
 
@@ -62,6 +67,15 @@ export class RecipesSidePanelComponent implements AfterViewInit {
     };
 
     this.filterRequest.emit(params);
+    // counts are shown next to filter options, so user knows how many recipes each option leaves
+    this.recipesService.getRecipeFacets(params).subscribe({
+      next: (facets) => {
+        this.facets = facets;
+      },
+      error: () => {
+        this.facets = null;
+      },
+    });
   }
 
   onMealTypeChange(event: MatCheckboxChange, value: MealType) {
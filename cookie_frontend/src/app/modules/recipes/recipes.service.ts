@@ -8,6 +8,7 @@ import {
   GetRecipesParams,
   RecipeDTO,
   RecipeDetailsDTO,
+  RecipeFacetsDTO,
 } from 'src/app/shared/model/types/recipes-types';
 import { environment } from 'src/environments/environment';
 
@@ -16,8 +17,10 @@ export class RecipesService {
   private readonly url = environment.backendUrl;
   private readonly recipes_path = 'recipes';
   private readonly recipes_page_path = 'recipes/page/{page}';
+  private readonly recipes_facets_path = 'recipes/facets';
   private readonly user_recipes_page_path = 'recipes/user-recipes/{page}';
   private readonly recipes_details_path = 'recipes/{id}';
+  private readonly similar_recipes_path = 'recipes/{id}/similar';
   private readonly products_path = 'products';
 
   constructor(private http: HttpClient) {}
@@ -42,10 +45,23 @@ export class RecipesService {
     );
   }
 
+  getRecipeFacets(filterValues: GetRecipesParams): Observable<RecipeFacetsDTO> {
+    return this.http.get<RecipeFacetsDTO>(
+      this.url + this.recipes_facets_path,
+      { params: this.createFilterParams(filterValues) }
+    );
+  }
+
   private getRecipes(
     filterValues: GetRecipesParams,
     path: string
   ): Observable<PageResult<RecipeDTO>> {
+    return this.http.get<PageResult<RecipeDTO>>(path, {
+      params: this.createFilterParams(filterValues),
+    });
+  }
+
+  private createFilterParams(filterValues: GetRecipesParams): HttpParams {
     let params = new HttpParams();
 
     if (filterValues.filterValue) {
@@ -69,7 +85,7 @@ export class RecipesService {
       }
     }
 
-    return this.http.get<PageResult<RecipeDTO>>(path, { params: params });
+    return params;
   }
 
   getRecipeDetails(recipeId: number) {
@@ -78,6 +94,12 @@ export class RecipesService {
     );
   }
 
+  getSimilarRecipes(recipeId: number): Observable<RecipeDTO[]> {
+    return this.http.get<RecipeDTO[]>(
+      this.url + this.similar_recipes_path.replace('{id}', recipeId.toString())
+    );
+  }
+
   createRecipe(formData: FormData) {
     return this.http.post<CreateRecipeResponse>(
       this.url + this.recipes_path,
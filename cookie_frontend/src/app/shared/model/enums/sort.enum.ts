@@ -6,6 +6,8 @@ export enum SortColumnName {
   PREPARATION_TIME = 'preparation_time',
   CUISINE = 'cuisine',
   PORTIONS = 'portions',
+  VIEW_COUNT = 'view_count',
+  TRENDING_VIEWS = 'trending_views',
 }
 
 export const pantrySortColumnNames = [
@@ -19,6 +21,8 @@ export const recipeSortColumnNames = [
   { name: 'Preparation time', value: SortColumnName.PREPARATION_TIME },
   { name: 'Cuisine', value: SortColumnName.CUISINE },
   { name: 'Portions', value: SortColumnName.PORTIONS },
+  { name: 'Popularity', value: SortColumnName.VIEW_COUNT },
+  { name: 'Trending', value: SortColumnName.TRENDING_VIEWS },
 ];
 
 export const shoppingListSortColumnNames = [
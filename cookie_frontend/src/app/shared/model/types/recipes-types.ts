@@ -9,7 +9,7 @@ export type RecipeDTO = {
   mealType: MealType;
   cuisine: string;
   portions: number;
-  recipeImage: Blob;
+  imageUrl: string | null;
   creatorUserName: string;
   nrOfProducts: number;
 };
@@ -29,7 +29,7 @@ export type RecipeDetailsDTO = {
   mealType: MealType;
   cuisine: string;
   portions: number;
-  recipeImage: Blob;
+  imageUrl: string | null;
   creatorUserName: string;
   products: RecipeProductDTO[];
 };
@@ -42,3 +42,11 @@ export type GetRecipesParams = {
   sortColName: string | null;
   sortDirection: string | null;
 };
+
+export type RecipeFacetsDTO = {
+  totalElements: number;
+  mealTypes: Record<MealType, number>;
+  cuisines: Record<string, number>;
+  preparationTimes: Record<number, number>;
+  portions: Record<number, number>;
+};
@@ -1,4 +1,5 @@
 export const environment = {
   production: false,
   backendUrl: 'http://localhost:8081/api/v1/',
+  backendHost: 'http://localhost:8081',
 };
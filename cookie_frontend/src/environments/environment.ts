@@ -1,4 +1,5 @@
 export const environment = {
   production: true,
   backendUrl: '/api/v1/',
+  backendHost: '',
 };